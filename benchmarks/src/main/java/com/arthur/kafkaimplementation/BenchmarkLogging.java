@@ -0,0 +1,42 @@
+package com.arthur.kafkaimplementation;
+
+import java.util.logging.Handler;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Logs da aplicação dentro dos benchmarks.
+ *
+ * Os forks rodam com -Dorg.jboss.logging.provider=jdk: os Log.xxx das classes
+ * medidas (via io.quarkus.logging.Log deste módulo) caem no java.util.logging. O nível fica o de produção (INFO),
+ * então isEnabled, formatação e o LogRecord são medidos; o handler descarta o
+ * registro em vez de escrever no console, que dominaria o tempo por operação
+ * e misturaria linhas de log com a saída do JMH.
+ */
+public final class BenchmarkLogging {
+
+    private BenchmarkLogging() {
+    }
+
+    public static void discard() {
+        Logger root = LogManager.getLogManager().getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            root.removeHandler(handler);
+        }
+        root.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                // formatado e descartado
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+}
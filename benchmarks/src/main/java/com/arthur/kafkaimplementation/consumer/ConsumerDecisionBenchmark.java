@@ -0,0 +1,149 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import com.arthur.kafkaimplementation.BenchmarkLogging;
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer;
+import com.arthur.kafkaimplementation.service.DigestCoalescer;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import com.arthur.kafkaimplementation.service.NotificationDeliveryService;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.RateLimitDecision;
+import com.arthur.kafkaimplementation.service.RateLimitRequest;
+import com.arthur.kafkaimplementation.service.RateLimitStatus;
+import com.arthur.kafkaimplementation.service.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho de decisão do NotificationConsumer.consume, sem Kafka, Redis nem provedor:
+ * metadata do registro → rate limiter → DLT ou entrega → ack.
+ *
+ * Rate limiter, DLT e entrega são stubs de custo zero, então o número mede só o
+ * que o consumer faz em volta deles (logs, métricas, sketch de usuários quentes,
+ * headers de retry, ack).
+ * allowRatio controla quantas mensagens seguem pelo caminho permitido.
+ *
+ * Os logs seguem no nível de produção (INFO): a formatação entra na conta,
+ * a escrita no console não (BenchmarkLogging.discard).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.jboss.logging.provider=jdk")
+public class ConsumerDecisionBenchmark {
+
+    private static final int MESSAGES = 1024;
+
+    @Param({"1.0", "0.5"})
+    double allowRatio;
+
+    private NotificationConsumer consumer;
+    private Message<NotificationEvent>[] messages;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        BenchmarkLogging.discard();
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+
+        consumer = new NotificationConsumer();
+        consumer.rateLimiter = new FixedRatioRateLimiter(allowRatio);
+        consumer.deadLetterProducer = new NoopDeadLetterProducer();
+        consumer.deliveryService = new NoopDeliveryService();
+        consumer.metrics = metrics;
+        consumer.hotKeys = new HotKeyTracker(metrics, true, 60, 10, 2048, 4);
+        consumer.digests = new DigestCoalescer(consumer.rateLimiter, consumer.deliveryService,
+                consumer.deadLetterProducer, metrics, false, Set.of(), 0, 0, 0, 0);
+
+        messages = new Message[MESSAGES];
+        Instant sentAt = Instant.now();
+        for (int i = 0; i < MESSAGES; i++) {
+            String userId = "usuario-" + i;
+            NotificationEvent event = new NotificationEvent(userId, "PROMOCAO",
+                    "Notificacao #" + i + " — PROMOCAO para usuario " + userId, sentAt);
+            ConsumerRecord<String, NotificationEvent> record =
+                    new ConsumerRecord<>("notifications", i % 3, i, userId, event);
+            messages[i] = Message.of(event,
+                    Metadata.of(new IncomingKafkaRecordMetadata<>(record, "notifications-in")));
+        }
+    }
+
+    @Benchmark
+    public CompletionStage<Void> consume() {
+        Message<NotificationEvent> message = messages[next++ & (MESSAGES - 1)];
+        return consumer.consume(message);
+    }
+
+    /** Permite allowRatio das chamadas, em sequência determinística (sem Random no caminho medido). */
+    static final class FixedRatioRateLimiter implements RateLimiter {
+
+        private static final RateLimitDecision ALLOWED = new RateLimitDecision(true, 4, 0);
+        private static final RateLimitDecision BLOCKED = new RateLimitDecision(false, 0, 0);
+
+        private final int allowedPer100;
+        private int calls;
+
+        FixedRatioRateLimiter(double allowRatio) {
+            this.allowedPer100 = (int) Math.round(allowRatio * 100);
+        }
+
+        @Override
+        public RateLimitDecision check(RateLimitRequest request) {
+            return calls++ % 100 < allowedPer100 ? ALLOWED : BLOCKED;
+        }
+
+        @Override
+        public Uni<RateLimitDecision> checkAsync(RateLimitRequest request) {
+            return Uni.createFrom().item(check(request));
+        }
+
+        @Override
+        public long getCount(String userId) {
+            return 0;
+        }
+
+        @Override
+        public List<RateLimitStatus> statusAll(List<String> userIds) {
+            return List.of();
+        }
+    }
+
+    static final class NoopDeadLetterProducer extends DeadLetterProducer {
+        @Override
+        public CompletionStage<Void> send(NotificationEvent event, long retryAtMs, int attempt, boolean charged) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    static final class NoopDeliveryService extends NotificationDeliveryService {
+        @Override
+        public void deliver(NotificationEvent event, int attempt) {
+            // provedor externo fora da medição
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import com.arthur.kafkaimplementation.BenchmarkLogging;
+import com.arthur.kafkaimplementation.consumer.ConsumerDecisionBenchmark.NoopDeadLetterProducer;
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.service.DigestCoalescer;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import com.arthur.kafkaimplementation.service.NotificationDeliveryService;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.RateLimitDecision;
+import com.arthur.kafkaimplementation.service.RateLimitRequest;
+import com.arthur.kafkaimplementation.service.RateLimitStatus;
+import com.arthur.kafkaimplementation.service.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Os três modos de consumo com o mesmo Redis e o mesmo provedor simulados:
+ *
+ *   blocking → NotificationConsumer (@Blocking): uma worker thread por canal,
+ *              parada durante o Redis e o provedor
+ *   parallel → ParallelNotificationConsumer: o canal só despacha, as chaves
+ *              rodam em virtual threads (até max-in-flight)
+ *   reactive → ReactiveNotificationConsumer: Uni encadeado no event loop,
+ *              sem worker thread; nenhuma thread parada esperando
+ *
+ * Cada invocação entrega MESSAGES mensagens em PARTITIONS canais, como o
+ * SmallRye: blocking e reactive processam um registro por vez em cada canal
+ * (o reactive num event loop por canal, como concurrency=3 no perfil reactive);
+ * no parallel a thread do canal só despacha. A invocação termina no último ack.
+ *
+ * latencyMicros é o tempo de resposta simulado do Redis e também do provedor:
+ *   0    → só o custo de CPU de cada modo (encadeamento do Uni, handoff das threads)
+ *   >0   → o Redis/provedor "responde" depois desse tempo: no blocking e no
+ *          parallel com a thread parada (parkNanos); no reactive por um timer
+ *          que devolve o resultado ao event loop, como o cliente Redis do Vert.x
+ *
+ * Leitura: com latência, blocking e reactive ficam próximos em ns/op (ambos
+ * seriais por canal), mas o reactive não segura nenhuma worker thread enquanto
+ * espera; o parallel é o único que sobrepõe as esperas de usuários diferentes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.jboss.logging.provider=jdk")
+public class ConsumerModeBenchmark {
+
+    private static final int PARTITIONS = 3;
+    private static final int MESSAGES = 300;
+
+    @Param({"blocking", "parallel", "reactive"})
+    String mode;
+
+    @Param({"0", "200"})
+    long latencyMicros;
+
+    private ScheduledExecutorService network;
+    private ExecutorService channels;
+    private Vertx vertx;
+    private Context[] eventLoops;
+
+    private NotificationConsumer blocking;
+    private ParallelNotificationConsumer parallel;
+    private ReactiveNotificationConsumer reactive;
+
+    private Message<NotificationEvent>[][] messages;
+    private volatile CountDownLatch pending;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        BenchmarkLogging.discard();
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        network = Executors.newSingleThreadScheduledExecutor(
+                r -> Thread.ofPlatform().daemon().name("simulated-network").unstarted(r));
+        channels = Executors.newFixedThreadPool(PARTITIONS,
+                r -> Thread.ofPlatform().daemon().name("channel").unstarted(r));
+        vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(PARTITIONS));
+        eventLoops = new Context[PARTITIONS];
+        for (int p = 0; p < PARTITIONS; p++) {
+            eventLoops[p] = vertx.getOrCreateContext();
+        }
+
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+        RateLimiter rateLimiter = new SimulatedRateLimiter(network, latencyNanos);
+        NoopDeadLetterProducer deadLetters = new NoopDeadLetterProducer();
+        NotificationDeliveryService delivery = new SimulatedDeliveryService(network, latencyNanos);
+        HotKeyTracker hotKeys = new HotKeyTracker(metrics, true, 60, 10, 2048, 4);
+        DigestCoalescer digests = new DigestCoalescer(rateLimiter, delivery, deadLetters, metrics,
+                false, Set.of(), 0, 0, 0, 0);
+
+        switch (mode) {
+            case "blocking" -> {
+                blocking = new NotificationConsumer();
+                blocking.rateLimiter = rateLimiter;
+                blocking.deadLetterProducer = deadLetters;
+                blocking.deliveryService = delivery;
+                blocking.metrics = metrics;
+                blocking.hotKeys = hotKeys;
+                blocking.digests = digests;
+            }
+            case "parallel" -> parallel = new ParallelNotificationConsumer(
+                    rateLimiter, deadLetters, delivery, metrics, hotKeys, digests, 256);
+            case "reactive" -> {
+                reactive = new ReactiveNotificationConsumer();
+                reactive.rateLimiter = rateLimiter;
+                reactive.deadLetterProducer = deadLetters;
+                reactive.deliveryService = delivery;
+                reactive.metrics = metrics;
+                reactive.hotKeys = hotKeys;
+                reactive.digests = digests;
+            }
+            default -> throw new IllegalArgumentException("mode desconhecido: " + mode);
+        }
+
+        int perPartition = MESSAGES / PARTITIONS;
+        messages = new Message[PARTITIONS][perPartition];
+        Instant sentAt = Instant.now();
+        for (int p = 0; p < PARTITIONS; p++) {
+            for (int i = 0; i < perPartition; i++) {
+                String userId = "usuario-" + p + "-" + i;
+                NotificationEvent event = new NotificationEvent(userId, "PROMOCAO",
+                        "Notificacao #" + i + " — PROMOCAO para usuario " + userId, sentAt);
+                ConsumerRecord<String, NotificationEvent> record =
+                        new ConsumerRecord<>("notifications", p, i, userId, event);
+                messages[p][i] = Message.of(event,
+                        Metadata.of(new IncomingKafkaRecordMetadata<>(record, "notifications-in")),
+                        this::acked, this::nacked);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (parallel != null) {
+            parallel.shutdown();
+        }
+        channels.shutdownNow();
+        network.shutdownNow();
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " mensagens com nack");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void consume() throws InterruptedException {
+        pending = new CountDownLatch(MESSAGES);
+        for (int p = 0; p < PARTITIONS; p++) {
+            Message<NotificationEvent>[] partition = messages[p];
+            switch (mode) {
+                case "blocking" -> channels.execute(() -> {
+                    for (Message<NotificationEvent> message : partition) {
+                        blocking.consume(message);
+                    }
+                });
+                case "parallel" -> channels.execute(() -> {
+                    for (Message<NotificationEvent> message : partition) {
+                        parallel.consume(message);
+                    }
+                });
+                default -> eventLoops[p].runOnContext(v -> consumeInOrder(partition, 0));
+            }
+        }
+        pending.await();
+    }
+
+    /** Como o SmallRye com método que devolve Uni: o próximo registro só depois do anterior. */
+    private void consumeInOrder(Message<NotificationEvent>[] partition, int index) {
+        if (index == partition.length) {
+            return;
+        }
+        reactive.consume(partition[index]).subscribe().with(
+                v -> consumeInOrder(partition, index + 1),
+                e -> consumeInOrder(partition, index + 1));
+    }
+
+    private CompletableFuture<Void> acked() {
+        pending.countDown();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Void> nacked(Throwable error) {
+        failures.incrementAndGet();
+        pending.countDown();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Resposta depois de latencyNanos: parada da thread no caminho bloqueante;
+     * no assíncrono, timer e volta ao contexto Vert.x de quem chamou.
+     */
+    static <T> Uni<T> respondLater(ScheduledExecutorService network, long latencyNanos, T item) {
+        if (latencyNanos == 0) {
+            return Uni.createFrom().item(item);
+        }
+        Context context = Vertx.currentContext();
+        return Uni.createFrom().emitter(emitter -> network.schedule(
+                () -> context.runOnContext(v -> emitter.complete(item)), latencyNanos, TimeUnit.NANOSECONDS));
+    }
+
+    static void waitFor(long latencyNanos) {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    /** Permite tudo, com o tempo de resposta simulado do Redis. */
+    static final class SimulatedRateLimiter implements RateLimiter {
+
+        private static final RateLimitDecision ALLOWED = new RateLimitDecision(true, 4, 0);
+
+        private final ScheduledExecutorService network;
+        private final long latencyNanos;
+
+        SimulatedRateLimiter(ScheduledExecutorService network, long latencyNanos) {
+            this.network = network;
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public RateLimitDecision check(RateLimitRequest request) {
+            waitFor(latencyNanos);
+            return ALLOWED;
+        }
+
+        @Override
+        public Uni<RateLimitDecision> checkAsync(RateLimitRequest request) {
+            return respondLater(network, latencyNanos, ALLOWED);
+        }
+
+        @Override
+        public long getCount(String userId) {
+            return 0;
+        }
+
+        @Override
+        public List<RateLimitStatus> statusAll(List<String> userIds) {
+            return List.of();
+        }
+    }
+
+    /** Provedor que confirma depois do tempo de resposta simulado. */
+    static final class SimulatedDeliveryService extends NotificationDeliveryService {
+
+        private final ScheduledExecutorService network;
+        private final long latencyNanos;
+
+        SimulatedDeliveryService(ScheduledExecutorService network, long latencyNanos) {
+            this.network = network;
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public void deliver(NotificationEvent event, int attempt) {
+            waitFor(latencyNanos);
+        }
+
+        @Override
+        public Uni<Void> deliverAsync(NotificationEvent event, int attempt) {
+            return respondLater(network, latencyNanos, null);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.arthur.kafkaimplementation.dto;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializer/Deserializer Kafka de NotificationEvent, JSON contra binário.
+ *
+ * Cada serialize recebe um RecordHeaders novo, como o producer Kafka faz por registro —
+ * o custo do header "fmt" do formato binário entra na conta.
+ *
+ * Rodar com -prof gc para ver gc.alloc.rate.norm (bytes alocados por operação).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"json", "binary"})
+    String format;
+
+    private NotificationEventSerializer serializer;
+    private NotificationEventDeserializer deserializer;
+    private NotificationEvent event;
+    private byte[] serialized;
+    private RecordHeaders serializedHeaders;
+
+    @Setup
+    public void setup() {
+        serializer = new NotificationEventSerializer();
+        serializer.configure(Map.of(WireFormat.CONFIG, format), false);
+        deserializer = new NotificationEventDeserializer();
+
+        // Mesmo formato do evento gerado pelo /burst
+        event = new NotificationEvent("usuario-123456", "PROMOCAO",
+                "Notificacao #3 — PROMOCAO para usuario usuario-123456",
+                Instant.parse("2026-10-16T12:34:56.789012Z"));
+
+        serializedHeaders = new RecordHeaders();
+        serialized = serializer.serialize("notifications", serializedHeaders, event);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize("notifications", new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public NotificationEvent deserialize() {
+        return deserializer.deserialize("notifications", serializedHeaders, serialized);
+    }
+}
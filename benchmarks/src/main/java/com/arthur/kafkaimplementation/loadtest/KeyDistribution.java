@@ -0,0 +1,74 @@
+package com.arthur.kafkaimplementation.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Qual usuário recebe a próxima notificação.
+ *
+ *   uniform → todos os usuários com a mesma chance
+ *   zipf    → usuário de rank k com chance ∝ 1/k^s (poucos usuários quentes,
+ *             cauda longa) — é o que concentra carga numa partição e enche o DLT
+ *
+ * A semente é fixa por execução: o mesmo comando gera a mesma sequência de userIds.
+ */
+interface KeyDistribution {
+
+    /** Índice do usuário em [0, users). */
+    int next();
+
+    static KeyDistribution of(String name, int users, double zipfExponent, long seed) {
+        return switch (name) {
+            case "uniform" -> new Uniform(users, seed);
+            case "zipf" -> new Zipf(users, zipfExponent, seed);
+            default -> throw new IllegalArgumentException("--keys inválido: " + name + " (use uniform ou zipf)");
+        };
+    }
+
+    final class Uniform implements KeyDistribution {
+
+        private final int users;
+        private final SplittableRandom random;
+
+        Uniform(int users, long seed) {
+            this.users = users;
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        public int next() {
+            return random.nextInt(users);
+        }
+    }
+
+    /**
+     * Zipf pela CDF pré-calculada: um sorteio uniforme + busca binária por amostra.
+     * Memória: um double por usuário (1M usuários → 8 MB).
+     */
+    final class Zipf implements KeyDistribution {
+
+        private final double[] cdf;
+        private final SplittableRandom random;
+
+        Zipf(int users, double exponent, long seed) {
+            this.cdf = new double[users];
+            this.random = new SplittableRandom(seed);
+
+            double sum = 0;
+            for (int k = 0; k < users; k++) {
+                sum += 1.0 / Math.pow(k + 1, exponent);
+                cdf[k] = sum;
+            }
+            for (int k = 0; k < users; k++) {
+                cdf[k] /= sum;
+            }
+        }
+
+        @Override
+        public int next() {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            // Sem acerto exato, binarySearch devolve -(ponto de inserção) - 1
+            return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.arthur.kafkaimplementation.loadtest;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lag do grupo consumidor direto no broker: fim do log − offset commitado, por partição.
+ *
+ * Não depende das instâncias da aplicação — vale com 1 ou N consumers no grupo,
+ * e inclui partições que ninguém está consumindo (lag que só cresce).
+ */
+final class LagProbe implements AutoCloseable {
+
+    private final Admin admin;
+    private final String topic;
+    private final String groupId;
+
+    LagProbe(String bootstrapServers, String topic, String groupId) {
+        Properties props = new Properties();
+        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, 5000);
+        props.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, 5000);
+        this.admin = Admin.create(props);
+        this.topic = topic;
+        this.groupId = groupId;
+    }
+
+    /** Lag por partição; partição sem commit conta o log inteiro. */
+    Map<Integer, Long> lagByPartition() throws ExecutionException, InterruptedException, TimeoutException {
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata()
+                .get(5, TimeUnit.SECONDS);
+
+        int partitions = admin.describeTopics(List.of(topic))
+                .allTopicNames()
+                .get(5, TimeUnit.SECONDS)
+                .get(topic)
+                .partitions()
+                .size();
+
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        for (int p = 0; p < partitions; p++) {
+            latest.put(new TopicPartition(topic, p), OffsetSpec.latest());
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends =
+                admin.listOffsets(latest).all().get(5, TimeUnit.SECONDS);
+
+        Map<Integer, Long> lag = new HashMap<>();
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> end : ends.entrySet()) {
+            OffsetAndMetadata commit = committed.get(end.getKey());
+            long committedOffset = commit != null ? commit.offset() : 0;
+            lag.put(end.getKey().partition(), Math.max(0, end.getValue().offset() - committedOffset));
+        }
+        return lag;
+    }
+
+    @Override
+    public void close() {
+        admin.close(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,107 @@
+package com.arthur.kafkaimplementation.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latência com buckets logarítmicos (erro relativo ≤ ~10%),
+ * de 50 µs a ~2 min. Gravar é um incremento atômico: várias threads de
+ * callback gravam sem lock.
+ *
+ * drain() devolve as contagens do intervalo e zera — cada linha do relatório
+ * mostra só o que aconteceu naquele intervalo, não uma média desde o início.
+ */
+final class LatencyHistogram {
+
+    private static final double FIRST_BOUND_SECONDS = 50e-6;
+    private static final double GROWTH = 1.1;
+    private static final int BUCKETS = 156;
+
+    /** Limites superiores em segundos; o último bucket é aberto (+Inf). */
+    static final double[] BOUNDS = new double[BUCKETS];
+
+    static {
+        double bound = FIRST_BOUND_SECONDS;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            BOUNDS[i] = bound;
+            bound *= GROWTH;
+        }
+        BOUNDS[BUCKETS - 1] = Double.POSITIVE_INFINITY;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void recordNanos(long nanos) {
+        double seconds = nanos / 1e9;
+        int index = seconds <= FIRST_BOUND_SECONDS
+                ? 0
+                : (int) Math.ceil(Math.log(seconds / FIRST_BOUND_SECONDS) / Math.log(GROWTH));
+        counts.incrementAndGet(Math.min(index, BUCKETS - 1));
+    }
+
+    Snapshot drain() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.getAndSet(i, 0);
+        }
+        return new Snapshot(BOUNDS, snapshot);
+    }
+
+    /**
+     * Contagens de um intervalo.
+     *
+     * @param bounds limites superiores crescentes em segundos, o último pode ser +Inf
+     * @param counts contagem de cada bucket (não cumulativa)
+     */
+    record Snapshot(double[] bounds, long[] counts) {
+
+        static Snapshot empty() {
+            return new Snapshot(BOUNDS, new long[BUCKETS]);
+        }
+
+        long total() {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        /** Soma as contagens de outro snapshot com os mesmos limites (acumulado da execução). */
+        Snapshot plus(Snapshot other) {
+            long[] sum = counts.clone();
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += other.counts[i];
+            }
+            return new Snapshot(bounds, sum);
+        }
+
+        /**
+         * Quantil por interpolação linear dentro do bucket — a mesma conta do
+         * histogram_quantile do Prometheus, para os números da ingestão e do
+         * ponta a ponta (buckets do Micrometer) serem comparáveis.
+         *
+         * @return segundos, ou NaN sem amostras
+         */
+        double quantile(double q) {
+            long total = total();
+            if (total == 0) {
+                return Double.NaN;
+            }
+
+            double rank = q * total;
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                long previous = cumulative;
+                cumulative += counts[i];
+                if (cumulative >= rank && counts[i] > 0) {
+                    double lower = i == 0 ? 0 : bounds[i - 1];
+                    if (Double.isInfinite(bounds[i])) {
+                        return lower;
+                    }
+                    return lower + (bounds[i] - lower) * (rank - previous) / counts[i];
+                }
+            }
+            return bounds[bounds.length - 2];
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.arthur.kafkaimplementation.loadtest;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.NotificationEventSerializer;
+import com.arthur.kafkaimplementation.dto.WireFormat;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Por onde a carga entra no sistema.
+ *
+ *   http  → POST /api/notifications (NotificationController → NotificationProducer),
+ *           em rodízio entre as instâncias de --app. Mede a ingestão como o cliente vê.
+ *   kafka → KafkaProducer direto em "notifications", com o mesmo serializer da
+ *           aplicação — o que o NotificationProducer faz, sem o HTTP na frente.
+ *           Útil para saturar os consumers sem que a API seja o gargalo.
+ */
+interface LoadTarget extends AutoCloseable {
+
+    /** Completa com o resultado da ingestão; nunca completa com exceção. */
+    CompletableFuture<Outcome> send(String userId, String type, String message);
+
+    @Override
+    void close();
+
+    /** accepted → aceita; rejected → 429/503 da aplicação; error → falha de rede/broker. */
+    enum Outcome { ACCEPTED, REJECTED, ERROR }
+
+    final class Http implements LoadTarget {
+
+        private final HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        private final List<URI> endpoints;
+        private int next;
+
+        Http(List<URI> apps) {
+            this.endpoints = apps.stream().map(app -> app.resolve("/api/notifications")).toList();
+        }
+
+        @Override
+        public CompletableFuture<Outcome> send(String userId, String type, String message) {
+            // Jackson no cliente seria exagero: os valores gerados não têm aspas nem barras
+            String body = "{\"userId\":\"" + userId + "\",\"type\":\"" + type + "\",\"message\":\"" + message + "\"}";
+            HttpRequest request = HttpRequest.newBuilder(endpoints.get(next++ % endpoints.size()))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+
+            return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> switch (response.statusCode()) {
+                        case 200, 202 -> Outcome.ACCEPTED;
+                        case 429, 503 -> Outcome.REJECTED;
+                        default -> Outcome.ERROR;
+                    })
+                    .exceptionally(e -> Outcome.ERROR);
+        }
+
+        @Override
+        public void close() {
+            // HttpClient do JDK 17+ libera as conexões sozinho
+        }
+    }
+
+    final class Kafka implements LoadTarget {
+
+        private final KafkaProducer<String, NotificationEvent> producer;
+        private final String topic;
+
+        Kafka(String bootstrapServers, String topic, String wireFormat) {
+            this.topic = topic;
+            NotificationEventSerializer serializer = new NotificationEventSerializer();
+            serializer.configure(Map.of(WireFormat.CONFIG, wireFormat), false);
+            this.producer = new KafkaProducer<>(Map.of(
+                    ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                    ProducerConfig.ACKS_CONFIG, "all",
+                    ProducerConfig.LINGER_MS_CONFIG, 5),
+                    new StringSerializer(), serializer);
+        }
+
+        @Override
+        public CompletableFuture<Outcome> send(String userId, String type, String message) {
+            CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+            NotificationEvent event = new NotificationEvent(userId, type, message, Instant.now());
+            try {
+                producer.send(new ProducerRecord<>(topic, userId, event),
+                        (metadata, e) -> outcome.complete(e == null ? Outcome.ACCEPTED : Outcome.ERROR));
+            } catch (RuntimeException e) {
+                // Buffer do producer cheio por mais de max.block.ms, broker fora etc.
+                outcome.complete(Outcome.ERROR);
+            }
+            return outcome;
+        }
+
+        @Override
+        public void close() {
+            producer.close(Duration.ofSeconds(10));
+        }
+    }
+}
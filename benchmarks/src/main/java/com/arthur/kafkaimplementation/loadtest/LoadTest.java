@@ -0,0 +1,345 @@
+package com.arthur.kafkaimplementation.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Teste de carga ponta a ponta contra a aplicação rodando na mesma máquina
+ * (docker compose up -d + ./mvnw quarkus:dev, ou o jar).
+ *
+ * Gera notificações numa taxa fixa (ou com picos de campanha), escolhe o usuário
+ * por uma distribuição (uniform ou zipf) e, a cada --report-every segundos, imprime:
+ *
+ *   aceitas/s        ingestão confirmada (202 da API ou ack do broker)
+ *   ingestão p50/p99/p999   do instante PLANEJADO do envio até a resposta
+ *   entregues/s      pelo histograma notifications.end_to_end da aplicação
+ *   e2e p50/p99/p999 sentAt → entregue (buckets do /q/metrics, somados entre instâncias)
+ *   DLT %            decisões do rate limiter que foram para o DLT
+ *   lag              fim do log − offset commitado do grupo (total e pior partição)
+ *
+ * Carga em malha aberta: o próximo envio sai no horário planejado, esteja a
+ * aplicação respondendo ou não, e a latência conta a partir desse horário. Um
+ * gerador que espera a resposta antes de enviar de novo esconde justamente as
+ * filas que o teste quer ver (coordinated omission).
+ *
+ * Reprodutível: mesma --seed, mesmos parâmetros → mesma sequência de usuários e taxas.
+ *
+ * Exemplo — campanha de 2.000/s por 10 s a cada minuto, usuários Zipf:
+ *   java -cp benchmarks/target/benchmarks.jar com.arthur.kafkaimplementation.loadtest.LoadTest \
+ *       --rate=200 --duration=180 --keys=zipf --users=100000 \
+ *       --campaign-rate=2000 --campaign-every=60 --campaign-seconds=10 --csv=carga.csv
+ */
+public final class LoadTest {
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final Map<String, String> options;
+
+    private final LatencyHistogram ingress = new LatencyHistogram();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg + " (use --nome=valor)");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadTest(options).run();
+    }
+
+    private void run() throws Exception {
+        String targetName = option("target", "http");
+        List<URI> apps = Arrays.stream(option("app", "http://localhost:8080").split(","))
+                .map(URI::create)
+                .toList();
+        String bootstrap = option("bootstrap", "localhost:9092");
+        String topic = option("topic", "notifications");
+        String group = option("group", "notification-group");
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("duration", "60")));
+        long drainNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("drain", "60")));
+        long reportEverySeconds = Long.parseLong(option("report-every", "5"));
+        int users = Integer.parseInt(option("users", "10000"));
+        int maxInFlight = Integer.parseInt(option("max-in-flight", "10000"));
+        String type = option("type", "PROMOCAO");
+        long seed = Long.parseLong(option("seed", "42"));
+
+        double rate = Double.parseDouble(option("rate", "100"));
+        double campaignRate = Double.parseDouble(option("campaign-rate", "0"));
+        RateProfile profile = campaignRate > 0
+                ? new RateProfile(rate, campaignRate,
+                        Long.parseLong(option("campaign-every", "60")),
+                        Long.parseLong(option("campaign-seconds", "10")))
+                : RateProfile.constant(rate);
+        KeyDistribution keys = KeyDistribution.of(option("keys", "uniform"), users,
+                Double.parseDouble(option("zipf-s", "1.1")), seed);
+
+        List<URI> metricsUris = apps.stream().map(app -> app.resolve("/q/metrics")).toList();
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String csvPath = options.get("csv");
+
+        System.out.printf(Locale.ROOT, "Carga: target=%s taxa=%.0f/s campanha=%s chaves=%s usuarios=%d duracao=%ds seed=%d%n",
+                targetName, rate,
+                campaignRate > 0 ? String.format(Locale.ROOT, "%.0f/s por %ss a cada %ss", campaignRate,
+                        option("campaign-seconds", "10"), option("campaign-every", "60")) : "nao",
+                option("keys", "uniform"), users, TimeUnit.NANOSECONDS.toSeconds(durationNanos), seed);
+
+        try (LoadTarget target = targetName.equals("kafka")
+                     ? new LoadTarget.Kafka(bootstrap, topic, option("wire-format", "json"))
+                     : new LoadTarget.Http(apps);
+             LagProbe lag = new LagProbe(bootstrap, topic, group);
+             PrintWriter csv = csvPath != null ? new PrintWriter(Files.newBufferedWriter(Path.of(csvPath))) : null) {
+
+            Reporter reporter = new Reporter(http, metricsUris, lag, csv);
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "load-report");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(reporter::report, reportEverySeconds, reportEverySeconds, TimeUnit.SECONDS);
+
+            long start = System.nanoTime();
+            generate(target, profile, keys, type, start, durationNanos, maxInFlight);
+
+            // Drenagem: a carga parou, espera o pipeline (e o retry) esvaziar
+            reporter.phase = "drenagem";
+            long drainDeadline = System.nanoTime() + drainNanos;
+            while (System.nanoTime() < drainDeadline && (inFlight.get() > 0 || reporter.lastLag != 0)) {
+                Thread.sleep(500);
+            }
+            scheduler.shutdown();
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            reporter.report();
+            reporter.summary(TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+        }
+    }
+
+    /** Laço de envio em malha aberta; roda até durationNanos na thread principal. */
+    private void generate(LoadTarget target, RateProfile profile, KeyDistribution keys, String type,
+                          long start, long durationNanos, int maxInFlight) {
+        long end = start + durationNanos;
+        long planned = start;
+        long sequence = 0;
+
+        while (planned < end) {
+            long now;
+            while ((now = System.nanoTime()) < planned) {
+                LockSupport.parkNanos(planned - now);
+            }
+
+            if (inFlight.get() >= maxInFlight) {
+                // A aplicação parou de responder: conta e segue, sem acumular memória sem limite
+                skipped.incrementAndGet();
+            } else {
+                inFlight.incrementAndGet();
+                long scheduledAt = planned;
+                String userId = "carga-" + keys.next();
+                target.send(userId, type, "Carga #" + sequence + " para " + userId)
+                        .thenAccept(outcome -> {
+                            ingress.recordNanos(System.nanoTime() - scheduledAt);
+                            switch (outcome) {
+                                case ACCEPTED -> accepted.incrementAndGet();
+                                case REJECTED -> rejected.incrementAndGet();
+                                case ERROR -> errors.incrementAndGet();
+                            }
+                            inFlight.decrementAndGet();
+                        });
+            }
+
+            sequence++;
+            planned += profile.intervalNanosAt(planned - start);
+        }
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    /** Uma linha por intervalo + resumo final; o estado entre linhas fica aqui. */
+    private final class Reporter {
+
+        private final HttpClient http;
+        private final List<URI> metricsUris;
+        private final LagProbe lagProbe;
+        private final PrintWriter csv;
+
+        private final long startNanos = System.nanoTime();
+        private long lastNanos = startNanos;
+        private long lastAccepted;
+        private long lastRejected;
+        private long lastErrors;
+        private MetricsScrape firstScrape;
+        private MetricsScrape lastScrape;
+        private LatencyHistogram.Snapshot totalIngress = LatencyHistogram.Snapshot.empty();
+        private long maxLag;
+
+        volatile String phase = "carga";
+        /** -1 enquanto o broker não respondeu. */
+        volatile long lastLag = -1;
+
+        Reporter(HttpClient http, List<URI> metricsUris, LagProbe lagProbe, PrintWriter csv) {
+            this.http = http;
+            this.metricsUris = metricsUris;
+            this.lagProbe = lagProbe;
+            this.csv = csv;
+            this.firstScrape = scrape();
+            this.lastScrape = firstScrape;
+
+            System.out.printf("%-8s %-9s %9s %9s %7s %7s | %-25s | %9s | %-25s | %6s | %9s %9s%n",
+                    "t(s)", "fase", "aceitas/s", "recus.", "erros", "pulad.", "ingestao p50/p99/p999 ms",
+                    "entreg/s", "e2e p50/p99/p999 ms", "DLT %", "lag", "lag max/p");
+            if (csv != null) {
+                csv.println("t_s,fase,aceitas_s,recusadas,erros,puladas,ingestao_p50_ms,ingestao_p99_ms,ingestao_p999_ms,"
+                        + "entregues_s,e2e_p50_ms,e2e_p99_ms,e2e_p999_ms,dlt_ratio,lag_total,lag_max_particao");
+            }
+        }
+
+        synchronized void report() {
+            try {
+                // Lidos antes do scrape e do lag, que podem demorar com a aplicação ou o broker fora
+                String currentPhase = phase;
+                long now = System.nanoTime();
+                double seconds = (now - lastNanos) / 1e9;
+                lastNanos = now;
+
+                long acceptedNow = accepted.get();
+                long rejectedNow = rejected.get();
+                long errorsNow = errors.get();
+                double acceptedRate = (acceptedNow - lastAccepted) / seconds;
+                long rejectedDelta = rejectedNow - lastRejected;
+                long errorsDelta = errorsNow - lastErrors;
+                long skippedDelta = skipped.getAndSet(0);
+                lastAccepted = acceptedNow;
+                lastRejected = rejectedNow;
+                lastErrors = errorsNow;
+
+                LatencyHistogram.Snapshot ingressInterval = ingress.drain();
+                totalIngress = totalIngress.plus(ingressInterval);
+
+                MetricsScrape scrape = scrape();
+                LatencyHistogram.Snapshot e2e = scrape != null && lastScrape != null
+                        ? scrape.endToEndSince(lastScrape) : null;
+                double dltRatio = scrape != null && lastScrape != null ? scrape.dltRatioSince(lastScrape) : Double.NaN;
+                if (scrape != null) {
+                    if (firstScrape == null) {
+                        firstScrape = scrape;
+                    }
+                    lastScrape = scrape;
+                }
+
+                long totalLag = -1;
+                long worstPartitionLag = -1;
+                try {
+                    Map<Integer, Long> lag = lagProbe.lagByPartition();
+                    totalLag = lag.values().stream().mapToLong(Long::longValue).sum();
+                    worstPartitionLag = lag.values().stream().mapToLong(Long::longValue).max().orElse(0);
+                    maxLag = Math.max(maxLag, totalLag);
+                } catch (Exception e) {
+                    // Broker indisponível: a linha sai com "-" e o teste continua
+                }
+                lastLag = totalLag;
+
+                double elapsed = (now - startNanos) / 1e9;
+                double deliveredRate = e2e != null ? e2e.total() / seconds : Double.NaN;
+                System.out.printf(Locale.ROOT, "%-8.1f %-9s %9.0f %9d %7d %7d | %-25s | %9s | %-25s | %6s | %9s %9s%n",
+                        elapsed, currentPhase, acceptedRate, rejectedDelta, errorsDelta, skippedDelta,
+                        quantilesMs(ingressInterval), number(deliveredRate, "%.0f"), quantilesMs(e2e),
+                        number(dltRatio * 100, "%.1f"), count(totalLag), count(worstPartitionLag));
+
+                if (csv != null) {
+                    csv.printf(Locale.ROOT, "%.1f,%s,%.1f,%d,%d,%d,%s,%s,%s,%s,%s,%s,%s,%s,%d,%d%n",
+                            elapsed, currentPhase, acceptedRate, rejectedDelta, errorsDelta, skippedDelta,
+                            csvMs(ingressInterval, 0), csvMs(ingressInterval, 1), csvMs(ingressInterval, 2),
+                            number(deliveredRate, "%.1f"), csvMs(e2e, 0), csvMs(e2e, 1), csvMs(e2e, 2),
+                            number(dltRatio, "%.4f"), totalLag, worstPartitionLag);
+                    csv.flush();
+                }
+            } catch (RuntimeException e) {
+                // Uma exceção aqui cancelaria o scheduleAtFixedRate em silêncio
+                System.err.println("Falha no relatório: " + e);
+            }
+        }
+
+        void summary(long loadSeconds) {
+            LatencyHistogram.Snapshot e2e = firstScrape != null && lastScrape != null
+                    ? lastScrape.endToEndSince(firstScrape) : null;
+            double dltRatio = firstScrape != null && lastScrape != null
+                    ? lastScrape.dltRatioSince(firstScrape) : Double.NaN;
+
+            System.out.println();
+            System.out.println("Resumo");
+            System.out.printf(Locale.ROOT, "  aceitas            %d (%.0f/s sustentado em %ds)%n",
+                    accepted.get(), accepted.get() / (double) loadSeconds, loadSeconds);
+            System.out.printf("  recusadas/erros    %d / %d%n", rejected.get(), errors.get());
+            System.out.printf("  ingestao ms        %s (p50/p99/p999)%n", quantilesMs(totalIngress));
+            System.out.printf("  entregues          %s%n", e2e != null ? Long.toString(e2e.total()) : "-");
+            System.out.printf("  e2e ms             %s (p50/p99/p999)%n", quantilesMs(e2e));
+            System.out.printf("  DLT                %s%%%n", number(dltRatio * 100, "%.1f"));
+            System.out.printf("  lag maximo         %d | lag final %s%n", maxLag, count(lastLag));
+        }
+
+        private MetricsScrape scrape() {
+            try {
+                return MetricsScrape.read(http, metricsUris);
+            } catch (IOException | RuntimeException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private static String quantilesMs(LatencyHistogram.Snapshot snapshot) {
+        if (snapshot == null || snapshot.total() == 0) {
+            return "-";
+        }
+        StringBuilder out = new StringBuilder();
+        for (double q : QUANTILES) {
+            if (!out.isEmpty()) {
+                out.append('/');
+            }
+            out.append(String.format(Locale.ROOT, "%.1f", snapshot.quantile(q) * 1000));
+        }
+        return out.toString();
+    }
+
+    private static String csvMs(LatencyHistogram.Snapshot snapshot, int quantileIndex) {
+        return snapshot == null || snapshot.total() == 0
+                ? ""
+                : String.format(Locale.ROOT, "%.3f", snapshot.quantile(QUANTILES[quantileIndex]) * 1000);
+    }
+
+    private static String number(double value, String format) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, format, value);
+    }
+
+    private static String count(long value) {
+        return value < 0 ? "-" : Long.toString(value);
+    }
+}
@@ -0,0 +1,99 @@
+package com.arthur.kafkaimplementation.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Leitura do /q/metrics de cada instância da aplicação (PipelineMetrics).
+ *
+ * Só o que o relatório usa:
+ *   notifications_end_to_end_seconds_bucket{le}    sentAt → entregue (todos os tipos)
+ *   notifications_rate_limit_decision_total{allowed} permitidas / bloqueadas
+ *
+ * Os valores são somados entre instâncias e tipos. São contadores cumulativos:
+ * o relatório usa a diferença entre duas leituras (between), como o rate() do Prometheus.
+ */
+record MetricsScrape(TreeMap<Double, Long> endToEndBuckets, double allowed, double denied) {
+
+    private static final String END_TO_END_BUCKET = "notifications_end_to_end_seconds_bucket";
+    private static final String DECISION_TOTAL = "notifications_rate_limit_decision_total";
+
+    static final MetricsScrape EMPTY = new MetricsScrape(new TreeMap<>(), 0, 0);
+
+    static MetricsScrape read(HttpClient http, List<URI> metricsUris) throws IOException, InterruptedException {
+        TreeMap<Double, Long> buckets = new TreeMap<>();
+        double allowed = 0;
+        double denied = 0;
+
+        for (URI uri : metricsUris) {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET().build();
+            String body = http.send(request, HttpResponse.BodyHandlers.ofString()).body();
+
+            for (String line : body.split("\n")) {
+                if (line.startsWith(END_TO_END_BUCKET)) {
+                    String le = label(line, "le");
+                    double bound = le.equals("+Inf") ? Double.POSITIVE_INFINITY : Double.parseDouble(le);
+                    buckets.merge(bound, (long) value(line), Long::sum);
+                } else if (line.startsWith(DECISION_TOTAL)) {
+                    if ("true".equals(label(line, "allowed"))) {
+                        allowed += value(line);
+                    } else {
+                        denied += value(line);
+                    }
+                }
+            }
+        }
+        return new MetricsScrape(buckets, allowed, denied);
+    }
+
+    /** Buckets do ponta a ponta entre duas leituras. */
+    LatencyHistogram.Snapshot endToEndSince(MetricsScrape earlier) {
+        double[] bounds = new double[endToEndBuckets.size()];
+        long[] counts = new long[endToEndBuckets.size()];
+
+        int i = 0;
+        long previousCumulative = 0;
+        for (Map.Entry<Double, Long> bucket : endToEndBuckets.entrySet()) {
+            long cumulative = bucket.getValue() - earlier.endToEndBuckets.getOrDefault(bucket.getKey(), 0L);
+            bounds[i] = bucket.getKey();
+            counts[i] = Math.max(0, cumulative - previousCumulative);
+            previousCumulative = cumulative;
+            i++;
+        }
+        return new LatencyHistogram.Snapshot(bounds, counts);
+    }
+
+    /** Fração das decisões do rate limiter que mandaram a notificação ao DLT. */
+    double dltRatioSince(MetricsScrape earlier) {
+        double allowedDelta = allowed - earlier.allowed;
+        double deniedDelta = denied - earlier.denied;
+        double total = allowedDelta + deniedDelta;
+        return total > 0 ? deniedDelta / total : Double.NaN;
+    }
+
+    double decisionsSince(MetricsScrape earlier) {
+        return (allowed - earlier.allowed) + (denied - earlier.denied);
+    }
+
+    /** Formato de texto do Prometheus: nome{a="x",b="y",} valor */
+    private static String label(String line, String name) {
+        String key = name + "=\"";
+        int start = line.indexOf(key);
+        if (start < 0) {
+            return "";
+        }
+        start += key.length();
+        return line.substring(start, line.indexOf('"', start));
+    }
+
+    private static double value(String line) {
+        return Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+    }
+}
@@ -0,0 +1,41 @@
+package com.arthur.kafkaimplementation.loadtest;
+
+/**
+ * Taxa alvo (notificações/s) em função do tempo desde o início.
+ *
+ * Sem campanha, a taxa é constante. Com campanha, a cada campaignEverySeconds
+ * a taxa sobe para campaignRate por campaignSeconds — o padrão de um disparo de
+ * marketing em cima do tráfego normal.
+ *
+ *   taxa
+ *    ▲      ┌──┐          ┌──┐
+ *    │      │  │          │  │
+ *    │──────┘  └──────────┘  └────
+ *    └──────────────────────────────► t
+ */
+record RateProfile(double baseRate, double campaignRate, long campaignEverySeconds, long campaignSeconds) {
+
+    RateProfile {
+        if (baseRate <= 0) {
+            throw new IllegalArgumentException("--rate deve ser > 0");
+        }
+    }
+
+    static RateProfile constant(double rate) {
+        return new RateProfile(rate, rate, 0, 0);
+    }
+
+    double rateAt(long elapsedNanos) {
+        if (campaignEverySeconds <= 0 || campaignSeconds <= 0) {
+            return baseRate;
+        }
+        long secondInCycle = (elapsedNanos / 1_000_000_000L) % campaignEverySeconds;
+        // A campanha fica no fim de cada ciclo: o sistema chega aquecido ao pico
+        return secondInCycle >= campaignEverySeconds - campaignSeconds ? campaignRate : baseRate;
+    }
+
+    /** Intervalo até a próxima notificação na taxa vigente. */
+    long intervalNanosAt(long elapsedNanos) {
+        return (long) (1_000_000_000L / rateAt(elapsedNanos));
+    }
+}
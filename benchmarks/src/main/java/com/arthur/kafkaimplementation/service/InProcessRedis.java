@@ -0,0 +1,361 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Redis em processo para o RateLimiterBenchmark: servidor RESP em loopback,
+ * falado pelo mesmo cliente Vert.x da aplicação.
+ *
+ * Não interpreta Lua. Os scripts dos limiters viram equivalentes em Java:
+ *   EVALSHA de SHA desconhecido → NOSCRIPT, e o RedisScript reenvia com EVAL
+ *   EVAL → reconhece o script pelo corpo (sliding-log, GCRA, token bucket),
+ *          guarda o SHA e executa a versão Java
+ * Fora dos scripts, só o que o PartitionLocalRateLimiter usa no snapshot
+ * (HGETALL, HSET, HDEL, PEXPIRE), mais GET e PING.
+ *
+ * O número medido inclui cliente, codec RESP e loopback TCP, mas não a rede
+ * nem o Redis de verdade — compare execuções entre si; para o Redis do
+ * compose, -Dbench.redis=redis://localhost:6379.
+ */
+final class InProcessRedis implements AutoCloseable {
+
+    private enum Script { SLIDING_LOG, GCRA, TOKEN_BUCKET }
+
+    private final Map<String, Object> values = new HashMap<>();
+    private final Map<String, Long> expiresAt = new HashMap<>();
+    private final Map<String, Script> scripts = new HashMap<>();
+    private final NetServer server;
+
+    private InProcessRedis(NetServer server) {
+        this.server = server;
+    }
+
+    /** Sobe o servidor numa porta livre de 127.0.0.1. */
+    static InProcessRedis start(Vertx vertx) {
+        NetServer server = vertx.createNetServer();
+        InProcessRedis redis = new InProcessRedis(server);
+        server.connectHandler(redis::serve);
+        server.listen(0, "127.0.0.1").toCompletionStage().toCompletableFuture().join();
+        return redis;
+    }
+
+    String uri() {
+        return "redis://127.0.0.1:" + server.actualPort();
+    }
+
+    @Override
+    public void close() {
+        server.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    private void serve(NetSocket socket) {
+        RespReader reader = new RespReader();
+        socket.handler(chunk -> {
+            Buffer out = Buffer.buffer();
+            List<String> command;
+            reader.append(chunk);
+            while ((command = reader.next()) != null) {
+                execute(command, out);
+            }
+            if (out.length() > 0) {
+                socket.write(out);
+            }
+        });
+    }
+
+    private synchronized void execute(List<String> command, Buffer out) {
+        String name = command.get(0).toUpperCase(Locale.ROOT);
+        try {
+            switch (name) {
+                case "PING" -> out.appendString("+PONG\r\n");
+                case "EVAL" -> eval(register(command.get(1)), command, out);
+                case "EVALSHA" -> {
+                    Script script = scripts.get(command.get(1));
+                    if (script == null) {
+                        out.appendString("-NOSCRIPT No matching script. Please use EVAL.\r\n");
+                    } else {
+                        eval(script, command, out);
+                    }
+                }
+                case "GET" -> bulk(out, (String) get(command.get(1)));
+                case "HGETALL" -> hgetall(command.get(1), out);
+                case "HSET" -> hset(command, out);
+                case "HDEL" -> hdel(command, out);
+                case "PEXPIRE" -> integer(out, pexpire(command.get(1), Long.parseLong(command.get(2))) ? 1 : 0);
+                default -> out.appendString("-ERR unknown command '" + command.get(0) + "'\r\n");
+            }
+        } catch (RuntimeException e) {
+            out.appendString("-ERR " + e + "\r\n");
+        }
+    }
+
+    // ---- scripts ----
+
+    private Script register(String source) {
+        Script script;
+        if (source.contains("ZREMRANGEBYSCORE")) {
+            script = Script.SLIDING_LOG;
+        } else if (source.contains("emission")) {
+            script = Script.GCRA;
+        } else if (source.contains("capacity")) {
+            script = Script.TOKEN_BUCKET;
+        } else {
+            throw new IllegalArgumentException("script desconhecido pelo Redis em processo");
+        }
+        scripts.put(sha1Hex(source), script);
+        return script;
+    }
+
+    /** EVAL/EVALSHA script numkeys key... arg... */
+    private void eval(Script script, List<String> command, Buffer out) {
+        int numKeys = Integer.parseInt(command.get(2));
+        String key = command.get(3);
+        List<String> argv = command.subList(3 + numKeys, command.size());
+        long[] reply = switch (script) {
+            case SLIDING_LOG -> slidingLog(key, argv);
+            case GCRA -> gcra(key, argv);
+            case TOKEN_BUCKET -> tokenBucket(key, argv);
+        };
+        out.appendString("*" + reply.length + "\r\n");
+        for (long value : reply) {
+            integer(out, value);
+        }
+    }
+
+    /** Mesma sequência do SlidingLogRateLimiter.SCRIPT. */
+    @SuppressWarnings("unchecked")
+    private long[] slidingLog(String key, List<String> argv) {
+        long now = Long.parseLong(argv.get(0));
+        long window = Long.parseLong(argv.get(1));
+        long limit = Long.parseLong(argv.get(2));
+        String member = argv.get(3);
+
+        Map<String, Long> zset = (Map<String, Long>) get(key);
+        if (zset == null) {
+            zset = new HashMap<>();
+        }
+        for (Iterator<Long> it = zset.values().iterator(); it.hasNext(); ) {
+            if (it.next() <= now - window) {
+                it.remove();
+            }
+        }
+        long count = zset.size();
+
+        if (zset.containsKey(member)) {
+            return new long[]{1, Math.max(0, limit - count), now + window};
+        }
+        if (count >= limit) {
+            long oldest = zset.values().stream().mapToLong(Long::longValue).min().orElse(now);
+            return new long[]{0, 0, oldest + window};
+        }
+
+        zset.put(member, now);
+        values.put(key, zset);
+        pexpire(key, window + 5000);
+        return new long[]{1, limit - count - 1, now + window};
+    }
+
+    /** Mesma conta do GcraRateLimiter.SCRIPT. */
+    private long[] gcra(String key, List<String> argv) {
+        long now = Long.parseLong(argv.get(0));
+        double emission = Double.parseDouble(argv.get(1));
+        long period = Long.parseLong(argv.get(2));
+
+        String stored = (String) get(key);
+        double tat = stored == null ? now : Math.max(Double.parseDouble(stored), now);
+        double newTat = tat + emission;
+        double allowAt = newTat - period;
+        if (allowAt > now) {
+            return new long[]{0, 0, (long) Math.ceil(allowAt)};
+        }
+
+        long next = (long) Math.ceil(newTat);
+        set(key, Long.toString(next), next - now);
+        return new long[]{1, (long) Math.floor((now - allowAt) / emission), next};
+    }
+
+    /** Mesma conta do TokenBucketRateLimiter.SCRIPT. */
+    private long[] tokenBucket(String key, List<String> argv) {
+        long now = Long.parseLong(argv.get(0));
+        double capacity = Double.parseDouble(argv.get(1));
+        double rate = Double.parseDouble(argv.get(2));
+        long window = Long.parseLong(argv.get(3));
+
+        double tokens = capacity;
+        String stored = (String) get(key);
+        if (stored != null) {
+            int sep = stored.indexOf(':');
+            long last = Long.parseLong(stored.substring(sep + 1));
+            tokens = Math.min(capacity, Double.parseDouble(stored.substring(0, sep)) + (now - last) * rate);
+        }
+
+        if (tokens < 1) {
+            return new long[]{0, 0, now + (long) Math.ceil((1 - tokens) / rate)};
+        }
+
+        tokens -= 1;
+        set(key, String.format(Locale.ROOT, "%.4f:%d", tokens, now), window);
+        return new long[]{1, (long) Math.floor(tokens), now + (long) Math.ceil((capacity - tokens) / rate)};
+    }
+
+    // ---- hashes ----
+
+    @SuppressWarnings("unchecked")
+    private void hgetall(String key, Buffer out) {
+        Map<String, String> hash = (Map<String, String>) get(key);
+        if (hash == null) {
+            out.appendString("*0\r\n");
+            return;
+        }
+        out.appendString("*" + hash.size() * 2 + "\r\n");
+        hash.forEach((field, value) -> {
+            bulk(out, field);
+            bulk(out, value);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void hset(List<String> command, Buffer out) {
+        String key = command.get(1);
+        Map<String, String> hash = (Map<String, String>) values.computeIfAbsent(key, k -> new HashMap<>());
+        int added = 0;
+        for (int i = 2; i + 1 < command.size(); i += 2) {
+            if (hash.put(command.get(i), command.get(i + 1)) == null) {
+                added++;
+            }
+        }
+        integer(out, added);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void hdel(List<String> command, Buffer out) {
+        Map<String, String> hash = (Map<String, String>) get(command.get(1));
+        int removed = 0;
+        if (hash != null) {
+            for (String field : command.subList(2, command.size())) {
+                if (hash.remove(field) != null) {
+                    removed++;
+                }
+            }
+        }
+        integer(out, removed);
+    }
+
+    // ---- chaves ----
+
+    private Object get(String key) {
+        Long expiry = expiresAt.get(key);
+        if (expiry != null && expiry <= System.currentTimeMillis()) {
+            values.remove(key);
+            expiresAt.remove(key);
+            return null;
+        }
+        return values.get(key);
+    }
+
+    private void set(String key, String value, long ttlMs) {
+        values.put(key, value);
+        expiresAt.put(key, System.currentTimeMillis() + ttlMs);
+    }
+
+    private boolean pexpire(String key, long ttlMs) {
+        if (get(key) == null) {
+            return false;
+        }
+        expiresAt.put(key, System.currentTimeMillis() + ttlMs);
+        return true;
+    }
+
+    // ---- RESP ----
+
+    private static void integer(Buffer out, long value) {
+        out.appendString(":" + value + "\r\n");
+    }
+
+    private static void bulk(Buffer out, String value) {
+        if (value == null) {
+            out.appendString("$-1\r\n");
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.appendString("$" + bytes.length + "\r\n").appendBytes(bytes).appendString("\r\n");
+    }
+
+    private static String sha1Hex(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 indisponível na JVM", e);
+        }
+    }
+
+    /** Comandos RESP (array de bulk strings), inclusive em pipeline e partidos entre pacotes. */
+    private static final class RespReader {
+
+        private Buffer pending = Buffer.buffer();
+        private int pos;
+
+        void append(Buffer chunk) {
+            if (pos > 0) {
+                pending = pending.getBuffer(pos, pending.length());
+                pos = 0;
+            }
+            pending.appendBuffer(chunk);
+        }
+
+        /** @return o próximo comando completo, ou null se faltam bytes */
+        List<String> next() {
+            int cursor = pos;
+            int lineEnd = lineEnd(cursor);
+            if (lineEnd < 0) {
+                return null;
+            }
+            if (pending.getByte(cursor) != '*') {
+                throw new IllegalStateException("Esperava array RESP, veio: " + (char) pending.getByte(cursor));
+            }
+            int count = Integer.parseInt(pending.getString(cursor + 1, lineEnd));
+            cursor = lineEnd + 2;
+
+            List<String> command = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                lineEnd = lineEnd(cursor);
+                if (lineEnd < 0) {
+                    return null;
+                }
+                int length = Integer.parseInt(pending.getString(cursor + 1, lineEnd));
+                cursor = lineEnd + 2;
+                if (pending.length() < cursor + length + 2) {
+                    return null;
+                }
+                command.add(pending.getString(cursor, cursor + length, StandardCharsets.UTF_8.name()));
+                cursor += length + 2;
+            }
+            pos = cursor;
+            return command;
+        }
+
+        private int lineEnd(int from) {
+            for (int i = from; i + 1 < pending.length(); i++) {
+                if (pending.getByte(i) == '\r' && pending.getByte(i + 1) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
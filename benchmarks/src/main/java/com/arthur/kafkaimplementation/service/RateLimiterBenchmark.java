@@ -0,0 +1,129 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.BenchmarkLogging;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.redis.runtime.datasource.ReactiveRedisDataSourceImpl;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.redis.client.Redis;
+import io.vertx.mutiny.redis.client.RedisAPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimiterService.check e checkAll com cada algoritmo.
+ *
+ * limiter:
+ *   sliding-log | gcra | token-bucket → um EVALSHA por check no Redis
+ *   partition-local                   → memória do dono da partição (snapshot no Redis em segundo plano)
+ *
+ * Redis: por padrão o InProcessRedis, servidor RESP em loopback no próprio
+ * processo — o cliente Vert.x, o codec e o EVALSHA/pipeline são os da aplicação,
+ * os scripts Lua rodam como equivalentes em Java. Para medir contra o Redis 7.2
+ * do compose.yml (docker compose up -d redis), com o RTT que o consumer paga:
+ * -Dbench.redis=redis://localhost:6379
+ *
+ * Usuários: USERS chaves em rodízio com o limite padrão (5/min), então o
+ * benchmark passa pelos dois caminhos — permitido e bloqueado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.jboss.logging.provider=jdk")
+public class RateLimiterBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int BATCH = 500;
+
+    @Param({"sliding-log", "gcra", "token-bucket", "partition-local"})
+    String limiter;
+
+    private Vertx vertx;
+    private InProcessRedis inProcessRedis;
+    private RateLimiterService service;
+    private String[] userIds;
+    private List<RateLimitRequest> batchRequests;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkLogging.discard();
+        vertx = Vertx.vertx();
+        String uri = System.getProperty("bench.redis");
+        if (uri == null) {
+            inProcessRedis = InProcessRedis.start(vertx.getDelegate());
+            uri = inProcessRedis.uri();
+        }
+        Redis redis = Redis.createClient(vertx, uri);
+        ReactiveRedisDataSourceImpl dataSource = new ReactiveRedisDataSourceImpl(vertx, redis, RedisAPI.api(redis));
+
+        boolean local = limiter.equals("partition-local");
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+        service = new RateLimiterService(
+                dataSource,
+                metrics,
+                new RedisCircuitBreaker(metrics, true, 250, 50, 100, 20, 0.5, 5000, 100_000),
+                local ? "gcra" : limiter,
+                5,
+                60,
+                local ? "partition-local" : "redis",
+                1000,
+                Optional.empty(),
+                "bench-notifications");
+        service.onPartitionsAssigned(List.of(0));
+
+        userIds = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = "bench-user-" + i;
+        }
+
+        batchRequests = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batchRequests.add(new RateLimitRequest(userIds[i * 7 % USERS], null, 0, null));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.shutdown();
+        if (inProcessRedis != null) {
+            inProcessRedis.close();
+        }
+        vertx.closeAndAwait();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public boolean isAllowed(Cursor cursor) {
+        String userId = userIds[cursor.next++ % USERS];
+        return service.check(new RateLimitRequest(userId, null, 0, null)).allowed();
+    }
+
+    /** Um lote de poll do modo batch: um pipeline Redis (ou BATCH checks locais). */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<RateLimitDecision> checkAll() {
+        return service.checkAll(batchRequests);
+    }
+}
@@ -0,0 +1,217 @@
+package io.quarkus.logging;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Substitui o io.quarkus.logging.Log do quarkus-core dentro dos benchmarks.
+ *
+ * Na aplicação, o build do Quarkus reescreve cada chamada a Log.xxx para um
+ * Logger estático da classe que chamou; o Log original, chamado sem essa
+ * reescrita, lança UnsupportedOperationException. Os benchmarks usam o jar da
+ * aplicação como foi compilado, sem a reescrita, então esta classe ocupa o
+ * lugar da original (o shade descarta a do quarkus-core) e faz em tempo de
+ * execução o que a reescrita faz no build: resolve o Logger da classe que
+ * chamou — guardado por classe, o custo a mais é o StackWalker por chamada.
+ *
+ * Só cobre as sobrecargas dos níveis trace..fatal; o BenchmarksSmokeTest
+ * acusa NoSuchMethodError se a aplicação passar a usar outra.
+ */
+public final class Log {
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private static final ClassValue<Logger> LOGGERS = new ClassValue<>() {
+        @Override
+        protected Logger computeValue(Class<?> type) {
+            return Logger.getLogger(type);
+        }
+    };
+
+    private Log() {
+    }
+
+    private static Logger caller() {
+        // Quadro 0 = caller(), 1 = Log.xxx, 2 = a classe da aplicação
+        return LOGGERS.get(WALKER.walk(frames -> frames.skip(2).findFirst().orElseThrow().getDeclaringClass()));
+    }
+
+    public static boolean isEnabled(Logger.Level level) {
+        return caller().isEnabled(level);
+    }
+
+    public static boolean isTraceEnabled() {
+        return caller().isTraceEnabled();
+    }
+
+    public static boolean isDebugEnabled() {
+        return caller().isDebugEnabled();
+    }
+
+    public static void trace(Object message) {
+        caller().trace(message);
+    }
+
+    public static void trace(Object message, Throwable t) {
+        caller().trace(message, t);
+    }
+
+    public static void tracef(String format, Object... params) {
+        caller().tracef(format, params);
+    }
+
+    public static void tracef(String format, Object param1) {
+        caller().tracef(format, param1);
+    }
+
+    public static void tracef(String format, Object param1, Object param2) {
+        caller().tracef(format, param1, param2);
+    }
+
+    public static void tracef(String format, Object param1, Object param2, Object param3) {
+        caller().tracef(format, param1, param2, param3);
+    }
+
+    public static void tracef(Throwable t, String format, Object... params) {
+        caller().tracef(t, format, params);
+    }
+
+    public static void debug(Object message) {
+        caller().debug(message);
+    }
+
+    public static void debug(Object message, Throwable t) {
+        caller().debug(message, t);
+    }
+
+    public static void debugf(String format, Object... params) {
+        caller().debugf(format, params);
+    }
+
+    public static void debugf(String format, Object param1) {
+        caller().debugf(format, param1);
+    }
+
+    public static void debugf(String format, Object param1, Object param2) {
+        caller().debugf(format, param1, param2);
+    }
+
+    public static void debugf(String format, Object param1, Object param2, Object param3) {
+        caller().debugf(format, param1, param2, param3);
+    }
+
+    public static void debugf(Throwable t, String format, Object... params) {
+        caller().debugf(t, format, params);
+    }
+
+    public static void info(Object message) {
+        caller().info(message);
+    }
+
+    public static void info(Object message, Throwable t) {
+        caller().info(message, t);
+    }
+
+    public static void infof(String format, Object... params) {
+        caller().infof(format, params);
+    }
+
+    public static void infof(String format, Object param1) {
+        caller().infof(format, param1);
+    }
+
+    public static void infof(String format, Object param1, Object param2) {
+        caller().infof(format, param1, param2);
+    }
+
+    public static void infof(String format, Object param1, Object param2, Object param3) {
+        caller().infof(format, param1, param2, param3);
+    }
+
+    public static void infof(Throwable t, String format, Object... params) {
+        caller().infof(t, format, params);
+    }
+
+    public static void warn(Object message) {
+        caller().warn(message);
+    }
+
+    public static void warn(Object message, Throwable t) {
+        caller().warn(message, t);
+    }
+
+    public static void warnf(String format, Object... params) {
+        caller().warnf(format, params);
+    }
+
+    public static void warnf(String format, Object param1) {
+        caller().warnf(format, param1);
+    }
+
+    public static void warnf(String format, Object param1, Object param2) {
+        caller().warnf(format, param1, param2);
+    }
+
+    public static void warnf(String format, Object param1, Object param2, Object param3) {
+        caller().warnf(format, param1, param2, param3);
+    }
+
+    public static void warnf(Throwable t, String format, Object... params) {
+        caller().warnf(t, format, params);
+    }
+
+    public static void error(Object message) {
+        caller().error(message);
+    }
+
+    public static void error(Object message, Throwable t) {
+        caller().error(message, t);
+    }
+
+    public static void errorf(String format, Object... params) {
+        caller().errorf(format, params);
+    }
+
+    public static void errorf(String format, Object param1) {
+        caller().errorf(format, param1);
+    }
+
+    public static void errorf(String format, Object param1, Object param2) {
+        caller().errorf(format, param1, param2);
+    }
+
+    public static void errorf(String format, Object param1, Object param2, Object param3) {
+        caller().errorf(format, param1, param2, param3);
+    }
+
+    public static void errorf(Throwable t, String format, Object... params) {
+        caller().errorf(t, format, params);
+    }
+
+    public static void fatal(Object message) {
+        caller().fatal(message);
+    }
+
+    public static void fatal(Object message, Throwable t) {
+        caller().fatal(message, t);
+    }
+
+    public static void fatalf(String format, Object... params) {
+        caller().fatalf(format, params);
+    }
+
+    public static void fatalf(String format, Object param1) {
+        caller().fatalf(format, param1);
+    }
+
+    public static void fatalf(String format, Object param1, Object param2) {
+        caller().fatalf(format, param1, param2);
+    }
+
+    public static void fatalf(String format, Object param1, Object param2, Object param3) {
+        caller().fatalf(format, param1, param2, param3);
+    }
+
+    public static void fatalf(Throwable t, String format, Object... params) {
+        caller().fatalf(t, format, params);
+    }
+}
@@ -1,27 +1,36 @@
 package com.arthur.kafkaimplementation.config;
 
-import io.quarkus.logging.Log;
-import io.quarkus.runtime.StartupEvent;
+import com.arthur.kafkaimplementation.consumer.RetryBucket;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.enterprise.event.Observes;
-import org.apache.kafka.clients.admin.AdminClient;
-import org.apache.kafka.clients.admin.AdminClientConfig;
-import org.apache.kafka.clients.admin.NewTopic;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Properties;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Optional;
 
 /**
- * Cria os tópicos no Kafka na inicialização da aplicação.
+ * Tópicos que a aplicação usa, como declarados em app.kafka.provisioning.*.
+ * Quem cria e ajusta os tópicos no broker é o TopicProvisioner.
  *
- * notifications  → tópico principal com 3 partições
+ * notifications  → tópico principal (padrão: 3 partições)
  *                  (3 partições permitem testar divisão entre consumers no mesmo group)
  *
+ * notifications.high → faixa de prioridade HIGH (tipos de app.priority.high-types),
+ *                      mesma chave userId (padrão: 3 partições)
+ *
  * notifications.DLT → Dead Letter Topic para notificações bloqueadas pelo rate limiter
- *                      (1 partição é suficiente para DLT)
+ *                      (padrão: 1 partição)
+ *
+ * notifications.retry.{10s,30s,60s} → buckets de espera do retry, chave userId
+ *                      como no tópico principal (padrão: 3 partições cada)
+ *
+ * notifications.parking → notificações que esgotaram app.retry.max-attempts (padrão: 1 partição)
+ *
+ * Configs de tópico (compression.type, segment.bytes, retention.ms...):
+ *   app.kafka.provisioning.configs vale para todos; {papel}.configs sobrescreve
+ *   chave a chave. Formato chave=valor, separado por vírgula.
  *
  * EXPERIMENTO: Sobe dois consumers no mesmo consumer group "notification-group"
  * e observe no log qual consumer processa cada partição. O Kafka vai dividir as
@@ -30,32 +39,99 @@ import java.util.concurrent.TimeUnit;
 @ApplicationScoped
 public class KafkaConfig {
 
-    @ConfigProperty(name = "kafka.bootstrap.servers", defaultValue = "localhost:9092")
-    String bootstrapServers;
-
     @ConfigProperty(name = "app.kafka.topic.notifications", defaultValue = "notifications")
     String notificationsTopic;
 
+    @ConfigProperty(name = "app.kafka.topic.notifications-high", defaultValue = "notifications.high")
+    String notificationsHighTopic;
+
     @ConfigProperty(name = "app.kafka.topic.dead-letter", defaultValue = "notifications.DLT")
     String deadLetterTopic;
 
-    void onStart(@Observes StartupEvent event) {
-        Properties props = new Properties();
-        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-
-        try (AdminClient admin = AdminClient.create(props)) {
-            List<NewTopic> topics = List.of(
-                    new NewTopic(notificationsTopic, 3, (short) 1),
-                    new NewTopic(deadLetterTopic, 1, (short) 1)
-            );
-            admin.createTopics(topics).all().get(10, TimeUnit.SECONDS);
-            Log.infof("Tópicos Kafka criados: %s (3 partições), %s (1 partição)",
-                    notificationsTopic, deadLetterTopic);
-        } catch (ExecutionException e) {
-            // org.apache.kafka.common.errors.TopicExistsException vem wrapped em ExecutionException
-            Log.infof("Tópicos já existem, continuando: %s", e.getCause().getMessage());
-        } catch (Exception e) {
-            Log.warnf("Erro ao criar tópicos Kafka: %s", e.getMessage());
+    @ConfigProperty(name = "app.kafka.topic.parking", defaultValue = "notifications.parking")
+    String parkingTopic;
+
+    @ConfigProperty(name = "app.kafka.provisioning.enabled", defaultValue = "true")
+    boolean provisioningEnabled;
+
+    @ConfigProperty(name = "app.kafka.provisioning.replication-factor", defaultValue = "1")
+    short replicationFactor;
+
+    @ConfigProperty(name = "app.kafka.provisioning.configs")
+    Optional<List<String>> configs;
+
+    @ConfigProperty(name = "app.kafka.provisioning.notifications.partitions", defaultValue = "3")
+    int notificationsPartitions;
+
+    @ConfigProperty(name = "app.kafka.provisioning.notifications.configs")
+    Optional<List<String>> notificationsConfigs;
+
+    @ConfigProperty(name = "app.kafka.provisioning.notifications-high.partitions", defaultValue = "3")
+    int notificationsHighPartitions;
+
+    @ConfigProperty(name = "app.kafka.provisioning.notifications-high.configs")
+    Optional<List<String>> notificationsHighConfigs;
+
+    @ConfigProperty(name = "app.kafka.provisioning.dead-letter.partitions", defaultValue = "1")
+    int deadLetterPartitions;
+
+    @ConfigProperty(name = "app.kafka.provisioning.dead-letter.configs")
+    Optional<List<String>> deadLetterConfigs;
+
+    @ConfigProperty(name = "app.kafka.provisioning.parking.partitions", defaultValue = "1")
+    int parkingPartitions;
+
+    @ConfigProperty(name = "app.kafka.provisioning.parking.configs")
+    Optional<List<String>> parkingConfigs;
+
+    @ConfigProperty(name = "app.kafka.provisioning.retry.partitions", defaultValue = "3")
+    int retryPartitions;
+
+    @ConfigProperty(name = "app.kafka.provisioning.retry.configs")
+    Optional<List<String>> retryConfigs;
+
+    public boolean isProvisioningEnabled() {
+        return provisioningEnabled;
+    }
+
+    public String notificationsTopic() {
+        return notificationsTopic;
+    }
+
+    /** Todos os tópicos declarados, na ordem em que são criados. */
+    public List<TopicSpec> topics() {
+        List<TopicSpec> topics = new ArrayList<>(List.of(
+                spec(notificationsTopic, notificationsPartitions, notificationsConfigs),
+                spec(notificationsHighTopic, notificationsHighPartitions, notificationsHighConfigs),
+                spec(deadLetterTopic, deadLetterPartitions, deadLetterConfigs),
+                spec(parkingTopic, parkingPartitions, parkingConfigs)
+        ));
+        for (RetryBucket bucket : RetryBucket.values()) {
+            topics.add(spec(bucket.topic(), retryPartitions, retryConfigs));
         }
+        return topics;
+    }
+
+    private TopicSpec spec(String name, int partitions, Optional<List<String>> overrides) {
+        Map<String, String> merged = new LinkedHashMap<>(parseConfigs(configs.orElse(List.of())));
+        merged.putAll(parseConfigs(overrides.orElse(List.of())));
+        return new TopicSpec(name, partitions, replicationFactor, merged);
     }
+
+    /** "compression.type=lz4,retention.ms=604800000" → mapa; vírgula dentro do valor vai escapada (\,). */
+    static Map<String, String> parseConfigs(List<String> entries) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String entry : entries) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0 || eq == entry.length() - 1) {
+                throw new IllegalArgumentException(
+                        "Config de tópico inválida: '" + entry + "' (use chave=valor,...)");
+            }
+            parsed.put(entry.substring(0, eq).trim(), entry.substring(eq + 1).trim());
+        }
+        return parsed;
+    }
+
+    /** Um tópico como declarado na configuração. */
+    public record TopicSpec(String name, int partitions, short replicationFactor, Map<String, String> configs) {}
 }
@@ -0,0 +1,482 @@
+package com.arthur.kafkaimplementation.config;
+
+import com.arthur.kafkaimplementation.config.KafkaConfig.TopicSpec;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.utils.Utils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cria e ajusta no broker os tópicos declarados no KafkaConfig, sem segurar a inicialização.
+ *
+ * Antes: o StartupEvent esperava o AdminClient (até 10 s por tópico), as
+ * partições eram fixas no código e um tópico existente nunca crescia.
+ *
+ * Reconciliação (thread "topic-provisioner", disparada no StartupEvent):
+ *   1. describeTopics          → o que já existe e com quantas partições
+ *   2. createTopics            → os que faltam, com partições, replicação e configs;
+ *                                 "já existe" (outra instância, auto-create do broker)
+ *                                 → describe de novo e segue nos passos 3 e 4
+ *   3. createPartitions        → os que têm menos partições que o declarado
+ *   4. incrementalAlterConfigs → só as configs que diferem das do broker
+ *   Falhou (broker fora, sem permissão)? Tenta de novo a cada retry-ms.
+ *
+ *   Partições além do declarado e replicação diferente só geram aviso: o Kafka
+ *   não reduz partições, e mudar a replicação é reatribuir réplicas.
+ *
+ * Readiness (/q/health/ready, TopicReadinessCheck) fica DOWN até a primeira
+ * reconciliação completa. Consumers e producers sobem em paralelo; quem manda
+ * tráfego pela API espera os tópicos estarem como declarados.
+ *
+ * expandPartitions aumenta as partições de um tópico com a aplicação no ar e
+ * devolve quais chaves mudam de partição (RemapReport).
+ */
+@ApplicationScoped
+public class TopicProvisioner {
+
+    private final KafkaConfig config;
+    private final String bootstrapServers;
+    private final long timeoutMs;
+    private final long retryMs;
+    private final Map<String, TopicState> states = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            r -> Thread.ofPlatform().daemon().name("topic-provisioner").unstarted(r));
+
+    private TopicAdmin admin;
+    private volatile boolean ready;
+    private volatile int attempts;
+    private volatile String lastError;
+
+    @Inject
+    public TopicProvisioner(
+            KafkaConfig config,
+            @ConfigProperty(name = "kafka.bootstrap.servers", defaultValue = "localhost:9092") String bootstrapServers,
+            @ConfigProperty(name = "app.kafka.provisioning.timeout-ms", defaultValue = "10000") long timeoutMs,
+            @ConfigProperty(name = "app.kafka.provisioning.retry-ms", defaultValue = "5000") long retryMs
+    ) {
+        this.config = config;
+        this.bootstrapServers = bootstrapServers;
+        this.timeoutMs = timeoutMs;
+        this.retryMs = retryMs;
+    }
+
+    /** Para testes: broker de mentira no lugar do AdminClient. */
+    TopicProvisioner(KafkaConfig config, TopicAdmin admin, long retryMs) {
+        this(config, null, 0, retryMs);
+        this.admin = admin;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!config.isProvisioningEnabled()) {
+            ready = true;
+            Log.info("Provisionamento de tópicos desativado (app.kafka.provisioning.enabled=false)");
+            return;
+        }
+        executor.execute(this::reconcile);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int attempts() {
+        return attempts;
+    }
+
+    public String lastError() {
+        return lastError;
+    }
+
+    public boolean isDeclared(String topic) {
+        return config.topics().stream().anyMatch(spec -> spec.name().equals(topic));
+    }
+
+    /** Situação de cada tópico declarado, na ordem da declaração (null = ainda não reconciliado). */
+    public Map<TopicSpec, TopicState> topics() {
+        Map<TopicSpec, TopicState> topics = new LinkedHashMap<>();
+        for (TopicSpec spec : config.topics()) {
+            topics.put(spec, states.get(spec.name()));
+        }
+        return topics;
+    }
+
+    /**
+     * Aumenta as partições do tópico para "partitions", com a aplicação no ar.
+     * As chaves informadas entram no relatório com a partição de antes e a de depois.
+     *
+     * @throws IllegalArgumentException se o tópico já tem "partitions" ou mais
+     */
+    public synchronized RemapReport expandPartitions(String topic, int partitions, Collection<String> keys)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        TopicDescription description = admin().describe(List.of(topic)).get(topic);
+        if (description == null) {
+            throw new IllegalArgumentException("Tópico não existe no broker: " + topic);
+        }
+        int before = description.partitions().size();
+        if (partitions <= before) {
+            throw new IllegalArgumentException(
+                    "O Kafka só aumenta partições: " + topic + " já tem " + before);
+        }
+
+        admin().createPartitions(Map.of(topic, NewPartitions.increaseTo(partitions)));
+        states.compute(topic, (name, state) -> new TopicState(
+                partitions,
+                state == null ? description.partitions().get(0).replicas().size() : state.replicationFactor(),
+                "expandido pela API: " + before + " → " + partitions));
+        Log.warnf("Tópico Kafka %s expandido pela API: %d → %d partições", topic, before, partitions);
+        return RemapReport.of(topic, before, partitions, keys);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        synchronized (this) {
+            if (admin != null) {
+                admin.close();
+            }
+        }
+    }
+
+    void reconcile() {
+        attempts++;
+        try {
+            List<TopicSpec> specs = config.topics();
+            Map<String, TopicDescription> existing = describe(specs);
+            Map<String, List<String>> changes = new LinkedHashMap<>();
+
+            createMissing(specs, existing, changes);
+            expandExisting(specs, existing, changes);
+            alterConfigs(specs, existing, changes);
+
+            for (TopicSpec spec : specs) {
+                // Sem descrição = criado agora por esta instância, exatamente como declarado
+                TopicDescription description = existing.get(spec.name());
+                int partitions = description == null
+                        ? spec.partitions()
+                        : Math.max(spec.partitions(), description.partitions().size());
+                short replication = description == null
+                        ? spec.replicationFactor()
+                        : (short) description.partitions().get(0).replicas().size();
+                List<String> done = changes.getOrDefault(spec.name(), List.of());
+                states.put(spec.name(), new TopicState(partitions, replication,
+                        done.isEmpty() ? "ok" : String.join("; ", done)));
+            }
+            lastError = null;
+            ready = true;
+            Log.infof("Tópicos Kafka reconciliados — %d tópicos, %d tentativa(s)", specs.size(), attempts);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            lastError = cause.toString();
+            Log.warnf("Reconciliação dos tópicos Kafka falhou (tentativa %d) — nova tentativa em %d ms: %s",
+                    attempts, retryMs, lastError);
+            if (!executor.isShutdown()) {
+                executor.schedule(this::reconcile, retryMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private Map<String, TopicDescription> describe(List<TopicSpec> specs)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        return new HashMap<>(admin().describe(specs.stream().map(TopicSpec::name).toList()));
+    }
+
+    private void createMissing(List<TopicSpec> specs, Map<String, TopicDescription> existing,
+                               Map<String, List<String>> changes)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        List<NewTopic> missing = specs.stream()
+                .filter(spec -> !existing.containsKey(spec.name()))
+                .map(spec -> new NewTopic(spec.name(), spec.partitions(), spec.replicationFactor())
+                        .configs(spec.configs()))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Set<String> alreadyThere = admin().create(missing);
+        for (NewTopic topic : missing) {
+            if (!alreadyThere.contains(topic.name())) {
+                changes.computeIfAbsent(topic.name(), k -> new ArrayList<>()).add("criado");
+                Log.infof("Tópico Kafka criado: %s", topic.name());
+            }
+        }
+        if (alreadyThere.isEmpty()) {
+            return;
+        }
+
+        // Criado entre o describe e o create — por outra instância ou pelo auto-create
+        // do broker, com partições e configs que não são necessariamente as declaradas.
+        // Entra em "existing" para os passos seguintes expandirem e ajustarem agora.
+        Map<String, TopicDescription> raced = admin().describe(alreadyThere);
+        for (String name : alreadyThere) {
+            TopicDescription description = raced.get(name);
+            if (description == null) {
+                throw new IllegalStateException("Tópico " + name + " existia no create e sumiu no describe");
+            }
+            existing.put(name, description);
+            Log.infof("Tópico Kafka %s criado por outro durante a reconciliação (%d partições) — ajustando",
+                    name, description.partitions().size());
+        }
+    }
+
+    private void expandExisting(List<TopicSpec> specs, Map<String, TopicDescription> existing,
+                                Map<String, List<String>> changes)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        Map<String, NewPartitions> grow = new LinkedHashMap<>();
+        for (TopicSpec spec : specs) {
+            TopicDescription description = existing.get(spec.name());
+            if (description == null) {
+                continue;
+            }
+            int current = description.partitions().size();
+            if (current < spec.partitions()) {
+                grow.put(spec.name(), NewPartitions.increaseTo(spec.partitions()));
+                changes.computeIfAbsent(spec.name(), k -> new ArrayList<>())
+                        .add("expandido: " + current + " → " + spec.partitions());
+            } else if (current > spec.partitions()) {
+                Log.warnf("Tópico Kafka %s tem %d partições, mais que as %d declaradas — o Kafka não reduz partições",
+                        spec.name(), current, spec.partitions());
+            }
+            int replication = description.partitions().get(0).replicas().size();
+            if (replication != spec.replicationFactor()) {
+                Log.warnf("Tópico Kafka %s tem replicação %d, declarada %d — exige reatribuição manual de réplicas",
+                        spec.name(), replication, spec.replicationFactor());
+            }
+        }
+        if (grow.isEmpty()) {
+            return;
+        }
+        admin().createPartitions(grow);
+        grow.forEach((name, partitions) -> Log.warnf("Tópico Kafka %s expandido: %d → %d partições",
+                name, existing.get(name).partitions().size(), partitions.totalCount()));
+    }
+
+    private void alterConfigs(List<TopicSpec> specs, Map<String, TopicDescription> existing,
+                              Map<String, List<String>> changes)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        Map<ConfigResource, TopicSpec> resources = new LinkedHashMap<>();
+        for (TopicSpec spec : specs) {
+            if (existing.containsKey(spec.name()) && !spec.configs().isEmpty()) {
+                resources.put(new ConfigResource(ConfigResource.Type.TOPIC, spec.name()), spec);
+            }
+        }
+        if (resources.isEmpty()) {
+            return;
+        }
+
+        Map<ConfigResource, Config> current = admin().describeConfigs(resources.keySet());
+        Map<ConfigResource, Collection<AlterConfigOp>> ops = new LinkedHashMap<>();
+        resources.forEach((resource, spec) -> {
+            Config broker = current.get(resource);
+            Collection<String> changed = new LinkedHashSet<>();
+            spec.configs().forEach((key, value) -> {
+                ConfigEntry entry = broker == null ? null : broker.get(key);
+                if (entry == null || !value.equals(entry.value())) {
+                    ops.computeIfAbsent(resource, r -> new ArrayList<>())
+                            .add(new AlterConfigOp(new ConfigEntry(key, value), AlterConfigOp.OpType.SET));
+                    changed.add(key);
+                }
+            });
+            if (!changed.isEmpty()) {
+                changes.computeIfAbsent(spec.name(), k -> new ArrayList<>())
+                        .add("configs: " + String.join(", ", changed));
+            }
+        });
+        if (ops.isEmpty()) {
+            return;
+        }
+        admin().alterConfigs(ops);
+        ops.forEach((resource, changed) -> Log.infof("Configs do tópico Kafka %s ajustadas: %s",
+                resource.name(), changed.stream().map(op -> op.configEntry().name()).toList()));
+    }
+
+    private synchronized TopicAdmin admin() {
+        if (admin == null) {
+            Properties props = new Properties();
+            props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            props.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) timeoutMs);
+            props.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) timeoutMs);
+            admin = new KafkaTopicAdmin(AdminClient.create(props), timeoutMs);
+        }
+        return admin;
+    }
+
+    /**
+     * Partição de uma chave String no partitioner padrão do producer:
+     * murmur2 dos bytes UTF-8 (StringSerializer), positivo, módulo o número de partições.
+     */
+    static int partitionFor(String key, int partitions) {
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    /**
+     * Fração das chaves que mudam de partição ao passar de "before" para "after".
+     *
+     * Com hash uniforme h, a chave fica onde estava quando h mod before == h mod after.
+     * Em cada bloco de mmc(before, after) valores de h isso acontece exatamente
+     * min(before, after) vezes (um h para cada resto comum, pelo teorema chinês).
+     *   3 → 6: fica 3/6, muda 50%      3 → 4: fica 3/12, muda 75%
+     */
+    static double movedFraction(int before, int after) {
+        long lcm = (long) before / gcd(before, after) * after;
+        return 1.0 - (double) Math.min(before, after) / lcm;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /** O que o provisionamento usa do AdminClient, com o timeout já aplicado a cada chamada. */
+    interface TopicAdmin {
+
+        /** Descrição dos tópicos que existem; os que não existem ficam fora do mapa. */
+        Map<String, TopicDescription> describe(Collection<String> topics)
+                throws ExecutionException, TimeoutException, InterruptedException;
+
+        /** Cria os tópicos, um resultado por tópico; devolve os que já existiam. */
+        Set<String> create(List<NewTopic> topics)
+                throws ExecutionException, TimeoutException, InterruptedException;
+
+        void createPartitions(Map<String, NewPartitions> partitions)
+                throws ExecutionException, TimeoutException, InterruptedException;
+
+        Map<ConfigResource, Config> describeConfigs(Collection<ConfigResource> resources)
+                throws ExecutionException, TimeoutException, InterruptedException;
+
+        void alterConfigs(Map<ConfigResource, Collection<AlterConfigOp>> ops)
+                throws ExecutionException, TimeoutException, InterruptedException;
+
+        void close();
+    }
+
+    private static final class KafkaTopicAdmin implements TopicAdmin {
+
+        private final AdminClient client;
+        private final long timeoutMs;
+
+        KafkaTopicAdmin(AdminClient client, long timeoutMs) {
+            this.client = client;
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public Map<String, TopicDescription> describe(Collection<String> topics)
+                throws ExecutionException, TimeoutException, InterruptedException {
+            Map<String, TopicDescription> existing = new HashMap<>();
+            for (Map.Entry<String, KafkaFuture<TopicDescription>> entry
+                    : client.describeTopics(topics).topicNameValues().entrySet()) {
+                try {
+                    existing.put(entry.getKey(), entry.getValue().get(timeoutMs, TimeUnit.MILLISECONDS));
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof UnknownTopicOrPartitionException)) {
+                        throw e;
+                    }
+                }
+            }
+            return existing;
+        }
+
+        @Override
+        public Set<String> create(List<NewTopic> topics)
+                throws ExecutionException, TimeoutException, InterruptedException {
+            // Um resultado por tópico: um que já exista não impede a criação dos outros
+            Set<String> alreadyThere = new LinkedHashSet<>();
+            for (Map.Entry<String, KafkaFuture<Void>> entry : client.createTopics(topics).values().entrySet()) {
+                try {
+                    entry.getValue().get(timeoutMs, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof TopicExistsException)) {
+                        throw e;
+                    }
+                    alreadyThere.add(entry.getKey());
+                }
+            }
+            return alreadyThere;
+        }
+
+        @Override
+        public void createPartitions(Map<String, NewPartitions> partitions)
+                throws ExecutionException, TimeoutException, InterruptedException {
+            client.createPartitions(partitions).all().get(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public Map<ConfigResource, Config> describeConfigs(Collection<ConfigResource> resources)
+                throws ExecutionException, TimeoutException, InterruptedException {
+            return client.describeConfigs(resources).all().get(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void alterConfigs(Map<ConfigResource, Collection<AlterConfigOp>> ops)
+                throws ExecutionException, TimeoutException, InterruptedException {
+            client.incrementalAlterConfigs(ops).all().get(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void close() {
+            client.close(Duration.ofSeconds(5));
+        }
+    }
+
+    /** Situação de um tópico no broker depois da última reconciliação. */
+    public record TopicState(int partitions, int replicationFactor, String note) {}
+
+    /** Uma chave e sua partição antes e depois da expansão. */
+    public record KeyMove(String key, int from, int to) {
+
+        public boolean moved() {
+            return from != to;
+        }
+    }
+
+    /**
+     * Resultado de expandPartitions.
+     *
+     * movedFraction vale para o espaço inteiro de chaves; keys mostra o caso a
+     * caso das chaves pedidas (e, no tópico principal, dos usuários mais quentes).
+     */
+    public record RemapReport(String topic, int before, int after, double movedFraction, List<KeyMove> keys) {
+
+        static RemapReport of(String topic, int before, int after, Collection<String> keys) {
+            List<KeyMove> moves = new ArrayList<>(keys.size());
+            for (String key : new LinkedHashSet<>(keys)) {
+                moves.add(new KeyMove(key, partitionFor(key, before), partitionFor(key, after)));
+            }
+            return new RemapReport(topic, before, after, TopicProvisioner.movedFraction(before, after), moves);
+        }
+    }
+}
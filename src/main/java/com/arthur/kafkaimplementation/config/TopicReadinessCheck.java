@@ -0,0 +1,31 @@
+package com.arthur.kafkaimplementation.config;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Readiness DOWN até o TopicProvisioner terminar a primeira reconciliação.
+ * Liveness não depende disso: broker fora do ar não é motivo para reiniciar o pod.
+ */
+@Readiness
+@ApplicationScoped
+public class TopicReadinessCheck implements HealthCheck {
+
+    @Inject
+    TopicProvisioner provisioner;
+
+    @Override
+    public HealthCheckResponse call() {
+        HealthCheckResponseBuilder response = HealthCheckResponse.named("kafka-topics")
+                .status(provisioner.isReady())
+                .withData("tentativas", provisioner.attempts());
+        if (provisioner.lastError() != null) {
+            response.withData("ultimo_erro", provisioner.lastError());
+        }
+        return response.build();
+    }
+}
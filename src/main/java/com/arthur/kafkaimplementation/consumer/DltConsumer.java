@@ -1,9 +1,16 @@
 package com.arthur.kafkaimplementation.consumer;
 
 import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.RetryHeaders;
+import com.arthur.kafkaimplementation.producer.RetryPublisher;
+import com.arthur.kafkaimplementation.service.DltArchive;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.PriorityLanes;
 import io.quarkus.logging.Log;
-import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.eclipse.microprofile.reactive.messaging.Message;
@@ -13,12 +20,26 @@ import java.util.concurrent.CompletionStage;
 /**
  * Consumer do Dead Letter Topic (DLT).
  *
- * Recebe notificações que foram bloqueadas pelo rate limiter.
- * Em produção, aqui você poderia:
- *   - Salvar em banco para auditoria
- *   - Agendar reenvio depois da janela do rate limit
- *   - Emitir métricas (Prometheus/Datadog) sobre notificações descartadas
- *   - Notificar o time via alertas (PagerDuty, Slack)
+ * Recebe notificações que foram bloqueadas pelo rate limiter e agenda o reenvio
+ * para quando a janela do usuário reabrir, em vez de descartá-las:
+ *
+ *   DLT ──► RetryRouter ──┬─► notifications.retry.{10s,30s,60s} ─► RetryBucketConsumer ─┐
+ *                         │                                                             │
+ *                         ├─► notifications[.high] (janela já reabriu) ◄────────────────┘
+ *                         └─► notifications.parking (app.retry.max-attempts esgotado)
+ *
+ * O "quando" vem do próprio rate limiter: o consumer principal grava o resetAtMs
+ * da decisão no header retry-not-before. Nada de timer ou thread por mensagem —
+ * os retries pendentes ficam nos tópicos de bucket, não na memória.
+ *
+ * Só o que sai de vez do caminho de retry vai para o DltArchive (app.dlt-archive.*):
+ * estacionado, ou descartado com app.retry.enabled=false. Uma tentativa que ainda
+ * vai ser reenviada não é arquivada — senão cada passagem pelo DLT viraria um
+ * registro, e um reenvio do arquivo mandaria de novo o que o retry já entregou.
+ * O arquivo é um log local, mapeado em memória, que responde "o que caiu para o
+ * u1?" e permite reenviar um intervalo inteiro depois — ver DltArchiveController.
+ *
+ * Com app.retry.enabled=false volta ao comportamento antigo: arquiva, loga e descarta.
  *
  * Grupo separado "notification-dlt-group" → independente do consumer principal.
  * Isso significa que parar o consumer principal não para o DLT consumer e vice-versa.
@@ -26,17 +47,70 @@ import java.util.concurrent.CompletionStage;
 @ApplicationScoped
 public class DltConsumer {
 
+    @Inject
+    RetryRouter router;
+
+    @Inject
+    RetryPublisher retryPublisher;
+
+    @Inject
+    PipelineMetrics metrics;
+
+    @Inject
+    PriorityLanes lanes;
+
+    @Inject
+    DltArchive archive;
+
+    @ConfigProperty(name = "app.retry.enabled", defaultValue = "true")
+    boolean retryEnabled;
+
+    @ConfigProperty(name = "app.rate-limit.window-seconds", defaultValue = "60")
+    int windowSeconds;
+
     @Incoming("notifications-dlt-in")
     @Acknowledgment(Acknowledgment.Strategy.MANUAL)
-    @Blocking
     public CompletionStage<Void> consume(Message<NotificationEvent> message) {
         NotificationEvent event = message.getPayload();
+        IncomingKafkaRecordMetadata<?, ?> meta =
+                message.getMetadata(IncomingKafkaRecordMetadata.class).orElseThrow();
+
+        long nowMs = System.currentTimeMillis();
+        int attempt = RetryHeaders.attempt(meta.getHeaders());
+        // Registro sem header (publicado antes do retry existir): espera uma janela inteira
+        long notBeforeMs = RetryHeaders.notBefore(meta.getHeaders(), nowMs + windowSeconds * 1000L);
+
+        if (!retryEnabled) {
+            archive.append(event, notBeforeMs, attempt);
+            Log.warnf("[DLT] Notificacao descartada por rate limit — userId=%s type=%s mensagem=\"%s\" sentAt=%s",
+                    event.userId(), event.type(), event.message(), event.sentAt());
+            return message.ack();
+        }
 
-        Log.warnf("[DLT] Notificacao descartada por rate limit — userId=%s type=%s mensagem=\"%s\" sentAt=%s",
-                event.userId(), event.type(), event.message(), event.sentAt());
+        String destination = router.destination(nowMs, notBeforeMs, attempt);
+        int nextAttempt = router.isRetry(destination) ? attempt + 1 : attempt;
+        metrics.retryRouted(router.route(destination));
+        if (router.isRetry(destination)) {
+            // A republicação volta para a faixa de prioridade do tipo
+            destination = lanes.topicFor(event.type());
+        }
 
-        // Aqui: persistir para retry posterior, emitir métrica, etc.
+        if (router.isParking(destination)) {
+            archive.append(event, notBeforeMs, attempt);
+            Log.warnf("[DLT] Tentativas esgotadas — estacionando — userId=%s type=%s tentativas=%d",
+                    event.userId(), event.type(), attempt);
+        } else {
+            Log.infof("[DLT] Reenvio agendado — userId=%s type=%s tentativa=%d em %d ms via %s",
+                    event.userId(), event.type(), attempt + 1, Math.max(0, notBeforeMs - nowMs), destination);
+        }
 
-        return message.ack();
+        // ACK só depois que o destino confirmar a escrita: nada se perde entre os tópicos
+        return retryPublisher.publish(destination, event, nextAttempt, notBeforeMs,
+                        RetryHeaders.charged(meta.getHeaders()))
+                .thenCompose(v -> message.ack())
+                .exceptionallyCompose(e -> {
+                    Log.errorf("[DLT] Falha ao agendar reenvio — userId=%s error=%s", event.userId(), e.getMessage());
+                    return message.nack(e);
+                });
     }
 }
@@ -0,0 +1,63 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executa tarefas em paralelo entre chaves diferentes e em série dentro da mesma chave.
+ *
+ * Cada chave tem uma "cauda": a tarefa mais recente submetida para ela.
+ * Uma nova tarefa só começa quando a cauda da sua chave termina, então
+ * u1#1 → u1#2 → u1#3 rodam em ordem, enquanto u2 e u3 andam em paralelo.
+ * Quando a última tarefa de uma chave termina, a chave sai do mapa — o
+ * tamanho do mapa é limitado pelo número de tarefas em voo, não de usuários.
+ *
+ * maxInFlight limita o total de tarefas em andamento (inclusive as que estão
+ * esperando a vez da sua chave). submit() bloqueia quando o limite é atingido,
+ * o que segura o consumo do Kafka — backpressure em vez de fila ilimitada.
+ */
+final class KeyOrderedExecutor implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    KeyOrderedExecutor(ExecutorService executor, int maxInFlight) {
+        this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Agenda a tarefa depois de todas as já submetidas para a mesma chave.
+     * Bloqueia enquanto houver maxInFlight tarefas em andamento.
+     *
+     * @return future que completa quando a tarefa termina (com a exceção dela, se falhar)
+     */
+    CompletableFuture<Void> submit(String key, Runnable task) throws InterruptedException {
+        inFlight.acquire();
+
+        CompletableFuture<Void> next = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, executor)
+                // Falha de uma tarefa não pode travar as próximas da mesma chave
+                : tail.handle((v, e) -> null).thenRunAsync(task, executor));
+
+        // Devolve o estágio da limpeza: quem espera a tarefa já vê a chave fora do mapa e a vaga livre
+        return next.whenComplete((v, e) -> {
+            tails.remove(key, next);
+            inFlight.release();
+        });
+    }
+
+    /** Quantas chaves têm tarefa em andamento ou na fila neste momento. */
+    int activeKeys() {
+        return tails.size();
+    }
+
+    /** Para de aceitar tarefas e espera as que estão em voo terminarem. */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,185 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.RetryHeaders;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer.DeadLetter;
+import com.arthur.kafkaimplementation.service.DigestCoalescer;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import com.arthur.kafkaimplementation.service.NotificationDeliveryService;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.PriorityLanes;
+import com.arthur.kafkaimplementation.service.RateLimitDecision;
+import com.arthur.kafkaimplementation.service.RateLimitRequest;
+import com.arthur.kafkaimplementation.service.RateLimiter;
+import com.arthur.kafkaimplementation.service.RecordKey;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.logging.Log;
+import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Consumer do tópico de notificações em modo lote (batch do SmallRye Kafka).
+ *
+ * Ativo quando app.consumer.mode=batch (propriedade de build) — junto com
+ * mp.messaging.incoming.notifications-in.batch=true. O perfil "batch" do
+ * application.properties já liga os dois:
+ *   ./mvnw quarkus:dev -Dquarkus.profile=batch
+ *
+ * Fluxo por poll:
+ *   1. Recebe todos os registros do poll como um único Message<List<...>>
+ *   2. Resolve o rate limit do lote inteiro em um pipeline Redis (checkAll)
+ *   3. Emite todos os bloqueados para o DLT de uma vez
+ *   4. Entrega os permitidos — todos na fila do provedor de uma vez, em poucas chamadas
+ *   5. Espera o DLT confirmar a escrita e faz UM ack → um commit por lote
+ *
+ * Por que o rate limit não muda?
+ *   O pipeline executa os scripts na ordem dos registros, cada um atômico.
+ *   Se o mesmo usuário aparece 8 vezes no lote, as 5 primeiras passam e as
+ *   3 últimas vão para o DLT — exatamente como no modo mensagem a mensagem.
+ *
+ * Faixa HIGH (notifications-high-in) não é em lote: PEDIDO tem pouco volume e
+ * não deve esperar um poll cheio nem a entrega das promoções do lote da frente.
+ *
+ * EXPERIMENTO — Catch-up após lag:
+ *   Pare a aplicação, dispare alguns /burst e suba de novo com o perfil batch.
+ *   Compare no log o tamanho dos lotes e o tempo para zerar o lag.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "app.consumer.mode", stringValue = "batch")
+public class NotificationBatchConsumer {
+
+    @Inject
+    RateLimiter rateLimiter;
+
+    @Inject
+    DeadLetterProducer deadLetterProducer;
+
+    @Inject
+    NotificationDeliveryService deliveryService;
+
+    @Inject
+    PipelineMetrics metrics;
+
+    @Inject
+    HotKeyTracker hotKeys;
+
+    @Inject
+    DigestCoalescer digests;
+
+    @Incoming("notifications-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    @Blocking
+    public CompletionStage<Void> consume(Message<List<NotificationEvent>> batch) {
+        List<NotificationEvent> events = batch.getPayload();
+
+        IncomingKafkaRecordBatchMetadata<?, ?> meta =
+                batch.getMetadata(IncomingKafkaRecordBatchMetadata.class).orElseThrow();
+
+        Log.infof("Lote recebido — %d mensagens, partições=%s",
+                events.size(), meta.getRecords().partitions());
+
+        // O payload segue a ordem de iteração dos registros do poll.
+        // Registro com retry-charged (só a entrega falhou da outra vez) não passa
+        // pelo rate limit: a cota já foi gasta, vai direto para a entrega.
+        boolean[] charged = new boolean[events.size()];
+        int[] attempts = new int[events.size()];
+        List<RateLimitRequest> requests = new ArrayList<>(events.size());
+        int position = 0;
+        for (ConsumerRecord<?, ?> record : meta.getRecords()) {
+            hotKeys.record(record.partition(), events.get(position).userId());
+            attempts[position] = RetryHeaders.attempt(record.headers());
+            charged[position] = RetryHeaders.charged(record.headers());
+            if (!charged[position]) {
+                requests.add(new RateLimitRequest(events.get(position).userId(), events.get(position).type(),
+                        record.partition(), RecordKey.of(record.topic(), record.partition(), record.offset())));
+            }
+            position++;
+        }
+        List<RateLimitDecision> decisions = requests.isEmpty() ? List.of() : rateLimiter.checkAll(requests);
+
+        List<NotificationEvent> allowed = new ArrayList<>(events.size());
+        int[] allowedAttempts = new int[events.size()];
+        List<DeadLetter> blocked = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < events.size(); i++) {
+            if (charged[i]) {
+                allowedAttempts[allowed.size()] = attempts[i];
+                allowed.add(events.get(i));
+                continue;
+            }
+            int partition = requests.get(next).partition();
+            RateLimitDecision decision = decisions.get(next++);
+            metrics.rateLimitDecided(events.get(i).type(), decision.allowed());
+            if (decision.allowed()) {
+                allowedAttempts[allowed.size()] = attempts[i];
+                allowed.add(events.get(i));
+            } else if (!digests.absorb(events.get(i), partition, decision.resetAtMs(), attempts[i])) {
+                blocked.add(new DeadLetter(events.get(i), decision.resetAtMs(), attempts[i]));
+            }
+        }
+
+        // Dispara o DLT antes das entregas: a escrita no broker corre em paralelo
+        CompletionStage<Void> dltWritten = deadLetterProducer.sendAll(blocked);
+
+        // Todas entram na fila do provedor de uma vez: o DeliveryDispatcher junta em lotes
+        deliveryService.deliverAll(allowed, allowedAttempts);
+
+        Log.infof("Lote processado — entregues=%d bloqueadas(DLT)=%d agrupadas(resumo)=%d",
+                allowed.size(), blocked.size(), events.size() - allowed.size() - blocked.size());
+
+        // Um único ack por lote: o SmallRye commita o último offset de cada partição do poll.
+        // Falha no DLT não trava o lote — mesmo comportamento do modo mensagem a mensagem.
+        return dltWritten
+                .exceptionally(e -> {
+                    Log.errorf("Falha ao publicar lote no DLT — %d mensagens, error=%s",
+                            blocked.size(), e.getMessage());
+                    return null;
+                })
+                .thenCompose(v -> batch.ack());
+    }
+
+    /** Faixa HIGH: mensagem a mensagem, como no NotificationConsumer. */
+    @Incoming("notifications-high-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    @Blocking
+    public CompletionStage<Void> consumeHigh(Message<NotificationEvent> message) {
+        NotificationEvent event = message.getPayload();
+
+        IncomingKafkaRecordMetadata<?, ?> meta =
+                message.getMetadata(IncomingKafkaRecordMetadata.class).orElseThrow();
+
+        int attempt = RetryHeaders.attempt(meta.getHeaders());
+        if (RetryHeaders.charged(meta.getHeaders())) {
+            // Só a entrega falhou da outra vez: a cota já foi gasta
+            deliveryService.deliver(event, attempt);
+            return message.ack();
+        }
+
+        RateLimitDecision decision = rateLimiter.check(new RateLimitRequest(event.userId(), event.type(),
+                PriorityLanes.NO_PARTITION, RecordKey.of(meta.getTopic(), meta.getPartition(), meta.getOffset())));
+        metrics.rateLimitDecided(event.type(), decision.allowed());
+        if (decision.allowed()) {
+            deliveryService.deliver(event, attempt);
+            return message.ack();
+        }
+
+        if (!digests.absorb(event, PriorityLanes.NO_PARTITION, decision.resetAtMs(), attempt)) {
+            Log.warnf("BLOQUEADO pelo rate limit — enviando para DLT — userId=%s type=%s",
+                    event.userId(), event.type());
+            deadLetterProducer.send(event, decision.resetAtMs(), attempt);
+        }
+        return message.ack();
+    }
+}
@@ -1,16 +1,25 @@
 package com.arthur.kafkaimplementation.consumer;
 
 import com.arthur.kafkaimplementation.dto.NotificationEvent;
-import com.arthur.kafkaimplementation.service.RateLimiterService;
+import com.arthur.kafkaimplementation.dto.RetryHeaders;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer;
+import com.arthur.kafkaimplementation.service.DigestCoalescer;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import com.arthur.kafkaimplementation.service.NotificationDeliveryService;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.PriorityLanes;
+import com.arthur.kafkaimplementation.service.PriorityLanes.Lane;
+import com.arthur.kafkaimplementation.service.RateLimitDecision;
+import com.arthur.kafkaimplementation.service.RateLimitRequest;
+import com.arthur.kafkaimplementation.service.RateLimiter;
+import com.arthur.kafkaimplementation.service.RecordKey;
+import io.quarkus.arc.properties.IfBuildProperty;
 import io.quarkus.logging.Log;
 import io.smallrye.reactive.messaging.annotations.Blocking;
 import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
-import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
-import org.eclipse.microprofile.reactive.messaging.Channel;
-import org.eclipse.microprofile.reactive.messaging.Emitter;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.eclipse.microprofile.reactive.messaging.Message;
 
@@ -21,8 +30,9 @@ import java.util.concurrent.CompletionStage;
  *
  * Fluxo de processamento:
  *   1. Lê a mensagem do Kafka
- *   2. Consulta o RateLimiterService (sliding window no Redis)
+ *   2. Consulta o RateLimiter (algoritmo escolhido em app.rate-limit.algorithm)
  *   3a. Se bloqueado → publica no DLT e faz ACK (descarta da fila principal)
+ *       — ou, para os tipos de app.digest.types, entra no resumo do usuário (DigestCoalescer)
  *   3b. Se permitido → processa (simula envio) e faz ACK
  *
  * Por que ACK manual (enable-auto-commit: false + Strategy.MANUAL)?
@@ -31,9 +41,10 @@ import java.util.concurrent.CompletionStage;
  * EXPERIMENTO 1 — Matar o consumer no meio do processamento:
  *   Se o consumer morrer APÓS processar mas ANTES do message.ack(),
  *   o Kafka reentregará a mensagem (offset não foi commitado).
- *   Problema: o Redis JÁ foi incrementado. Na reentrega, o contador está +1
- *   do que deveria — risco de falso positivo no rate limit.
- *   Solução ideal: transação distribuída ou idempotency key (fora do escopo aqui).
+ *   O Redis JÁ registrou a notificação — mas com a chave do registro
+ *   (RecordKey: tópico/partição/offset). No sliding-log a reentrega encontra a
+ *   própria entrada e passa sem contar de novo. GCRA e token-bucket não guardam
+ *   entradas: neles a reentrega ainda consome uma unidade da cota.
  *
  * EXPERIMENTO 2 — Dois consumers no mesmo grupo:
  *   O Kafka divide as 3 partições entre os consumers:
@@ -41,63 +52,96 @@ import java.util.concurrent.CompletionStage;
  *   Consumer-B → partição  [2]
  *   Só o consumer responsável pela partição de um userId específico
  *   vai processar as mensagens daquele usuário.
+ *
+ * Faixas de prioridade (PriorityLanes):
+ *   notifications-in      → faixa LOW  (tópico notifications)
+ *   notifications-high-in → faixa HIGH (tópico notifications.high)
+ *   Cada canal tem seu consumer Kafka e sua worker thread: uma campanha parada
+ *   na fila LOW não atrasa a leitura da HIGH.
+ *
+ * Ativo quando app.consumer.mode=single (padrão). Para consumo em lote,
+ * veja NotificationBatchConsumer.
  */
 @ApplicationScoped
+@IfBuildProperty(name = "app.consumer.mode", stringValue = "single", enableIfMissing = true)
 public class NotificationConsumer {
 
     @Inject
-    RateLimiterService rateLimiter;
+    RateLimiter rateLimiter;
+
+    @Inject
+    DeadLetterProducer deadLetterProducer;
 
     @Inject
-    @Channel("notifications-dlt-out")
-    Emitter<NotificationEvent> dltEmitter;
+    NotificationDeliveryService deliveryService;
+
+    @Inject
+    PipelineMetrics metrics;
+
+    @Inject
+    HotKeyTracker hotKeys;
+
+    @Inject
+    DigestCoalescer digests;
 
     @Incoming("notifications-in")
     @Acknowledgment(Acknowledgment.Strategy.MANUAL)
     @Blocking
     public CompletionStage<Void> consume(Message<NotificationEvent> message) {
+        return process(message, Lane.LOW);
+    }
+
+    @Incoming("notifications-high-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    @Blocking
+    public CompletionStage<Void> consumeHigh(Message<NotificationEvent> message) {
+        return process(message, Lane.HIGH);
+    }
+
+    private CompletionStage<Void> process(Message<NotificationEvent> message, Lane lane) {
         NotificationEvent event = message.getPayload();
 
         IncomingKafkaRecordMetadata<?, ?> meta =
                 message.getMetadata(IncomingKafkaRecordMetadata.class).orElseThrow();
 
-        Log.infof("Mensagem recebida — userId=%s type=%s partition=%d offset=%d",
-                event.userId(), event.type(), meta.getPartition(), meta.getOffset());
+        Log.infof("Mensagem recebida — userId=%s type=%s lane=%s partition=%d offset=%d",
+                event.userId(), event.type(), lane.tag(), meta.getPartition(), meta.getOffset());
+
+        // Estado por partição (partition-local, sketch, resumos) é só da faixa LOW
+        int partition = lane == Lane.LOW ? meta.getPartition() : PriorityLanes.NO_PARTITION;
+        if (lane == Lane.LOW) {
+            hotKeys.record(partition, event.userId());
+        }
+
+        if (RetryHeaders.charged(meta.getHeaders())) {
+            // Só a entrega falhou da outra vez: a cota já foi gasta
+            deliveryService.deliver(event, RetryHeaders.attempt(meta.getHeaders()));
+            return message.ack();
+        }
+
+        RateLimitDecision decision = rateLimiter.check(new RateLimitRequest(event.userId(), event.type(), partition,
+                RecordKey.of(meta.getTopic(), meta.getPartition(), meta.getOffset())));
+        metrics.rateLimitDecided(event.type(), decision.allowed());
+        if (!decision.allowed()) {
+            int attempt = RetryHeaders.attempt(meta.getHeaders());
+            if (digests.absorb(event, partition, decision.resetAtMs(), attempt)) {
+                Log.debugf("BLOQUEADO pelo rate limit — agrupada no resumo — userId=%s type=%s",
+                        event.userId(), event.type());
+                return message.ack();
+            }
 
-        if (!rateLimiter.isAllowed(event.userId())) {
             Log.warnf("BLOQUEADO pelo rate limit — enviando para DLT — userId=%s type=%s",
                     event.userId(), event.type());
 
-            dltEmitter.send(Message.of(event).addMetadata(
-                    OutgoingKafkaRecordMetadata.<String>builder()
-                            .withKey(event.userId())
-                            .build()
-            ));
+            // resetAtMs diz ao DltConsumer quando vale a pena tentar de novo
+            deadLetterProducer.send(event, decision.resetAtMs(), attempt);
 
             // ACK mesmo no caso bloqueado: a mensagem foi tratada (enviada para DLT).
             // Sem o ACK aqui, o Kafka reentregaria indefinidamente após restart.
             return message.ack();
         }
 
-        processNotification(event);
+        deliveryService.deliver(event, RetryHeaders.attempt(meta.getHeaders()));
         return message.ack();
     }
-
-    /**
-     * Simula o envio da notificação via provedor externo (push, SMS, email).
-     * Em produção, aqui entraria a chamada ao SDK do provedor (Firebase, Twilio, etc).
-     */
-    private void processNotification(NotificationEvent event) {
-        Log.infof("ENVIANDO notificacao — userId=%s type=%s mensagem=\"%s\" sentAt=%s",
-                event.userId(), event.type(), event.message(), event.sentAt());
-
-        // Simula latência de rede para o provedor externo
-        try {
-            Thread.sleep(50);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        Log.infof("Notificacao ENTREGUE — userId=%s", event.userId());
-    }
 }
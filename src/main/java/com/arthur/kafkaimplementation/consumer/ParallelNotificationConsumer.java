@@ -0,0 +1,178 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.RetryHeaders;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer;
+import com.arthur.kafkaimplementation.service.DigestCoalescer;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import com.arthur.kafkaimplementation.service.NotificationDeliveryService;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.PriorityLanes;
+import com.arthur.kafkaimplementation.service.PriorityLanes.Lane;
+import com.arthur.kafkaimplementation.service.RateLimitDecision;
+import com.arthur.kafkaimplementation.service.RateLimitRequest;
+import com.arthur.kafkaimplementation.service.RateLimiter;
+import com.arthur.kafkaimplementation.service.RecordKey;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.logging.Log;
+import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+
+/**
+ * Consumer do tópico de notificações com paralelismo por chave dentro da partição.
+ *
+ * Ativo quando app.consumer.mode=parallel (propriedade de build):
+ *   ./mvnw quarkus:dev -Dquarkus.profile=parallel
+ *
+ * Problema do modo padrão:
+ *   O processamento é serial por partição e cada entrega espera ~50 ms no provedor.
+ *   Com 3 partições, o teto é ~20 msg/s por partição, não importa quantos usuários.
+ *
+ * Como funciona aqui:
+ *   1. A thread do SmallRye só despacha: entrega a mensagem ao KeyOrderedExecutor e retorna
+ *   2. Mensagens de userIds diferentes rodam em paralelo, cada uma em uma virtual thread
+ *   3. Mensagens do mesmo userId continuam em ordem estrita (fila por chave)
+ *   4. No máximo app.consumer.parallel.max-in-flight mensagens em voo; acima disso
+ *      o despacho bloqueia e o consumo do Kafka para de avançar
+ *
+ * E o commit de offset com acks fora de ordem?
+ *   A commit-strategy "throttled" do SmallRye (padrão com enable.auto.commit=false)
+ *   rastreia os acks por partição e só commita o prefixo contíguo já concluído.
+ *   Ex: offsets 10, 11 e 13 concluídos, 12 em andamento → commit em 12.
+ *   Se o consumer cair, a reentrega começa no 12 — nada concluído depois dele se perde,
+ *   apenas é reprocessado (at-least-once, igual ao modo padrão).
+ *
+ * Por que a ordem por usuário continua valendo?
+ *   O NotificationProducer usa userId como chave, então todas as mensagens de um
+ *   usuário estão na mesma partição e chegam aqui em ordem. O KeyOrderedExecutor
+ *   mantém essa ordem — inclusive na contagem do rate limit.
+ *
+ * Faixas de prioridade:
+ *   A faixa HIGH (notifications-high-in) tem o seu próprio KeyOrderedExecutor.
+ *   Se dividisse o da LOW, uma campanha ocuparia as max-in-flight vagas e o
+ *   despacho do PEDIDO bloquearia atrás dela. A disputa que sobra — a fila do
+ *   provedor — é dividida por peso (LaneScheduler, no DeliveryDispatcher).
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "app.consumer.mode", stringValue = "parallel")
+public class ParallelNotificationConsumer {
+
+    private final RateLimiter rateLimiter;
+    private final DeadLetterProducer deadLetterProducer;
+    private final NotificationDeliveryService deliveryService;
+    private final PipelineMetrics metrics;
+    private final HotKeyTracker hotKeys;
+    private final DigestCoalescer digests;
+    private final KeyOrderedExecutor executor;
+    private final KeyOrderedExecutor highExecutor;
+
+    public ParallelNotificationConsumer(
+            RateLimiter rateLimiter,
+            DeadLetterProducer deadLetterProducer,
+            NotificationDeliveryService deliveryService,
+            PipelineMetrics metrics,
+            HotKeyTracker hotKeys,
+            DigestCoalescer digests,
+            @ConfigProperty(name = "app.consumer.parallel.max-in-flight", defaultValue = "256") int maxInFlight
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.deadLetterProducer = deadLetterProducer;
+        this.deliveryService = deliveryService;
+        this.metrics = metrics;
+        this.hotKeys = hotKeys;
+        this.digests = digests;
+        this.executor = new KeyOrderedExecutor(Executors.newVirtualThreadPerTaskExecutor(), maxInFlight);
+        this.highExecutor = new KeyOrderedExecutor(Executors.newVirtualThreadPerTaskExecutor(), maxInFlight);
+    }
+
+    @Incoming("notifications-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    @Blocking
+    public CompletionStage<Void> consume(Message<NotificationEvent> message) {
+        return dispatch(message, Lane.LOW, executor);
+    }
+
+    @Incoming("notifications-high-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    @Blocking
+    public CompletionStage<Void> consumeHigh(Message<NotificationEvent> message) {
+        return dispatch(message, Lane.HIGH, highExecutor);
+    }
+
+    private CompletionStage<Void> dispatch(Message<NotificationEvent> message, Lane lane,
+                                           KeyOrderedExecutor laneExecutor) {
+        NotificationEvent event = message.getPayload();
+
+        IncomingKafkaRecordMetadata<?, ?> meta =
+                message.getMetadata(IncomingKafkaRecordMetadata.class).orElseThrow();
+
+        Log.debugf("Mensagem despachada — userId=%s lane=%s partition=%d offset=%d emVoo(chaves)=%d",
+                event.userId(), lane.tag(), meta.getPartition(), meta.getOffset(), laneExecutor.activeKeys());
+
+        // Estado por partição (partition-local, sketch, resumos) é só da faixa LOW
+        int partition = lane == Lane.LOW ? meta.getPartition() : PriorityLanes.NO_PARTITION;
+        if (lane == Lane.LOW) {
+            // Na thread de despacho: uma por partição, em ordem, sem disputar o lock do sketch
+            hotKeys.record(partition, event.userId());
+        }
+
+        try {
+            laneExecutor.submit(event.userId(), () -> handle(message, event, meta, partition))
+                    .exceptionally(e -> {
+                        Log.errorf("Falha ao processar notificação — userId=%s offset=%d error=%s",
+                                event.userId(), meta.getOffset(), e.getMessage());
+                        message.nack(e);
+                        return null;
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return message.nack(e);
+        }
+
+        // Retorna já: o ack acontece quando a tarefa da chave terminar
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void handle(Message<NotificationEvent> message, NotificationEvent event,
+                        IncomingKafkaRecordMetadata<?, ?> meta, int partition) {
+        if (RetryHeaders.charged(meta.getHeaders())) {
+            // Só a entrega falhou da outra vez: a cota já foi gasta
+            deliveryService.deliver(event, RetryHeaders.attempt(meta.getHeaders()));
+            message.ack();
+            return;
+        }
+
+        RateLimitDecision decision = rateLimiter.check(new RateLimitRequest(event.userId(), event.type(), partition,
+                RecordKey.of(meta.getTopic(), meta.getPartition(), meta.getOffset())));
+        metrics.rateLimitDecided(event.type(), decision.allowed());
+        if (!decision.allowed()) {
+            int attempt = RetryHeaders.attempt(meta.getHeaders());
+            if (!digests.absorb(event, partition, decision.resetAtMs(), attempt)) {
+                Log.warnf("BLOQUEADO pelo rate limit — enviando para DLT — userId=%s type=%s",
+                        event.userId(), event.type());
+                deadLetterProducer.send(event, decision.resetAtMs(), attempt);
+            }
+            message.ack();
+            return;
+        }
+
+        deliveryService.deliver(event, RetryHeaders.attempt(meta.getHeaders()));
+        message.ack();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.close();
+        highExecutor.close();
+    }
+}
@@ -0,0 +1,79 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import com.arthur.kafkaimplementation.service.DigestCoalescer;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import com.arthur.kafkaimplementation.service.RateLimiterService;
+import io.smallrye.common.annotation.Identifier;
+import io.smallrye.reactive.messaging.kafka.KafkaConsumerRebalanceListener;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Avisa o RateLimiterService, o HotKeyTracker e o DigestCoalescer quando o
+ * consumer group muda as partições desta instância.
+ *
+ * Ligado ao canal notifications-in por:
+ *   mp.messaging.incoming.notifications-in.consumer-rebalance-listener.name=notifications-rebalance
+ *
+ * O SmallRye chama estes métodos na thread de poll do Kafka, antes de entregar
+ * registros das partições novas — por isso o snapshot pode ser carregado aqui
+ * de forma síncrona. No modo de estado redis (padrão) o rate limiter ignora os avisos;
+ * o HotKeyTracker usa as partições atribuídas para contar também as que estão paradas;
+ * o DigestCoalescer manda ao DLT os resumos abertos das partições que saíram.
+ */
+@ApplicationScoped
+@Identifier("notifications-rebalance")
+public class RateLimitRebalanceListener implements KafkaConsumerRebalanceListener {
+
+    private final RateLimiterService rateLimiter;
+    private final HotKeyTracker hotKeys;
+    private final DigestCoalescer digests;
+    private final String topic;
+
+    public RateLimitRebalanceListener(
+            RateLimiterService rateLimiter,
+            HotKeyTracker hotKeys,
+            DigestCoalescer digests,
+            @ConfigProperty(name = "app.kafka.topic.notifications", defaultValue = "notifications") String topic
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.hotKeys = hotKeys;
+        this.digests = digests;
+        this.topic = topic;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<Integer> assigned = ofTopic(partitions);
+        rateLimiter.onPartitionsAssigned(assigned);
+        hotKeys.onPartitionsAssigned(assigned);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<Integer> revoked = ofTopic(partitions);
+        rateLimiter.onPartitionsRevoked(revoked);
+        hotKeys.onPartitionsRevoked(revoked);
+        digests.onPartitionsRevoked(revoked);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<Integer> lost = ofTopic(partitions);
+        rateLimiter.onPartitionsLost(lost);
+        hotKeys.onPartitionsRevoked(lost);
+        digests.onPartitionsRevoked(lost);
+    }
+
+    private List<Integer> ofTopic(Collection<TopicPartition> partitions) {
+        return partitions.stream()
+                .filter(tp -> tp.topic().equals(topic))
+                .map(TopicPartition::partition)
+                .toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.RetryHeaders;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer;
+import com.arthur.kafkaimplementation.service.DigestCoalescer;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import com.arthur.kafkaimplementation.service.NotificationDeliveryService;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.PriorityLanes;
+import com.arthur.kafkaimplementation.service.PriorityLanes.Lane;
+import com.arthur.kafkaimplementation.service.RateLimitDecision;
+import com.arthur.kafkaimplementation.service.RateLimitRequest;
+import com.arthur.kafkaimplementation.service.RateLimiter;
+import com.arthur.kafkaimplementation.service.RecordKey;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+/**
+ * Consumer do tópico de notificações 100% não bloqueante.
+ *
+ * Ativo quando app.consumer.mode=reactive (propriedade de build):
+ *   ./mvnw quarkus:dev -Dquarkus.profile=reactive
+ *
+ * Diferença para o NotificationConsumer:
+ *   Lá, o método é @Blocking: cada mensagem ocupa uma worker thread enquanto
+ *   espera o Redis e o provedor. Aqui não há @Blocking — o método roda no
+ *   event loop do consumer Kafka e devolve um Uni<Void>:
+ *
+ *   checkAsync (EVALSHA via ReactiveRedisDataSource)
+ *     ├── permitido → deliverAsync (timer do Vert.x) ──┐
+ *     └── bloqueado → DLT (completa no ack do broker) ─┴──► message.ack()
+ *
+ *   Nenhuma etapa faz await, então nenhuma thread fica parada: o mesmo event
+ *   loop atende o Redis, o timer do provedor e o próximo registro.
+ *
+ * Concorrência:
+ *   O SmallRye encadeia os Uni de um mesmo canal, um registro por vez. Para
+ *   processar partições em paralelo, o perfil reactive usa concurrency=3:
+ *   um consumer Kafka (e um event loop) por partição.
+ *   A faixa HIGH (notifications-high-in) tem o seu próprio consumer e event loop.
+ *
+ * ATENÇÃO: nada aqui pode bloquear. Uma chamada bloqueante neste método trava
+ * o event loop — o Quarkus avisa no log ("Thread ... has been blocked").
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "app.consumer.mode", stringValue = "reactive")
+public class ReactiveNotificationConsumer {
+
+    @Inject
+    RateLimiter rateLimiter;
+
+    @Inject
+    DeadLetterProducer deadLetterProducer;
+
+    @Inject
+    NotificationDeliveryService deliveryService;
+
+    @Inject
+    PipelineMetrics metrics;
+
+    @Inject
+    HotKeyTracker hotKeys;
+
+    @Inject
+    DigestCoalescer digests;
+
+    @Incoming("notifications-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    public Uni<Void> consume(Message<NotificationEvent> message) {
+        return process(message, Lane.LOW);
+    }
+
+    @Incoming("notifications-high-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    public Uni<Void> consumeHigh(Message<NotificationEvent> message) {
+        return process(message, Lane.HIGH);
+    }
+
+    private Uni<Void> process(Message<NotificationEvent> message, Lane lane) {
+        NotificationEvent event = message.getPayload();
+
+        IncomingKafkaRecordMetadata<?, ?> meta =
+                message.getMetadata(IncomingKafkaRecordMetadata.class).orElseThrow();
+
+        Log.infof("Mensagem recebida — userId=%s type=%s lane=%s partition=%d offset=%d",
+                event.userId(), event.type(), lane.tag(), meta.getPartition(), meta.getOffset());
+
+        // Estado por partição (partition-local, sketch, resumos) é só da faixa LOW
+        int partition = lane == Lane.LOW ? meta.getPartition() : PriorityLanes.NO_PARTITION;
+        if (lane == Lane.LOW) {
+            hotKeys.record(partition, event.userId());
+        }
+
+        int attempt = RetryHeaders.attempt(meta.getHeaders());
+        // retry-charged: só a entrega falhou da outra vez, a cota já foi gasta
+        Uni<Void> handled = RetryHeaders.charged(meta.getHeaders())
+                ? deliveryService.deliverAsync(event, attempt)
+                : rateLimiter.checkAsync(new RateLimitRequest(event.userId(), event.type(), partition,
+                                RecordKey.of(meta.getTopic(), meta.getPartition(), meta.getOffset())))
+                        .invoke(decision -> metrics.rateLimitDecided(event.type(), decision.allowed()))
+                        .chain(decision -> decision.allowed()
+                                ? deliveryService.deliverAsync(event, attempt)
+                                : sendToDlt(event, decision, partition, attempt));
+        return handled
+                .chain(() -> Uni.createFrom().completionStage(message::ack))
+                .onFailure().recoverWithUni(e -> {
+                    Log.errorf("Falha ao processar notificação — userId=%s offset=%d error=%s",
+                            event.userId(), meta.getOffset(), e.getMessage());
+                    return Uni.createFrom().completionStage(() -> message.nack(e));
+                });
+    }
+
+    private Uni<Void> sendToDlt(NotificationEvent event, RateLimitDecision decision, int partition, int attempt) {
+        // absorb só mexe em memória: pode rodar no event loop
+        if (digests.absorb(event, partition, decision.resetAtMs(), attempt)) {
+            return Uni.createFrom().voidItem();
+        }
+
+        Log.warnf("BLOQUEADO pelo rate limit — enviando para DLT — userId=%s type=%s",
+                event.userId(), event.type());
+
+        // ACK só depois que o DLT confirmar a escrita — tudo encadeado, sem bloquear
+        return Uni.createFrom().completionStage(() -> deadLetterProducer.send(event, decision.resetAtMs(), attempt));
+    }
+}
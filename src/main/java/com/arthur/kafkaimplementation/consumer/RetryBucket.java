@@ -0,0 +1,38 @@
+package com.arthur.kafkaimplementation.consumer;
+
+/**
+ * Tópicos de espera do retry, cada um com um atraso fixo.
+ *
+ * Um registro escrito em um bucket só é liberado depois de timestamp + delay.
+ * Como o atraso é o mesmo para todo o tópico, a ordem de liberação é a ordem
+ * de escrita: o consumer do bucket só precisa olhar o registro da frente —
+ * um único timer por canal, não importa quantos retries estejam pendentes.
+ */
+public enum RetryBucket {
+
+    S10(10_000, "notifications.retry.10s", "notifications-retry-10s-in"),
+    S30(30_000, "notifications.retry.30s", "notifications-retry-30s-in"),
+    S60(60_000, "notifications.retry.60s", "notifications-retry-60s-in");
+
+    private final long delayMs;
+    private final String topic;
+    private final String channel;
+
+    RetryBucket(long delayMs, String topic, String channel) {
+        this.delayMs = delayMs;
+        this.topic = topic;
+        this.channel = channel;
+    }
+
+    public long delayMs() {
+        return delayMs;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public String channel() {
+        return channel;
+    }
+}
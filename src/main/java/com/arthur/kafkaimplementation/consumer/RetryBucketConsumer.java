@@ -0,0 +1,127 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.RetryHeaders;
+import com.arthur.kafkaimplementation.producer.RetryPublisher;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.PriorityLanes;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.KafkaClientService;
+import io.smallrye.reactive.messaging.kafka.KafkaConsumer;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Consumers dos buckets de retry (notifications.retry.10s / 30s / 60s).
+ *
+ * Cada registro fica no bucket até timestamp + atraso do bucket. Como o atraso é
+ * fixo por tópico, se o registro da frente ainda não venceu, nenhum atrás dele
+ * venceu. Então, em vez de dormir numa thread:
+ *   1. pausa o consumer Kafka do canal (o poll continua — heartbeat e rebalance
+ *      seguem normais — mas não traz registros)
+ *   2. agenda UM timer para o vencimento do registro da frente
+ *   3. no vencimento, retoma o consumer e encaminha o registro
+ *
+ * Sem @Blocking e sem await: o canal fica parado num Uni pendente, não numa thread.
+ * Milhões de retries pendentes custam espaço no Kafka, não memória nem timers.
+ *
+ * Encaminhar = refazer a decisão do RetryRouter com o not-before original:
+ * de volta para "notifications" ou para um bucket menor.
+ * pause-if-no-requests=false nos canais: quem pausa e retoma aqui é este código.
+ */
+@ApplicationScoped
+public class RetryBucketConsumer {
+
+    @Inject
+    RetryRouter router;
+
+    @Inject
+    RetryPublisher retryPublisher;
+
+    @Inject
+    PipelineMetrics metrics;
+
+    @Inject
+    PriorityLanes lanes;
+
+    @Inject
+    KafkaClientService kafkaClients;
+
+    @Incoming("notifications-retry-10s-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    public Uni<Void> consume10s(Message<NotificationEvent> message) {
+        return release(RetryBucket.S10, message);
+    }
+
+    @Incoming("notifications-retry-30s-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    public Uni<Void> consume30s(Message<NotificationEvent> message) {
+        return release(RetryBucket.S30, message);
+    }
+
+    @Incoming("notifications-retry-60s-in")
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+    public Uni<Void> consume60s(Message<NotificationEvent> message) {
+        return release(RetryBucket.S60, message);
+    }
+
+    private Uni<Void> release(RetryBucket bucket, Message<NotificationEvent> message) {
+        IncomingKafkaRecordMetadata<?, ?> meta =
+                message.getMetadata(IncomingKafkaRecordMetadata.class).orElseThrow();
+
+        long dueAtMs = meta.getTimestamp().toEpochMilli() + bucket.delayMs();
+        long waitMs = dueAtMs - System.currentTimeMillis();
+
+        Uni<Void> due = waitMs <= 0
+                ? Uni.createFrom().voidItem()
+                : pauseUntilDue(bucket, waitMs);
+
+        return due
+                .chain(() -> Uni.createFrom().completionStage(() -> forward(message, meta)))
+                .chain(() -> Uni.createFrom().completionStage(message::ack))
+                .onFailure().recoverWithUni(e -> {
+                    Log.errorf("[RETRY] Falha ao liberar do bucket %s — offset=%d error=%s",
+                            bucket.topic(), meta.getOffset(), e.getMessage());
+                    return Uni.createFrom().completionStage(() -> message.nack(e));
+                });
+    }
+
+    private Uni<Void> pauseUntilDue(RetryBucket bucket, long waitMs) {
+        KafkaConsumer<Object, Object> consumer = kafkaClients.getConsumer(bucket.channel());
+
+        Log.debugf("[RETRY] Bucket %s pausado por %d ms", bucket.topic(), waitMs);
+
+        return consumer.pause()
+                .onItem().delayIt().by(Duration.ofMillis(waitMs))
+                .call(() -> consumer.resume())
+                .replaceWithVoid();
+    }
+
+    private CompletionStage<Void> forward(Message<NotificationEvent> message, IncomingKafkaRecordMetadata<?, ?> meta) {
+        NotificationEvent event = message.getPayload();
+        long nowMs = System.currentTimeMillis();
+        int attempt = RetryHeaders.attempt(meta.getHeaders());
+        long notBeforeMs = RetryHeaders.notBefore(meta.getHeaders(), nowMs);
+
+        String destination = router.destination(nowMs, notBeforeMs, attempt);
+        int nextAttempt = router.isRetry(destination) ? attempt + 1 : attempt;
+        metrics.retryRouted(router.route(destination));
+        if (router.isRetry(destination)) {
+            // A republicação volta para a faixa de prioridade do tipo
+            destination = lanes.topicFor(event.type());
+        }
+
+        Log.debugf("[RETRY] Liberado — userId=%s tentativa=%d → %s", event.userId(), nextAttempt, destination);
+
+        return retryPublisher.publish(destination, event, nextAttempt, notBeforeMs,
+                        RetryHeaders.charged(meta.getHeaders()));
+    }
+}
@@ -0,0 +1,73 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Decide para onde vai uma notificação bloqueada: de volta para "notifications",
+ * para um bucket de espera ou para o tópico de estacionamento.
+ *
+ *   tentativas >= app.retry.max-attempts → parking (fim da linha, fica para auditoria)
+ *   já passou do not-before              → notifications (nova tentativa)
+ *   falta esperar                        → maior bucket que não passa do que falta
+ *                                          (ou o menor, se falta menos que ele)
+ *
+ * Ao sair de um bucket a decisão é refeita. Uma espera de 100 s vira
+ * 60 s + 30 s + 10 s — como os níveis de um timing wheel hierárquico. Quando
+ * falta menos que o menor bucket, o atraso extra fica limitado a 10 s.
+ */
+@ApplicationScoped
+public class RetryRouter {
+
+    private final int maxAttempts;
+    private final String notificationsTopic;
+    private final String parkingTopic;
+
+    public RetryRouter(
+            @ConfigProperty(name = "app.retry.max-attempts", defaultValue = "5") int maxAttempts,
+            @ConfigProperty(name = "app.kafka.topic.notifications", defaultValue = "notifications") String notificationsTopic,
+            @ConfigProperty(name = "app.kafka.topic.parking", defaultValue = "notifications.parking") String parkingTopic
+    ) {
+        this.maxAttempts = maxAttempts;
+        this.notificationsTopic = notificationsTopic;
+        this.parkingTopic = parkingTopic;
+    }
+
+    /**
+     * @param attempt     republicações já feitas (header retry-attempt)
+     * @param notBeforeMs quando a janela do usuário reabre (header retry-not-before)
+     * @return tópico de destino
+     */
+    public String destination(long nowMs, long notBeforeMs, int attempt) {
+        if (attempt >= maxAttempts) {
+            return parkingTopic;
+        }
+
+        long remainingMs = notBeforeMs - nowMs;
+        if (remainingMs <= 0) {
+            return notificationsTopic;
+        }
+
+        RetryBucket[] buckets = RetryBucket.values();
+        RetryBucket chosen = buckets[0];
+        for (RetryBucket bucket : buckets) {
+            if (bucket.delayMs() <= remainingMs) {
+                chosen = bucket;
+            }
+        }
+        return chosen.topic();
+    }
+
+    /** Nome curto do destino para métricas: republish | bucket | parking. */
+    public String route(String destination) {
+        return isRetry(destination) ? "republish" : isParking(destination) ? "parking" : "bucket";
+    }
+
+    public boolean isRetry(String destination) {
+        return destination.equals(notificationsTopic);
+    }
+
+    public boolean isParking(String destination) {
+        return destination.equals(parkingTopic);
+    }
+}
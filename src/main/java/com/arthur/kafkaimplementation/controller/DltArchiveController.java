@@ -0,0 +1,189 @@
+package com.arthur.kafkaimplementation.controller;
+
+import com.arthur.kafkaimplementation.service.DltArchive;
+import com.arthur.kafkaimplementation.service.DltArchive.ArchivedNotification;
+import com.arthur.kafkaimplementation.service.DltReplayer;
+import com.arthur.kafkaimplementation.service.DltReplayer.ReplayJob;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Consulta e reenvio do arquivo local do DLT (DltArchive).
+ *
+ * Endpoints:
+ *
+ *   GET /api/dlt
+ *     → Segmentos, bytes, registros e o intervalo de tempo arquivado
+ *
+ *   GET /api/dlt/users/{userId}?from=2024-05-01T14:00:00Z&to=...&limit=100
+ *     → Notificações do usuário que passaram pelo DLT, da mais antiga para a mais nova
+ *
+ *   POST /api/dlt/replay?from=...&to=...&userIds=u1,u2&rate=200
+ *     → Reenvia o intervalo (todos os usuários, ou só os listados) para
+ *       notifications[.high], a no máximo "rate" por segundo
+ *     → 202 com o job; 409 se já há um reenvio em andamento
+ *
+ *   GET /api/dlt/replay     → progresso do último reenvio
+ *   DELETE /api/dlt/replay  → cancela o reenvio em andamento
+ *
+ * from/to são ISO-8601 e filtram pelo momento em que a notificação chegou ao
+ * DLT. Sem from: desde o início do arquivo. Sem to: até agora.
+ */
+@Path("/api/dlt")
+@Produces(MediaType.APPLICATION_JSON)
+public class DltArchiveController {
+
+    @Inject
+    DltArchive archive;
+
+    @Inject
+    DltReplayer replayer;
+
+    @GET
+    public Response stats() {
+        if (!archive.isEnabled()) {
+            return disabled();
+        }
+        DltArchive.Stats stats = archive.stats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("segmentos", stats.segments());
+        body.put("bytes", stats.bytes());
+        body.put("registros", stats.records());
+        body.put("mais_antigo", stats.oldestMs() == null ? null : Instant.ofEpochMilli(stats.oldestMs()).toString());
+        body.put("mais_recente", stats.newestMs() == null ? null : Instant.ofEpochMilli(stats.newestMs()).toString());
+        return Response.ok(body).build();
+    }
+
+    @GET
+    @Path("/users/{userId}")
+    public Response byUser(
+            @PathParam("userId") String userId,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("limit") @DefaultValue("100") int limit
+    ) {
+        if (!archive.isEnabled()) {
+            return disabled();
+        }
+        long[] range;
+        try {
+            range = range(from, to);
+        } catch (DateTimeParseException e) {
+            return badRequest("from/to devem ser ISO-8601 (ex: 2024-05-01T14:00:00Z)");
+        }
+
+        List<ArchivedNotification> found = archive.findByUser(userId, range[0], range[1], Math.max(1, Math.min(limit, 1000)));
+        List<Map<String, Object>> items = new ArrayList<>(found.size());
+        for (ArchivedNotification record : found) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("type", record.event().type());
+            item.put("message", record.event().message());
+            item.put("sentAt", record.event().sentAt() == null ? null : record.event().sentAt().toString());
+            item.put("arquivada_em", Instant.ofEpochMilli(record.archivedAtMs()).toString());
+            item.put("retry_not_before", Instant.ofEpochMilli(record.notBeforeMs()).toString());
+            item.put("tentativa", record.attempt());
+            items.add(item);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("userId", userId);
+        body.put("total", items.size());
+        body.put("notificacoes", items);
+        return Response.ok(body).build();
+    }
+
+    @POST
+    @Path("/replay")
+    public Response replay(
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("userIds") String userIds,
+            @QueryParam("rate") @DefaultValue("100") int rate
+    ) {
+        if (!archive.isEnabled()) {
+            return disabled();
+        }
+        long[] range;
+        try {
+            range = range(from, to);
+        } catch (DateTimeParseException e) {
+            return badRequest("from/to devem ser ISO-8601 (ex: 2024-05-01T14:00:00Z)");
+        }
+        Set<String> users = userIds == null || userIds.isBlank()
+                ? Set.of()
+                : Arrays.stream(userIds.split(",")).map(String::trim).filter(u -> !u.isEmpty())
+                        .collect(Collectors.toSet());
+
+        try {
+            ReplayJob job = replayer.start(range[0], range[1], users, rate);
+            return Response.accepted(job(job)).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(Map.of("erro", e.getMessage()))
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/replay")
+    public Response replayStatus() {
+        return replayer.current()
+                .map(job -> Response.ok(job(job)).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND)
+                        .entity(Map.of("erro", "Nenhum reenvio desde que a aplicação subiu"))
+                        .build());
+    }
+
+    @DELETE
+    @Path("/replay")
+    public Response cancelReplay() {
+        return Response.ok(Map.of("cancelado", replayer.cancel())).build();
+    }
+
+    private static Map<String, Object> job(ReplayJob job) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("job", job.id);
+        body.put("estado", job.state());
+        body.put("de", Instant.ofEpochMilli(job.fromMs).toString());
+        body.put("ate", Instant.ofEpochMilli(job.toMs).toString());
+        body.put("usuarios", job.userIds.isEmpty() ? "todos" : job.userIds);
+        body.put("por_segundo", job.ratePerSecond);
+        body.put("lidas", job.matched());
+        body.put("repetidas", job.duplicates());
+        body.put("publicadas", job.published());
+        body.put("falhas", job.failed());
+        body.put("iniciado_em", Instant.ofEpochMilli(job.startedAtMs).toString());
+        body.put("encerrado_em", job.finishedAtMs() == 0 ? null : Instant.ofEpochMilli(job.finishedAtMs()).toString());
+        return body;
+    }
+
+    private static long[] range(String from, String to) {
+        long fromMs = from == null || from.isBlank() ? 0 : Instant.parse(from).toEpochMilli();
+        long toMs = to == null || to.isBlank() ? System.currentTimeMillis() : Instant.parse(to).toEpochMilli();
+        return new long[]{fromMs, toMs};
+    }
+
+    private static Response disabled() {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("erro", "Arquivo do DLT desativado (app.dlt-archive.enabled=false)"))
+                .build();
+    }
+
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("erro", message))
+                .build();
+    }
+}
@@ -2,14 +2,36 @@ package com.arthur.kafkaimplementation.controller;
 
 import com.arthur.kafkaimplementation.dto.NotificationEvent;
 import com.arthur.kafkaimplementation.producer.NotificationProducer;
+import com.arthur.kafkaimplementation.producer.PublishWindowExhaustedException;
+import com.arthur.kafkaimplementation.service.AdmissionService;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import com.arthur.kafkaimplementation.service.RateLimitStatus;
+import com.arthur.kafkaimplementation.service.RateLimitStatusService;
 import com.arthur.kafkaimplementation.service.RateLimiterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.logging.Log;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * API REST para disparar notificações manualmente.
@@ -25,22 +47,66 @@ import java.util.Map;
  *     → Envia N notificações para o mesmo usuário rapidamente
  *     → Demonstra o rate limiter em ação: as primeiras 5 passam, o resto vai para DLT
  *
+ *   POST /api/notifications/batch
+ *     → Ingestão em massa: corpo NDJSON ou array JSON, lido de forma incremental
+ *     → Publica respeitando a janela de mensagens em voo do producer
+ *     → Janela cheia → 503 + Retry-After com o índice para retomar
+ *
  *   GET /api/notifications/rate-limit/{userId}
  *     → Consulta quantas notificações o usuário processou na janela atual
+ *
+ *   POST /api/notifications/rate-limit
+ *     → Mesma consulta para vários usuários: Body ["u1", "u2", ...]
+ *     → Só leitura, um pipeline no Redis, cache curto (RateLimitStatusService)
+ *
+ *   GET /api/notifications/hot-keys
+ *     → Usuários mais quentes e mensagens/s por partição consumida nesta instância
+ *     → skew: partição mais carregada ÷ média (1.0 = equilibrado)
+ *
+ * Com app.admission.enabled=true, notificações claramente acima do limite são
+ * rejeitadas aqui (429) e nem chegam ao Kafka — ver AdmissionService.
  */
 @Path("/api/notifications")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class NotificationController {
 
+    /** Quantos erros por item o /batch devolve no corpo da resposta (o resto só é contado). */
+    private static final int MAX_REPORTED_ERRORS = 100;
+
     @Inject
     NotificationProducer producer;
 
+    @Inject
+    ObjectMapper objectMapper;
+
     @Inject
     RateLimiterService rateLimiter;
 
+    @Inject
+    AdmissionService admission;
+
+    @Inject
+    RateLimitStatusService rateLimitStatus;
+
+    @Inject
+    HotKeyTracker hotKeys;
+
+    /** Itens por /batch; o corpo em bytes é limitado por quarkus.http.limits.max-body-size. */
+    @ConfigProperty(name = "app.batch.max-items", defaultValue = "100000")
+    int maxBatchItems;
+
     @POST
     public Response send(NotificationRequest request) {
+        if (!admission.admit(request.userId(), request.type())) {
+            return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .entity(Map.of(
+                            "status", "rejeitada_na_entrada",
+                            "userId", request.userId(),
+                            "limite_por_minuto", rateLimiter.getLimit(request.type())))
+                    .build();
+        }
+
         NotificationEvent event = new NotificationEvent(
                 request.userId(),
                 request.type(),
@@ -48,13 +114,15 @@ public class NotificationController {
                 Instant.now()
         );
 
-        producer.send(event);
+        publish(event);
 
         return Response.accepted(Map.of(
                 "status", "publicado",
                 "userId", event.userId(),
                 "type", event.type(),
-                "info", "O rate limit é verificado no consumer, não aqui."
+                "info", admission.isEnabled()
+                        ? "Pré-checagem na entrada ativa; a verificação definitiva é no consumer."
+                        : "O rate limit é verificado no consumer, não aqui."
         )).build();
     }
 
@@ -63,6 +131,8 @@ public class NotificationController {
      * O producer publica todas no Kafka imediatamente.
      * O consumer vai processar e aplicar o rate limit — as primeiras 5
      * passam, o restante é redirecionado para o DLT.
+     * Com o controle de admissão ativo, o excedente é rejeitado aqui
+     * ("rejeitadas_na_entrada") e não ocupa o Kafka nem o DLT.
      *
      * Exemplo: POST /api/notifications/burst?userId=usuario-1&count=8&type=PROMOCAO
      */
@@ -73,35 +143,282 @@ public class NotificationController {
             @QueryParam("count") @DefaultValue("8") int count,
             @QueryParam("type") @DefaultValue("PROMOCAO") String type
     ) {
+        int published = 0;
+        int rejected = 0;
         for (int i = 1; i <= count; i++) {
+            if (!admission.admit(userId, type)) {
+                rejected++;
+                continue;
+            }
             NotificationEvent event = new NotificationEvent(
                     userId,
                     type,
                     "Notificacao #" + i + " — " + type + " para usuario " + userId,
                     Instant.now()
             );
-            producer.send(event);
+            try {
+                publish(event);
+                published++;
+            } catch (PublishWindowExhaustedException e) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", e.getRetryAfterSeconds())
+                        .entity(Map.of(
+                                "userId", userId,
+                                "enviadas_ao_kafka", published,
+                                "rejeitadas_na_entrada", rejected,
+                                "erro", e.getMessage()))
+                        .build();
+            }
         }
 
         return Response.accepted(Map.of(
                 "userId", userId,
-                "enviadas_ao_kafka", count,
-                "limite_por_minuto", 5,
-                "expectativa", "Primeiras 5 processadas, demais vao para DLT"
+                "enviadas_ao_kafka", published,
+                "rejeitadas_na_entrada", rejected,
+                "limite_por_minuto", rateLimiter.getLimit(type),
+                "expectativa", rejected > 0
+                        ? "Excedente barrado na entrada; o consumer ainda confere as enviadas"
+                        : "Primeiras " + rateLimiter.getLimit(type) + " processadas, demais vao para DLT"
         )).build();
     }
 
+    /**
+     * Ingestão em massa com backpressure.
+     *
+     * O corpo (NDJSON ou array JSON) é lido item a item enquanto as notificações
+     * são publicadas. Cada item ocupa uma vaga da janela do producer até o broker
+     * confirmar; sem vaga, a leitura do corpo para — o cliente sente o backpressure.
+     * Se a janela não abrir dentro do tempo de espera, a resposta é 503 com
+     * Retry-After e "proximo_indice": o cliente reenvia a partir dali.
+     * Acima de app.batch.max-items itens, 413 com o mesmo "proximo_indice".
+     *
+     * "publicadas" e "falhas" contam só o que o broker já respondeu; se a
+     * espera pelas confirmações estourar, o resto aparece em "pendentes".
+     *
+     * Exemplo:
+     *   curl -X POST localhost:8080/api/notifications/batch \
+     *        -H 'Content-Type: application/x-ndjson' --data-binary @notificacoes.ndjson
+     */
+    @POST
+    @Path("/batch")
+    @Consumes({"application/x-ndjson", MediaType.APPLICATION_JSON})
+    public Response batch(InputStream body) {
+        int accepted = 0;
+        int rejected = 0;
+        int overLimit = 0;
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Map<String, Object>> errors = Collections.synchronizedList(new ArrayList<>());
+
+        // Uma "parte" para este request + uma por publicação ainda sem confirmação do broker
+        Phaser inFlight = new Phaser(1);
+
+        Response.Status status = Response.Status.ACCEPTED;
+        String outcome = "completo";
+        Integer retryAfter = null;
+        int index = 0;
+
+        try (NotificationStreamReader reader = new NotificationStreamReader(objectMapper, body)) {
+            for (NotificationRequest item = reader.next(); item != null; item = reader.next(), index++) {
+                if (index == maxBatchItems) {
+                    status = Response.Status.REQUEST_ENTITY_TOO_LARGE;
+                    outcome = "limite_de_itens";
+                    reportError(errors, index, "Mais de " + maxBatchItems + " itens por lote (app.batch.max-items)");
+                    break;
+                }
+                if (item.userId() == null || item.userId().isBlank()) {
+                    rejected++;
+                    reportError(errors, index, "userId é obrigatório");
+                    continue;
+                }
+                if (!admission.admit(item.userId(), item.type())) {
+                    overLimit++;
+                    continue;
+                }
+
+                NotificationEvent event = new NotificationEvent(
+                        item.userId(), item.type(), item.message(), Instant.now());
+
+                int itemIndex = index;
+                inFlight.register();
+                try {
+                    publish(event).whenComplete((v, e) -> {
+                        if (e != null) {
+                            failed.incrementAndGet();
+                            reportError(errors, itemIndex, e.getMessage());
+                        } else {
+                            confirmed.incrementAndGet();
+                        }
+                        inFlight.arriveAndDeregister();
+                    });
+                    accepted++;
+                } catch (PublishWindowExhaustedException e) {
+                    inFlight.arriveAndDeregister();
+                    status = Response.Status.SERVICE_UNAVAILABLE;
+                    outcome = "janela_cheia";
+                    retryAfter = e.getRetryAfterSeconds();
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            status = Response.Status.BAD_REQUEST;
+            outcome = "corpo_invalido";
+            reportError(errors, index, e.getMessage());
+        }
+
+        // Espera a confirmação do que já foi aceito para devolver o resultado real
+        try {
+            inFlight.awaitAdvanceInterruptibly(inFlight.arrive(), 30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            Log.warnf("Batch: confirmações do broker não chegaram em 30s — aceitas=%d", accepted);
+            outcome = "confirmacao_pendente";
+        }
+
+        // Lidos uma vez: confirmações atrasadas ainda podem chegar enquanto o resumo é montado
+        int published = confirmed.get();
+        int failures = failed.get();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("status", outcome);
+        summary.put("aceitas", accepted);
+        summary.put("publicadas", published);
+        summary.put("falhas", failures);
+        summary.put("pendentes", Math.max(0, accepted - published - failures));
+        summary.put("rejeitadas", rejected);
+        summary.put("rejeitadas_na_entrada", overLimit);
+        summary.put("proximo_indice", index);
+        synchronized (errors) {
+            summary.put("erros", List.copyOf(errors));
+        }
+
+        Response.ResponseBuilder response = Response.status(status).entity(summary);
+        if (retryAfter != null) {
+            response.header("Retry-After", retryAfter);
+        }
+        return response.build();
+    }
+
     @GET
     @Path("/rate-limit/{userId}")
     public Response getRateLimit(@PathParam("userId") String userId) {
-        long count = rateLimiter.getCount(userId);
+        RateLimitStatus status = rateLimitStatus.statusOf(List.of(userId)).get(userId);
 
-        return Response.ok(Map.of(
-                "userId", userId,
-                "notificacoes_na_janela", count,
-                "limite", 5,
-                "bloqueado", count >= 5
-        )).build();
+        Map<String, Object> body = statusBody(userId, status);
+        body.put("limite", rateLimiter.getLimit());
+        return Response.ok(body).build();
+    }
+
+    /**
+     * Status de vários usuários de uma vez, para painéis que fazem polling.
+     * Usuários repetidos aparecem uma vez; acima de app.rate-limit.status.max-users → 400.
+     */
+    @POST
+    @Path("/rate-limit")
+    public Response getRateLimits(List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("erro", "Informe os userIds no corpo: [\"u1\", \"u2\"]"))
+                    .build();
+        }
+        Set<String> distinct = new LinkedHashSet<>(userIds);
+        if (distinct.contains(null) || distinct.size() > rateLimitStatus.getMaxUsers()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("erro", "Até " + rateLimitStatus.getMaxUsers() + " userIds, sem null"))
+                    .build();
+        }
+
+        Map<String, RateLimitStatus> statuses = rateLimitStatus.statusOf(distinct);
+        List<Map<String, Object>> users = new ArrayList<>(statuses.size());
+        statuses.forEach((userId, status) -> users.add(statusBody(userId, status)));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("limite", rateLimiter.getLimit());
+        body.put("total", users.size());
+        body.put("usuarios", users);
+        return Response.ok(body).build();
+    }
+
+    private static Map<String, Object> statusBody(String userId, RateLimitStatus status) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("userId", userId);
+        body.put("notificacoes_na_janela", status.count());
+        body.put("restantes", status.remaining());
+        body.put("bloqueado", status.remaining() == 0);
+        body.put("reset_em", Instant.ofEpochMilli(status.resetAtMs()).toString());
+        return body;
+    }
+
+    /**
+     * Distribuição da carga entre as partições que ESTA instância consome.
+     * Com várias instâncias, cada uma responde pelas suas partições.
+     */
+    @GET
+    @Path("/hot-keys")
+    public Response getHotKeys() {
+        if (!hotKeys.isEnabled()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("erro", "Rastreamento desativado (app.hot-keys.enabled=false)"))
+                    .build();
+        }
+
+        List<HotKeyTracker.PartitionStats> stats = hotKeys.snapshot();
+        List<Map<String, Object>> partitions = new ArrayList<>(stats.size());
+        for (HotKeyTracker.PartitionStats partition : stats) {
+            List<Map<String, Object>> keys = new ArrayList<>(partition.hotKeys().size());
+            for (HotKeyTracker.HotKey key : partition.hotKeys()) {
+                keys.add(Map.of(
+                        "userId", key.userId(),
+                        "mensagens_estimadas", key.estimate(),
+                        "fatia_da_particao", key.share()));
+            }
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("particao", partition.partition());
+            entry.put("mensagens_por_segundo", partition.ratePerSecond());
+            entry.put("mensagens_na_janela", partition.messages());
+            entry.put("usuarios_quentes", keys);
+            partitions.add(entry);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("janela_segundos", hotKeys.getWindowSeconds());
+        body.put("skew", HotKeyTracker.skewRatio(stats));
+        body.put("particoes", partitions);
+        return Response.ok(body).build();
+    }
+
+    @ServerExceptionMapper
+    public Response mapWindowExhausted(PublishWindowExhaustedException e) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", e.getRetryAfterSeconds())
+                .entity(Map.of("erro", e.getMessage()))
+                .build();
+    }
+
+    /**
+     * Publica uma notificação já admitida. Se o producer recusar (janela cheia)
+     * ou o broker falhar, a vaga volta para a estimativa da admissão.
+     */
+    private CompletionStage<Void> publish(NotificationEvent event) {
+        CompletionStage<Void> sent;
+        try {
+            sent = producer.send(event);
+        } catch (RuntimeException e) {
+            admission.release(event.userId(), event.type());
+            throw e;
+        }
+        return sent.whenComplete((v, e) -> {
+            if (e != null) {
+                admission.release(event.userId(), event.type());
+            }
+        });
+    }
+
+    private static void reportError(List<Map<String, Object>> errors, int index, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(Map.of("indice", index, "erro", String.valueOf(message)));
+        }
     }
 
     public record NotificationRequest(String userId, String type, String message) {}
@@ -0,0 +1,57 @@
+package com.arthur.kafkaimplementation.controller;
+
+import com.arthur.kafkaimplementation.controller.NotificationController.NotificationRequest;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Lê notificações de um corpo HTTP de forma incremental, um item por vez.
+ *
+ * Aceita os dois formatos sem precisar saber antes qual é:
+ *   NDJSON      → {"userId":"u1",...}\n{"userId":"u2",...}\n...
+ *   array JSON  → [{"userId":"u1",...}, {"userId":"u2",...}]
+ *
+ * Só o item atual fica em memória: um corpo com milhões de notificações é
+ * lido do socket conforme os itens são publicados, nunca inteiro.
+ */
+final class NotificationStreamReader implements AutoCloseable {
+
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+    private boolean started;
+    private boolean array;
+
+    NotificationStreamReader(ObjectMapper mapper, InputStream body) throws IOException {
+        this.mapper = mapper;
+        this.parser = mapper.getFactory().createParser(body);
+    }
+
+    /** Próximo item do corpo, ou null quando o corpo termina. */
+    NotificationRequest next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                array = true;
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || (array && token == JsonToken.END_ARRAY)) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Esperado um objeto de notificação, encontrado " + token);
+        }
+        return mapper.readValue(parser, NotificationRequest.class);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
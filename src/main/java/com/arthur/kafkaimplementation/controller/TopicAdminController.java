@@ -0,0 +1,145 @@
+package com.arthur.kafkaimplementation.controller;
+
+import com.arthur.kafkaimplementation.config.KafkaConfig;
+import com.arthur.kafkaimplementation.config.KafkaConfig.TopicSpec;
+import com.arthur.kafkaimplementation.config.TopicProvisioner;
+import com.arthur.kafkaimplementation.config.TopicProvisioner.KeyMove;
+import com.arthur.kafkaimplementation.config.TopicProvisioner.RemapReport;
+import com.arthur.kafkaimplementation.config.TopicProvisioner.TopicState;
+import com.arthur.kafkaimplementation.service.HotKeyTracker;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tópicos declarados em app.kafka.provisioning.* e expansão de partições.
+ *
+ * Endpoints:
+ *
+ *   GET /api/admin/topics
+ *     → Se a reconciliação terminou, e partições, replicação e o que foi
+ *       feito em cada tópico (criado, expandido, configs ajustadas)
+ *
+ *   POST /api/admin/topics/{topico}/partitions?count=6&keys=u1,u2
+ *     → Aumenta as partições do tópico com a aplicação no ar
+ *     → Relatório: fração das chaves que muda de partição e, para as chaves
+ *       pedidas (mais os usuários quentes, no tópico principal), de → para
+ *     → 400 se count não aumenta; 404 se o tópico não é declarado
+ *
+ * Depois de expandir, declare o novo número em app.kafka.provisioning.*.partitions:
+ * a reconciliação nunca reduz partições, só avisa que há mais que o declarado.
+ */
+@Path("/api/admin/topics")
+@Produces(MediaType.APPLICATION_JSON)
+public class TopicAdminController {
+
+    private static final List<String> EXPANSION_NOTES = List.of(
+            "Ordem por usuário: o que já está na partição antiga de um usuário remapeado pode ser consumido"
+                    + " depois das mensagens novas, até a partição antiga esvaziar",
+            "Producers e consumers só veem as partições novas no próximo refresh de metadata"
+                    + " (metadata.max.age.ms, 5 min por padrão); o consumer group faz rebalance",
+            "Estado por partição (partition-local, hot keys, resumos) dos usuários remapeados"
+                    + " recomeça na partição nova");
+
+    @Inject
+    TopicProvisioner provisioner;
+
+    @Inject
+    KafkaConfig kafkaConfig;
+
+    @Inject
+    HotKeyTracker hotKeys;
+
+    @GET
+    public Response topics() {
+        List<Map<String, Object>> topics = new ArrayList<>();
+        provisioner.topics().forEach((spec, state) -> topics.add(topic(spec, state)));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("reconciliado", provisioner.isReady());
+        body.put("tentativas", provisioner.attempts());
+        body.put("ultimo_erro", provisioner.lastError());
+        body.put("topicos", topics);
+        return Response.ok(body).build();
+    }
+
+    @POST
+    @Path("/{topic}/partitions")
+    public Response expand(
+            @PathParam("topic") String topic,
+            @QueryParam("count") int count,
+            @QueryParam("keys") String keys
+    ) {
+        if (!provisioner.isDeclared(topic)) {
+            return error(Response.Status.NOT_FOUND, "Tópico não declarado em app.kafka.provisioning: " + topic);
+        }
+
+        Set<String> sample = new LinkedHashSet<>();
+        if (keys != null) {
+            for (String key : keys.split(",")) {
+                if (!key.isBlank()) {
+                    sample.add(key.trim());
+                }
+            }
+        }
+        if (topic.equals(kafkaConfig.notificationsTopic()) && hotKeys.isEnabled()) {
+            for (HotKeyTracker.PartitionStats partition : hotKeys.snapshot()) {
+                partition.hotKeys().forEach(key -> sample.add(key.userId()));
+            }
+        }
+
+        RemapReport report;
+        try {
+            report = provisioner.expandPartitions(topic, count, sample);
+        } catch (IllegalArgumentException e) {
+            return error(Response.Status.BAD_REQUEST, e.getMessage());
+        } catch (ExecutionException e) {
+            return error(Response.Status.BAD_GATEWAY, "Kafka recusou a expansão: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            return error(Response.Status.GATEWAY_TIMEOUT, "Kafka não respondeu a tempo");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(Response.Status.SERVICE_UNAVAILABLE, "Interrompido");
+        }
+
+        List<Map<String, Object>> moves = new ArrayList<>(report.keys().size());
+        for (KeyMove move : report.keys()) {
+            moves.add(Map.of("chave", move.key(), "de", move.from(), "para", move.to(), "muda", move.moved()));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("topico", report.topic());
+        body.put("particoes_antes", report.before());
+        body.put("particoes_depois", report.after());
+        body.put("fracao_chaves_remapeadas", report.movedFraction());
+        body.put("chaves", moves);
+        body.put("avisos", EXPANSION_NOTES);
+        return Response.ok(body).build();
+    }
+
+    private static Map<String, Object> topic(TopicSpec spec, TopicState state) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("topico", spec.name());
+        entry.put("particoes_declaradas", spec.partitions());
+        entry.put("particoes", state == null ? null : state.partitions());
+        entry.put("replicacao", state == null ? null : state.replicationFactor());
+        entry.put("configs", spec.configs());
+        entry.put("situacao", state == null ? "pendente" : state.note());
+        return entry;
+    }
+
+    private static Response error(Response.Status status, String message) {
+        return Response.status(status)
+                .entity(Map.of("erro", message))
+                .build();
+    }
+}
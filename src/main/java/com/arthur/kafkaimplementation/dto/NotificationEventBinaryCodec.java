@@ -0,0 +1,180 @@
+package com.arthur.kafkaimplementation.dto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Codec binário versionado de NotificationEvent.
+ *
+ * Layout v1 (big-endian):
+ *   byte     magic   = 0x4E ('N')
+ *   byte     versão  = 1
+ *   int64    sentAt em epoch micros (Long.MIN_VALUE = null)
+ *   byte     código do type: 1 PROMOCAO | 2 PEDIDO | 3 ESTOQUE | 0 = string a seguir
+ *   [string] type (só quando código = 0)
+ *   string   userId
+ *   string   message
+ *
+ * string = varint(tamanho em bytes + 1) + UTF-8; varint 0 = null.
+ *
+ * Por que não JSON?
+ *   Sem nomes de campo repetidos, sem formatar/parsear datas ISO-8601 e o type
+ *   conhecido cabe em 1 byte. Um evento do /burst cai de 142 para 72 bytes.
+ *   Types novos continuam funcionando pelo fallback de string — só ganham
+ *   código próprio numa próxima versão do formato.
+ */
+public final class NotificationEventBinaryCodec {
+
+    static final byte MAGIC = 0x4E;
+    static final byte VERSION = 1;
+
+    private static final String[] TYPE_CODES = {null, "PROMOCAO", "PEDIDO", "ESTOQUE"};
+    private static final long NULL_INSTANT = Long.MIN_VALUE;
+
+    private NotificationEventBinaryCodec() {
+    }
+
+    public static byte[] encode(NotificationEvent event) {
+        byte[] userId = utf8(event.userId());
+        byte[] message = utf8(event.message());
+        int typeCode = typeCode(event.type());
+        byte[] type = typeCode == 0 ? utf8(event.type()) : null;
+
+        int size = 2 + Long.BYTES + 1
+                + (typeCode == 0 ? stringSize(type) : 0)
+                + stringSize(userId)
+                + stringSize(message);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC).put(VERSION);
+        buffer.putLong(toEpochMicros(event.sentAt()));
+        buffer.put((byte) typeCode);
+        if (typeCode == 0) {
+            putString(buffer, type);
+        }
+        putString(buffer, userId);
+        putString(buffer, message);
+        return buffer.array();
+    }
+
+    public static NotificationEvent decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Lê um evento a partir da posição atual do buffer, avançando-a.
+     * Não copia o buffer — serve também para ler direto de um MappedByteBuffer.
+     */
+    public static NotificationEvent decode(ByteBuffer buffer) {
+        byte magic = buffer.get();
+        byte version = buffer.get();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IllegalArgumentException(
+                    "NotificationEvent binário inválido — magic=" + magic + " versão=" + version);
+        }
+
+        Instant sentAt = fromEpochMicros(buffer.getLong());
+        int typeCode = Byte.toUnsignedInt(buffer.get());
+        String type;
+        if (typeCode == 0) {
+            type = getString(buffer);
+        } else if (typeCode < TYPE_CODES.length) {
+            type = TYPE_CODES[typeCode];
+        } else {
+            throw new IllegalArgumentException("Código de type desconhecido: " + typeCode);
+        }
+        String userId = getString(buffer);
+        String message = getString(buffer);
+
+        return new NotificationEvent(userId, type, message, sentAt);
+    }
+
+    private static int typeCode(String type) {
+        for (int code = 1; code < TYPE_CODES.length; code++) {
+            if (TYPE_CODES[code].equals(type)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    private static long toEpochMicros(Instant instant) {
+        if (instant == null) {
+            return NULL_INSTANT;
+        }
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static Instant fromEpochMicros(long micros) {
+        if (micros == NULL_INSTANT) {
+            return null;
+        }
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        int length = value == null ? 0 : value.length + 1;
+        return varintSize(length) + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        putVarint(buffer, value.length + 1);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarint(buffer);
+        if (length == 0) {
+            return null;
+        }
+        int size = length - 1;
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), size, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[size];
+            buffer.get(buffer.position(), bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + size);
+        return value;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint malformado em NotificationEvent binário");
+    }
+}
@@ -3,14 +3,40 @@ package com.arthur.kafkaimplementation.dto;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 
+/**
+ * Desserializa NotificationEvent escolhendo o formato registro a registro
+ * pelo header "fmt" (sem header → JSON).
+ *
+ * Por isso o consumer lê JSON e binário do mesmo tópico: durante a migração,
+ * producers antigos e novos podem publicar ao mesmo tempo.
+ */
 public class NotificationEventDeserializer implements Deserializer<NotificationEvent> {
 
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .registerModule(new JavaTimeModule())
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
+    @Override
+    public NotificationEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) return null;
+        Header header = headers == null ? null : headers.lastHeader(WireFormat.HEADER);
+        if (header == null) {
+            return deserialize(topic, data);
+        }
+        try {
+            return switch (WireFormat.fromHeader(header.value())) {
+                case BINARY_V1 -> NotificationEventBinaryCodec.decode(data);
+                case JSON -> MAPPER.readValue(data, NotificationEvent.class);
+            };
+        } catch (Exception e) {
+            throw new RuntimeException("Falha ao desserializar NotificationEvent", e);
+        }
+    }
+
     @Override
     public NotificationEvent deserialize(String topic, byte[] data) {
         if (data == null) return null;
@@ -3,14 +3,45 @@ package com.arthur.kafkaimplementation.dto;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Serializer;
 
+import java.util.Map;
+
+/**
+ * Serializa NotificationEvent em JSON (padrão) ou no formato binário v1.
+ *
+ * O formato vem de notification.wire-format nos atributos do canal, ex:
+ *   mp.messaging.outgoing.notifications-out.notification.wire-format=binary
+ *
+ * No binário, o header "fmt" identifica o registro para o
+ * NotificationEventDeserializer. JSON segue sem header, como sempre foi.
+ */
 public class NotificationEventSerializer implements Serializer<NotificationEvent> {
 
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .registerModule(new JavaTimeModule())
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
+    private WireFormat format = WireFormat.JSON;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object value = configs.get(WireFormat.CONFIG);
+        format = WireFormat.from(value == null ? null : value.toString());
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, NotificationEvent event) {
+        if (event == null) return null;
+        if (format == WireFormat.BINARY_V1) {
+            headers.remove(WireFormat.HEADER);
+            headers.add(WireFormat.HEADER, format.idBytes());
+            return NotificationEventBinaryCodec.encode(event);
+        }
+        return serialize(topic, event);
+    }
+
     @Override
     public byte[] serialize(String topic, NotificationEvent event) {
         if (event == null) return null;
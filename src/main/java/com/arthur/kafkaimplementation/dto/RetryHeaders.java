@@ -0,0 +1,72 @@
+package com.arthur.kafkaimplementation.dto;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Headers Kafka que acompanham uma notificação no caminho de retry.
+ *
+ * retry-attempt    → quantas vezes a notificação já foi republicada em "notifications"
+ *                    (ausente = 0, primeira tentativa)
+ * retry-not-before → epoch millis a partir do qual vale tentar de novo — o
+ *                    resetAtMs que o rate limiter devolveu ao bloquear
+ * retry-charged    → "1" quando a notificação já passou pelo rate limit e só a
+ *                    entrega falhou: a republicação não conta de novo na cota
+ *                    (ausente = bloqueada pelo rate limit, conta na volta)
+ *
+ * Valores em ASCII decimal: legíveis direto no kafka-console-consumer.
+ */
+public final class RetryHeaders {
+
+    public static final String ATTEMPT = "retry-attempt";
+    public static final String NOT_BEFORE = "retry-not-before";
+    public static final String CHARGED = "retry-charged";
+
+    private RetryHeaders() {
+    }
+
+    public static Headers of(int attempt, long notBeforeMs) {
+        return of(attempt, notBeforeMs, false);
+    }
+
+    public static Headers of(int attempt, long notBeforeMs, boolean charged) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(ATTEMPT, ascii(attempt));
+        headers.add(NOT_BEFORE, ascii(notBeforeMs));
+        if (charged) {
+            headers.add(CHARGED, ascii(1));
+        }
+        return headers;
+    }
+
+    public static int attempt(Headers headers) {
+        return (int) read(headers, ATTEMPT, 0);
+    }
+
+    public static long notBefore(Headers headers, long fallbackMs) {
+        return read(headers, NOT_BEFORE, fallbackMs);
+    }
+
+    public static boolean charged(Headers headers) {
+        return read(headers, CHARGED, 0) == 1;
+    }
+
+    private static long read(Headers headers, String name, long fallback) {
+        Header header = headers == null ? null : headers.lastHeader(name);
+        if (header == null || header.value() == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static byte[] ascii(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,70 @@
+package com.arthur.kafkaimplementation.dto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formatos de NotificationEvent no fio, identificados pelo header "fmt".
+ *
+ * JSON      → Jackson, texto ISO-8601. Registro SEM header também é JSON
+ *             (compatível com tudo que foi publicado antes do header existir).
+ * BINARY_V1 → NotificationEventBinaryCodec, header fmt=bin1.
+ *
+ * Nome e valor do header são curtos de propósito: o header viaja em todo
+ * registro e ~10 bytes já são uma fatia visível de um evento binário de 40–70.
+ *
+ * O producer escolhe o formato por configuração (notification.wire-format);
+ * o consumer decide registro a registro pelo header. Assim os dois formatos
+ * convivem no mesmo tópico durante um rolling deploy.
+ */
+public enum WireFormat {
+
+    JSON("json"),
+    BINARY_V1("bin1");
+
+    /** Header Kafka com o id do formato. */
+    public static final String HEADER = "fmt";
+
+    /** Chave de configuração do serializer (via atributos do canal SmallRye). */
+    public static final String CONFIG = "notification.wire-format";
+
+    private final String id;
+    private final byte[] idBytes;
+
+    WireFormat(String id) {
+        this.id = id;
+        this.idBytes = id.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    byte[] idBytes() {
+        return idBytes;
+    }
+
+    /** Aceita o id do formato ou o atalho "binary" na configuração. */
+    public static WireFormat from(String value) {
+        if (value == null || value.isBlank() || JSON.id.equalsIgnoreCase(value)) {
+            return JSON;
+        }
+        if ("binary".equalsIgnoreCase(value) || BINARY_V1.id.equalsIgnoreCase(value)) {
+            return BINARY_V1;
+        }
+        throw new IllegalArgumentException(CONFIG + " inválido: " + value + " (use json ou binary)");
+    }
+
+    /** Formato de um registro a partir do valor do header (null → JSON). */
+    static WireFormat fromHeader(byte[] headerValue) {
+        if (headerValue == null) {
+            return JSON;
+        }
+        String value = new String(headerValue, StandardCharsets.US_ASCII);
+        for (WireFormat format : values()) {
+            if (format.id.equals(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato de NotificationEvent desconhecido: " + value);
+    }
+}
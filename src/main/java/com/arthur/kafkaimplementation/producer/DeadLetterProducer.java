@@ -0,0 +1,88 @@
+package com.arthur.kafkaimplementation.producer;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.RetryHeaders;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Publica notificações bloqueadas no Dead Letter Topic.
+ *
+ * Mantém userId como chave, igual ao NotificationProducer — o DLT preserva
+ * a ordem por usuário caso um dia tenha mais de uma partição.
+ *
+ * Os CompletionStage retornados completam quando o broker confirma a escrita
+ * (ack do emitter), o que permite a quem chama só commitar o offset depois.
+ *
+ * Cada registro leva os headers de retry (RetryHeaders): quando a janela do
+ * usuário reabre (resetAtMs da decisão do rate limiter) e quantas vezes a
+ * notificação já foi republicada. O DltConsumer agenda o reenvio a partir deles.
+ * Entrega que falhou vai com retry-charged: a cota já foi gasta na primeira passagem.
+ */
+@ApplicationScoped
+public class DeadLetterProducer {
+
+    @Inject
+    @Channel("notifications-dlt-out")
+    Emitter<NotificationEvent> dltEmitter;
+
+    @Inject
+    PipelineMetrics metrics;
+
+    /**
+     * @param retryAtMs quando a janela do usuário reabre
+     * @param attempt   republicações já feitas (header retry-attempt do registro de origem)
+     */
+    public CompletionStage<Void> send(NotificationEvent event, long retryAtMs, int attempt) {
+        return send(event, retryAtMs, attempt, false);
+    }
+
+    /**
+     * @param charged a notificação já passou pelo rate limit e só a entrega falhou
+     */
+    public CompletionStage<Void> send(NotificationEvent event, long retryAtMs, int attempt, boolean charged) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        metrics.deadLettered(event.type());
+
+        dltEmitter.send(Message.of(event)
+                .addMetadata(OutgoingKafkaRecordMetadata.<String>builder()
+                        .withKey(event.userId())
+                        .withHeaders(RetryHeaders.of(attempt, retryAtMs, charged))
+                        .build())
+                .withAck(() -> {
+                    written.complete(null);
+                    return CompletableFuture.completedFuture(null);
+                })
+                .withNack(e -> {
+                    written.completeExceptionally(e);
+                    return CompletableFuture.completedFuture(null);
+                }));
+
+        return written;
+    }
+
+    /**
+     * Emite todas as notificações de uma vez e completa quando todas foram escritas.
+     * O producer Kafka agrupa os registros no mesmo produce request (linger/batch.size),
+     * então um lote bloqueado vira poucas escritas no broker, não uma por mensagem.
+     */
+    public CompletionStage<Void> sendAll(List<DeadLetter> deadLetters) {
+        CompletableFuture<?>[] written = new CompletableFuture<?>[deadLetters.size()];
+        for (int i = 0; i < deadLetters.size(); i++) {
+            DeadLetter deadLetter = deadLetters.get(i);
+            written[i] = send(deadLetter.event(), deadLetter.retryAtMs(), deadLetter.attempt()).toCompletableFuture();
+        }
+        return CompletableFuture.allOf(written);
+    }
+
+    public record DeadLetter(NotificationEvent event, long retryAtMs, int attempt) {}
+}
@@ -1,14 +1,23 @@
 package com.arthur.kafkaimplementation.producer;
 
 import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.service.PipelineMetrics;
+import com.arthur.kafkaimplementation.service.PriorityLanes;
 import io.quarkus.logging.Log;
 import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Channel;
 import org.eclipse.microprofile.reactive.messaging.Emitter;
 import org.eclipse.microprofile.reactive.messaging.Message;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Producer de notificações para o Kafka.
  *
@@ -19,6 +28,21 @@ import org.eclipse.microprofile.reactive.messaging.Message;
  *
  *   Sem chave → round-robin entre partições → notificações do mesmo usuário
  *               podem ser processadas fora de ordem por consumers diferentes.
+ *
+ * Decisão de design — janela de mensagens em voo:
+ *   O emitter é fire-and-forget: sem limite, um cliente rápido enche o buffer
+ *   do emitter e as falhas só aparecem no log. Cada send ocupa uma vaga da
+ *   janela (app.producer.max-in-flight) até o broker confirmar ou falhar.
+ *   Sem vaga dentro de app.producer.window-wait-ms → PublishWindowExhaustedException,
+ *   que os endpoints devolvem como 503 + Retry-After.
+ *
+ *   Enquanto espera vaga, a thread do request HTTP não lê mais do corpo —
+ *   o backpressure chega até o cliente via TCP.
+ *
+ * Decisão de design — tópico pela faixa de prioridade:
+ *   O tópico de cada mensagem vem do PriorityLanes (PEDIDO → notifications.high,
+ *   o resto → notifications). O canal continua um só: a janela de mensagens em
+ *   voo e o producer Kafka são compartilhados pelas faixas.
  */
 @ApplicationScoped
 public class NotificationProducer {
@@ -27,20 +51,86 @@ public class NotificationProducer {
     @Channel("notifications-out")
     Emitter<NotificationEvent> emitter;
 
-    public void send(NotificationEvent event) {
+    @Inject
+    PipelineMetrics metrics;
+
+    @Inject
+    PriorityLanes lanes;
+
+    @ConfigProperty(name = "app.producer.max-in-flight", defaultValue = "1024")
+    int maxInFlight;
+
+    @ConfigProperty(name = "app.producer.window-wait-ms", defaultValue = "1000")
+    long windowWaitMs;
+
+    @ConfigProperty(name = "app.producer.retry-after-seconds", defaultValue = "1")
+    int retryAfterSeconds;
+
+    private Semaphore window;
+
+    @PostConstruct
+    void init() {
+        window = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Publica a notificação assim que houver vaga na janela.
+     *
+     * @return completa quando o broker confirma a escrita (ou falha com o erro do envio)
+     * @throws PublishWindowExhaustedException se não abrir vaga dentro de app.producer.window-wait-ms
+     */
+    public CompletionStage<Void> send(NotificationEvent event) {
+        acquireSlot();
+
         var metadata = OutgoingKafkaRecordMetadata.<String>builder()
                 .withKey(event.userId())
+                .withTopic(lanes.topicFor(event.type()))
                 .build();
 
-        emitter.send(Message.of(event).addMetadata(metadata))
-                .whenComplete((v, ex) -> {
-                    if (ex != null) {
-                        Log.errorf("Falha ao publicar notificação — userId=%s error=%s",
-                                event.userId(), ex.getMessage());
-                    } else {
+        CompletableFuture<Void> published = new CompletableFuture<>();
+        long startNanos = System.nanoTime();
+        try {
+            emitter.send(Message.of(event)
+                    .addMetadata(metadata)
+                    .withAck(() -> {
+                        window.release();
+                        metrics.publishSucceeded(startNanos);
                         Log.infof("Notificação publicada — userId=%s type=%s",
                                 event.userId(), event.type());
-                    }
-                });
+                        published.complete(null);
+                        return CompletableFuture.completedFuture(null);
+                    })
+                    .withNack(ex -> {
+                        window.release();
+                        metrics.publishFailed(startNanos);
+                        Log.errorf("Falha ao publicar notificação — userId=%s error=%s",
+                                event.userId(), ex.getMessage());
+                        published.completeExceptionally(ex);
+                        return CompletableFuture.completedFuture(null);
+                    }));
+        } catch (RuntimeException e) {
+            // Emitter recusou a mensagem (ex: canal parado) — a vaga não pode vazar
+            window.release();
+            throw e;
+        }
+
+        return published;
+    }
+
+    /** Vagas livres na janela neste momento. */
+    public int availableSlots() {
+        return window.availablePermits();
+    }
+
+    private void acquireSlot() {
+        try {
+            if (!window.tryAcquire(windowWaitMs, TimeUnit.MILLISECONDS)) {
+                metrics.publishRejectedByWindow();
+                throw new PublishWindowExhaustedException(maxInFlight, retryAfterSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PublishWindowExhaustedException(maxInFlight, retryAfterSeconds);
+        }
     }
 }
@@ -0,0 +1,22 @@
+package com.arthur.kafkaimplementation.producer;
+
+/**
+ * A janela de publicações em voo do NotificationProducer está cheia e não abriu
+ * vaga dentro do tempo de espera. Quem chamou deve devolver o erro ao cliente
+ * (503 + Retry-After) em vez de acumular mensagens em memória.
+ */
+public class PublishWindowExhaustedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int retryAfterSeconds;
+
+    public PublishWindowExhaustedException(int windowSize, int retryAfterSeconds) {
+        super("Janela de publicação cheia (" + windowSize + " mensagens em voo)");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
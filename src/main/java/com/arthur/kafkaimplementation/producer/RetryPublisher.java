@@ -0,0 +1,61 @@
+package com.arthur.kafkaimplementation.producer;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.RetryHeaders;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Publica notificações no caminho de retry: buckets de espera, republicação
+ * em "notifications" e o tópico de estacionamento.
+ *
+ * Um único canal (notifications-retry-out) atende todos os destinos — o tópico
+ * vai na metadata de cada mensagem. A chave continua sendo o userId, então a
+ * notificação republicada cai na mesma partição de antes.
+ */
+@ApplicationScoped
+public class RetryPublisher {
+
+    @Inject
+    @Channel("notifications-retry-out")
+    Emitter<NotificationEvent> emitter;
+
+    /** Republicação que passa pelo rate limit de novo (ex: reenvio do DltReplayer). */
+    public CompletionStage<Void> publish(String topic, NotificationEvent event, int attempt, long notBeforeMs) {
+        return publish(topic, event, attempt, notBeforeMs, false);
+    }
+
+    /**
+     * @param charged repassa o retry-charged do registro de origem
+     * @return completa quando o broker confirma a escrita — só então o registro
+     *         de origem pode ser commitado
+     */
+    public CompletionStage<Void> publish(String topic, NotificationEvent event, int attempt, long notBeforeMs,
+                                         boolean charged) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+
+        emitter.send(Message.of(event)
+                .addMetadata(OutgoingKafkaRecordMetadata.<String>builder()
+                        .withTopic(topic)
+                        .withKey(event.userId())
+                        .withHeaders(RetryHeaders.of(attempt, notBeforeMs, charged))
+                        .build())
+                .withAck(() -> {
+                    written.complete(null);
+                    return CompletableFuture.completedFuture(null);
+                })
+                .withNack(e -> {
+                    written.completeExceptionally(e);
+                    return CompletableFuture.completedFuture(null);
+                }));
+
+        return written;
+    }
+}
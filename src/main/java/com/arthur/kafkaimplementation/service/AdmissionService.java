@@ -0,0 +1,213 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controle de admissão na entrada: descarta notificações claramente acima do
+ * limite antes de publicá-las no Kafka.
+ *
+ * Problema:
+ *   Sem isso, toda notificação acima do limite é serializada, escrita em
+ *   "notifications", consumida, verificada e escrita de novo em "notifications.DLT".
+ *   Em campanhas, é o dobro de I/O no broker para tráfego que já sabemos que vai cair.
+ *
+ * Estimativa local por usuário e orçamento:
+ *   contagem = getCount do RateLimiterService (lido no máximo a cada app.admission.refresh-ms)
+ *            + notificações admitidas aqui desde essa leitura
+ *   Se contagem >= limite + app.admission.tolerance → rejeitada na entrada.
+ *   Tipos com orçamento próprio (app.rate-limit.type-budgets) têm estimativa e
+ *   limite próprios, como no consumer: 5 PROMOCAO não barram um PEDIDO.
+ *
+ * Reserva e devolução:
+ *   admit já conta a notificação (duas requisições simultâneas não passam pela
+ *   mesma vaga). Se a publicação não acontece — janela do producer cheia ou
+ *   falha do broker — quem chamou devolve a vaga com release.
+ *
+ * Leitura do Redis fora do request:
+ *   A releitura (usuário novo ou estimativa vencida) vai para a thread
+ *   "admission-refresh"; o request segue com o que já existe — para um usuário
+ *   novo, só o que foi admitido aqui. Nenhuma requisição HTTP espera o Redis.
+ *   Fila de releituras cheia → a estimativa fica como está até a próxima tentativa.
+ *
+ * Por que é seguro?
+ *   A estimativa tende a ficar ABAIXO do valor real (ao reler o Redis, as publicadas
+ *   que ainda não foram consumidas saem da conta). Ou seja: em caso de dúvida,
+ *   a notificação passa. A verificação definitiva continua no consumer — esta
+ *   classe só corta o que com certeza seria bloqueado.
+ *
+ * Estado limitado:
+ *   No máximo app.admission.max-tracked-users usuários em memória. Acima disso,
+ *   estimativas antigas são descartadas (e reconstruídas do Redis quando preciso).
+ */
+@ApplicationScoped
+public class AdmissionService {
+
+    /** Releituras pendentes no máximo; acima disso, a releitura fica para a próxima requisição. */
+    private static final int REFRESH_QUEUE = 10_000;
+
+    /** refreshedAtMs de uma estimativa que ainda não leu o Redis. */
+    private static final long NEVER_READ = 0;
+
+    private final RateLimiterService rateLimiter;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final long refreshMs;
+    private final int tolerance;
+    private final int maxTrackedUsers;
+    private final ConcurrentHashMap<Scope, Estimate> estimates = new ConcurrentHashMap<>();
+    private final ExecutorService refresher;
+
+    @Inject
+    public AdmissionService(
+            RateLimiterService rateLimiter,
+            PipelineMetrics metrics,
+            @ConfigProperty(name = "app.admission.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "app.admission.refresh-ms", defaultValue = "1000") long refreshMs,
+            @ConfigProperty(name = "app.admission.tolerance", defaultValue = "0") int tolerance,
+            @ConfigProperty(name = "app.admission.max-tracked-users", defaultValue = "100000") int maxTrackedUsers
+    ) {
+        this(rateLimiter, metrics, enabled, refreshMs, tolerance, maxTrackedUsers,
+                new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(REFRESH_QUEUE),
+                        r -> Thread.ofPlatform().daemon().name("admission-refresh").unstarted(r)));
+    }
+
+    /** Testes: releituras num executor controlado. */
+    AdmissionService(RateLimiterService rateLimiter, PipelineMetrics metrics, boolean enabled, long refreshMs,
+                     int tolerance, int maxTrackedUsers, ExecutorService refresher) {
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.refreshMs = refreshMs;
+        this.tolerance = tolerance;
+        this.maxTrackedUsers = maxTrackedUsers;
+        this.refresher = refresher;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true se a notificação deve ser publicada — a vaga já fica contada;
+     *         se a publicação não acontecer, devolva com release. false se está
+     *         claramente acima do limite e pode ser descartada já na entrada
+     */
+    public boolean admit(String userId, String type) {
+        if (!enabled) {
+            return true;
+        }
+
+        long nowMs = System.currentTimeMillis();
+        Scope scope = new Scope(rateLimiter.budgetOf(type), userId);
+        Estimate estimate = estimates.get(scope);
+        if (estimate == null) {
+            evictIfFull(nowMs);
+            estimate = estimates.computeIfAbsent(scope, s -> new Estimate(NEVER_READ, 0));
+        }
+        if (nowMs - estimate.refreshedAtMs >= refreshMs) {
+            refresh(scope, type, estimate);
+        }
+
+        int limit = rateLimiter.getLimit(type);
+        long current = estimate.baseCount + estimate.admitted.incrementAndGet();
+        if (current > limit + tolerance) {
+            estimate.admitted.decrementAndGet();
+            Log.debugf("Admissão REJEITADA — userId=%s type=%s estimativa=%d limite=%d",
+                    userId, type, current - 1, limit);
+            metrics.publishRejectedByAdmission();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Devolve a vaga de um admit cuja notificação não foi publicada.
+     * Se a estimativa foi relida nesse meio tempo, a vaga já não está nela — nada a fazer.
+     */
+    public void release(String userId, String type) {
+        if (!enabled) {
+            return;
+        }
+        Estimate estimate = estimates.get(new Scope(rateLimiter.budgetOf(type), userId));
+        if (estimate != null) {
+            estimate.admitted.getAndUpdate(n -> n > 0 ? n - 1 : 0);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Relê a contagem na thread de releitura; uma releitura por estimativa de cada vez.
+     *
+     * Só o que foi admitido depois do início da leitura passa para a estimativa
+     * nova. O que veio antes pode já estar na contagem do Redis — inclusive numa
+     * estimativa que nunca leu: levar essas admissões junto contaria duas vezes as
+     * que o consumer já processou. Na dúvida a estimativa fica baixa, nunca alta.
+     */
+    private void refresh(Scope scope, String type, Estimate stale) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    long readAtMs = System.currentTimeMillis();
+                    int admittedBefore = stale.admitted.get();
+                    long count = rateLimiter.getCount(scope.userId(), type);
+                    Estimate fresh = new Estimate(readAtMs, count);
+                    fresh.admitted.set(Math.max(0, stale.admitted.get() - admittedBefore));
+                    estimates.replace(scope, stale, fresh);
+                } catch (RuntimeException e) {
+                    Log.warnf("Admissão: falha ao reler a contagem — userId=%s type=%s: %s",
+                            scope.userId(), type, e.getMessage());
+                } finally {
+                    stale.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stale.refreshing.set(false);
+        }
+    }
+
+    private void evictIfFull(long nowMs) {
+        if (estimates.size() < maxTrackedUsers) {
+            return;
+        }
+        estimates.values().removeIf(e -> nowMs - e.refreshedAtMs >= refreshMs);
+        if (estimates.size() >= maxTrackedUsers) {
+            // Todos recentes: descarta tudo — o custo é reler o Redis, nunca rejeitar a mais
+            estimates.clear();
+        }
+    }
+
+    /** Usuário dentro de um orçamento; budget null = limite padrão. */
+    private record Scope(String budget, String userId) {}
+
+    private static final class Estimate {
+        final long refreshedAtMs;
+        final long baseCount;
+        final AtomicInteger admitted = new AtomicInteger();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Estimate(long refreshedAtMs, long baseCount) {
+            this.refreshedAtMs = refreshedAtMs;
+            this.baseCount = baseCount;
+        }
+    }
+}
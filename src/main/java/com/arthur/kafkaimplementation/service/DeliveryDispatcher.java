@@ -0,0 +1,448 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.service.NotificationSender.SendResult;
+import com.arthur.kafkaimplementation.service.PriorityLanes.Lane;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Leva cada notificação ao provedor do seu canal, agrupando envios em lotes.
+ *
+ * Canal:
+ *   app.delivery.channels=PEDIDO:push,PROMOCAO:email → canal pelo tipo
+ *   (tipos fora da lista usam app.delivery.default-channel). O provedor do
+ *   canal é o NotificationSender que declara atendê-lo.
+ *
+ * Lotes sem espera artificial (smart batching):
+ *   Cada provedor tem um bulkhead — no máximo app.delivery.bulkhead.max-concurrent
+ *   chamadas em voo e app.delivery.bulkhead.max-queue notificações na fila.
+ *   Com vaga livre, o que está na fila sai na hora (carga baixa → lote de 1,
+ *   sem latência extra). Com todas as vagas ocupadas, a fila cresce e a próxima
+ *   vaga leva até app.delivery.batch.max-size notificações de um canal numa
+ *   chamada só. Quanto maior a carga, maiores os lotes.
+ *   Fila cheia → DeliveryFailedException na hora, sem esperar (o provedor não
+ *   dá conta; melhor ir para o retry do que acumular memória).
+ *
+ * Faixas de prioridade:
+ *   A fila de cada provedor é separada por faixa (PriorityLanes). Quando uma
+ *   vaga abre, o LaneScheduler escolhe a faixa por peso (PEDIDO passa na frente
+ *   de PROMOCAO sem parar a LOW) e, dentro dela, os canais se revezam (round
+ *   robin). O bulkhead é o único limite de concorrência: dispatch nunca espera,
+ *   e um lote inteiro do consumer entra na fila antes da primeira resposta.
+ *
+ * Timeout e hedge por chamada:
+ *   app.delivery.timeout-ms   → as notificações do lote falham (a vaga só volta
+ *                               quando o provedor responder: o bulkhead conta
+ *                               as chamadas realmente em voo)
+ *   app.delivery.hedge-after-ms → sem resposta até lá e com vaga livre, manda
+ *                               uma cópia da chamada; vale a primeira que der
+ *                               certo. Se a primeira falhar antes, a cópia
+ *                               sai na hora (retry). No máximo 2 chamadas por lote,
+ *                               e só para provedores com supportsHedging().
+ */
+@ApplicationScoped
+public class DeliveryDispatcher {
+
+    private final PipelineMetrics metrics;
+    private final PriorityLanes lanes;
+    private final LaneScheduler scheduler;
+    private final Map<String, String> channelByType = new HashMap<>();
+    private final String defaultChannel;
+    private final Map<String, ProviderQueue> providersByChannel = new HashMap<>();
+    private final int maxBatchSize;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long timeoutMs;
+    private final long hedgeAfterMs;
+    private final ScheduledExecutorService timer;
+
+    @Inject
+    public DeliveryDispatcher(
+            @Any Instance<NotificationSender> senders,
+            PipelineMetrics metrics,
+            PriorityLanes lanes,
+            LaneScheduler scheduler,
+            @ConfigProperty(name = "app.delivery.channels") Optional<List<String>> channels,
+            @ConfigProperty(name = "app.delivery.default-channel", defaultValue = "push") String defaultChannel,
+            @ConfigProperty(name = "app.delivery.batch.max-size", defaultValue = "100") int maxBatchSize,
+            @ConfigProperty(name = "app.delivery.bulkhead.max-concurrent", defaultValue = "16") int maxConcurrent,
+            @ConfigProperty(name = "app.delivery.bulkhead.max-queue", defaultValue = "4096") int maxQueue,
+            @ConfigProperty(name = "app.delivery.timeout-ms", defaultValue = "2000") long timeoutMs,
+            @ConfigProperty(name = "app.delivery.hedge-after-ms", defaultValue = "200") long hedgeAfterMs
+    ) {
+        this(senders.stream().toList(), metrics, lanes, scheduler, channels.orElse(List.of()), defaultChannel,
+                maxBatchSize, maxConcurrent, maxQueue, timeoutMs, hedgeAfterMs);
+    }
+
+    DeliveryDispatcher(List<NotificationSender> senders, PipelineMetrics metrics, PriorityLanes lanes,
+                       LaneScheduler scheduler, List<String> channels, String defaultChannel, int maxBatchSize,
+                       int maxConcurrent, int maxQueue, long timeoutMs, long hedgeAfterMs) {
+        this.metrics = metrics;
+        this.lanes = lanes;
+        this.scheduler = scheduler;
+        this.defaultChannel = defaultChannel;
+        this.maxBatchSize = maxBatchSize;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.timeoutMs = timeoutMs;
+        this.hedgeAfterMs = hedgeAfterMs;
+
+        for (String entry : channels) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException(
+                        "app.delivery.channels inválido: '" + entry + "' (use TIPO:canal,...)");
+            }
+            channelByType.put(parts[0].trim(), parts[1].trim());
+        }
+
+        for (NotificationSender sender : senders) {
+            if (sender.channels().isEmpty()) {
+                continue;
+            }
+            ProviderQueue provider = new ProviderQueue(sender);
+            for (String channel : sender.channels()) {
+                ProviderQueue previous = providersByChannel.putIfAbsent(channel, provider);
+                if (previous != null) {
+                    throw new IllegalStateException("Canal " + channel + " com dois provedores: "
+                            + previous.sender.name() + " e " + sender.name());
+                }
+            }
+            metrics.trackSenderQueue(sender.name(), provider::queued);
+            Log.infof("Provedor de entrega registrado — nome=%s canais=%s lote=%d",
+                    sender.name(), sender.channels(), provider.batchSize);
+        }
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                r -> Thread.ofPlatform().daemon().name("delivery-timer").unstarted(r));
+    }
+
+    /** Gauges só depois da construção: o registry não pode ver um dispatcher pela metade. */
+    @PostConstruct
+    void registerGauges() {
+        for (Lane lane : Lane.values()) {
+            metrics.trackLaneWaiting(lane.tag(), () -> waiting(lane));
+        }
+    }
+
+    /** Notificações da faixa esperando vaga, somando os provedores. */
+    int waiting(Lane lane) {
+        int waiting = 0;
+        for (ProviderQueue provider : Set.copyOf(providersByChannel.values())) {
+            waiting += provider.queued(lane);
+        }
+        return waiting;
+    }
+
+    public String channelOf(String type) {
+        return type == null ? defaultChannel : channelByType.getOrDefault(type, defaultChannel);
+    }
+
+    /**
+     * Coloca a notificação na fila do provedor do canal. Não bloqueia.
+     *
+     * @return completa quando o provedor confirmar; falha com DeliveryFailedException
+     */
+    public CompletableFuture<Void> dispatch(NotificationEvent event) {
+        String channel = channelOf(event.type());
+        ProviderQueue provider = providersByChannel.get(channel);
+        if (provider == null) {
+            return CompletableFuture.failedFuture(
+                    new DeliveryFailedException("Nenhum provedor para o canal " + channel));
+        }
+        return provider.submit(lanes.laneOf(event.type()), channel, event);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private record Pending(NotificationEvent event, CompletableFuture<Void> result, long enqueuedNanos) {}
+
+    /** Filas por canal de uma faixa, com o round robin entre os canais. Protegidas pelo lock do ProviderQueue. */
+    private static final class LaneQueue {
+
+        final Map<String, ArrayDeque<Pending>> queues = new LinkedHashMap<>();
+        final List<String> channelOrder = new ArrayList<>();
+        int nextChannel;
+        int queued;
+
+        void add(String channel, Pending pending) {
+            ArrayDeque<Pending> queue = queues.get(channel);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(channel, queue);
+                channelOrder.add(channel);
+            }
+            queue.add(pending);
+            queued++;
+        }
+
+        /** Round robin entre os canais com fila. */
+        String nextNonEmptyChannel() {
+            for (int i = 0; i < channelOrder.size(); i++) {
+                String channel = channelOrder.get((nextChannel + i) % channelOrder.size());
+                if (!queues.get(channel).isEmpty()) {
+                    nextChannel = (nextChannel + i + 1) % channelOrder.size();
+                    return channel;
+                }
+            }
+            throw new IllegalStateException("queued > 0 sem fila não vazia");
+        }
+
+        List<Pending> poll(String channel, int max) {
+            ArrayDeque<Pending> queue = queues.get(channel);
+            List<Pending> batch = new ArrayList<>(Math.min(max, queue.size()));
+            while (batch.size() < max && !queue.isEmpty()) {
+                batch.add(queue.poll());
+            }
+            queued -= batch.size();
+            return batch;
+        }
+    }
+
+    /** Bulkhead + filas por faixa e canal de um provedor. Estado protegido pelo lock do objeto. */
+    private final class ProviderQueue {
+
+        final NotificationSender sender;
+        final int batchSize;
+        final LaneQueue[] byLane = new LaneQueue[Lane.values().length];
+        final LaneScheduler.Rotation rotation = scheduler.rotation();
+        int inFlight;
+        int queued;
+
+        ProviderQueue(NotificationSender sender) {
+            this.sender = sender;
+            this.batchSize = Math.max(1, Math.min(maxBatchSize, sender.maxBatchSize()));
+            for (Lane lane : Lane.values()) {
+                byLane[lane.ordinal()] = new LaneQueue();
+            }
+        }
+
+        CompletableFuture<Void> submit(Lane lane, String channel, NotificationEvent event) {
+            Pending pending = new Pending(event, new CompletableFuture<>(), System.nanoTime());
+            synchronized (this) {
+                if (queued >= maxQueue) {
+                    metrics.senderRejected(sender.name());
+                    return CompletableFuture.failedFuture(new DeliveryFailedException(
+                            "Fila do provedor " + sender.name() + " cheia (" + maxQueue + ")"));
+                }
+                byLane[lane.ordinal()].add(channel, pending);
+                queued++;
+            }
+            drain();
+            return pending.result;
+        }
+
+        synchronized int queued() {
+            return queued;
+        }
+
+        synchronized int queued(Lane lane) {
+            return byLane[lane.ordinal()].queued;
+        }
+
+        /** Enquanto houver vaga e fila, tira um lote da faixa da vez e chama o provedor. */
+        void drain() {
+            while (true) {
+                Lane lane;
+                String channel;
+                List<Pending> batch;
+                synchronized (this) {
+                    if (inFlight >= maxConcurrent || queued == 0) {
+                        return;
+                    }
+                    lane = rotation.next(l -> byLane[l.ordinal()].queued > 0);
+                    LaneQueue laneQueue = byLane[lane.ordinal()];
+                    channel = laneQueue.nextNonEmptyChannel();
+                    batch = laneQueue.poll(channel, batchSize);
+                    queued -= batch.size();
+                    inFlight++;
+                }
+                for (Pending pending : batch) {
+                    metrics.laneWaited(lane.tag(), pending.enqueuedNanos());
+                }
+                call(channel, batch);
+            }
+        }
+
+        private synchronized boolean tryAcquire() {
+            if (inFlight >= maxConcurrent) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        }
+
+        private void release() {
+            synchronized (this) {
+                inFlight--;
+            }
+            drain();
+        }
+
+        private void call(String channel, List<Pending> batch) {
+            new Call(this, channel, batch).start();
+        }
+    }
+
+    /**
+     * Uma chamada lógica ao provedor: a primária, no máximo uma cópia (hedge por
+     * lentidão ou retry por falha) e o timeout. Vence a primeira resposta ok.
+     * running e hedged são protegidos pelo lock do objeto.
+     */
+    private final class Call {
+
+        final ProviderQueue provider;
+        final String channel;
+        final List<Pending> batch;
+        final List<NotificationEvent> events;
+        final CompletableFuture<List<SendResult>> outcome = new CompletableFuture<>();
+        final long startNanos = System.nanoTime();
+        int running = 1;
+        boolean hedged;
+        ScheduledFuture<?> hedgeTimer;
+        ScheduledFuture<?> timeoutTimer;
+
+        Call(ProviderQueue provider, String channel, List<Pending> batch) {
+            this.provider = provider;
+            this.channel = channel;
+            this.batch = batch;
+            this.events = batch.stream().map(Pending::event).toList();
+            this.hedged = !provider.sender.supportsHedging();
+        }
+
+        void start() {
+            metrics.senderBatch(provider.sender.name(), events.size());
+            // Timers antes do envio: uma resposta imediata já encontra os dois para cancelar
+            if (!hedged && hedgeAfterMs < timeoutMs) {
+                hedgeTimer = timer.schedule(this::hedge, hedgeAfterMs, TimeUnit.MILLISECONDS);
+            }
+            timeoutTimer = timer.schedule(() -> outcome.completeExceptionally(new DeliveryFailedException(
+                    "Timeout de " + timeoutMs + " ms no provedor " + provider.sender.name(), new TimeoutException())),
+                    timeoutMs, TimeUnit.MILLISECONDS);
+            outcome.whenComplete(this::finish);
+            send();
+        }
+
+        /** Timer: a primária está lenta. Só manda a cópia se houver vaga livre — não fura a fila. */
+        private void hedge() {
+            synchronized (this) {
+                if (outcome.isDone() || hedged || !provider.tryAcquire()) {
+                    return;
+                }
+                hedged = true;
+                running++;
+            }
+            metrics.senderHedged(provider.sender.name(), "slow");
+            send();
+        }
+
+        private void send() {
+            CompletableFuture<List<SendResult>> response;
+            try {
+                response = provider.sender.send(channel, events).toCompletableFuture();
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete(this::onResponse);
+        }
+
+        private void onResponse(List<SendResult> results, Throwable error) {
+            if (error == null && results.size() == events.size()) {
+                provider.release();
+                outcome.complete(results);
+                return;
+            }
+
+            boolean retry;
+            boolean last;
+            synchronized (this) {
+                running--;
+                retry = running == 0 && !hedged && !outcome.isDone();
+                if (retry) {
+                    hedged = true;
+                    running++;
+                }
+                last = running == 0;
+            }
+            if (retry) {
+                // Falhou antes do hedge: a cópia vira retry imediato, na mesma vaga
+                metrics.senderHedged(provider.sender.name(), "failed");
+                send();
+                return;
+            }
+
+            provider.release();
+            if (last) {
+                outcome.completeExceptionally(error != null ? unwrap(error) : new DeliveryFailedException(
+                        "Provedor " + provider.sender.name() + " devolveu " + results.size()
+                                + " resultados para " + events.size()));
+            }
+        }
+
+        private void finish(List<SendResult> results, Throwable error) {
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            timeoutTimer.cancel(false);
+            metrics.senderCalled(provider.sender.name(), outcomeTag(error), startNanos);
+            if (error != null) {
+                Log.warnf("Falha na chamada ao provedor — nome=%s canal=%s lote=%d error=%s",
+                        provider.sender.name(), channel, events.size(), unwrap(error).getMessage());
+            }
+            complete(batch, results, error);
+        }
+    }
+
+    private static void complete(List<Pending> batch, List<SendResult> results, Throwable error) {
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<Void> result = batch.get(i).result();
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                result.completeExceptionally(cause instanceof DeliveryFailedException
+                        ? cause
+                        : new DeliveryFailedException(cause.getMessage(), cause));
+            } else if (results.get(i).delivered()) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(new DeliveryFailedException(results.get(i).error()));
+            }
+        }
+    }
+
+    private static String outcomeTag(Throwable error) {
+        if (error == null) {
+            return "ok";
+        }
+        return unwrap(error).getCause() instanceof TimeoutException ? "timeout" : "error";
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
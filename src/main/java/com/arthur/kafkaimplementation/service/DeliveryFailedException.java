@@ -0,0 +1,19 @@
+package com.arthur.kafkaimplementation.service;
+
+/**
+ * A notificação não foi entregue: recusada pelo provedor, chamada com erro,
+ * timeout ou bulkhead do provedor cheio. O NotificationDeliveryService manda
+ * a notificação para o DLT, que agenda uma nova tentativa.
+ */
+public class DeliveryFailedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeliveryFailedException(String message) {
+        super(message);
+    }
+
+    public DeliveryFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,262 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer.DeadLetter;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Agrupa as notificações de baixa prioridade bloqueadas pelo rate limit num
+ * único resumo por usuário, em vez de mandar cada uma para o DLT.
+ *
+ * Problema:
+ *   Numa campanha, um usuário acima do limite gera dezenas de PROMOCAO bloqueadas.
+ *   Cada uma custa uma escrita no DLT, um consumo do DLT, uma passada pelo retry e,
+ *   no fim, uma chamada ao provedor — para o usuário receber 20 promoções seguidas.
+ *
+ * Com app.digest.enabled=true, para os tipos de app.digest.types:
+ *   bloqueada → entra no resumo do usuário (absorb) e a mensagem recebe ACK
+ *   a cada app.digest.check-ms, resumos cuja janela já reabriu (resetAtMs) passam
+ *   de novo pelo rate limiter — como UMA notificação:
+ *     permitido → uma entrega só: "Você tem N novas notificações..."
+ *     bloqueado → espera o novo resetAtMs
+ *     mais velho que app.digest.max-age-ms → desiste: tudo para o DLT (caminho antigo)
+ *
+ * Limites (memória fixa):
+ *   app.digest.max-events por usuário → a excedente vai para o DLT
+ *   app.digest.max-users resumos abertos → o mais antigo é despejado para o DLT
+ *
+ * Trade-off:
+ *   O que está num resumo já teve o offset confirmado. Se a instância cair, os
+ *   resumos abertos se perdem (no máximo max-users × max-events notificações).
+ *   Por isso é opcional e restrito a tipos descartáveis como PROMOCAO. Rebalance
+ *   e desligamento normal despejam os resumos no DLT, que não perde nada.
+ */
+@ApplicationScoped
+public class DigestCoalescer {
+
+    private final RateLimiter rateLimiter;
+    private final NotificationDeliveryService deliveryService;
+    private final DeadLetterProducer deadLetterProducer;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final Set<String> types;
+    private final int maxEvents;
+    private final int maxUsers;
+    private final long maxAgeMs;
+    private final ScheduledExecutorService flusher;
+
+    /** Ordem de criação: o primeiro é o resumo mais antigo (despejado quando cheio). */
+    private final LinkedHashMap<String, Digest> digests = new LinkedHashMap<>();
+
+    public DigestCoalescer(
+            RateLimiter rateLimiter,
+            NotificationDeliveryService deliveryService,
+            DeadLetterProducer deadLetterProducer,
+            PipelineMetrics metrics,
+            @ConfigProperty(name = "app.digest.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "app.digest.types", defaultValue = "PROMOCAO") Set<String> types,
+            @ConfigProperty(name = "app.digest.max-events", defaultValue = "20") int maxEvents,
+            @ConfigProperty(name = "app.digest.max-users", defaultValue = "10000") int maxUsers,
+            @ConfigProperty(name = "app.digest.max-age-ms", defaultValue = "300000") long maxAgeMs,
+            @ConfigProperty(name = "app.digest.check-ms", defaultValue = "500") long checkMs
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.deliveryService = deliveryService;
+        this.deadLetterProducer = deadLetterProducer;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.types = types;
+        this.maxEvents = maxEvents;
+        this.maxUsers = maxUsers;
+        this.maxAgeMs = maxAgeMs;
+        if (enabled) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(
+                    r -> Thread.ofPlatform().daemon().name("digest-flush").unstarted(r));
+            this.flusher.scheduleWithFixedDelay(this::emitReady, checkMs, checkMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tenta colocar uma notificação bloqueada no resumo do usuário.
+     *
+     * @param resetAtMs quando a janela do usuário reabre (da decisão do rate limiter)
+     * @param attempt   header retry-attempt, preservado se ela acabar no DLT
+     * @return true se foi absorvida (não mandar ao DLT); false se o chamador segue o caminho normal
+     */
+    public boolean absorb(NotificationEvent event, int partition, long resetAtMs, int attempt) {
+        if (!enabled || !types.contains(event.type())) {
+            return false;
+        }
+
+        Digest evicted = null;
+        synchronized (digests) {
+            Digest digest = digests.get(event.userId());
+            if (digest == null) {
+                if (digests.size() >= maxUsers) {
+                    Iterator<Digest> oldest = digests.values().iterator();
+                    evicted = oldest.next();
+                    oldest.remove();
+                }
+                digest = new Digest(event.userId(), event.type(), partition, System.currentTimeMillis());
+                digests.put(event.userId(), digest);
+            }
+
+            if (digest.events.size() >= maxEvents) {
+                metrics.digestOutcome("overflow", 1);
+                return false;
+            }
+            digest.events.add(new DeadLetter(event, resetAtMs, attempt));
+            digest.readyAtMs = Math.max(digest.readyAtMs, resetAtMs);
+        }
+
+        metrics.digestOutcome("absorbed", 1);
+        if (evicted != null) {
+            toDeadLetter(evicted, "evicted");
+        }
+        return true;
+    }
+
+    /** Partições que saíram desta instância: os resumos delas vão para o DLT. */
+    public void onPartitionsRevoked(Collection<Integer> revoked) {
+        if (!enabled) {
+            return;
+        }
+        for (Digest digest : removeIf(d -> revoked.contains(d.partition))) {
+            toDeadLetter(digest, "revoked");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdownNow();
+        for (Digest digest : removeIf(d -> true)) {
+            toDeadLetter(digest, "shutdown");
+        }
+    }
+
+    /** Roda na thread digest-flush. */
+    private void emitReady() {
+        long nowMs = System.currentTimeMillis();
+        for (Digest digest : removeIf(d -> d.readyAtMs <= nowMs)) {
+            try {
+                emit(digest, nowMs);
+            } catch (RuntimeException e) {
+                Log.errorf("[DIGEST] Falha ao emitir resumo — userId=%s error=%s", digest.userId, e.getMessage());
+                toDeadLetter(digest, "failed");
+            }
+        }
+    }
+
+    private void emit(Digest digest, long nowMs) {
+        if (nowMs - digest.createdAtMs >= maxAgeMs) {
+            toDeadLetter(digest, "expired");
+            return;
+        }
+
+        RateLimitDecision decision = rateLimiter.check(
+                new RateLimitRequest(digest.userId, digest.type, digest.partition, null));
+        metrics.rateLimitDecided(digest.type, decision.allowed());
+        if (!decision.allowed()) {
+            digest.readyAtMs = decision.resetAtMs();
+            reinsert(digest);
+            return;
+        }
+
+        List<DeadLetter> events = digest.events;
+        NotificationEvent first = events.get(0).event();
+        NotificationEvent last = events.get(events.size() - 1).event();
+        String message = events.size() == 1
+                ? last.message()
+                : "Você tem " + events.size() + " novas notificações. Última: " + last.message();
+
+        Log.infof("[DIGEST] Resumo liberado — userId=%s type=%s notificacoes=%d",
+                digest.userId, digest.type, events.size());
+        // sentAt da mais antiga: a latência ponta a ponta mostra quanto o resumo segurou
+        deliveryService.deliver(new NotificationEvent(digest.userId, digest.type, message, first.sentAt()));
+        metrics.digestOutcome("emitted", events.size());
+    }
+
+    /** Volta para o mapa; se outro resumo do usuário abriu enquanto isso, junta os dois. */
+    private void reinsert(Digest digest) {
+        List<DeadLetter> overflow = List.of();
+        synchronized (digests) {
+            Digest newer = digests.remove(digest.userId);
+            if (newer != null) {
+                int room = maxEvents - digest.events.size();
+                List<DeadLetter> merged = newer.events.subList(0, Math.min(room, newer.events.size()));
+                digest.events.addAll(merged);
+                overflow = new ArrayList<>(newer.events.subList(merged.size(), newer.events.size()));
+                digest.readyAtMs = Math.max(digest.readyAtMs, newer.readyAtMs);
+            }
+            digests.put(digest.userId, digest);
+        }
+        if (!overflow.isEmpty()) {
+            metrics.digestOutcome("overflow", overflow.size());
+            deadLetterProducer.sendAll(overflow);
+        }
+    }
+
+    private void toDeadLetter(Digest digest, String reason) {
+        Log.warnf("[DIGEST] Resumo enviado ao DLT — userId=%s notificacoes=%d motivo=%s",
+                digest.userId, digest.events.size(), reason);
+        metrics.digestOutcome(reason, digest.events.size());
+        deadLetterProducer.sendAll(digest.events);
+    }
+
+    private List<Digest> removeIf(Predicate<Digest> condition) {
+        List<Digest> removed = new ArrayList<>();
+        synchronized (digests) {
+            Iterator<Digest> iterator = digests.values().iterator();
+            while (iterator.hasNext()) {
+                Digest digest = iterator.next();
+                if (condition.test(digest)) {
+                    removed.add(digest);
+                    iterator.remove();
+                }
+            }
+        }
+        return removed;
+    }
+
+    /** Resumo aberto de um usuário. Só é alterado com o lock de digests ou fora do mapa. */
+    private static final class Digest {
+
+        final String userId;
+        final String type;
+        final int partition;
+        final long createdAtMs;
+        final List<DeadLetter> events = new ArrayList<>();
+        long readyAtMs;
+
+        Digest(String userId, String type, int partition, long createdAtMs) {
+            this.userId = userId;
+            this.type = type;
+            this.partition = partition;
+            this.createdAtMs = createdAtMs;
+        }
+    }
+}
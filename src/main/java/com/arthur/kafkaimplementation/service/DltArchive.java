@@ -0,0 +1,299 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.NotificationEventBinaryCodec;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Arquivo local, só de acréscimo, do que saiu de vez pelo DLT.
+ *
+ * O DLT no Kafka tem retenção e não tem consulta: "quais notificações do u1
+ * caíram ontem?" ou "reenvie tudo da campanha das 14h" exigiriam reler o tópico
+ * inteiro. O DltConsumer grava aqui o que o retry não vai mais reenviar:
+ * notificações estacionadas, ou descartadas com o retry desligado.
+ *
+ * Disco:
+ *   app.dlt-archive.dir/{id}.log  segmentos de app.dlt-archive.segment-mb, mapeados
+ *                                 em memória (DltArchiveSegment) — escrita sequencial,
+ *                                 uma cópia de memória por registro, sem syscall
+ *   app.dlt-archive.dir/{id}.idx  índice por usuário e tempo, gravado ao selar
+ *
+ *   Segmento cheio → selado (índice ordenado em disco) e um novo é aberto.
+ *   Acima de max-segments, o mais antigo é apagado: o disco fica limitado a
+ *   max-segments × segment-mb. O page cache segura o pico de uma campanha;
+ *   o msync roda a cada flush-ms, fora do caminho do consumer.
+ *
+ * Leitura:
+ *   findByUser → segmentos que cobrem o intervalo, offsets pelo índice de usuário
+ *   scan       → segmentos que cobrem o intervalo, a partir do índice de tempo
+ *   Os registros são decodificados direto do buffer mapeado (sem read() nem
+ *   cópia para um byte[] intermediário). É o que o DltReplayer usa.
+ *
+ * archivedAtMs nunca decresce (max(agora, último)), então o tempo de cada
+ * segmento é um intervalo e a busca dentro dele é binária.
+ *
+ * Na inicialização, segmentos selados carregam só o .idx; o último é varrido
+ * e recuperado até o último registro íntegro (CRC32C).
+ *
+ * Desligado por padrão: ligado, reserva segment-mb de disco já na subida.
+ * O diretório tem de ser absoluto — relativo, o arquivo iria parar onde quer
+ * que o processo tenha sido iniciado.
+ */
+@ApplicationScoped
+public class DltArchive {
+
+    /** Notificação arquivada, com os headers de retry que ela tinha no DLT. */
+    public record ArchivedNotification(NotificationEvent event, long archivedAtMs, long notBeforeMs, int attempt) {}
+
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final long flushMs;
+    private final List<DltArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService flusher;
+    private volatile DltArchiveSegment active;
+    private long lastArchivedAtMs;
+
+    public DltArchive(
+            PipelineMetrics metrics,
+            @ConfigProperty(name = "app.dlt-archive.enabled", defaultValue = "false") boolean enabled,
+            @ConfigProperty(name = "app.dlt-archive.dir", defaultValue = "/var/lib/kafka-implementation/dlt-archive") Path dir,
+            @ConfigProperty(name = "app.dlt-archive.segment-mb", defaultValue = "64") int segmentMb,
+            @ConfigProperty(name = "app.dlt-archive.max-segments", defaultValue = "32") int maxSegments,
+            @ConfigProperty(name = "app.dlt-archive.flush-ms", defaultValue = "1000") long flushMs
+    ) {
+        if (segmentMb < 1 || segmentMb > 1024 || maxSegments < 1) {
+            throw new IllegalArgumentException("app.dlt-archive: segment-mb entre 1 e 1024, max-segments >= 1");
+        }
+        if (enabled && !dir.isAbsolute()) {
+            throw new IllegalArgumentException("app.dlt-archive.dir precisa ser um caminho absoluto: " + dir);
+        }
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.dir = dir;
+        this.segmentBytes = segmentMb * 1024 * 1024;
+        this.maxSegments = maxSegments;
+        this.flushMs = flushMs;
+    }
+
+    /** Abre os segmentos e só então expõe o arquivo ao flusher e aos gauges. */
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o arquivo do DLT em " + dir, e);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                r -> Thread.ofPlatform().daemon().name("dlt-archive-flush").unstarted(r));
+        flusher.scheduleWithFixedDelay(() -> active.force(), flushMs, flushMs, TimeUnit.MILLISECONDS);
+        metrics.trackDltArchive(this::sizeBytes, segments::size);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Acrescenta a notificação ao segmento ativo. Não lança: uma falha de disco
+     * não pode travar o DLT — o registro continua no tópico e a falha vira métrica.
+     */
+    public void append(NotificationEvent event, long notBeforeMs, int attempt) {
+        if (!enabled) {
+            return;
+        }
+        byte[] payload = NotificationEventBinaryCodec.encode(event);
+        if (DltArchiveSegment.HEADER + payload.length > segmentBytes) {
+            metrics.dltArchived(false);
+            Log.warnf("[DLT] Registro maior que o segmento — não arquivado — userId=%s", event.userId());
+            return;
+        }
+        int userHash = DltArchiveSegment.userHash(event.userId());
+        try {
+            synchronized (this) {
+                long archivedAtMs = Math.max(System.currentTimeMillis(), lastArchivedAtMs);
+                if (!active.append(payload, userHash, archivedAtMs, notBeforeMs, attempt)) {
+                    roll();
+                    active.append(payload, userHash, archivedAtMs, notBeforeMs, attempt);
+                }
+                lastArchivedAtMs = archivedAtMs;
+            }
+            metrics.dltArchived(true);
+        } catch (IOException | RuntimeException e) {
+            metrics.dltArchived(false);
+            Log.errorf("[DLT] Falha ao arquivar — userId=%s error=%s", event.userId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Notificações do usuário arquivadas em [fromMs, toMs], da mais antiga para a
+     * mais nova, até limit.
+     */
+    public List<ArchivedNotification> findByUser(String userId, long fromMs, long toMs, int limit) {
+        List<ArchivedNotification> found = new ArrayList<>();
+        scan(fromMs, toMs, Set.of(userId), record -> {
+            found.add(record);
+            return found.size() < limit;
+        });
+        return found;
+    }
+
+    /**
+     * Visita em ordem os registros de [fromMs, toMs] — de todos os usuários, ou
+     * só dos userIds dados. Com toMs no passado, o que for acrescentado durante a
+     * varredura (ex: um reenvio que voltou ao DLT) fica fora do intervalo.
+     *
+     * @param visitor devolve false para parar
+     */
+    public void scan(long fromMs, long toMs, Set<String> userIds, Predicate<ArchivedNotification> visitor) {
+        if (!enabled) {
+            return;
+        }
+        for (DltArchiveSegment segment : List.copyOf(segments)) {
+            int limitEnd = segment.committedEnd();
+            if (!segment.overlaps(fromMs, toMs)) {
+                continue;
+            }
+            boolean more = userIds.isEmpty()
+                    ? segment.scan(fromMs, toMs, limitEnd, visitor)
+                    : scanUsers(segment, fromMs, toMs, limitEnd, userIds, visitor);
+            if (!more) {
+                return;
+            }
+        }
+    }
+
+    public Stats stats() {
+        List<DltArchiveSegment> snapshot = List.copyOf(segments);
+        long records = 0;
+        long oldest = Long.MAX_VALUE;
+        long newest = Long.MIN_VALUE;
+        for (DltArchiveSegment segment : snapshot) {
+            records += segment.records();
+            if (segment.records() > 0) {
+                oldest = Math.min(oldest, segment.minTime());
+                newest = Math.max(newest, segment.maxTime());
+            }
+        }
+        return new Stats(snapshot.size(), sizeBytes(), records,
+                records == 0 ? null : oldest, records == 0 ? null : newest);
+    }
+
+    public record Stats(int segments, long bytes, long records, Long oldestMs, Long newestMs) {}
+
+    @PreDestroy
+    void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        active.force();
+    }
+
+    /** Offsets de cada usuário pelo índice, intercalados na ordem do log. */
+    private static boolean scanUsers(DltArchiveSegment segment, long fromMs, long toMs, int limitEnd,
+                                     Set<String> userIds, Predicate<ArchivedNotification> visitor) {
+        List<int[]> perUser = new ArrayList<>(userIds.size());
+        int total = 0;
+        for (int hash : userIds.stream().mapToInt(DltArchiveSegment::userHash).distinct().toArray()) {
+            int[] offsets = segment.offsetsOf(hash, limitEnd);
+            perUser.add(offsets);
+            total += offsets.length;
+        }
+        int[] offsets = new int[total];
+        int i = 0;
+        for (int[] userOffsets : perUser) {
+            System.arraycopy(userOffsets, 0, offsets, i, userOffsets.length);
+            i += userOffsets.length;
+        }
+        Arrays.sort(offsets);
+
+        for (int offset : offsets) {
+            ArchivedNotification record = segment.read(offset);
+            if (record.archivedAtMs() < fromMs || record.archivedAtMs() > toMs
+                    || record.event().userId() == null || !userIds.contains(record.event().userId())) {
+                continue;
+            }
+            if (!visitor.test(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Long> ids;
+        try (Stream<Path> files = Files.list(dir)) {
+            ids = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".log"))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - 4)))
+                    .sorted()
+                    .toList();
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            boolean last = i == ids.size() - 1;
+            segments.add(DltArchiveSegment.open(dir, ids.get(i), last, segmentBytes));
+        }
+        if (segments.isEmpty()) {
+            segments.add(DltArchiveSegment.create(dir, 0, segmentBytes));
+        }
+        active = segments.get(segments.size() - 1);
+        lastArchivedAtMs = active.records() > 0 ? active.maxTime() : 0;
+
+        Stats stats = stats();
+        Log.infof("Arquivo do DLT aberto — dir=%s segmentos=%d registros=%d bytes=%d",
+                dir.toAbsolutePath(), stats.segments(), stats.records(), stats.bytes());
+    }
+
+    /** Chamado com o lock do arquivo: sela o ativo, abre o próximo e aplica a retenção. */
+    private void roll() throws IOException {
+        DltArchiveSegment full = active;
+        full.seal();
+        DltArchiveSegment next = DltArchiveSegment.create(dir, full.id + 1, segmentBytes);
+        segments.add(next);
+        active = next;
+
+        while (segments.size() > maxSegments) {
+            DltArchiveSegment oldest = segments.remove(0);
+            oldest.delete();
+            Log.infof("Arquivo do DLT — segmento %s apagado pela retenção (%d registros)",
+                    DltArchiveSegment.name(oldest.id), oldest.records());
+        }
+        Log.infof("Arquivo do DLT — segmento %s selado (%d registros), novo segmento %s",
+                DltArchiveSegment.name(full.id), full.records(), DltArchiveSegment.name(next.id));
+    }
+
+    private long sizeBytes() {
+        long bytes = 0;
+        for (DltArchiveSegment segment : segments) {
+            bytes += segment.size();
+        }
+        return bytes;
+    }
+}
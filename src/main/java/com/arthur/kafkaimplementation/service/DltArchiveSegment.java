@@ -0,0 +1,417 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.dto.NotificationEventBinaryCodec;
+import com.arthur.kafkaimplementation.service.DltArchive.ArchivedNotification;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Um segmento do DltArchive: arquivo de log mapeado em memória + índice.
+ *
+ * Log ({id}.log), pré-alocado com a capacidade do segmento:
+ *   int32  tamanho do payload (0 = fim dos dados — o arquivo novo é zerado)
+ *   int32  CRC32C do payload
+ *   int64  archivedAtMs (não decrescente dentro do arquivo)
+ *   int64  notBeforeMs (header retry-not-before)
+ *   int32  attempt (header retry-attempt)
+ *   bytes  payload = NotificationEventBinaryCodec
+ *
+ * O tamanho é escrito por último: um registro cortado no meio por uma queda
+ * fica com tamanho 0 ou CRC errado, e a recuperação para nele.
+ *
+ * Índice:
+ *   tempo   → a cada TIME_INDEX_EVERY registros, (archivedAtMs, offset).
+ *             Como o tempo não decresce, uma busca binária acha onde começar.
+ *   usuário → (hash do userId, offset) de cada registro. No segmento ativo fica
+ *             em dois int[] na ordem de escrita; ao selar, é ordenado por
+ *             (hash, offset) e gravado em {id}.idx — a consulta vira busca
+ *             binária direto no arquivo mapeado, sem nada no heap. Colisão de
+ *             hash é resolvida comparando o userId do registro lido.
+ *
+ * Escrita: só com put absoluto no buffer mapeado, sob o lock do segmento.
+ * Leitura: cada leitor usa o próprio duplicate() e decodifica direto da
+ * memória mapeada, até o "end" publicado (volátil) — nunca vê registro pela metade.
+ */
+final class DltArchiveSegment {
+
+    static final int HEADER = 28;
+
+    private static final int TIME_INDEX_EVERY = 256;
+    private static final int IDX_MAGIC = 0x444C5449; // "DLTI"
+    private static final int IDX_HEADER = 36;
+
+    final long id;
+    private final Path logPath;
+    private final Path idxPath;
+    private final MappedByteBuffer data;
+    private final int capacity;
+
+    private volatile int end;
+    private volatile boolean sealed;
+    private int records;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+
+    private long[] timeKeys = new long[16];
+    private int[] timeOffsets = new int[16];
+    private int timeCount;
+
+    /** Segmento ativo: hash e offset por registro, na ordem de escrita. */
+    private int[] userHashes;
+    private int[] userOffsets;
+    /** Segmento selado: pares (hash, offset) ordenados, mapeados do .idx. */
+    private ByteBuffer userIndex;
+    private int userCount;
+
+    private DltArchiveSegment(long id, Path dir, MappedByteBuffer data, int capacity) {
+        this.id = id;
+        this.logPath = dir.resolve(name(id) + ".log");
+        this.idxPath = dir.resolve(name(id) + ".idx");
+        this.data = data;
+        this.capacity = capacity;
+    }
+
+    /** Cria um segmento novo, vazio, com a capacidade pedida. */
+    static DltArchiveSegment create(Path dir, long id, int capacity) throws IOException {
+        DltArchiveSegment segment = new DltArchiveSegment(id, dir, map(dir.resolve(name(id) + ".log"), capacity), capacity);
+        segment.userHashes = new int[1024];
+        segment.userOffsets = new int[1024];
+        return segment;
+    }
+
+    /**
+     * Abre um segmento existente. Selado com .idx → lê só o índice;
+     * senão (ativo, ou .idx perdido) → varre o log e refaz o índice.
+     */
+    static DltArchiveSegment open(Path dir, long id, boolean active, int capacity) throws IOException {
+        Path log = dir.resolve(name(id) + ".log");
+        int size = active ? Math.max(capacity, (int) Files.size(log)) : (int) Files.size(log);
+        DltArchiveSegment segment = new DltArchiveSegment(id, dir, map(log, size), size);
+        if (!active && Files.exists(segment.idxPath) && segment.loadIndex()) {
+            return segment;
+        }
+        segment.userHashes = new int[1024];
+        segment.userOffsets = new int[1024];
+        segment.recover();
+        if (!active) {
+            segment.seal();
+        }
+        return segment;
+    }
+
+    static String name(long id) {
+        return String.format("%020d", id);
+    }
+
+    /** Chave do índice de usuário. userId nulo (o codec aceita) fica no hash 0. */
+    static int userHash(String userId) {
+        return userId == null ? 0 : userId.hashCode();
+    }
+
+    /**
+     * Acrescenta um registro ao fim do log.
+     *
+     * @return false se não couber — quem chama sela este segmento e abre outro
+     */
+    synchronized boolean append(byte[] payload, int userHash, long archivedAtMs, long notBeforeMs, int attempt) {
+        int at = end;
+        if (sealed || (long) at + HEADER + payload.length > capacity) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        data.putLong(at + 8, archivedAtMs);
+        data.putLong(at + 16, notBeforeMs);
+        data.putInt(at + 24, attempt);
+        data.put(at + HEADER, payload);
+        data.putInt(at + 4, (int) crc.getValue());
+        data.putInt(at, payload.length);
+
+        indexRecord(at, userHash, archivedAtMs);
+        end = at + HEADER + payload.length;
+        return true;
+    }
+
+    /** Força as páginas escritas para o disco (msync). */
+    void force() {
+        if (end > 0) {
+            data.force();
+        }
+    }
+
+    /**
+     * Ordena o índice de usuários, grava {id}.idx e mapeia de volta.
+     * Depois disso o segmento só aceita leitura.
+     */
+    synchronized void seal() throws IOException {
+        if (sealed) {
+            return;
+        }
+        sealed = true;
+        data.force();
+
+        long[] pairs = new long[userCount];
+        for (int i = 0; i < userCount; i++) {
+            pairs[i] = ((long) userHashes[i] << 32) | (userOffsets[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(pairs);
+
+        int size = IDX_HEADER + timeCount * 12 + userCount * 8;
+        ByteBuffer idx = ByteBuffer.allocate(size);
+        idx.putInt(IDX_MAGIC).putInt(end).putInt(records).putLong(minTime).putLong(maxTime)
+                .putInt(timeCount).putInt(userCount);
+        for (int i = 0; i < timeCount; i++) {
+            idx.putLong(timeKeys[i]).putInt(timeOffsets[i]);
+        }
+        for (long pair : pairs) {
+            idx.putLong(pair);
+        }
+        idx.flip();
+
+        Path tmp = idxPath.resolveSibling(idxPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (idx.hasRemaining()) {
+                channel.write(idx);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, idxPath, StandardCopyOption.ATOMIC_MOVE);
+        userIndex = mapIndexEntries();
+        userHashes = null;
+        userOffsets = null;
+    }
+
+    int records() {
+        return records;
+    }
+
+    /** Bytes de dados escritos (o arquivo ocupa a capacidade, mas é esparso). */
+    int size() {
+        return end;
+    }
+
+    long minTime() {
+        return minTime;
+    }
+
+    long maxTime() {
+        return maxTime;
+    }
+
+    boolean overlaps(long fromMs, long toMs) {
+        return records > 0 && minTime <= toMs && maxTime >= fromMs;
+    }
+
+    /** Snapshot do fim publicado — leituras até aqui nunca veem registro incompleto. */
+    int committedEnd() {
+        return end;
+    }
+
+    /**
+     * Lê em ordem os registros com archivedAtMs em [fromMs, toMs], até limitEnd.
+     * O visitante devolve false para parar; scan devolve false se parou.
+     */
+    boolean scan(long fromMs, long toMs, int limitEnd, Predicate<ArchivedNotification> visitor) {
+        ByteBuffer view = data.duplicate();
+        int offset = startOffset(fromMs);
+        while (offset < limitEnd) {
+            int length = view.getInt(offset);
+            if (length <= 0) {
+                break;
+            }
+            long archivedAt = view.getLong(offset + 8);
+            if (archivedAt > toMs) {
+                break;
+            }
+            if (archivedAt >= fromMs && !visitor.test(read(view, offset))) {
+                return false;
+            }
+            offset += HEADER + length;
+        }
+        return true;
+    }
+
+    /** Offsets dos registros cujo userId tem este hash, em ordem de escrita (até limitEnd). */
+    int[] offsetsOf(int userHash, int limitEnd) {
+        int[] found;
+        int count = 0;
+        synchronized (this) {
+            if (userIndex == null) {
+                found = new int[8];
+                for (int i = 0; i < userCount; i++) {
+                    if (userHashes[i] == userHash && userOffsets[i] < limitEnd) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = userOffsets[i];
+                    }
+                }
+                return Arrays.copyOf(found, count);
+            }
+        }
+
+        ByteBuffer index = userIndex.duplicate();
+        int low = 0;
+        int high = userCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.getInt(mid * 8) < userHash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        found = new int[8];
+        for (int i = low; i < userCount && index.getInt(i * 8) == userHash; i++) {
+            if (count == found.length) {
+                found = Arrays.copyOf(found, count * 2);
+            }
+            found[count++] = index.getInt(i * 8 + 4);
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /** Lê o registro que começa em offset, direto da memória mapeada. */
+    ArchivedNotification read(int offset) {
+        return read(data.duplicate(), offset);
+    }
+
+    void delete() throws IOException {
+        // O mapeamento continua válido para quem ainda lê; o disco é liberado quando o GC soltar o buffer
+        Files.deleteIfExists(idxPath);
+        Files.deleteIfExists(logPath);
+    }
+
+    private static ArchivedNotification read(ByteBuffer view, int offset) {
+        int length = view.getInt(offset);
+        long archivedAt = view.getLong(offset + 8);
+        long notBefore = view.getLong(offset + 16);
+        int attempt = view.getInt(offset + 24);
+        view.limit(offset + HEADER + length).position(offset + HEADER);
+        NotificationEvent event = NotificationEventBinaryCodec.decode(view);
+        view.limit(view.capacity());
+        return new ArchivedNotification(event, archivedAt, notBefore, attempt);
+    }
+
+    private int startOffset(long fromMs) {
+        int low = 0;
+        int high;
+        long[] keys;
+        int[] offsets;
+        synchronized (this) {
+            high = timeCount;
+            keys = timeKeys;
+            offsets = timeOffsets;
+        }
+        // Última entrada com tempo < fromMs: os registros entre ela e a próxima podem estar no intervalo
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < fromMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == 0 ? 0 : offsets[low - 1];
+    }
+
+    private void indexRecord(int offset, int userHash, long archivedAtMs) {
+        if (records % TIME_INDEX_EVERY == 0) {
+            if (timeCount == timeKeys.length) {
+                timeKeys = Arrays.copyOf(timeKeys, timeCount * 2);
+                timeOffsets = Arrays.copyOf(timeOffsets, timeCount * 2);
+            }
+            timeKeys[timeCount] = archivedAtMs;
+            timeOffsets[timeCount] = offset;
+            timeCount++;
+        }
+        if (userCount == userHashes.length) {
+            userHashes = Arrays.copyOf(userHashes, userCount * 2);
+            userOffsets = Arrays.copyOf(userOffsets, userCount * 2);
+        }
+        userHashes[userCount] = userHash;
+        userOffsets[userCount] = offset;
+        userCount++;
+        records++;
+        minTime = Math.min(minTime, archivedAtMs);
+        maxTime = Math.max(maxTime, archivedAtMs);
+    }
+
+    /** Varre o log do início e refaz o índice; para no primeiro registro vazio ou corrompido. */
+    private void recover() {
+        ByteBuffer view = data.duplicate();
+        int offset = 0;
+        CRC32C crc = new CRC32C();
+        while (offset + HEADER <= capacity) {
+            int length = view.getInt(offset);
+            if (length <= 0 || (long) offset + HEADER + length > capacity) {
+                break;
+            }
+            crc.reset();
+            crc.update(view.duplicate().limit(offset + HEADER + length).position(offset + HEADER));
+            if ((int) crc.getValue() != view.getInt(offset + 4)) {
+                break;
+            }
+            ArchivedNotification record = read(view, offset);
+            indexRecord(offset, userHash(record.event().userId()), record.archivedAtMs());
+            offset += HEADER + length;
+        }
+        end = offset;
+        // Resto de um registro cortado: zera para a próxima recuperação não tropeçar nele
+        if (offset + 4 <= capacity && view.getInt(offset) != 0) {
+            for (int i = offset; i < Math.min(capacity, offset + HEADER); i++) {
+                data.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private boolean loadIndex() throws IOException {
+        ByteBuffer idx;
+        try (FileChannel channel = FileChannel.open(idxPath, StandardOpenOption.READ)) {
+            idx = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (idx.capacity() < IDX_HEADER || idx.getInt(0) != IDX_MAGIC) {
+            return false;
+        }
+        end = idx.getInt(4);
+        records = idx.getInt(8);
+        minTime = idx.getLong(12);
+        maxTime = idx.getLong(20);
+        timeCount = idx.getInt(28);
+        userCount = idx.getInt(32);
+        timeKeys = new long[Math.max(1, timeCount)];
+        timeOffsets = new int[Math.max(1, timeCount)];
+        for (int i = 0; i < timeCount; i++) {
+            timeKeys[i] = idx.getLong(IDX_HEADER + i * 12);
+            timeOffsets[i] = idx.getInt(IDX_HEADER + i * 12 + 8);
+        }
+        userIndex = idx.slice(IDX_HEADER + timeCount * 12, userCount * 8);
+        sealed = true;
+        return true;
+    }
+
+    private ByteBuffer mapIndexEntries() throws IOException {
+        try (FileChannel channel = FileChannel.open(idxPath, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, IDX_HEADER + timeCount * 12L, userCount * 8L);
+        }
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
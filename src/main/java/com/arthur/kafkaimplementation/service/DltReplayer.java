@@ -0,0 +1,212 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.producer.RetryPublisher;
+import com.arthur.kafkaimplementation.service.DltArchive.ArchivedNotification;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reenvio em massa do DltArchive de volta para notifications[.high].
+ *
+ * Um job por vez: intervalo de archivedAtMs e, opcionalmente, um conjunto de
+ * usuários. Os registros saem do arquivo na ordem em que chegaram ao DLT e são
+ * publicados pelo RetryPublisher na faixa do tipo (PriorityLanes), com
+ * retry-attempt zerado — um reenvio manual começa do zero no caminho de retry.
+ *
+ * Cada notificação sai uma vez por job: uma que caiu de novo depois de um
+ * reenvio anterior aparece mais de uma vez no arquivo, e as repetições (mesmo
+ * evento: usuário, tipo, mensagem e sentAt) são puladas e contadas à parte.
+ *
+ * Ritmo:
+ *   no máximo ratePerSecond publicações por segundo (espaçadas, sem rajada) e
+ *   no máximo app.dlt-archive.replay.max-in-flight sem confirmação do broker.
+ *   Um reenvio de campanha não atropela o tráfego ao vivo nem a janela do producer.
+ *
+ * O job roda numa thread própria ("dlt-replay") e pode ser cancelado; o
+ * progresso fica em ReplayJob, lido pelo endpoint de status.
+ */
+@ApplicationScoped
+public class DltReplayer {
+
+    public enum State { RUNNING, DONE, CANCELLED, FAILED }
+
+    private final DltArchive archive;
+    private final RetryPublisher publisher;
+    private final PriorityLanes lanes;
+    private final PipelineMetrics metrics;
+    private final int maxRatePerSecond;
+    private final int maxInFlight;
+    private final AtomicLong ids = new AtomicLong();
+    private volatile ReplayJob current;
+
+    public DltReplayer(
+            DltArchive archive,
+            RetryPublisher publisher,
+            PriorityLanes lanes,
+            PipelineMetrics metrics,
+            @ConfigProperty(name = "app.dlt-archive.replay.max-rate", defaultValue = "1000") int maxRatePerSecond,
+            @ConfigProperty(name = "app.dlt-archive.replay.max-in-flight", defaultValue = "256") int maxInFlight
+    ) {
+        this.archive = archive;
+        this.publisher = publisher;
+        this.lanes = lanes;
+        this.metrics = metrics;
+        this.maxRatePerSecond = maxRatePerSecond;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Inicia um job. ratePerSecond acima de app.dlt-archive.replay.max-rate é reduzido ao máximo.
+     *
+     * @throws IllegalStateException se já há um job rodando
+     */
+    public synchronized ReplayJob start(long fromMs, long toMs, Set<String> userIds, int ratePerSecond) {
+        if (current != null && current.state == State.RUNNING) {
+            throw new IllegalStateException("Já existe um reenvio em andamento (job " + current.id + ")");
+        }
+        int rate = Math.max(1, Math.min(ratePerSecond, maxRatePerSecond));
+        ReplayJob job = new ReplayJob(ids.incrementAndGet(), fromMs, toMs, Set.copyOf(userIds), rate);
+        current = job;
+        Thread.ofPlatform().daemon().name("dlt-replay").start(() -> run(job));
+        Log.infof("[DLT] Reenvio %d iniciado — de=%d até=%d usuários=%s ritmo=%d/s",
+                job.id, fromMs, toMs, userIds.isEmpty() ? "todos" : userIds, rate);
+        return job;
+    }
+
+    public Optional<ReplayJob> current() {
+        return Optional.ofNullable(current);
+    }
+
+    /** @return true se havia um job rodando */
+    public boolean cancel() {
+        ReplayJob job = current;
+        if (job == null || job.state != State.RUNNING) {
+            return false;
+        }
+        job.cancelled = true;
+        return true;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cancel();
+    }
+
+    private void run(ReplayJob job) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / job.ratePerSecond;
+        long[] nextAt = {System.nanoTime()};
+        Set<NotificationEvent> seen = new HashSet<>();
+
+        try {
+            archive.scan(job.fromMs, job.toMs, job.userIds, record -> {
+                if (job.cancelled) {
+                    return false;
+                }
+                if (!seen.add(record.event())) {
+                    job.duplicates.incrementAndGet();
+                    return true;
+                }
+                long waitNanos = nextAt[0] - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                nextAt[0] = Math.max(nextAt[0], System.nanoTime() - intervalNanos) + intervalNanos;
+
+                inFlight.acquireUninterruptibly();
+                job.matched.incrementAndGet();
+                publish(record, job, inFlight);
+                return true;
+            });
+            // Espera as confirmações pendentes antes de declarar o job encerrado
+            inFlight.acquireUninterruptibly(maxInFlight);
+            job.finish(job.cancelled ? State.CANCELLED : State.DONE);
+        } catch (RuntimeException e) {
+            job.finish(State.FAILED);
+            Log.errorf("[DLT] Reenvio %d falhou: %s", job.id, e.getMessage());
+        }
+        Log.infof("[DLT] Reenvio %d %s — lidas=%d repetidas=%d publicadas=%d falhas=%d",
+                job.id, job.state, job.matched.get(), job.duplicates.get(), job.published.get(), job.failed.get());
+    }
+
+    private void publish(ArchivedNotification record, ReplayJob job, Semaphore inFlight) {
+        String topic = lanes.topicFor(record.event().type());
+        publisher.publish(topic, record.event(), 0, System.currentTimeMillis())
+                .whenComplete((v, e) -> {
+                    if (e == null) {
+                        job.published.incrementAndGet();
+                        metrics.dltReplayed(true);
+                    } else {
+                        job.failed.incrementAndGet();
+                        metrics.dltReplayed(false);
+                    }
+                    // Depois dos contadores: o job só encerra com todos contados
+                    inFlight.release();
+                });
+    }
+
+    /** Progresso de um reenvio; os contadores mudam enquanto o job roda. */
+    public static final class ReplayJob {
+        public final long id;
+        public final long fromMs;
+        public final long toMs;
+        public final Set<String> userIds;
+        public final int ratePerSecond;
+        public final long startedAtMs = System.currentTimeMillis();
+        final AtomicLong matched = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        final AtomicLong published = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        volatile State state = State.RUNNING;
+        volatile boolean cancelled;
+        volatile long finishedAtMs;
+
+        ReplayJob(long id, long fromMs, long toMs, Set<String> userIds, int ratePerSecond) {
+            this.id = id;
+            this.fromMs = fromMs;
+            this.toMs = toMs;
+            this.userIds = userIds;
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        public long matched() {
+            return matched.get();
+        }
+
+        public long duplicates() {
+            return duplicates.get();
+        }
+
+        public long published() {
+            return published.get();
+        }
+
+        public long failed() {
+            return failed.get();
+        }
+
+        public long finishedAtMs() {
+            return finishedAtMs;
+        }
+
+        private void finish(State state) {
+            this.finishedAtMs = System.currentTimeMillis();
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.vertx.mutiny.redis.client.Command;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+
+import java.util.List;
+
+/**
+ * Rate limiter GCRA (Generic Cell Rate Algorithm) — um leaky bucket sem contador.
+ *
+ * Estrutura no Redis:
+ *   Key:   rate_limit:gcra:{userId}
+ *   Type:  String (inteiro → encoding INT, sem SDS)
+ *   Value: TAT — "theoretical arrival time" em epoch millis
+ *
+ * Ideia:
+ *   Cada notificação "custa" emission = janela / limite ms. O TAT avança esse
+ *   custo a cada admissão. A notificação é aceita se o novo TAT não passar de
+ *   (agora + janela), ou seja, se cabe na tolerância de rajada de "limite" notificações.
+ *
+ * Diferença para o sliding log:
+ *   A cota volta de forma contínua (1 vaga a cada emission ms) em vez de liberar
+ *   tudo quando a entrada mais antiga sai da janela. Memória fixa por usuário,
+ *   independente do limite.
+ */
+public class GcraRateLimiter extends ScriptedRateLimiter {
+
+    private static final String KEY_SUFFIX = "gcra:";
+
+    /**
+     * KEYS[1] = rate_limit:gcra:{userId}
+     * ARGV    = agoraMs, emissionMs, janelaMs
+     * Retorno = {permitido (0|1), restantes, resetAtMs}
+     */
+    private static final String SCRIPT = """
+            local key = KEYS[1]
+            local now = tonumber(ARGV[1])
+            local emission = tonumber(ARGV[2])
+            local period = tonumber(ARGV[3])
+
+            local tat = now
+            local stored = redis.call('GET', key)
+            if stored then
+              tat = math.max(tonumber(stored), now)
+            end
+
+            local newTat = tat + emission
+            local allowAt = newTat - period
+            if allowAt > now then
+              return {0, 0, math.ceil(allowAt)}
+            end
+
+            newTat = math.ceil(newTat)
+            redis.call('SET', key, newTat, 'PX', newTat - now)
+            return {1, math.floor((now - allowAt) / emission), newTat}
+            """;
+
+    private final String keyPrefix;
+    private final int limit;
+    private final long windowMs;
+    private final double emissionMs;
+
+    public GcraRateLimiter(ReactiveRedisDataSource redis, int limit, long windowMs) {
+        this(redis, NAMESPACE, limit, windowMs);
+    }
+
+    /** @param namespace início das chaves (NAMESPACE, ou o de um orçamento por tipo) */
+    GcraRateLimiter(ReactiveRedisDataSource redis, String namespace, int limit, long windowMs) {
+        super(redis, SCRIPT);
+        this.keyPrefix = namespace + KEY_SUFFIX;
+        this.limit = limit;
+        this.windowMs = windowMs;
+        this.emissionMs = (double) windowMs / limit;
+    }
+
+    @Override
+    protected RedisScript.Call call(String userId, long nowMs, String recordKey) {
+        return new RedisScript.Call(
+                List.of(keyPrefix + userId),
+                List.of(Long.toString(nowMs),
+                        Double.toString(emissionMs),
+                        Long.toString(windowMs)));
+    }
+
+    @Override
+    protected List<Request> statusRequests(String userId, long nowMs) {
+        return List.of(Request.cmd(Command.GET).arg(keyPrefix + userId));
+    }
+
+    @Override
+    protected RateLimitStatus status(List<Response> replies, long nowMs) {
+        Response stored = replies.get(0);
+        return LocalGcra.status(stored == null ? nowMs : stored.toLong(), nowMs, limit, windowMs, emissionMs);
+    }
+}
@@ -0,0 +1,226 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate limiter no Redis protegido pelo RedisCircuitBreaker, com fallback em memória.
+ *
+ * Circuito fechado: cada chamada vai ao Redis, com espera limitada a
+ * app.rate-limit.breaker.call-timeout-ms (antes: sem limite). Falha ou timeout
+ * responde do fallback na mesma chamada — o consumer nunca recebe a exceção.
+ *
+ * Circuito aberto (modo degradado):
+ *   A decisão sai de um LocalGcra em memória, com o mesmo limite e janela.
+ *   É aproximada: começa sem o histórico do Redis (um usuário pode receber até
+ *   um limite a mais) e só enxerga o tráfego desta instância. Como o userId é a
+ *   chave do Kafka, cada usuário cai num único consumer — na prática o erro
+ *   fica no histórico perdido. No máximo fallback-max-users usuários ficam na
+ *   memória; acima disso, o usuário novo passa sem contagem.
+ *
+ * Reconciliação:
+ *   Cada notificação admitida no modo degradado fica devendo ao Redis. Quando
+ *   o circuito fecha, as dívidas vão em pipelines de até RECONCILE_CHUNK checks
+ *   (limitadas a um limite por usuário) e o fallback é descartado. O Redis
+ *   volta a saber quem gastou a cota durante a falha.
+ *
+ *   Um check que estourou o timeout pode ainda ter executado no Redis: a
+ *   notificação então conta duas vezes. O erro é para o lado de bloquear.
+ */
+final class GuardedRateLimiter implements RateLimiter {
+
+    private static final int RECONCILE_CHUNK = 500;
+    private static final Duration RECONCILE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ScriptedRateLimiter redis;
+    private final RedisCircuitBreaker breaker;
+    private final PipelineMetrics metrics;
+    private final LocalGcra fallback;
+    private final int limit;
+    private final ConcurrentHashMap<String, AtomicInteger> owed = new ConcurrentHashMap<>();
+
+    GuardedRateLimiter(ScriptedRateLimiter redis, RedisCircuitBreaker breaker, PipelineMetrics metrics,
+                       int limit, long windowMs) {
+        this.redis = redis;
+        this.breaker = breaker;
+        this.metrics = metrics;
+        this.limit = limit;
+        this.fallback = new LocalGcra(limit, windowMs);
+        breaker.onClose(this::reconcile);
+    }
+
+    /** A chave do registro vai ao Redis; o fallback em memória não guarda entradas e a ignora. */
+    @Override
+    public RateLimitDecision check(RateLimitRequest request) {
+        long permit = breaker.tryAcquire();
+        if (permit == RedisCircuitBreaker.DENIED) {
+            return degraded(request.userId());
+        }
+        long startNanos = System.nanoTime();
+        try {
+            RateLimitDecision decision = redis.checkAsync(request).await().atMost(breaker.callTimeout());
+            breaker.onSuccess(permit, System.nanoTime() - startNanos);
+            return decision;
+        } catch (RuntimeException e) {
+            failed(permit, e);
+            return degraded(request.userId());
+        }
+    }
+
+    /**
+     * O timeout dispara num timer do Mutiny: a decisão de fallback chega nessa thread.
+     *
+     * A permissão só é pedida na inscrição: um Uni montado e nunca inscrito não
+     * segura nada. Cancelado no meio (rebalance, shutdown), devolve a permissão
+     * como falha — se era a prova do HALF_OPEN, o circuito reabre e outra prova
+     * sai depois de open-ms, em vez de ficar meio-aberto para sempre.
+     */
+    @Override
+    public Uni<RateLimitDecision> checkAsync(RateLimitRequest request) {
+        return Uni.createFrom().deferred(() -> {
+            long permit = breaker.tryAcquire();
+            if (permit == RedisCircuitBreaker.DENIED) {
+                return Uni.createFrom().item(() -> degraded(request.userId()));
+            }
+            long startNanos = System.nanoTime();
+            return redis.checkAsync(request)
+                    .ifNoItem().after(breaker.callTimeout()).fail()
+                    .invoke(() -> breaker.onSuccess(permit, System.nanoTime() - startNanos))
+                    .onFailure().recoverWithItem(e -> {
+                        failed(permit, e);
+                        return degraded(request.userId());
+                    })
+                    .onCancellation().invoke(() -> breaker.onFailure(permit));
+        });
+    }
+
+    /** O lote inteiro vai ao Redis ou ao fallback — um pipeline conta como uma chamada no breaker. */
+    @Override
+    public List<RateLimitDecision> checkAll(List<RateLimitRequest> requests) {
+        long permit = breaker.tryAcquire();
+        if (permit != RedisCircuitBreaker.DENIED) {
+            long startNanos = System.nanoTime();
+            try {
+                List<RateLimitDecision> decisions = redis.checkAllAsync(requests)
+                        .await().atMost(breaker.callTimeout());
+                breaker.onSuccess(permit, System.nanoTime() - startNanos);
+                return decisions;
+            } catch (RuntimeException e) {
+                failed(permit, e);
+            }
+        }
+        List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+        for (RateLimitRequest request : requests) {
+            decisions.add(degraded(request.userId()));
+        }
+        return decisions;
+    }
+
+    @Override
+    public long getCount(String userId) {
+        long permit = breaker.tryAcquire();
+        if (permit != RedisCircuitBreaker.DENIED) {
+            long startNanos = System.nanoTime();
+            try {
+                long count = redis.countAsync(userId).await().atMost(breaker.callTimeout());
+                breaker.onSuccess(permit, System.nanoTime() - startNanos);
+                return count;
+            } catch (RuntimeException e) {
+                failed(permit, e);
+            }
+        }
+        return Math.max(0, fallback.count(userId, System.currentTimeMillis()));
+    }
+
+    /** Circuito aberto: o que o fallback sabe; usuário fora da memória aparece com a cota cheia. */
+    @Override
+    public List<RateLimitStatus> statusAll(List<String> userIds) {
+        long permit = breaker.tryAcquire();
+        if (permit != RedisCircuitBreaker.DENIED) {
+            long startNanos = System.nanoTime();
+            try {
+                List<RateLimitStatus> statuses = redis.statusAllAsync(userIds).await().atMost(breaker.callTimeout());
+                breaker.onSuccess(permit, System.nanoTime() - startNanos);
+                return statuses;
+            } catch (RuntimeException e) {
+                failed(permit, e);
+            }
+        }
+        long nowMs = System.currentTimeMillis();
+        List<RateLimitStatus> statuses = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            RateLimitStatus status = fallback.status(userId, nowMs);
+            statuses.add(status != null ? status : new RateLimitStatus(0, limit, nowMs));
+        }
+        return statuses;
+    }
+
+    private void failed(long permit, Throwable e) {
+        breaker.onFailure(permit);
+        Log.debugf("Rate limit no Redis falhou — usando memória: %s", e.toString());
+    }
+
+    private RateLimitDecision degraded(String userId) {
+        long nowMs = System.currentTimeMillis();
+        if (fallback.size() >= breaker.fallbackMaxUsers() && fallback.count(userId, nowMs) < 0) {
+            fallback.evictExpired(nowMs);
+            if (fallback.size() >= breaker.fallbackMaxUsers()) {
+                metrics.rateLimitDegraded(true);
+                return new RateLimitDecision(true, 0, nowMs);
+            }
+        }
+        RateLimitDecision decision = fallback.check(userId, nowMs);
+        if (decision.allowed()) {
+            owed.computeIfAbsent(userId, k -> new AtomicInteger()).incrementAndGet();
+        }
+        metrics.rateLimitDegraded(decision.allowed());
+        return decision;
+    }
+
+    /** Roda na thread "rate-limit-reconcile", depois que o circuito fechou. */
+    private void reconcile() {
+        List<RateLimitRequest> requests = new ArrayList<>();
+        for (Iterator<Map.Entry<String, AtomicInteger>> it = owed.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, AtomicInteger> entry = it.next();
+            it.remove();
+            int count = Math.min(entry.getValue().get(), limit);
+            for (int i = 0; i < count; i++) {
+                requests.add(RateLimitRequest.of(entry.getKey()));
+            }
+        }
+        fallback.clear();
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        int sent = 0;
+        try {
+            while (sent < requests.size()) {
+                List<RateLimitRequest> chunk = requests.subList(sent, Math.min(sent + RECONCILE_CHUNK, requests.size()));
+                redis.checkAllAsync(chunk).await().atMost(RECONCILE_TIMEOUT);
+                sent += chunk.size();
+            }
+            metrics.rateLimitReconciled("ok", sent);
+            Log.infof("Reconciliação do rate limit — %d notificações do modo degradado gravadas no Redis", sent);
+        } catch (RuntimeException e) {
+            // O circuito provavelmente já reabriu; o resto volta a dever para a próxima vez
+            for (RateLimitRequest request : requests.subList(sent, requests.size())) {
+                owed.computeIfAbsent(request.userId(), k -> new AtomicInteger()).incrementAndGet();
+            }
+            if (sent > 0) {
+                metrics.rateLimitReconciled("ok", sent);
+            }
+            metrics.rateLimitReconciled("failed", requests.size() - sent);
+            Log.warnf("Reconciliação do rate limit interrompida — %d de %d gravadas: %s",
+                    sent, requests.size(), e.getMessage());
+        }
+    }
+}
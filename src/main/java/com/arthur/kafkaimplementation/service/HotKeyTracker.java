@@ -0,0 +1,303 @@
+package com.arthur.kafkaimplementation.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Usuários quentes e desbalanceamento entre partições, vistos pelo consumer.
+ *
+ * Problema:
+ *   A chave Kafka é o userId. Poucos usuários muito ativos prendem uma partição
+ *   (e o consumer dono dela) enquanto as outras ficam ociosas — e nada no Redis
+ *   ou no provedor mostra isso.
+ *
+ * Por partição, numa janela deslizante de app.hot-keys.window-seconds:
+ *   - Count-Min sketch (depth × width contadores): estimativa de mensagens por
+ *     userId, nunca abaixo do real; o erro cresce com o total da janela / width
+ *   - top-K: os K userIds com maior estimativa (app.hot-keys.top-k)
+ *   - total de mensagens → mensagens/s da partição
+ *
+ *   skew = mensagens/s da partição mais carregada ÷ média das partições desta instância
+ *   (1.0 = equilibrado; com 3 partições, 3.0 = tudo numa só)
+ *
+ * Janela deslizante com duas gerações de meia janela cada: a leitura soma as duas,
+ * e a geração mais antiga é descartada a cada meia janela — o erro de borda é de
+ * no máximo meia janela, sem guardar nada por mensagem.
+ *
+ * Memória fixa, independente da quantidade de usuários:
+ *   partições × 2 gerações × depth × width longs + K entradas
+ *   (padrão: 4 × 2048 × 8 B × 2 = 128 KB por partição)
+ *
+ * As partições vêm do rebalance (RateLimitRebalanceListener): uma partição
+ * atribuída e sem mensagens entra na média com 0/s — é exatamente o caso que
+ * interessa ver.
+ */
+@ApplicationScoped
+public class HotKeyTracker {
+
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final long halfWindowMs;
+    private final int topK;
+    private final int width;
+    private final int depth;
+    private final ConcurrentHashMap<Integer, PartitionSketch> partitions = new ConcurrentHashMap<>();
+
+    public HotKeyTracker(
+            PipelineMetrics metrics,
+            @ConfigProperty(name = "app.hot-keys.enabled", defaultValue = "true") boolean enabled,
+            @ConfigProperty(name = "app.hot-keys.window-seconds", defaultValue = "60") int windowSeconds,
+            @ConfigProperty(name = "app.hot-keys.top-k", defaultValue = "10") int topK,
+            @ConfigProperty(name = "app.hot-keys.sketch-width", defaultValue = "2048") int width,
+            @ConfigProperty(name = "app.hot-keys.sketch-depth", defaultValue = "4") int depth
+    ) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.halfWindowMs = windowSeconds * 1000L / 2;
+        this.topK = topK;
+        this.width = width;
+        this.depth = depth;
+    }
+
+    /** O gauge lê skewRatio deste objeto: registrado só com ele já construído. */
+    @PostConstruct
+    void registerGauges() {
+        if (enabled) {
+            metrics.trackPartitionSkew(this::skewRatio);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getWindowSeconds() {
+        return (int) (halfWindowMs * 2 / 1000);
+    }
+
+    /** Uma mensagem consumida da partição. Chamado na thread do consumer. */
+    public void record(int partition, String userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        sketch(partition).record(userId, System.currentTimeMillis());
+    }
+
+    public void onPartitionsAssigned(Collection<Integer> assigned) {
+        if (enabled) {
+            assigned.forEach(this::sketch);
+        }
+    }
+
+    /** Partição saiu desta instância: os números dela passam a ser de outro consumer. */
+    public void onPartitionsRevoked(Collection<Integer> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    /** Estado de todas as partições desta instância, ordenadas. */
+    public List<PartitionStats> snapshot() {
+        long nowMs = System.currentTimeMillis();
+        List<PartitionStats> stats = new ArrayList<>();
+        for (Map.Entry<Integer, PartitionSketch> entry : partitions.entrySet()) {
+            stats.add(entry.getValue().stats(entry.getKey(), nowMs));
+        }
+        stats.sort(Comparator.comparingInt(PartitionStats::partition));
+        return stats;
+    }
+
+    /** Partição mais carregada ÷ média; 1.0 sem carga ou com uma partição só. */
+    public double skewRatio() {
+        return skewRatio(snapshot());
+    }
+
+    public static double skewRatio(List<PartitionStats> stats) {
+        double max = 0;
+        double sum = 0;
+        for (PartitionStats partition : stats) {
+            max = Math.max(max, partition.ratePerSecond());
+            sum += partition.ratePerSecond();
+        }
+        return sum > 0 ? max / (sum / stats.size()) : 1.0;
+    }
+
+    private PartitionSketch sketch(int partition) {
+        PartitionSketch sketch = partitions.get(partition);
+        if (sketch == null) {
+            sketch = partitions.computeIfAbsent(partition, p -> {
+                PartitionSketch created = new PartitionSketch(System.currentTimeMillis());
+                metrics.trackPartition(p, () -> rate(p), () -> hottestKeyShare(p));
+                return created;
+            });
+        }
+        return sketch;
+    }
+
+    private double rate(int partition) {
+        PartitionSketch sketch = partitions.get(partition);
+        return sketch != null ? sketch.stats(partition, System.currentTimeMillis()).ratePerSecond() : 0;
+    }
+
+    private double hottestKeyShare(int partition) {
+        PartitionSketch sketch = partitions.get(partition);
+        if (sketch == null) {
+            return 0;
+        }
+        List<HotKey> keys = sketch.stats(partition, System.currentTimeMillis()).hotKeys();
+        return keys.isEmpty() ? 0 : keys.get(0).share();
+    }
+
+    /**
+     * @param ratePerSecond mensagens/s na janela
+     * @param messages      mensagens na janela
+     * @param hotKeys       top-K, da mais quente para a menos quente
+     */
+    public record PartitionStats(int partition, double ratePerSecond, long messages, List<HotKey> hotKeys) {}
+
+    /** @param share fração das mensagens da partição na janela (estimativa, pode passar um pouco do real) */
+    public record HotKey(String userId, long estimate, double share) {}
+
+    /**
+     * Sketch + top-K de uma partição. Um consumer por partição na maior parte dos
+     * modos, então o lock quase nunca é disputado; o endpoint e os gauges também
+     * passam por ele.
+     */
+    private final class PartitionSketch {
+
+        private long[][] current = new long[depth][width];
+        private long[][] previous = new long[depth][width];
+        private long currentTotal;
+        private long previousTotal;
+        private long currentStartMs;
+        private boolean hasPrevious;
+        private final Map<String, Long> candidates = new HashMap<>();
+
+        PartitionSketch(long nowMs) {
+            this.currentStartMs = nowMs;
+        }
+
+        synchronized void record(String userId, long nowMs) {
+            rotateIfNeeded(nowMs);
+
+            int h1 = userId.hashCode();
+            int h2 = mix(h1);
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                int column = index(h1, h2, row);
+                long count = ++current[row][column] + previous[row][column];
+                estimate = Math.min(estimate, count);
+            }
+            currentTotal++;
+
+            offer(userId, estimate);
+        }
+
+        synchronized PartitionStats stats(int partition, long nowMs) {
+            rotateIfNeeded(nowMs);
+
+            long messages = currentTotal + previousTotal;
+            // Mínimo de 1 s: logo após a atribuição, poucas mensagens não viram uma taxa absurda
+            long spanMs = Math.max(1000, (nowMs - currentStartMs) + (hasPrevious ? halfWindowMs : 0));
+            double rate = messages * 1000.0 / spanMs;
+
+            List<HotKey> hotKeys = new ArrayList<>(candidates.size());
+            for (String userId : candidates.keySet()) {
+                long estimate = estimate(userId);
+                hotKeys.add(new HotKey(userId, estimate, messages > 0 ? Math.min(1.0, (double) estimate / messages) : 0));
+            }
+            hotKeys.sort(Comparator.comparingLong(HotKey::estimate).reversed());
+            return new PartitionStats(partition, rate, messages, hotKeys);
+        }
+
+        /** Entra no top-K se couber ou se superar o menor candidato. */
+        private void offer(String userId, long estimate) {
+            if (candidates.containsKey(userId) || candidates.size() < topK) {
+                candidates.put(userId, estimate);
+                return;
+            }
+
+            String weakest = null;
+            long weakestEstimate = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+                if (candidate.getValue() < weakestEstimate) {
+                    weakest = candidate.getKey();
+                    weakestEstimate = candidate.getValue();
+                }
+            }
+            if (estimate > weakestEstimate) {
+                candidates.remove(weakest);
+                candidates.put(userId, estimate);
+            }
+        }
+
+        /** Descarta a geração antiga a cada meia janela; ociosa por uma janela inteira → zera tudo. */
+        private void rotateIfNeeded(long nowMs) {
+            long elapsed = nowMs - currentStartMs;
+            if (elapsed < halfWindowMs) {
+                return;
+            }
+
+            if (elapsed >= 2 * halfWindowMs) {
+                clear(current);
+                clear(previous);
+                currentTotal = 0;
+                previousTotal = 0;
+                hasPrevious = false;
+                currentStartMs = nowMs;
+            } else {
+                long[][] recycled = previous;
+                clear(recycled);
+                previous = current;
+                current = recycled;
+                previousTotal = currentTotal;
+                currentTotal = 0;
+                hasPrevious = true;
+                currentStartMs += halfWindowMs;
+            }
+
+            // Candidatos cuja contagem saiu da janela liberam a vaga
+            candidates.replaceAll((userId, old) -> estimate(userId));
+            candidates.values().removeIf(estimate -> estimate == 0);
+        }
+
+        private long estimate(String userId) {
+            int h1 = userId.hashCode();
+            int h2 = mix(h1);
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                int column = index(h1, h2, row);
+                estimate = Math.min(estimate, current[row][column] + previous[row][column]);
+            }
+            return estimate;
+        }
+
+        /** Linha i usa h1 + i·h2 (Kirsch–Mitzenmacher): depth hashes a partir de dois. */
+        private int index(int h1, int h2, int row) {
+            return Math.floorMod(h1 + row * h2, width);
+        }
+
+        private static int mix(int h) {
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h | 1;
+        }
+
+        private static void clear(long[][] counters) {
+            for (long[] row : counters) {
+                Arrays.fill(row, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.service.PriorityLanes.Lane;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.function.Predicate;
+
+/**
+ * Ordem entre as faixas de prioridade na fila de cada provedor.
+ *
+ * Tópicos separados tiram o PEDIDO da fila do Kafka atrás das promoções, mas as
+ * duas faixas ainda disputam o provedor. Quem limita as chamadas simultâneas é
+ * o bulkhead do DeliveryDispatcher (app.delivery.bulkhead.max-concurrent); aqui
+ * só se decide de qual faixa sai o próximo lote quando uma vaga do provedor abre.
+ *
+ * Round robin ponderado suave (o do nginx) entre as faixas com fila:
+ *   cada faixa soma o seu peso ao crédito; a de maior crédito leva a vaga e
+ *   paga a soma dos pesos.
+ *   Com high-weight=4 e low-weight=1, sob disputa: H H L H H | H H L H H ...
+ *   — a LOW nunca fica mais de 4 vagas sem receber uma (sem starvation),
+ *   e a HIGH não espera o esvaziamento da LOW.
+ *
+ * Cada provedor tem a sua Rotation: a disputa é pela vaga daquele provedor.
+ */
+@ApplicationScoped
+public class LaneScheduler {
+
+    private final int[] weights = new int[Lane.values().length];
+
+    public LaneScheduler(
+            @ConfigProperty(name = "app.priority.high-weight", defaultValue = "4") int highWeight,
+            @ConfigProperty(name = "app.priority.low-weight", defaultValue = "1") int lowWeight
+    ) {
+        if (highWeight < 1 || lowWeight < 1) {
+            throw new IllegalArgumentException("app.priority: pesos precisam ser >= 1");
+        }
+        this.weights[Lane.HIGH.ordinal()] = highWeight;
+        this.weights[Lane.LOW.ordinal()] = lowWeight;
+    }
+
+    /** Estado do round robin de uma fila; sem lock próprio — usado sob o lock de quem a tem. */
+    public Rotation rotation() {
+        return new Rotation();
+    }
+
+    public final class Rotation {
+
+        private final int[] credits = new int[Lane.values().length];
+
+        private Rotation() {
+        }
+
+        /** @return a faixa da vez entre as que têm fila, ou null se nenhuma tem */
+        public Lane next(Predicate<Lane> waiting) {
+            Lane[] lanes = Lane.values();
+            int total = 0;
+            int chosen = -1;
+            for (int i = 0; i < lanes.length; i++) {
+                if (!waiting.test(lanes[i])) {
+                    // Faixa vazia não acumula crédito para quando voltar
+                    credits[i] = 0;
+                    continue;
+                }
+                credits[i] += weights[i];
+                total += weights[i];
+                if (chosen < 0 || credits[i] > credits[chosen]) {
+                    chosen = i;
+                }
+            }
+            if (chosen < 0) {
+                return null;
+            }
+            credits[chosen] -= total;
+            return lanes[chosen];
+        }
+    }
+}
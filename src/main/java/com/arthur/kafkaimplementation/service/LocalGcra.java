@@ -0,0 +1,80 @@
+package com.arthur.kafkaimplementation.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contagem GCRA em memória: userId → TAT em epoch millis, mesma conta do
+ * script do GcraRateLimiter. Um Long por usuário ativo.
+ *
+ * Usada pelo PartitionLocalRateLimiter (estado do dono da partição) e pelo
+ * GuardedRateLimiter (limite aproximado enquanto o Redis está fora).
+ */
+final class LocalGcra {
+
+    final ConcurrentHashMap<String, Long> tats = new ConcurrentHashMap<>();
+
+    private final int limit;
+    private final long windowMs;
+    private final double emissionMs;
+
+    LocalGcra(int limit, long windowMs) {
+        this.limit = limit;
+        this.windowMs = windowMs;
+        this.emissionMs = (double) windowMs / limit;
+    }
+
+    /** Verifica e registra, atômico por usuário via compute. */
+    RateLimitDecision check(String userId, long nowMs) {
+        RateLimitDecision[] decision = new RateLimitDecision[1];
+        tats.compute(userId, (k, stored) -> {
+            double tat = stored == null ? nowMs : Math.max(stored, nowMs);
+            double newTat = tat + emissionMs;
+            double allowAt = newTat - windowMs;
+            if (allowAt > nowMs) {
+                decision[0] = new RateLimitDecision(false, 0, (long) Math.ceil(allowAt));
+                return stored;
+            }
+            long next = (long) Math.ceil(newTat);
+            decision[0] = new RateLimitDecision(true, (long) Math.floor((nowMs - allowAt) / emissionMs), next);
+            return next;
+        });
+        return decision[0];
+    }
+
+    /** @return contagem estimada, ou -1 se o usuário não está na memória */
+    long count(String userId, long nowMs) {
+        RateLimitStatus status = status(userId, nowMs);
+        return status == null ? -1 : status.count();
+    }
+
+    /** @return situação da cota, ou null se o usuário não está na memória */
+    RateLimitStatus status(String userId, long nowMs) {
+        Long tat = tats.get(userId);
+        return tat == null ? null : status(tat, nowMs, limit, windowMs, emissionMs);
+    }
+
+    /**
+     * Cota a partir do TAT, sem registrar nada: cada emissão entre agora e o TAT
+     * é uma notificação ainda na conta. Também usada pelo GcraRateLimiter sobre o
+     * TAT lido do Redis.
+     */
+    static RateLimitStatus status(long tat, long nowMs, int limit, long windowMs, double emissionMs) {
+        long backlogMs = tat - nowMs;
+        long count = backlogMs <= 0 ? 0 : Math.min(limit, (long) Math.ceil(backlogMs / emissionMs));
+        long resetAtMs = count < limit ? Math.max(tat, nowMs) : (long) Math.ceil(tat + emissionMs - windowMs);
+        return new RateLimitStatus(count, limit - count, resetAtMs);
+    }
+
+    int size() {
+        return tats.size();
+    }
+
+    /** Descarta usuários com TAT no passado — já estão com a cota cheia. */
+    void evictExpired(long nowMs) {
+        tats.values().removeIf(tat -> tat <= nowMs);
+    }
+
+    void clear() {
+        tats.clear();
+    }
+}
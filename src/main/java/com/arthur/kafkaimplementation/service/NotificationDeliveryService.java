@@ -0,0 +1,143 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.mutiny.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Entrega de notificações ao provedor externo (push, SMS, email).
+ *
+ * Compartilhado pelos modos de consumo (single, batch, parallel e reactive),
+ * para que a entrega em si não dependa de como o Kafka foi lido.
+ *
+ * O envio em si é do DeliveryDispatcher: canal pelo tipo, lote por canal,
+ * bulkhead, timeout e hedge por provedor (NotificationSender). O bulkhead é o
+ * limite de concorrência; na fila dele, PEDIDO passa na frente de PROMOCAO por
+ * peso (LaneScheduler). Pôr na fila não bloqueia. Entrega que
+ * falha não trava o consumer: vai para o DLT com retry-not-before daqui a
+ * app.delivery.failure-retry-ms, e a tentativa conta para app.retry.max-attempts.
+ * Vai marcada com retry-charged: a cota do rate limit já foi gasta, e a
+ * republicação é entregue sem passar pelo rate limit de novo.
+ */
+@ApplicationScoped
+public class NotificationDeliveryService {
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    PipelineMetrics metrics;
+
+    @Inject
+    DeliveryDispatcher dispatcher;
+
+    @Inject
+    DeadLetterProducer deadLetterProducer;
+
+    @ConfigProperty(name = "app.delivery.failure-retry-ms", defaultValue = "10000")
+    long failureRetryMs;
+
+    /** Entrega fora do fluxo do Kafka (ex: resumo do DigestCoalescer) — primeira tentativa. */
+    public void deliver(NotificationEvent event) {
+        deliver(event, 0);
+    }
+
+    /**
+     * Entrega e espera o provedor confirmar. Bloqueia a thread que chama
+     * (worker ou virtual thread), nunca o event loop.
+     *
+     * @param attempt header retry-attempt da mensagem, preservado se a entrega falhar
+     */
+    public void deliver(NotificationEvent event, int attempt) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<Void> sent = dispatch(event);
+        try {
+            sent.join();
+            delivered(event, startNanos);
+        } catch (CompletionException e) {
+            failed(event, attempt, e.getCause());
+        }
+    }
+
+    /**
+     * Entrega um lote de uma vez: todas entram na fila do provedor antes da
+     * primeira espera (dispatch não bloqueia), então o DeliveryDispatcher pode
+     * juntá-las em poucas chamadas. O que não cabe na fila do provedor
+     * (bulkhead.max-queue) falha na hora e vai para o DLT.
+     *
+     * @param attempts header retry-attempt de cada posição do lote
+     */
+    public void deliverAll(List<NotificationEvent> events, int[] attempts) {
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<Void>> sent = new ArrayList<>(events.size());
+        for (NotificationEvent event : events) {
+            sent.add(dispatch(event));
+        }
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                sent.get(i).join();
+                delivered(events.get(i), startNanos);
+            } catch (CompletionException e) {
+                failed(events.get(i), attempts[i], e.getCause());
+            }
+        }
+    }
+
+    /** Versão não bloqueante de deliver(event) — primeira tentativa. */
+    public Uni<Void> deliverAsync(NotificationEvent event) {
+        return deliverAsync(event, 0);
+    }
+
+    /**
+     * Versão não bloqueante de deliver: nenhuma thread fica parada esperando o provedor.
+     *
+     * A resposta do provedor chega em outra thread; a continuação volta para o
+     * contexto (event loop) de quem chamou.
+     */
+    public Uni<Void> deliverAsync(NotificationEvent event, int attempt) {
+        Context context = vertx.getDelegate().getOrCreateContext();
+        return Uni.createFrom().deferred(() -> {
+            long startNanos = System.nanoTime();
+            return Uni.createFrom().completionStage(() -> dispatch(event))
+                    .emitOn(task -> context.runOnContext(v -> task.run()))
+                    .invoke(() -> delivered(event, startNanos))
+                    .onFailure().recoverWithUni(e ->
+                            Uni.createFrom().completionStage(() -> failed(event, attempt, e)));
+        });
+    }
+
+    /** Põe na fila do provedor sem esperar; completa quando o provedor responder. */
+    private CompletableFuture<Void> dispatch(NotificationEvent event) {
+        Log.infof("ENVIANDO notificacao — userId=%s type=%s mensagem=\"%s\" sentAt=%s",
+                event.userId(), event.type(), event.message(), event.sentAt());
+        try {
+            return dispatcher.dispatch(event);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void delivered(NotificationEvent event, long startNanos) {
+        metrics.delivered(event, startNanos);
+        Log.infof("Notificacao ENTREGUE — userId=%s", event.userId());
+    }
+
+    private CompletionStage<Void> failed(NotificationEvent event, int attempt, Throwable error) {
+        Log.errorf("Falha na entrega — enviando para DLT — userId=%s type=%s tentativa=%d error=%s",
+                event.userId(), event.type(), attempt, error.getMessage());
+        metrics.deliveryFailed(event.type());
+        return deadLetterProducer.send(event, System.currentTimeMillis() + failureRetryMs, attempt, true);
+    }
+}
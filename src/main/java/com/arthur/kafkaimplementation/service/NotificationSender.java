@@ -0,0 +1,54 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * SPI de um provedor de entrega (Firebase, Twilio, SES...).
+ *
+ * Cada implementação é um bean CDI; o DeliveryDispatcher descobre todas e
+ * monta, por provedor, um bulkhead e as filas dos canais que ele atende.
+ * Um canal (push, sms, email) só pode ter um provedor.
+ *
+ * Contrato:
+ *   - send NÃO bloqueia: devolve o CompletionStage e completa quando o
+ *     provedor responder (é chamado de threads de callback de outras chamadas)
+ *   - o lote vem na ordem das notificações e a resposta volta na mesma ordem,
+ *     um SendResult por destinatário
+ *   - falha da chamada inteira (rede, 5xx) → CompletionStage com exceção
+ */
+public interface NotificationSender {
+
+    /** Nome do provedor — tag das métricas notifications.sender.*. */
+    String name();
+
+    /** Canais atendidos. Vazio = provedor desligado. */
+    Set<String> channels();
+
+    /** Maior lote que o provedor aceita numa chamada (multi-destinatário). */
+    int maxBatchSize();
+
+    /**
+     * Se o provedor descarta envios repetidos (chave de idempotência), o
+     * dispatcher pode mandar uma cópia da chamada lenta (hedge) sem risco de
+     * o usuário receber duas vezes.
+     */
+    default boolean supportsHedging() {
+        return false;
+    }
+
+    CompletionStage<List<SendResult>> send(String channel, List<NotificationEvent> batch);
+
+    /** @param error motivo da recusa do destinatário (null se entregue) */
+    record SendResult(boolean delivered, String error) {
+
+        public static final SendResult DELIVERED = new SendResult(true, null);
+
+        public static SendResult failed(String error) {
+            return new SendResult(false, error);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.redis.datasource.hash.ReactiveHashCommands;
+import io.quarkus.redis.datasource.keys.ReactiveKeyCommands;
+import io.smallrye.mutiny.Uni;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Estado do rate limit em memória, por partição do tópico de notificações.
+ *
+ * Por que dá para tirar o Redis do caminho de cada mensagem?
+ *   O producer usa userId como chave: todas as notificações de um usuário caem
+ *   na mesma partição, e cada partição tem um único dono no consumer group.
+ *   Quem é dono da partição é o único que conta aquele usuário — a contagem
+ *   pode ficar na memória dele.
+ *
+ * Estrutura:
+ *   partição → LocalGcra (userId → TAT em epoch millis), mesma conta do GcraRateLimiter.
+ *   Um Long por usuário ativo; usuários com TAT no passado são descartados.
+ *   Só GCRA: o RateLimiterService exige app.rate-limit.algorithm=gcra neste modo,
+ *   para que a memória e o Redis (partições de outro dono) contem do mesmo jeito.
+ *
+ * Snapshot no Redis (write-behind):
+ *   Key:   rate_limit:p:{tópico}:{partição}
+ *   Type:  Hash (field = userId, value = TAT)
+ *   A cada app.rate-limit.local.flush-ms, os usuários alterados vão em um HSET
+ *   e os expirados em um HDEL. O snapshot é o que permite trocar de dono.
+ *
+ * Rebalance:
+ *   Partição atribuída → HGETALL do snapshot antes do primeiro registro
+ *   Partição revogada  → flush síncrono do que mudou e descarte da memória
+ *   Partição perdida   → só descarte (o novo dono pode já ter carregado o snapshot)
+ *
+ * O que se perde numa queda?
+ *   No máximo flush-ms de contagem: o próximo dono carrega um snapshot um pouco
+ *   atrasado e pode deixar passar algumas notificações a mais nesse intervalo.
+ */
+final class PartitionLocalRateLimiter implements AutoCloseable {
+
+    private static final String KEY_PREFIX = "rate_limit:p:";
+    private static final Duration REDIS_TIMEOUT = Duration.ofSeconds(5);
+
+    private final SnapshotStore snapshots;
+    private final LongSupplier clock;
+    private final String topic;
+    private final int limit;
+    private final long windowMs;
+    private final ConcurrentHashMap<Integer, PartitionState> partitions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    PartitionLocalRateLimiter(ReactiveRedisDataSource redis, String topic, int limit, long windowMs, long flushMs) {
+        this(new RedisSnapshotStore(redis), topic, limit, windowMs, flushMs, System::currentTimeMillis);
+    }
+
+    PartitionLocalRateLimiter(SnapshotStore snapshots, String topic, int limit, long windowMs, long flushMs,
+                              LongSupplier clock) {
+        this.snapshots = snapshots;
+        this.clock = clock;
+        this.topic = topic;
+        this.limit = limit;
+        this.windowMs = windowMs;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                r -> Thread.ofPlatform().daemon().name("rate-limit-flush").unstarted(r));
+        this.flusher.scheduleWithFixedDelay(this::flushAll, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Verifica e registra a notificação na memória da partição.
+     *
+     * @return a decisão, ou null se esta instância não é dona da partição
+     *         (ex: mensagem ainda em voo depois de uma revogação)
+     */
+    RateLimitDecision check(String userId, int partition) {
+        PartitionState state = partitions.get(partition);
+        return state == null ? null : state.check(userId, clock.getAsLong());
+    }
+
+    /** @return contagem estimada, ou -1 se o usuário não está em nenhuma partição desta instância */
+    long getCount(String userId) {
+        RateLimitStatus status = status(userId);
+        return status == null ? -1 : status.count();
+    }
+
+    /** @return situação da cota, ou null se o usuário não está em nenhuma partição desta instância */
+    RateLimitStatus status(String userId) {
+        long nowMs = clock.getAsLong();
+        for (PartitionState state : partitions.values()) {
+            RateLimitStatus status = state.gcra.status(userId, nowMs);
+            if (status != null) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    void assign(Collection<Integer> assigned) {
+        for (int partition : assigned) {
+            partitions.computeIfAbsent(partition, this::load);
+        }
+        Log.infof("Rate limit local — partições atribuídas=%s em memória=%s", assigned, partitions.keySet());
+    }
+
+    void revoke(Collection<Integer> revoked) {
+        for (int partition : revoked) {
+            PartitionState state = partitions.remove(partition);
+            if (state != null) {
+                flush(state, clock.getAsLong());
+            }
+        }
+        Log.infof("Rate limit local — partições revogadas=%s em memória=%s", revoked, partitions.keySet());
+    }
+
+    void lose(Collection<Integer> lost) {
+        for (int partition : lost) {
+            partitions.remove(partition);
+        }
+        Log.warnf("Rate limit local — partições perdidas=%s (sem flush)", lost);
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flushAll();
+    }
+
+    private PartitionState load(int partition) {
+        long nowMs = clock.getAsLong();
+        Map<String, Long> snapshot;
+        try {
+            snapshot = snapshots.load(key(partition));
+        } catch (RuntimeException e) {
+            // Sem snapshot a partição começa vazia: erra para o lado de deixar passar
+            Log.errorf("Falha ao carregar snapshot da partição %d — começando vazia: %s", partition, e.getMessage());
+            snapshot = Map.of();
+        }
+
+        PartitionState state = new PartitionState(partition);
+        snapshot.forEach((userId, tat) -> {
+            if (tat > nowMs) {
+                state.gcra.tats.put(userId, tat);
+            }
+        });
+        Log.infof("Snapshot carregado — partição=%d usuários=%d", partition, state.gcra.size());
+        return state;
+    }
+
+    private void flushAll() {
+        long nowMs = clock.getAsLong();
+        for (PartitionState state : partitions.values()) {
+            flush(state, nowMs);
+        }
+    }
+
+    private void flush(PartitionState state, long nowMs) {
+        Map<String, Long> changed = new HashMap<>();
+        for (Iterator<String> it = state.dirty.iterator(); it.hasNext(); ) {
+            String userId = it.next();
+            it.remove();
+            Long tat = state.gcra.tats.get(userId);
+            if (tat != null && tat > nowMs) {
+                changed.put(userId, tat);
+            }
+        }
+
+        List<String> expired = new ArrayList<>();
+        state.gcra.tats.forEach((userId, tat) -> {
+            if (tat <= nowMs && state.gcra.tats.remove(userId, tat)) {
+                expired.add(userId);
+            }
+        });
+
+        if (changed.isEmpty() && expired.isEmpty()) {
+            return;
+        }
+
+        try {
+            // O snapshot de uma partição abandonada some sozinho depois de uma janela
+            snapshots.save(key(state.partition), changed, expired, windowMs + 5000);
+        } catch (RuntimeException e) {
+            // Marca de novo: o próximo flush tenta outra vez
+            state.dirty.addAll(changed.keySet());
+            Log.warnf("Falha no flush da partição %d (%d usuários) — nova tentativa no próximo ciclo: %s",
+                    state.partition, changed.size(), e.getMessage());
+        }
+    }
+
+    private String key(int partition) {
+        return KEY_PREFIX + topic + ":" + partition;
+    }
+
+    /** Onde fica o snapshot de cada partição: um Hash userId → TAT. */
+    interface SnapshotStore {
+
+        Map<String, Long> load(String key);
+
+        /** Grava os TATs alterados, remove os expirados e renova o TTL da chave. */
+        void save(String key, Map<String, Long> changed, List<String> expired, long ttlMs);
+    }
+
+    private static final class RedisSnapshotStore implements SnapshotStore {
+
+        private final ReactiveHashCommands<String, String, Long> hashes;
+        private final ReactiveKeyCommands<String> keys;
+
+        RedisSnapshotStore(ReactiveRedisDataSource redis) {
+            this.hashes = redis.hash(Long.class);
+            this.keys = redis.key();
+        }
+
+        @Override
+        public Map<String, Long> load(String key) {
+            return hashes.hgetall(key).await().atMost(REDIS_TIMEOUT);
+        }
+
+        @Override
+        public void save(String key, Map<String, Long> changed, List<String> expired, long ttlMs) {
+            Uni<Void> write = Uni.createFrom().voidItem();
+            if (!changed.isEmpty()) {
+                write = write.chain(() -> hashes.hset(key, changed)).replaceWithVoid();
+            }
+            if (!expired.isEmpty()) {
+                write = write.chain(() -> hashes.hdel(key, expired.toArray(String[]::new))).replaceWithVoid();
+            }
+            write.chain(() -> keys.pexpire(key, ttlMs)).replaceWithVoid().await().atMost(REDIS_TIMEOUT);
+        }
+    }
+
+    private final class PartitionState {
+        final int partition;
+        final LocalGcra gcra = new LocalGcra(limit, windowMs);
+        final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+        PartitionState(int partition) {
+            this.partition = partition;
+        }
+
+        RateLimitDecision check(String userId, long nowMs) {
+            RateLimitDecision decision = gcra.check(userId, nowMs);
+            if (decision.allowed()) {
+                dirty.add(userId);
+            }
+            return decision;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas do pipeline inteiro, expostas em /q/metrics (Prometheus).
+ *
+ *   notifications.publish            Timer    envio → ack do broker (outcome=ok|error)
+ *   notifications.publish.rejected   Counter  recusadas antes do Kafka (reason=window|admission)
+ *   notifications.rate_limit.check   Timer    check do rate limiter (mode=single|async|batch)
+ *   notifications.rate_limit.decision Counter permitidas/bloqueadas (type, allowed)
+ *   notifications.rate_limit.breaker.state      Gauge   circuito do Redis (0=fechado, 1=meio-aberto, 2=aberto)
+ *   notifications.rate_limit.breaker.transition Counter mudanças de estado (state=CLOSED|HALF_OPEN|OPEN)
+ *   notifications.rate_limit.degraded           Counter decisões do fallback em memória (allowed)
+ *   notifications.rate_limit.reconciled         Counter admitidas no modo degradado gravadas no Redis (outcome=ok|failed)
+ *   notifications.rate_limit.status             Counter usuários consultados pelo status (source=cache|redis)
+ *   notifications.delivery           Timer    chamada ao provedor (type)
+ *   notifications.end_to_end         Timer    sentAt → entregue (type)
+ *   notifications.dlt                Counter  enviadas ao DLT (type)
+ *   notifications.retry              Counter  decisões do retry (route=republish|bucket|parking)
+ *   notifications.digest             Counter  notificações por destino no DigestCoalescer
+ *                                            (outcome=absorbed|emitted|overflow|evicted|expired|revoked|shutdown|failed)
+ *   notifications.partition.rate     Gauge    mensagens/s consumidas na janela (partition)
+ *   notifications.partition.hottest_key_share Gauge fatia do usuário mais quente (partition)
+ *   notifications.partition.skew     Gauge    partição mais carregada ÷ média (HotKeyTracker)
+ *   notifications.lane.wait          Timer    espera por vaga de entrega (lane=high|low)
+ *   notifications.lane.waiting       Gauge    entregas na fila dos provedores (lane)
+ *   notifications.delivery.failed    Counter  entregas que falharam e voltaram ao DLT (type)
+ *   notifications.sender.call        Timer    chamada lógica ao provedor (provider, outcome=ok|error|timeout)
+ *   notifications.sender.batch_size  Summary  notificações por chamada (provider)
+ *   notifications.sender.hedged      Counter  cópias de chamada (provider, reason=slow|failed)
+ *   notifications.sender.rejected    Counter  recusadas com o bulkhead cheio (provider)
+ *   notifications.sender.queue       Gauge    notificações na fila do bulkhead (provider)
+ *   notifications.dlt_archive.appended Counter registros do DLT gravados no arquivo local (outcome=ok|failed)
+ *   notifications.dlt_archive.bytes    Gauge   bytes de dados nos segmentos do arquivo
+ *   notifications.dlt_archive.segments Gauge   segmentos no disco
+ *   notifications.dlt_archive.replayed Counter notificações reenviadas do arquivo (outcome=ok|failed)
+ *
+ * Lag por partição vem do binder Kafka do Micrometer:
+ *   kafka_consumer_fetch_manager_records_lag{topic, partition}
+ *
+ * Histogramas:
+ *   Cada Timer publica p50/p99/p999 calculados na instância (HdrHistogram, o que
+ *   o Micrometer usa por baixo) e um histograma de buckets fixos entre os limites
+ *   esperados — este último é o que permite histogram_quantile somando instâncias.
+ *   Gravar é um incremento num array pré-alocado: sem alocação por mensagem.
+ *
+ * Os meters são criados uma vez e guardados aqui — o caminho quente não faz
+ * lookup no registry. O tag "type" vem do cliente: valores fora dos tipos
+ * conhecidos viram OUTRO, para a cardinalidade não crescer sem limite.
+ */
+@ApplicationScoped
+public class PipelineMetrics {
+
+    private static final Set<String> KNOWN_TYPES = Set.of("PROMOCAO", "PEDIDO", "ESTOQUE");
+    private static final String OTHER_TYPE = "OUTRO";
+
+    private final MeterRegistry registry;
+
+    private final Timer publishOk;
+    private final Timer publishError;
+    private final Counter rejectedWindow;
+    private final Counter rejectedAdmission;
+    private final Map<String, Timer> rateLimitChecks = new ConcurrentHashMap<>();
+    private final Map<String, Counter> allowedDecisions = new ConcurrentHashMap<>();
+    private final Map<String, Counter> deniedDecisions = new ConcurrentHashMap<>();
+    private final Map<String, Counter> breakerTransitions = new ConcurrentHashMap<>();
+    private final Map<Boolean, Counter> degradedDecisions = new ConcurrentHashMap<>();
+    private final Map<String, Counter> reconciled = new ConcurrentHashMap<>();
+    private final Map<String, Counter> statusReads = new ConcurrentHashMap<>();
+    private final Map<String, Timer> deliveries = new ConcurrentHashMap<>();
+    private final Map<String, Timer> endToEnd = new ConcurrentHashMap<>();
+    private final Map<String, Counter> deadLetters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> retries = new ConcurrentHashMap<>();
+    private final Map<String, Counter> digests = new ConcurrentHashMap<>();
+    private final Map<String, Timer> laneWaits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> deliveryFailures = new ConcurrentHashMap<>();
+    private final Map<String, Timer> senderCalls = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> senderBatches = new ConcurrentHashMap<>();
+    private final Map<String, Counter> senderHedges = new ConcurrentHashMap<>();
+    private final Map<String, Counter> senderRejections = new ConcurrentHashMap<>();
+    private final Map<Boolean, Counter> archived = new ConcurrentHashMap<>();
+    private final Map<Boolean, Counter> replayed = new ConcurrentHashMap<>();
+    private final Set<Integer> trackedPartitions = ConcurrentHashMap.newKeySet();
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.publishOk = timer("notifications.publish", "Envio ao Kafka até o ack do broker",
+                Duration.ofMillis(1), Duration.ofSeconds(10), "outcome", "ok");
+        this.publishError = timer("notifications.publish", "Envio ao Kafka até o ack do broker",
+                Duration.ofMillis(1), Duration.ofSeconds(10), "outcome", "error");
+        this.rejectedWindow = Counter.builder("notifications.publish.rejected")
+                .description("Notificações recusadas antes de chegar ao Kafka")
+                .tag("reason", "window")
+                .register(registry);
+        this.rejectedAdmission = Counter.builder("notifications.publish.rejected")
+                .description("Notificações recusadas antes de chegar ao Kafka")
+                .tag("reason", "admission")
+                .register(registry);
+    }
+
+    public void publishSucceeded(long startNanos) {
+        publishOk.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void publishFailed(long startNanos) {
+        publishError.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void publishRejectedByWindow() {
+        rejectedWindow.increment();
+    }
+
+    public void publishRejectedByAdmission() {
+        rejectedAdmission.increment();
+    }
+
+    /** @param mode single | async | batch — um lote conta como um único check */
+    public void rateLimitChecked(String mode, long startNanos) {
+        rateLimitChecks.computeIfAbsent(mode, m -> timer("notifications.rate_limit.check",
+                        "Verificação do rate limiter", Duration.ofNanos(100), Duration.ofSeconds(1), "mode", m))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rateLimitDecided(String type, boolean allowed) {
+        (allowed ? allowedDecisions : deniedDecisions)
+                .computeIfAbsent(typeTag(type), t -> Counter.builder("notifications.rate_limit.decision")
+                        .description("Decisões do rate limiter por tipo")
+                        .tag("type", t)
+                        .tag("allowed", Boolean.toString(allowed))
+                        .register(registry))
+                .increment();
+    }
+
+    /** Gauge lido do RedisCircuitBreaker a cada scrape. */
+    public void trackBreakerState(Supplier<Number> state) {
+        Gauge.builder("notifications.rate_limit.breaker.state", state)
+                .description("Circuito do Redis do rate limiter: 0=fechado, 1=meio-aberto, 2=aberto")
+                .register(registry);
+    }
+
+    /** @param state CLOSED | HALF_OPEN | OPEN — o estado novo */
+    public void breakerTransitioned(String state) {
+        breakerTransitions.computeIfAbsent(state, st -> Counter.builder("notifications.rate_limit.breaker.transition")
+                        .description("Mudanças de estado do circuito do Redis")
+                        .tag("state", st)
+                        .register(registry))
+                .increment();
+    }
+
+    /** Decisão tomada em memória porque o Redis estava fora ou lento. */
+    public void rateLimitDegraded(boolean allowed) {
+        degradedDecisions.computeIfAbsent(allowed, a -> Counter.builder("notifications.rate_limit.degraded")
+                        .description("Decisões do rate limit em memória com o circuito do Redis aberto")
+                        .tag("allowed", Boolean.toString(a))
+                        .register(registry))
+                .increment();
+    }
+
+    /** @param outcome ok | failed — notificações do modo degradado devolvidas ao Redis */
+    public void rateLimitReconciled(String outcome, int notifications) {
+        reconciled.computeIfAbsent(outcome, o -> Counter.builder("notifications.rate_limit.reconciled")
+                        .description("Notificações admitidas no modo degradado gravadas no Redis")
+                        .tag("outcome", o)
+                        .register(registry))
+                .increment(notifications);
+    }
+
+    /** @param source cache | redis — de onde saiu o status de cada usuário consultado */
+    public void rateLimitStatusRead(String source, int users) {
+        statusReads.computeIfAbsent(source, src -> Counter.builder("notifications.rate_limit.status")
+                        .description("Usuários consultados pelo status do rate limit")
+                        .tag("source", src)
+                        .register(registry))
+                .increment(users);
+    }
+
+    /** Chamada ao provedor + latência ponta a ponta desde o sentAt do evento. */
+    public void delivered(NotificationEvent event, long startNanos) {
+        String tag = typeTag(event.type());
+        deliveries.computeIfAbsent(tag, t -> timer("notifications.delivery", "Chamada ao provedor",
+                        Duration.ofMillis(1), Duration.ofSeconds(30), "type", t))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        if (event.sentAt() != null) {
+            long e2eMs = System.currentTimeMillis() - event.sentAt().toEpochMilli();
+            endToEnd.computeIfAbsent(tag, t -> timer("notifications.end_to_end", "Do sentAt até a entrega",
+                            Duration.ofMillis(1), Duration.ofMinutes(30), "type", t))
+                    .record(Math.max(0, e2eMs), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void deadLettered(String type) {
+        String tag = typeTag(type);
+        deadLetters.computeIfAbsent(tag, t -> Counter.builder("notifications.dlt")
+                        .description("Notificações enviadas ao DLT")
+                        .tag("type", t)
+                        .register(registry))
+                .increment();
+    }
+
+    /** @param route republish | bucket | parking */
+    public void retryRouted(String route) {
+        retries.computeIfAbsent(route, r -> Counter.builder("notifications.retry")
+                        .description("Destino das notificações no caminho de retry")
+                        .tag("route", r)
+                        .register(registry))
+                .increment();
+    }
+
+    /** @param notifications quantas notificações seguiram esse destino (um resumo emitido conta todas as dele) */
+    public void digestOutcome(String outcome, int notifications) {
+        digests.computeIfAbsent(outcome, o -> Counter.builder("notifications.digest")
+                        .description("Notificações bloqueadas tratadas pelo DigestCoalescer")
+                        .tag("outcome", o)
+                        .register(registry))
+                .increment(notifications);
+    }
+
+    /** Gauges lidos do HotKeyTracker a cada scrape; registrados uma vez por partição. */
+    public void trackPartition(int partition, Supplier<Number> rate, Supplier<Number> hottestKeyShare) {
+        if (!trackedPartitions.add(partition)) {
+            return;
+        }
+        String tag = Integer.toString(partition);
+        Gauge.builder("notifications.partition.rate", rate)
+                .description("Mensagens/s consumidas da partição na janela")
+                .tag("partition", tag)
+                .register(registry);
+        Gauge.builder("notifications.partition.hottest_key_share", hottestKeyShare)
+                .description("Fração das mensagens da partição vindas do usuário mais quente")
+                .tag("partition", tag)
+                .register(registry);
+    }
+
+    public void trackPartitionSkew(Supplier<Number> skew) {
+        Gauge.builder("notifications.partition.skew", skew)
+                .description("Mensagens/s da partição mais carregada ÷ média das partições")
+                .register(registry);
+    }
+
+    /** @param lane high | low — tempo na fila do provedor até o lote sair numa chamada */
+    public void laneWaited(String lane, long startNanos) {
+        laneWaits.computeIfAbsent(lane, l -> timer("notifications.lane.wait", "Espera por vaga de entrega",
+                        Duration.ofNanos(100), Duration.ofSeconds(30), "lane", l))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void trackLaneWaiting(String lane, Supplier<Number> waiting) {
+        Gauge.builder("notifications.lane.waiting", waiting)
+                .description("Entregas na fila dos provedores, esperando vaga no bulkhead")
+                .tag("lane", lane)
+                .register(registry);
+    }
+
+    public void deliveryFailed(String type) {
+        deliveryFailures.computeIfAbsent(typeTag(type), t -> Counter.builder("notifications.delivery.failed")
+                        .description("Entregas que falharam e foram para o DLT")
+                        .tag("type", t)
+                        .register(registry))
+                .increment();
+    }
+
+    /** @param outcome ok | error | timeout — a chamada lógica, incluindo hedge e retry */
+    public void senderCalled(String provider, String outcome, long startNanos) {
+        senderCalls.computeIfAbsent(provider + ":" + outcome, k -> Timer.builder("notifications.sender.call")
+                        .description("Chamada ao provedor de entrega")
+                        .tag("provider", provider)
+                        .tag("outcome", outcome)
+                        .publishPercentiles(0.5, 0.99, 0.999)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void senderBatch(String provider, int size) {
+        senderBatches.computeIfAbsent(provider, p -> DistributionSummary.builder("notifications.sender.batch_size")
+                        .description("Notificações por chamada ao provedor")
+                        .tag("provider", p)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(registry))
+                .record(size);
+    }
+
+    /** @param reason slow (hedge por lentidão) | failed (retry após falha) */
+    public void senderHedged(String provider, String reason) {
+        senderHedges.computeIfAbsent(provider + ":" + reason, k -> Counter.builder("notifications.sender.hedged")
+                        .description("Cópias de chamadas ao provedor")
+                        .tag("provider", provider)
+                        .tag("reason", reason)
+                        .register(registry))
+                .increment();
+    }
+
+    public void senderRejected(String provider) {
+        senderRejections.computeIfAbsent(provider, p -> Counter.builder("notifications.sender.rejected")
+                        .description("Notificações recusadas com o bulkhead do provedor cheio")
+                        .tag("provider", p)
+                        .register(registry))
+                .increment();
+    }
+
+    public void trackSenderQueue(String provider, Supplier<Number> queued) {
+        Gauge.builder("notifications.sender.queue", queued)
+                .description("Notificações na fila do bulkhead do provedor")
+                .tag("provider", provider)
+                .register(registry);
+    }
+
+    public void dltArchived(boolean ok) {
+        archived.computeIfAbsent(ok, o -> Counter.builder("notifications.dlt_archive.appended")
+                        .description("Registros do DLT gravados no arquivo local")
+                        .tag("outcome", o ? "ok" : "failed")
+                        .register(registry))
+                .increment();
+    }
+
+    /** Gauges lidos do DltArchive a cada scrape. */
+    public void trackDltArchive(Supplier<Number> bytes, Supplier<Number> segments) {
+        Gauge.builder("notifications.dlt_archive.bytes", bytes)
+                .description("Bytes de dados nos segmentos do arquivo do DLT")
+                .register(registry);
+        Gauge.builder("notifications.dlt_archive.segments", segments)
+                .description("Segmentos do arquivo do DLT no disco")
+                .register(registry);
+    }
+
+    public void dltReplayed(boolean ok) {
+        replayed.computeIfAbsent(ok, o -> Counter.builder("notifications.dlt_archive.replayed")
+                        .description("Notificações reenviadas do arquivo do DLT")
+                        .tag("outcome", o ? "ok" : "failed")
+                        .register(registry))
+                .increment();
+    }
+
+    private Timer timer(String name, String description, Duration min, Duration max, String tagKey, String tagValue) {
+        return Timer.builder(name)
+                .description(description)
+                .tag(tagKey, tagValue)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(min)
+                .maximumExpectedValue(max)
+                .register(registry);
+    }
+
+    private static String typeTag(String type) {
+        return type != null && KNOWN_TYPES.contains(type) ? type : OTHER_TYPE;
+    }
+}
@@ -0,0 +1,81 @@
+package com.arthur.kafkaimplementation.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Set;
+
+/**
+ * Faixas de prioridade: qual tópico (e qual fila de entrega) cada tipo de notificação usa.
+ *
+ * Problema:
+ *   PEDIDO (transacional) e PROMOCAO (em massa) dividiam o tópico "notifications"
+ *   e a mesma fila do consumer. Numa campanha, a confirmação de um pedido espera
+ *   atrás de milhares de promoções na mesma partição — o p99 transacional segue
+ *   a carga promocional.
+ *
+ * Com app.priority.enabled=true:
+ *   tipos de app.priority.high-types → HIGH → app.kafka.topic.notifications-high
+ *   demais tipos                     → LOW  → app.kafka.topic.notifications
+ *
+ *   Cada faixa tem seu tópico, seu canal no consumer e seu lag: uma campanha
+ *   enche a fila LOW e não a HIGH. No fim do caminho, a fila de cada provedor
+ *   no DeliveryDispatcher também é por faixa, e o LaneScheduler reparte por peso
+ *   as vagas do bulkhead.
+ *
+ * Estado por partição (partition-local, HotKeyTracker, DigestCoalescer) é só da
+ * faixa LOW: os números de partição do tópico HIGH são outros. Mensagens HIGH
+ * passam NO_PARTITION ao rate limiter e vão sempre ao estado no Redis.
+ */
+@ApplicationScoped
+public class PriorityLanes {
+
+    /** Partição "nenhuma": o rate limiter não acha dono local e usa o Redis. */
+    public static final int NO_PARTITION = -1;
+
+    public enum Lane {
+        HIGH, LOW;
+
+        public String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final boolean enabled;
+    private final Set<String> highTypes;
+    private final String lowTopic;
+    private final String highTopic;
+
+    public PriorityLanes(
+            @ConfigProperty(name = "app.priority.enabled", defaultValue = "true") boolean enabled,
+            @ConfigProperty(name = "app.priority.high-types", defaultValue = "PEDIDO") Set<String> highTypes,
+            @ConfigProperty(name = "app.kafka.topic.notifications", defaultValue = "notifications") String lowTopic,
+            @ConfigProperty(name = "app.kafka.topic.notifications-high", defaultValue = "notifications.high") String highTopic
+    ) {
+        this.enabled = enabled;
+        this.highTypes = highTypes;
+        this.lowTopic = lowTopic;
+        this.highTopic = highTopic;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Lane laneOf(String type) {
+        return enabled && type != null && highTypes.contains(type) ? Lane.HIGH : Lane.LOW;
+    }
+
+    /** Tópico de entrada da faixa do tipo — usado pelo producer e pela republicação do retry. */
+    public String topicFor(String type) {
+        return topicOf(laneOf(type));
+    }
+
+    public String topicOf(Lane lane) {
+        return lane == Lane.HIGH ? highTopic : lowTopic;
+    }
+
+    public String getHighTopic() {
+        return highTopic;
+    }
+}
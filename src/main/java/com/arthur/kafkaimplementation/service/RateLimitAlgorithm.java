@@ -0,0 +1,31 @@
+package com.arthur.kafkaimplementation.service;
+
+/**
+ * Algoritmos de rate limit suportados, selecionados por app.rate-limit.algorithm.
+ */
+public enum RateLimitAlgorithm {
+
+    SLIDING_LOG("sliding-log"),
+    GCRA("gcra"),
+    TOKEN_BUCKET("token-bucket");
+
+    private final String configValue;
+
+    RateLimitAlgorithm(String configValue) {
+        this.configValue = configValue;
+    }
+
+    public String configValue() {
+        return configValue;
+    }
+
+    public static RateLimitAlgorithm from(String value) {
+        for (RateLimitAlgorithm algorithm : values()) {
+            if (algorithm.configValue.equalsIgnoreCase(value)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("app.rate-limit.algorithm inválido: " + value
+                + " (use sliding-log, gcra ou token-bucket)");
+    }
+}
@@ -0,0 +1,16 @@
+package com.arthur.kafkaimplementation.service;
+
+/**
+ * Resultado de uma verificação de rate limit.
+ *
+ * allowed   → true se a notificação pode ser processada
+ * remaining → quantas notificações ainda cabem na janela atual (após esta)
+ * resetAtMs → epoch millis de referência para a janela:
+ *               bloqueado → quando a próxima vaga abre (útil para agendar retry ou Retry-After)
+ *               permitido → quando a cota estará completamente restaurada
+ */
+public record RateLimitDecision(
+        boolean allowed,
+        long remaining,
+        long resetAtMs
+) {}
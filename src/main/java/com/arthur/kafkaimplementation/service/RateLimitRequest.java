@@ -0,0 +1,28 @@
+package com.arthur.kafkaimplementation.service;
+
+/**
+ * Uma notificação a verificar no rate limiter.
+ *
+ * userId    → dono da cota (obrigatório)
+ * type      → tipo da notificação; os de app.rate-limit.type-budgets contam em
+ *             separado, os demais (e null) no limite padrão
+ * partition → partição de origem, para o modo partition-local responder da
+ *             memória do dono; PriorityLanes.NO_PARTITION vai sempre ao Redis
+ * recordKey → identidade do registro Kafka (RecordKey.of): no sliding-log a
+ *             reentrega do mesmo registro não conta de novo; null = sem registro
+ *
+ * Cada implementação lê só o que usa — os algoritmos no Redis, por exemplo,
+ * só userId e recordKey; tipo e partição já foram resolvidos pelo RateLimiterService.
+ */
+public record RateLimitRequest(
+        String userId,
+        String type,
+        int partition,
+        String recordKey
+) {
+
+    /** Só o usuário: limite padrão, estado no Redis, sem registro de origem. */
+    public static RateLimitRequest of(String userId) {
+        return new RateLimitRequest(userId, null, PriorityLanes.NO_PARTITION, null);
+    }
+}
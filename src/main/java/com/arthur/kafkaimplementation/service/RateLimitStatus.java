@@ -0,0 +1,16 @@
+package com.arthur.kafkaimplementation.service;
+
+/**
+ * Situação da cota de um usuário, lida sem registrar nada.
+ *
+ * count     → notificações que já consumiram a cota na janela atual
+ * remaining → quantas ainda cabem agora
+ * resetAtMs → mesma referência de RateLimitDecision:
+ *               sem vaga    → quando a próxima vaga abre
+ *               com vaga    → quando a cota estará completamente restaurada
+ */
+public record RateLimitStatus(
+        long count,
+        long remaining,
+        long resetAtMs
+) {}
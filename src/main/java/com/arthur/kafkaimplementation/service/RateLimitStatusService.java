@@ -0,0 +1,127 @@
+package com.arthur.kafkaimplementation.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Consulta da cota de vários usuários para painéis — só leitura e com cache curto.
+ *
+ * Problema:
+ *   Os painéis de suporte consultam milhares de usuários a cada poucos segundos.
+ *   O getCount antigo do sliding log fazia ZREMRANGEBYSCORE + ZCARD por usuário:
+ *   uma escrita e um round trip por linha do painel, nas mesmas chaves que o
+ *   consumer atualiza a cada mensagem.
+ *
+ * Agora:
+ *   statusOf(userIds) → RateLimiter.statusAll → um pipeline de comandos de leitura
+ *   para o lote inteiro (ZCOUNT na janela, GET no GCRA e no token bucket).
+ *
+ * Cache:
+ *   Cada status fica app.rate-limit.status.cache-ms (padrão 500 ms) em memória.
+ *   Vários painéis olhando o mesmo usuário, ou o mesmo painel em polling, leem
+ *   daqui: o Redis vê no máximo uma leitura por usuário a cada cache-ms.
+ *   O status pode estar atrasado em até cache-ms — aceitável para exibição;
+ *   a decisão de verdade continua sendo o check do consumer.
+ *
+ * Estado limitado:
+ *   No máximo app.rate-limit.status.max-cached-users usuários em cache. Acima
+ *   disso, os vencidos são descartados; se ainda estiver cheio, tudo (o custo é
+ *   reler o Redis). cache-ms=0 desliga o cache.
+ */
+@ApplicationScoped
+public class RateLimitStatusService {
+
+    private final RateLimiter rateLimiter;
+    private final PipelineMetrics metrics;
+    private final long cacheMs;
+    private final int maxUsers;
+    private final int maxCachedUsers;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+
+    @Inject
+    public RateLimitStatusService(
+            RateLimiterService rateLimiter,
+            PipelineMetrics metrics,
+            @ConfigProperty(name = "app.rate-limit.status.cache-ms", defaultValue = "500") long cacheMs,
+            @ConfigProperty(name = "app.rate-limit.status.max-users", defaultValue = "1000") int maxUsers,
+            @ConfigProperty(name = "app.rate-limit.status.max-cached-users", defaultValue = "100000") int maxCachedUsers
+    ) {
+        this(rateLimiter, metrics, cacheMs, maxUsers, maxCachedUsers, System::currentTimeMillis);
+    }
+
+    RateLimitStatusService(RateLimiter rateLimiter, PipelineMetrics metrics, long cacheMs, int maxUsers,
+                           int maxCachedUsers, LongSupplier clock) {
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+        this.cacheMs = cacheMs;
+        this.maxUsers = maxUsers;
+        this.maxCachedUsers = maxCachedUsers;
+        this.clock = clock;
+    }
+
+    /** Quantos usuários distintos uma consulta aceita (o controller recusa acima disso). */
+    public int getMaxUsers() {
+        return maxUsers;
+    }
+
+    /**
+     * Status de cada usuário distinto, na ordem da primeira ocorrência.
+     * Os que não estão em cache (ou venceram) vão juntos em um único statusAll.
+     */
+    public Map<String, RateLimitStatus> statusOf(Collection<String> userIds) {
+        long nowMs = clock.getAsLong();
+        Map<String, RateLimitStatus> statuses = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String userId : userIds) {
+            if (statuses.containsKey(userId)) {
+                continue;
+            }
+            Cached cached = cache.get(userId);
+            if (cached != null && nowMs - cached.fetchedAtMs < cacheMs) {
+                statuses.put(userId, cached.status);
+            } else {
+                statuses.put(userId, null);
+                misses.add(userId);
+            }
+        }
+        metrics.rateLimitStatusRead("cache", statuses.size() - misses.size());
+        if (misses.isEmpty()) {
+            return statuses;
+        }
+
+        List<RateLimitStatus> fresh = rateLimiter.statusAll(misses);
+        metrics.rateLimitStatusRead("redis", misses.size());
+        if (cacheMs > 0) {
+            evictIfFull(nowMs, misses.size());
+        }
+        for (int i = 0; i < misses.size(); i++) {
+            statuses.put(misses.get(i), fresh.get(i));
+            if (cacheMs > 0) {
+                cache.put(misses.get(i), new Cached(fresh.get(i), nowMs));
+            }
+        }
+        return statuses;
+    }
+
+    private void evictIfFull(long nowMs, int incoming) {
+        if (cache.size() + incoming <= maxCachedUsers) {
+            return;
+        }
+        cache.values().removeIf(cached -> nowMs - cached.fetchedAtMs >= cacheMs);
+        if (cache.size() + incoming > maxCachedUsers) {
+            cache.clear();
+        }
+    }
+
+    private record Cached(RateLimitStatus status, long fetchedAtMs) {}
+}
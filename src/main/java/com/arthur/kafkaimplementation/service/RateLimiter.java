@@ -0,0 +1,63 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contrato de um rate limiter por usuário.
+ *
+ * Implementações disponíveis (app.rate-limit.algorithm):
+ *   sliding-log  → SlidingLogRateLimiter   (Sorted Set, 1 entrada por notificação)
+ *   gcra         → GcraRateLimiter         (1 inteiro por usuário)
+ *   token-bucket → TokenBucketRateLimiter  (1 string curta por usuário)
+ *
+ * O NotificationConsumer depende só deste contrato; quem escolhe o algoritmo
+ * é o RateLimiterService, a partir da configuração.
+ */
+public interface RateLimiter {
+
+    /**
+     * Verifica se o usuário ainda está dentro do limite e, se estiver,
+     * registra a notificação atual — tudo de forma atômica.
+     */
+    RateLimitDecision check(RateLimitRequest request);
+
+    /**
+     * Mesma verificação de check, sem bloquear a thread que chama.
+     * O Uni completa no contexto do cliente Redis (event loop) — é o que o
+     * ReactiveNotificationConsumer usa para não ocupar worker threads.
+     */
+    Uni<RateLimitDecision> checkAsync(RateLimitRequest request);
+
+    /**
+     * Verifica um lote de uma vez, na ordem da lista.
+     * O mesmo usuário pode aparecer mais de uma vez — cada ocorrência conta.
+     * Implementações com Redis resolvem o lote em um único pipeline.
+     */
+    default List<RateLimitDecision> checkAll(List<RateLimitRequest> requests) {
+        List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+        for (RateLimitRequest request : requests) {
+            decisions.add(check(request));
+        }
+        return decisions;
+    }
+
+    /**
+     * Quantas notificações o usuário consumiu da cota na janela atual.
+     * Para algoritmos sem log (GCRA, token bucket) é uma estimativa derivada do estado.
+     */
+    long getCount(String userId);
+
+    /**
+     * Situação da cota de cada usuário, na ordem da lista, sem registrar nada.
+     * Implementações com Redis usam só comandos de leitura, todos em um único
+     * pipeline — é o que os painéis de suporte consultam.
+     */
+    List<RateLimitStatus> statusAll(List<String> userIds);
+
+    default boolean isAllowed(String userId) {
+        return check(RateLimitRequest.of(userId)).allowed();
+    }
+}
@@ -1,101 +1,403 @@
 package com.arthur.kafkaimplementation.service;
 
 import io.quarkus.logging.Log;
-import io.quarkus.redis.datasource.RedisDataSource;
-import io.quarkus.redis.datasource.sortedset.ScoreRange;
-import io.quarkus.redis.datasource.sortedset.SortedSetCommands;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.time.Duration;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
- * Rate limiter baseado em Sliding Window usando Redis Sorted Sets.
+ * Rate limiter por usuário com algoritmo plugável, todos com estado no Redis.
  *
- * Estrutura no Redis:
- *   Key:   rate_limit:{userId}
- *   Type:  Sorted Set (ZSet)
- *   Score: timestamp em milissegundos do momento em que a notificação foi processada
- *   Value: UUID único por entrada (evita colisões de score)
+ * app.rate-limit.algorithm escolhe a implementação:
+ *   sliding-log  (padrão) → Sorted Set com uma entrada por notificação — janela exata
+ *   gcra                  → um inteiro (TAT) por usuário — cota volta de forma contínua
+ *   token-bucket          → uma string "tokens:timestamp" por usuário
  *
- * Algoritmo (isAllowed):
- *   1. ZREMRANGEBYSCORE → remove entradas mais antigas que (agora - janela)
- *   2. ZCARD            → conta quantas entradas restam na janela
- *   3. Se count >= limite → bloqueado (retorna false)
- *   4. ZADD             → registra o processamento atual
- *   5. EXPIRE           → mantém o TTL do key alinhado à janela
+ * Cada verificação é um único EVALSHA atômico, qualquer que seja o algoritmo.
+ *
+ * app.rate-limit.state=partition-local tira o Redis do caminho de cada mensagem:
+ *   checks com partição (RateLimitRequest.partition) respondem da memória do
+ *   dono da partição (PartitionLocalRateLimiter, contagem GCRA) e o Redis vira
+ *   só snapshot, gravado em segundo plano. Chamadas sem partição — ou para uma
+ *   partição que esta instância não possui — continuam indo ao algoritmo acima,
+ *   que por isso tem de ser gcra: outro algoritmo contaria o mesmo usuário de
+ *   dois jeitos, e a configuração é recusada na subida.
+ *
+ * Orçamento por tipo (app.rate-limit.type-budgets=PEDIDO:20,...):
+ *   checks cujo RateLimitRequest.type está na lista contam em separado, com limite próprio e chave própria no Redis
+ *   (rate_limit_budget:PEDIDO:u1). Uma campanha de PROMOCAO não consome a cota de
+ *   PEDIDO do usuário. Esses tipos usam sempre o Redis, mesmo em partition-local.
+ *
+ * Redis lento ou fora do ar (app.rate-limit.breaker.*):
+ *   cada limiter no Redis passa pelo GuardedRateLimiter, atrás de um único
+ *   RedisCircuitBreaker. Com o circuito aberto, as decisões saem de um GCRA em
+ *   memória (aproximado) e o consumer segue no ritmo normal; ao fechar, o que
+ *   foi admitido nesse meio tempo é gravado de volta no Redis.
  *
  * EXPERIMENTO — Zerando o Redis com consumer rodando:
  *   redis-cli FLUSHALL
- *   → O sorted set some. O rate limit volta do zero para todos os usuários.
+ *   → O estado some. O rate limit volta do zero para todos os usuários.
  *   → Todos voltam a receber notificações sem restrição até o contador se reconstituir.
  *   → Isso demonstra que o estado do rate limiter é volátil e Redis é um ponto de falha.
+ *
+ * EXPERIMENTO — Comparando memória por usuário:
+ *   redis-cli MEMORY USAGE rate_limit:u1        (sliding-log)
+ *   redis-cli MEMORY USAGE rate_limit:gcra:u1   (gcra)
+ *   redis-cli MEMORY USAGE rate_limit:tb:u1     (token-bucket)
  */
 @ApplicationScoped
-public class RateLimiterService {
-
-    private static final String KEY_PREFIX = "rate_limit:";
+public class RateLimiterService implements RateLimiter {
 
-    private final SortedSetCommands<String, String> sortedSet;
-    private final RedisDataSource redisDataSource;
+    private final RateLimiter delegate;
+    private final Map<String, TypeBudget> budgets;
+    private final PipelineMetrics metrics;
+    private final PartitionLocalRateLimiter local;
+    private final RateLimitAlgorithm algorithm;
     private final int maxPerMinute;
     private final int windowSeconds;
 
     public RateLimiterService(
-            RedisDataSource redisDataSource,
+            ReactiveRedisDataSource redisDataSource,
+            PipelineMetrics metrics,
+            RedisCircuitBreaker breaker,
+            @ConfigProperty(name = "app.rate-limit.algorithm", defaultValue = "sliding-log") String algorithm,
             @ConfigProperty(name = "app.rate-limit.max-per-minute", defaultValue = "5") int maxPerMinute,
-            @ConfigProperty(name = "app.rate-limit.window-seconds", defaultValue = "60") int windowSeconds
+            @ConfigProperty(name = "app.rate-limit.window-seconds", defaultValue = "60") int windowSeconds,
+            @ConfigProperty(name = "app.rate-limit.state", defaultValue = "redis") String state,
+            @ConfigProperty(name = "app.rate-limit.local.flush-ms", defaultValue = "1000") long flushMs,
+            @ConfigProperty(name = "app.rate-limit.type-budgets") Optional<List<String>> typeBudgets,
+            @ConfigProperty(name = "app.kafka.topic.notifications", defaultValue = "notifications") String topic
     ) {
-        this.redisDataSource = redisDataSource;
-        this.sortedSet = redisDataSource.sortedSet(String.class);
+        this.metrics = metrics;
+        this.algorithm = RateLimitAlgorithm.from(algorithm);
         this.maxPerMinute = maxPerMinute;
         this.windowSeconds = windowSeconds;
+
+        long windowMs = windowSeconds * 1000L;
+        this.delegate = limiter(redisDataSource, breaker, metrics, this.algorithm,
+                ScriptedRateLimiter.NAMESPACE, maxPerMinute, windowMs);
+
+        this.budgets = new LinkedHashMap<>();
+        for (String entry : typeBudgets.orElse(List.of())) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalArgumentException(
+                        "app.rate-limit.type-budgets inválido: '" + entry + "' (use TIPO:limite,...)");
+            }
+            String type = parts[0].trim();
+            int limit = budgetLimit(entry, parts[1].trim());
+            budgets.put(type, new TypeBudget(limiter(redisDataSource, breaker, metrics, this.algorithm,
+                    budgetNamespace(type), limit, windowMs), limit));
+        }
+
+        if (state.equals("partition-local") && this.algorithm != RateLimitAlgorithm.GCRA) {
+            throw new IllegalArgumentException("app.rate-limit.state=partition-local conta em GCRA: use "
+                    + "app.rate-limit.algorithm=gcra (configurado: " + this.algorithm.configValue() + ")");
+        }
+        this.local = switch (state) {
+            case "redis" -> null;
+            case "partition-local" -> new PartitionLocalRateLimiter(redisDataSource, topic, maxPerMinute, windowMs, flushMs);
+            default -> throw new IllegalArgumentException(
+                    "app.rate-limit.state inválido: '" + state + "' (use redis | partition-local)");
+        };
+
+        Log.infof("Rate limiter configurado — algoritmo=%s estado=%s limite=%d janela=%ds orçamentos=%s breaker=%s",
+                this.algorithm.configValue(), state, maxPerMinute, windowSeconds, typeBudgets.orElse(List.of()),
+                breaker.isEnabled());
+    }
+
+    private static RateLimiter limiter(ReactiveRedisDataSource redis, RedisCircuitBreaker breaker,
+                                       PipelineMetrics metrics, RateLimitAlgorithm algorithm,
+                                       String namespace, int limit, long windowMs) {
+        ScriptedRateLimiter limiter = switch (algorithm) {
+            case SLIDING_LOG -> new SlidingLogRateLimiter(redis, namespace, limit, windowMs);
+            case GCRA -> new GcraRateLimiter(redis, namespace, limit, windowMs);
+            case TOKEN_BUCKET -> new TokenBucketRateLimiter(redis, namespace, limit, windowMs);
+        };
+        return breaker.isEnabled() ? new GuardedRateLimiter(limiter, breaker, metrics, limit, windowMs) : limiter;
     }
 
     /**
      * Verifica se o usuário ainda está dentro do limite e registra a tentativa.
      *
-     * @param userId identificador do usuário
-     * @return true se pode processar, false se deve ser descartado/enviado para DLT
+     * Tipos com orçamento próprio contam no limiter do orçamento. Os demais, em
+     * partition-local, respondem da memória da partição sem tocar no Redis; fora
+     * dele (ou sem a partição nesta instância), vão ao algoritmo no Redis.
+     * Com a chave do registro Kafka (RecordKey.of), no sliding-log a reentrega
+     * do mesmo registro não conta de novo. GCRA, token-bucket e a memória do
+     * partition-local não guardam entradas por notificação e ignoram a chave.
+     *
+     * @return decisão com permitido/bloqueado, restantes e resetAtMs
      */
-    public boolean isAllowed(String userId) {
-        String key = KEY_PREFIX + userId;
-        long nowMs = System.currentTimeMillis();
-        long windowStartMs = nowMs - (windowSeconds * 1000L);
-
-        // Remove entradas fora da janela deslizante
-        sortedSet.zremrangebyscore(key, new ScoreRange<>(0.0, (double) windowStartMs));
+    @Override
+    public RateLimitDecision check(RateLimitRequest request) {
+        TypeBudget budget = budgets.get(request.type());
+        long startNanos = System.nanoTime();
+        RateLimitDecision decision = budget == null
+                ? checkOwnedOrRedis(request)
+                : budget.limiter().check(request);
+        metrics.rateLimitChecked("single", startNanos);
+        return logged(request.userId(), decision, budget == null ? maxPerMinute : budget.limit());
+    }
 
-        // Conta quantas notificações foram processadas na janela atual
-        long currentCount = sortedSet.zcard(key);
+    /**
+     * Versão não bloqueante de check — um EVALSHA via ReactiveRedisDataSource,
+     * sem await. Pode ser chamada do event loop. Se a memória do partition-local
+     * já tem a decisão, o Uni completa na hora, sem sair do event loop.
+     */
+    @Override
+    public Uni<RateLimitDecision> checkAsync(RateLimitRequest request) {
+        TypeBudget budget = budgets.get(request.type());
+        long startNanos = System.nanoTime();
+        if (budget == null) {
+            RateLimitDecision decision = local == null ? null : local.check(request.userId(), request.partition());
+            if (decision != null) {
+                metrics.rateLimitChecked("async", startNanos);
+                return Uni.createFrom().item(logged(request.userId(), decision));
+            }
+        }
+        RateLimiter limiter = budget == null ? delegate : budget.limiter();
+        int limit = budget == null ? maxPerMinute : budget.limit();
+        return limiter.checkAsync(request).map(decision -> {
+            metrics.rateLimitChecked("async", startNanos);
+            return logged(request.userId(), decision, limit);
+        });
+    }
 
-        Log.debugf("Rate limit check — userId=%s count=%d/%d window=%ds",
-                userId, currentCount, maxPerMinute, windowSeconds);
+    /**
+     * Verifica o lote inteiro em um único round trip ao Redis (pipeline) por
+     * orçamento: um para os tipos sem orçamento próprio e um por tipo com
+     * orçamento. Dentro de cada orçamento a ordem da lista é a ordem de
+     * contagem — mesma semântica de chamar check em sequência.
+     */
+    @Override
+    public List<RateLimitDecision> checkAll(List<RateLimitRequest> requests) {
+        if (requests.stream().noneMatch(request -> budgets.containsKey(request.type()))) {
+            return checkAllShared(requests);
+        }
 
-        if (currentCount >= maxPerMinute) {
-            Log.warnf("Rate limit EXCEDIDO — userId=%s (%d notificações na última janela de %ds)",
-                    userId, currentCount, windowSeconds);
-            return false;
+        Map<String, List<Integer>> positionsByType = new HashMap<>();
+        List<Integer> shared = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String type = requests.get(i).type();
+            if (budgets.containsKey(type)) {
+                positionsByType.computeIfAbsent(type, t -> new ArrayList<>()).add(i);
+            } else {
+                shared.add(i);
+            }
         }
 
-        // Registra este processamento com timestamp como score
-        sortedSet.zadd(key, (double) nowMs, UUID.randomUUID().toString());
+        RateLimitDecision[] decisions = new RateLimitDecision[requests.size()];
+        if (!shared.isEmpty()) {
+            List<RateLimitDecision> sharedDecisions = checkAllShared(shared.stream().map(requests::get).toList());
+            for (int i = 0; i < shared.size(); i++) {
+                decisions[shared.get(i)] = sharedDecisions.get(i);
+            }
+        }
 
-        // Mantém TTL para que chaves inativas não acumulem no Redis
-        redisDataSource.key().expire(key, Duration.ofSeconds(windowSeconds + 5));
+        positionsByType.forEach((type, positions) -> {
+            TypeBudget budget = budgets.get(type);
+            long startNanos = System.nanoTime();
+            List<RateLimitRequest> typeRequests = positions.stream().map(requests::get).toList();
+            List<RateLimitDecision> typeDecisions = budget.limiter().checkAll(typeRequests);
+            metrics.rateLimitChecked("batch", startNanos);
+            for (int i = 0; i < positions.size(); i++) {
+                decisions[positions.get(i)] = logged(requests.get(positions.get(i)).userId(), typeDecisions.get(i),
+                        budget.limit());
+            }
+        });
 
-        return true;
+        return List.of(decisions);
     }
 
     /**
      * Retorna quantas notificações o usuário processou na janela atual.
      * Útil para endpoints de observabilidade.
+     *
+     * No modo partition-local, vale a memória desta instância quando ela é dona
+     * da partição do usuário; senão, o que o algoritmo no Redis registrou.
      */
+    @Override
     public long getCount(String userId) {
-        String key = KEY_PREFIX + userId;
-        long windowStartMs = System.currentTimeMillis() - (windowSeconds * 1000L);
-        sortedSet.zremrangebyscore(key, new ScoreRange<>(0.0, (double) windowStartMs));
-        return sortedSet.zcard(key);
+        long count = local == null ? -1 : local.getCount(userId);
+        return count >= 0 ? count : delegate.getCount(userId);
+    }
+
+    /**
+     * Situação da cota de vários usuários sem registrar nada: um único pipeline
+     * de leitura no Redis para o lote inteiro. Mesma regra de getCount no modo
+     * partition-local — os usuários das partições desta instância saem da memória.
+     */
+    @Override
+    public List<RateLimitStatus> statusAll(List<String> userIds) {
+        if (local == null) {
+            return delegate.statusAll(userIds);
+        }
+        RateLimitStatus[] statuses = new RateLimitStatus[userIds.size()];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            statuses[i] = local.status(userIds.get(i));
+            if (statuses[i] == null) {
+                misses.add(i);
+            }
+        }
+        if (!misses.isEmpty()) {
+            List<RateLimitStatus> fromRedis = delegate.statusAll(misses.stream().map(userIds::get).toList());
+            for (int i = 0; i < misses.size(); i++) {
+                statuses[misses.get(i)] = fromRedis.get(i);
+            }
+        }
+        return List.of(statuses);
+    }
+
+    /** Chamado pelo listener de rebalance: carrega o snapshot das partições recebidas. */
+    public void onPartitionsAssigned(Collection<Integer> partitions) {
+        if (local != null) {
+            local.assign(partitions);
+        }
+    }
+
+    /** Chamado pelo listener de rebalance: grava o snapshot e libera a memória. */
+    public void onPartitionsRevoked(Collection<Integer> partitions) {
+        if (local != null) {
+            local.revoke(partitions);
+        }
+    }
+
+    /** Partições perdidas sem revogação ordenada: descarta sem gravar. */
+    public void onPartitionsLost(Collection<Integer> partitions) {
+        if (local != null) {
+            local.lose(partitions);
+        }
     }
+
+    @PreDestroy
+    void shutdown() {
+        if (local != null) {
+            local.close();
+        }
+    }
+
+    private RateLimitDecision checkOwnedOrRedis(RateLimitRequest request) {
+        RateLimitDecision decision = local == null ? null : local.check(request.userId(), request.partition());
+        return decision != null ? decision : delegate.check(request);
+    }
+
+    /**
+     * Lote sem orçamento por tipo: pipeline no Redis ou, em partition-local, a
+     * memória de cada partição — e um único pipeline para os itens de partições
+     * que esta instância não possui.
+     */
+    private List<RateLimitDecision> checkAllShared(List<RateLimitRequest> requests) {
+        if (local == null) {
+            long startNanos = System.nanoTime();
+            List<RateLimitDecision> decisions = delegate.checkAll(requests);
+            metrics.rateLimitChecked("batch", startNanos);
+            for (int i = 0; i < decisions.size(); i++) {
+                if (!decisions.get(i).allowed()) {
+                    Log.warnf("Rate limit EXCEDIDO — userId=%s (%d notificações na última janela de %ds)",
+                            requests.get(i).userId(), maxPerMinute, windowSeconds);
+                }
+            }
+            return decisions;
+        }
+        long startNanos = System.nanoTime();
+        RateLimitDecision[] decisions = new RateLimitDecision[requests.size()];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            decisions[i] = local.check(requests.get(i).userId(), requests.get(i).partition());
+            if (decisions[i] == null) {
+                misses.add(i);
+            }
+        }
+        if (!misses.isEmpty()) {
+            List<RateLimitDecision> fromRedis = delegate.checkAll(misses.stream().map(requests::get).toList());
+            for (int i = 0; i < misses.size(); i++) {
+                decisions[misses.get(i)] = fromRedis.get(i);
+            }
+        }
+        metrics.rateLimitChecked("batch", startNanos);
+
+        for (int i = 0; i < decisions.length; i++) {
+            logged(requests.get(i).userId(), decisions[i]);
+        }
+        return List.of(decisions);
+    }
+
+    private RateLimitDecision logged(String userId, RateLimitDecision decision) {
+        return logged(userId, decision, maxPerMinute);
+    }
+
+    private RateLimitDecision logged(String userId, RateLimitDecision decision, int limit) {
+        Log.debugf("Rate limit check — userId=%s allowed=%s remaining=%d/%d window=%ds",
+                userId, decision.allowed(), decision.remaining(), limit, windowSeconds);
+
+        if (!decision.allowed()) {
+            Log.warnf("Rate limit EXCEDIDO — userId=%s (%d notificações na última janela de %ds)",
+                    userId, limit, windowSeconds);
+        }
+
+        return decision;
+    }
+
+    private static int budgetLimit(String entry, String value) {
+        int limit;
+        try {
+            limit = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            limit = 0;
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException(
+                    "app.rate-limit.type-budgets inválido: '" + entry + "' (o limite precisa ser um inteiro > 0)");
+        }
+        return limit;
+    }
+
+    /**
+     * Chaves de um orçamento: rate_limit_budget:PEDIDO:u1, rate_limit_budget:PEDIDO:gcra:u1...
+     * Fora de rate_limit: — um userId como "PEDIDO:alice" no limite padrão não cai
+     * na chave de ninguém. O tipo não tem ':' (validado no parse), então cada
+     * (tipo, usuário) tem uma chave só.
+     */
+    private static String budgetNamespace(String type) {
+        return "rate_limit_budget:" + type + ":";
+    }
+
+    public int getLimit() {
+        return maxPerMinute;
+    }
+
+    /** Limite que vale para o tipo: o do orçamento próprio, se houver, ou o padrão. */
+    public int getLimit(String type) {
+        TypeBudget budget = budgets.get(type);
+        return budget == null ? maxPerMinute : budget.limit();
+    }
+
+    /** getCount na contagem que o tipo consome: a do orçamento próprio ou a padrão. */
+    public long getCount(String userId, String type) {
+        TypeBudget budget = budgets.get(type);
+        return budget == null ? getCount(userId) : budget.limiter().getCount(userId);
+    }
+
+    /** @return o tipo, se ele tem orçamento próprio; null se conta no limite padrão */
+    public String budgetOf(String type) {
+        return budgets.containsKey(type) ? type : null;
+    }
+
+    public RateLimitAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    private record TypeBudget(RateLimiter limiter, int limit) {}
 }
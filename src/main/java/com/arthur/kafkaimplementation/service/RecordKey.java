@@ -0,0 +1,45 @@
+package com.arthur.kafkaimplementation.service;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identidade de uma notificação no rate limiter, derivada do registro Kafka.
+ *
+ * Por quê?
+ *   O sliding log guarda um membro por notificação admitida. Com um UUID
+ *   aleatório, a reentrega do mesmo registro (queda entre o check e o ack,
+ *   rebalance antes do commit) virava um membro novo: o usuário era contado
+ *   duas vezes e podia ser bloqueado sem ter passado do limite.
+ *   Com a chave derivada de tópico/partição/offset, o mesmo registro é sempre
+ *   o mesmo membro — contar de novo não muda nada (ver SlidingLogRateLimiter).
+ *
+ * Formato compacto: {offset base36}.{partição base36}.{tópico}
+ *   offset 1234567 na partição 2 de "notifications" → "qglj.2.tew"
+ *   ~10 bytes contra os 36 de um UUID, e nenhum SecureRandom por mensagem.
+ *   O tópico entra como 16 bits do hashCode, em base36: só precisa separar os
+ *   poucos tópicos que chegam ao limiter (notifications, notifications.high).
+ *
+ * Chamadas sem registro de origem (resumo, reconciliação do breaker) usam
+ * unique(): prefixo aleatório sorteado uma vez por processo + contador.
+ */
+public final class RecordKey {
+
+    private static final String PROCESS_PREFIX =
+            "~" + Long.toString(new SecureRandom().nextLong() & 0x7FFFFFFFFFL, 36) + ".";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private RecordKey() {
+    }
+
+    public static String of(String topic, int partition, long offset) {
+        return Long.toString(offset, 36)
+                + '.' + Integer.toString(partition, 36)
+                + '.' + Integer.toString(topic.hashCode() & 0xFFFF, 36);
+    }
+
+    /** Chave única, sem significado de registro — nunca coincide com uma de of(). */
+    static String unique() {
+        return PROCESS_PREFIX + Long.toString(SEQUENCE.incrementAndGet(), 36);
+    }
+}
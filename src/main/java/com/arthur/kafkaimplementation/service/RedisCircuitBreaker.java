@@ -0,0 +1,244 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker das chamadas do rate limiter ao Redis.
+ *
+ * Sem ele, um Redis lento ou fora do ar faz cada check esperar até o timeout:
+ * o consumer passa a andar no ritmo do timeout e o lag cresce em todas as
+ * partições. Com ele, o GuardedRateLimiter para de chamar o Redis e responde
+ * com um limite aproximado em memória — perde precisão, não vazão.
+ *
+ * Quando abre (latência, não só erro):
+ *   As últimas app.rate-limit.breaker.window chamadas ficam num anel. Conta como
+ *   ruim a chamada que falhou, estourou call-timeout-ms ou levou mais que
+ *   slow-call-ms. Com pelo menos min-calls no anel e failure-rate delas ruins,
+ *   o circuito abre. Um Redis que responde em 300 ms abre o circuito tanto
+ *   quanto um Redis que não responde.
+ *
+ * Estados:
+ *   CLOSED    → tudo vai ao Redis
+ *   OPEN      → nada vai ao Redis por open-ms; as chamadas usam o fallback
+ *   HALF_OPEN → uma única chamada de prova vai ao Redis; as outras seguem no
+ *               fallback. Prova boa fecha o circuito; ruim reabre por open-ms.
+ *
+ * Permissão (o long devolvido por tryAcquire):
+ *   DENIED → fallback; CLOSED_CALL → chamada comum; > 0 → a prova daquele
+ *   HALF_OPEN. Quem chama devolve a permissão em onSuccess/onFailure, e só a
+ *   prova decide o HALF_OPEN: uma chamada que pegou o circuito fechado e
+ *   termina depois dele abrir não fecha nem reabre nada.
+ *
+ * Ao fechar, os ouvintes (onClose) rodam na thread "rate-limit-reconcile" —
+ * é onde o GuardedRateLimiter devolve ao Redis o que admitiu durante a falha.
+ *
+ * O caminho de cada check não usa lock: leitura de um estado volátil e, ao
+ * registrar o resultado, dois incrementos atômicos.
+ */
+@ApplicationScoped
+public class RedisCircuitBreaker {
+
+    /** Valor do gauge notifications.rate_limit.breaker.state: 0, 1 ou 2. */
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /** tryAcquire: use o fallback. */
+    static final long DENIED = -1;
+    /** tryAcquire: chamada com o circuito fechado. */
+    static final long CLOSED_CALL = 0;
+    private static final long NO_PROBE = 0;
+
+    private static final int EMPTY = -1;
+    private static final int GOOD = 0;
+    private static final int BAD = 1;
+
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final Duration callTimeout;
+    private final long slowCallNanos;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openMs;
+    private final int fallbackMaxUsers;
+    private final LongSupplier clock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicIntegerArray outcomes;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong bad = new AtomicLong();
+    private final AtomicLong halfOpenings = new AtomicLong();
+    /** Permissão da prova em andamento, ou NO_PROBE. */
+    private final AtomicLong probe = new AtomicLong(NO_PROBE);
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService reconciler;
+    private volatile long openedAtMs;
+
+    @Inject
+    public RedisCircuitBreaker(
+            PipelineMetrics metrics,
+            @ConfigProperty(name = "app.rate-limit.breaker.enabled", defaultValue = "true") boolean enabled,
+            @ConfigProperty(name = "app.rate-limit.breaker.call-timeout-ms", defaultValue = "250") long callTimeoutMs,
+            @ConfigProperty(name = "app.rate-limit.breaker.slow-call-ms", defaultValue = "50") long slowCallMs,
+            @ConfigProperty(name = "app.rate-limit.breaker.window", defaultValue = "100") int window,
+            @ConfigProperty(name = "app.rate-limit.breaker.min-calls", defaultValue = "20") int minCalls,
+            @ConfigProperty(name = "app.rate-limit.breaker.failure-rate", defaultValue = "0.5") double failureRate,
+            @ConfigProperty(name = "app.rate-limit.breaker.open-ms", defaultValue = "5000") long openMs,
+            @ConfigProperty(name = "app.rate-limit.breaker.fallback-max-users", defaultValue = "100000") int fallbackMaxUsers
+    ) {
+        this(metrics, enabled, callTimeoutMs, slowCallMs, window, minCalls, failureRate, openMs, fallbackMaxUsers,
+                System::currentTimeMillis);
+    }
+
+    RedisCircuitBreaker(PipelineMetrics metrics, boolean enabled, long callTimeoutMs, long slowCallMs, int window,
+                        int minCalls, double failureRate, long openMs, int fallbackMaxUsers, LongSupplier clock) {
+        if (window < 1 || minCalls < 1 || minCalls > window || failureRate <= 0 || failureRate > 1) {
+            throw new IllegalArgumentException(
+                    "app.rate-limit.breaker: use 1 <= min-calls <= window e 0 < failure-rate <= 1");
+        }
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.callTimeout = Duration.ofMillis(callTimeoutMs);
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.minCalls = minCalls;
+        this.failureRate = failureRate;
+        this.openMs = openMs;
+        this.fallbackMaxUsers = fallbackMaxUsers;
+        this.clock = clock;
+        this.outcomes = new AtomicIntegerArray(window);
+        for (int i = 0; i < window; i++) {
+            outcomes.set(i, EMPTY);
+        }
+        this.reconciler = Executors.newSingleThreadExecutor(
+                r -> Thread.ofPlatform().daemon().name("rate-limit-reconcile").unstarted(r));
+        metrics.trackBreakerState(() -> state.get().ordinal());
+    }
+
+    /** Com enabled=false o RateLimiterService não envolve os limiters: comportamento de antes. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public State state() {
+        return state.get();
+    }
+
+    Duration callTimeout() {
+        return callTimeout;
+    }
+
+    int fallbackMaxUsers() {
+        return fallbackMaxUsers;
+    }
+
+    /**
+     * @return DENIED se a chamada deve usar o fallback; senão a permissão para
+     *         ir ao Redis, a devolver em onSuccess/onFailure. Em HALF_OPEN, só
+     *         quem ganhou a vez de prova recebe permissão.
+     */
+    long tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return CLOSED_CALL;
+        }
+        if (current == State.OPEN) {
+            if (clock.getAsLong() - openedAtMs < openMs || !state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                return DENIED;
+            }
+            halfOpenings.incrementAndGet();
+            metrics.breakerTransitioned(State.HALF_OPEN.name());
+            Log.infof("Circuito do Redis MEIO-ABERTO — testando com uma chamada");
+        }
+        long permit = halfOpenings.get();
+        return probe.compareAndSet(NO_PROBE, permit) ? permit : DENIED;
+    }
+
+    /** A chamada respondeu; conta como ruim se passou de slow-call-ms. */
+    void onSuccess(long permit, long elapsedNanos) {
+        record(permit, elapsedNanos <= slowCallNanos);
+    }
+
+    /** A chamada falhou ou estourou call-timeout-ms. */
+    void onFailure(long permit) {
+        record(permit, false);
+    }
+
+    /** Roda na thread "rate-limit-reconcile" toda vez que o circuito fecha. */
+    void onClose(Runnable listener) {
+        closeListeners.add(listener);
+    }
+
+    private void record(long permit, boolean good) {
+        if (permit != CLOSED_CALL) {
+            if (probe.compareAndSet(permit, NO_PROBE)) {
+                if (good) {
+                    close();
+                } else {
+                    open("prova falhou");
+                }
+            }
+            return;
+        }
+        if (state.get() != State.CLOSED) {
+            // Começou com o circuito fechado e terminou depois dele abrir: não é a prova
+            return;
+        }
+
+        int slot = (int) (calls.getAndIncrement() % outcomes.length());
+        int previous = outcomes.getAndSet(slot, good ? GOOD : BAD);
+        long badNow = bad.addAndGet((good ? 0 : 1) - (previous == BAD ? 1 : 0));
+        long recorded = Math.min(calls.get(), outcomes.length());
+        if (recorded >= minCalls && badNow >= failureRate * recorded) {
+            open(badNow + " de " + recorded + " chamadas lentas ou com erro");
+        }
+    }
+
+    private void open(String reason) {
+        State previous = state.get();
+        if (previous == State.OPEN || !state.compareAndSet(previous, State.OPEN)) {
+            return;
+        }
+        openedAtMs = clock.getAsLong();
+        metrics.breakerTransitioned(State.OPEN.name());
+        Log.errorf("Circuito do Redis ABERTO por %dms (%s) — rate limit em memória, aproximado", openMs, reason);
+    }
+
+    private void close() {
+        if (!state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            return;
+        }
+        for (int i = 0; i < outcomes.length(); i++) {
+            outcomes.set(i, EMPTY);
+        }
+        calls.set(0);
+        bad.set(0);
+        metrics.breakerTransitioned(State.CLOSED.name());
+        Log.infof("Circuito do Redis FECHADO — reconciliando contagens do modo degradado");
+        for (Runnable listener : closeListeners) {
+            reconciler.execute(listener);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reconciler.shutdown();
+        try {
+            reconciler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.redis.client.Command;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Script Lua executado no Redis via EVALSHA.
+ *
+ * Por que script e não comandos separados?
+ *   O Redis executa o script inteiro de forma atômica: nenhum outro cliente
+ *   roda comandos entre o "conta" e o "registra". Dois consumers não conseguem
+ *   mais ver count < limite ao mesmo tempo e ambos serem admitidos.
+ *   De quebra, N comandos viram 1 round trip.
+ *
+ * O SHA1 é calculado localmente — não é preciso um SCRIPT LOAD prévio.
+ * Se o Redis responder NOSCRIPT (restart, SCRIPT FLUSH), reenvia com EVAL,
+ * que executa e deixa o script em cache para as próximas chamadas.
+ */
+final class RedisScript {
+
+    /** KEYS e ARGV de uma execução do script. */
+    record Call(List<String> keys, List<String> args) {}
+
+    private final ReactiveRedisDataSource redis;
+    private final String source;
+    private final String sha;
+
+    RedisScript(ReactiveRedisDataSource redis, String source) {
+        this.redis = redis;
+        this.source = source;
+        this.sha = sha1Hex(source);
+    }
+
+    Uni<Response> eval(Call call) {
+        return redis.execute("EVALSHA", commandArgs(sha, call))
+                .onFailure(RedisScript::isNoScript)
+                .recoverWithUni(() -> redis.execute("EVAL", commandArgs(source, call)));
+    }
+
+    Response evalAndAwait(Call call) {
+        return eval(call).await().indefinitely();
+    }
+
+    /**
+     * Executa várias chamadas em um único pipeline (um round trip).
+     *
+     * NOSCRIPT só acontece com o cache de scripts vazio, e aí todas as chamadas
+     * do pipeline falham antes de executar — reenviar o lote com EVAL é seguro.
+     */
+    Uni<List<Response>> evalAll(List<Call> calls) {
+        return redis.getRedis().batch(requests(Command.EVALSHA, sha, calls))
+                .onFailure(RedisScript::isNoScript)
+                .recoverWithUni(() -> redis.getRedis().batch(requests(Command.EVAL, source, calls)));
+    }
+
+    private static List<Request> requests(Command command, String script, List<Call> calls) {
+        List<Request> requests = new ArrayList<>(calls.size());
+        for (Call call : calls) {
+            Request request = Request.cmd(command).arg(script).arg(Integer.toString(call.keys().size()));
+            for (String key : call.keys()) request.arg(key);
+            for (String arg : call.args()) request.arg(arg);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static String[] commandArgs(String script, Call call) {
+        String[] result = new String[2 + call.keys().size() + call.args().size()];
+        result[0] = script;
+        result[1] = Integer.toString(call.keys().size());
+        int i = 2;
+        for (String key : call.keys()) result[i++] = key;
+        for (String arg : call.args()) result[i++] = arg;
+        return result;
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        return e.getMessage() != null && e.getMessage().startsWith("NOSCRIPT");
+    }
+
+    private static String sha1Hex(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 indisponível na JVM", e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base dos rate limiters cujo check é um único script Lua.
+ *
+ * Cada algoritmo só diz como montar a chamada (KEYS/ARGV) e como ler a resposta
+ * {permitido, restantes, resetAtMs}. O transporte — um EVALSHA por check
+ * (bloqueante ou Uni) ou vários EVALSHA num único pipeline — fica aqui.
+ *
+ * A leitura da cota (getCount, statusAll) segue o mesmo desenho: o algoritmo
+ * diz quais comandos de leitura descrevem um usuário e como interpretá-los; os
+ * comandos de todos os usuários vão juntos em um pipeline. Nenhum script e
+ * nenhuma escrita — consultar não disputa as chaves quentes com o consumer.
+ */
+abstract class ScriptedRateLimiter implements RateLimiter {
+
+    /** Início das chaves do limite padrão: rate_limit:{userId}, rate_limit:gcra:{userId}... */
+    static final String NAMESPACE = "rate_limit:";
+
+    protected final ReactiveRedisDataSource redis;
+    private final RedisScript script;
+
+    protected ScriptedRateLimiter(ReactiveRedisDataSource redis, String scriptSource) {
+        this.redis = redis;
+        this.script = new RedisScript(redis, scriptSource);
+    }
+
+    /**
+     * Monta KEYS/ARGV do script para o usuário no instante nowMs.
+     *
+     * @param recordKey identidade do registro de origem (RecordKey), ou null
+     */
+    protected abstract RedisScript.Call call(String userId, long nowMs, String recordKey);
+
+    /** Tipo e partição já foram resolvidos pelo RateLimiterService; aqui só usuário e chave importam. */
+    @Override
+    public RateLimitDecision check(RateLimitRequest request) {
+        return decision(script.evalAndAwait(call(request.userId(), System.currentTimeMillis(), request.recordKey())));
+    }
+
+    @Override
+    public Uni<RateLimitDecision> checkAsync(RateLimitRequest request) {
+        return Uni.createFrom()
+                .deferred(() -> script.eval(call(request.userId(), System.currentTimeMillis(), request.recordKey())))
+                .map(ScriptedRateLimiter::decision);
+    }
+
+    /**
+     * Todas as verificações vão em um único pipeline. O Redis executa os scripts
+     * na ordem enviada e cada um é atômico — mesma contagem que chamadas
+     * sequenciais, inclusive com o mesmo usuário repetido no lote.
+     */
+    @Override
+    public List<RateLimitDecision> checkAll(List<RateLimitRequest> requests) {
+        return checkAllAsync(requests).await().indefinitely();
+    }
+
+    /** checkAll sem bloquear — é o que o GuardedRateLimiter usa para limitar a espera. */
+    Uni<List<RateLimitDecision>> checkAllAsync(List<RateLimitRequest> requests) {
+        if (requests.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        long nowMs = System.currentTimeMillis();
+        List<RedisScript.Call> calls = new ArrayList<>(requests.size());
+        for (RateLimitRequest request : requests) {
+            calls.add(call(request.userId(), nowMs, request.recordKey()));
+        }
+        return script.evalAll(calls).map(replies -> {
+            List<RateLimitDecision> decisions = new ArrayList<>(replies.size());
+            for (Response reply : replies) {
+                decisions.add(decision(reply));
+            }
+            return decisions;
+        });
+    }
+
+    /**
+     * Comandos só de leitura que descrevem a cota do usuário no instante nowMs.
+     * Nada é removido nem registrado — entradas vencidas são ignoradas na conta.
+     */
+    protected abstract List<Request> statusRequests(String userId, long nowMs);
+
+    /** Lê as respostas de statusRequests, na mesma ordem (null = chave inexistente). */
+    protected abstract RateLimitStatus status(List<Response> replies, long nowMs);
+
+    @Override
+    public long getCount(String userId) {
+        return countAsync(userId).await().indefinitely();
+    }
+
+    /** getCount sem bloquear. */
+    Uni<Long> countAsync(String userId) {
+        return statusAllAsync(List.of(userId)).map(statuses -> statuses.get(0).count());
+    }
+
+    @Override
+    public List<RateLimitStatus> statusAll(List<String> userIds) {
+        return statusAllAsync(userIds).await().indefinitely();
+    }
+
+    /** statusAll sem bloquear: os comandos de todos os usuários vão em um único pipeline. */
+    Uni<List<RateLimitStatus>> statusAllAsync(List<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        long nowMs = System.currentTimeMillis();
+        List<Request> requests = new ArrayList<>(userIds.size() * 3);
+        int[] ends = new int[userIds.size()];
+        for (int i = 0; i < userIds.size(); i++) {
+            requests.addAll(statusRequests(userIds.get(i), nowMs));
+            ends[i] = requests.size();
+        }
+        return redis.getRedis().batch(requests).map(replies -> {
+            List<RateLimitStatus> statuses = new ArrayList<>(ends.length);
+            int from = 0;
+            for (int end : ends) {
+                statuses.add(status(replies.subList(from, end), nowMs));
+                from = end;
+            }
+            return statuses;
+        });
+    }
+
+    private static RateLimitDecision decision(Response reply) {
+        return new RateLimitDecision(
+                reply.get(0).toInteger() == 1,
+                reply.get(1).toLong(),
+                reply.get(2).toLong());
+    }
+}
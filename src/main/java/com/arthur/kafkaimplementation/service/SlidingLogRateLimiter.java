@@ -0,0 +1,134 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.vertx.mutiny.redis.client.Command;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+import io.vertx.redis.client.ResponseType;
+
+import java.util.List;
+
+/**
+ * Rate limiter baseado em Sliding Window Log usando Redis Sorted Sets.
+ *
+ * Estrutura no Redis:
+ *   Key:   rate_limit:{userId}
+ *   Type:  Sorted Set (ZSet)
+ *   Score: timestamp em milissegundos do momento em que a notificação foi processada
+ *   Value: RecordKey do registro Kafka de origem (tópico/partição/offset)
+ *
+ * Algoritmo — executado inteiro em um único script Lua (EVALSHA):
+ *   1. ZREMRANGEBYSCORE → remove entradas mais antigas que (agora - janela)
+ *   2. ZCARD            → conta quantas entradas restam na janela
+ *   3. ZSCORE           → o registro já está na janela? reentrega: permitido, nada muda
+ *   4. Se count >= limite → bloqueado
+ *   5. ZADD             → registra o processamento atual
+ *   6. PEXPIRE          → mantém o TTL do key alinhado à janela
+ *
+ * Idempotência: antes o membro era um UUID novo a cada check, e a reentrega do
+ * mesmo registro (queda antes do commit, rebalance) contava duas vezes. Com o
+ * RecordKey o mesmo registro é sempre o mesmo membro — o passo 3 devolve a
+ * decisão original sem gastar cota. Chamadas sem registro usam RecordKey.unique().
+ *
+ * É o algoritmo mais preciso (janela exata), mas a memória cresce com
+ * usuários × limite: cada notificação admitida ocupa um membro de ~10 bytes.
+ */
+public class SlidingLogRateLimiter extends ScriptedRateLimiter {
+
+
+    /**
+     * KEYS[1] = rate_limit:{userId}
+     * ARGV    = agoraMs, janelaMs, limite, membro
+     * Retorno = {permitido (0|1), restantes, resetAtMs}
+     */
+    private static final String SCRIPT = """
+            local key = KEYS[1]
+            local now = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local limit = tonumber(ARGV[3])
+
+            redis.call('ZREMRANGEBYSCORE', key, 0, now - window)
+            local count = redis.call('ZCARD', key)
+
+            if redis.call('ZSCORE', key, ARGV[4]) then
+              return {1, math.max(0, limit - count), now + window}
+            end
+
+            if count >= limit then
+              local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES')
+              return {0, 0, tonumber(oldest[2]) + window}
+            end
+
+            redis.call('ZADD', key, now, ARGV[4])
+            redis.call('PEXPIRE', key, window + 5000)
+            return {1, limit - count - 1, now + window}
+            """;
+
+    private final String keyPrefix;
+    private final int limit;
+    private final long windowMs;
+
+    public SlidingLogRateLimiter(ReactiveRedisDataSource redis, int limit, long windowMs) {
+        this(redis, NAMESPACE, limit, windowMs);
+    }
+
+    /** @param namespace início das chaves (NAMESPACE, ou o de um orçamento por tipo) */
+    SlidingLogRateLimiter(ReactiveRedisDataSource redis, String namespace, int limit, long windowMs) {
+        super(redis, SCRIPT);
+        this.keyPrefix = namespace;
+        this.limit = limit;
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected RedisScript.Call call(String userId, long nowMs, String recordKey) {
+        return new RedisScript.Call(
+                List.of(keyPrefix + userId),
+                List.of(Long.toString(nowMs),
+                        Long.toString(windowMs),
+                        Integer.toString(limit),
+                        recordKey != null ? recordKey : RecordKey.unique()));
+    }
+
+    /**
+     * Leitura sem ZREMRANGEBYSCORE: só conta o que está dentro da janela
+     * (score > agora - janela). As entradas vencidas ficam para o próximo check
+     * ou para o PEXPIRE. A mais antiga e a mais nova da janela dão o resetAtMs.
+     */
+    @Override
+    protected List<Request> statusRequests(String userId, long nowMs) {
+        String key = keyPrefix + userId;
+        String windowStart = "(" + (nowMs - windowMs);
+        return List.of(
+                Request.cmd(Command.ZCOUNT).arg(key).arg(windowStart).arg("+inf"),
+                Request.cmd(Command.ZRANGEBYSCORE).arg(key).arg(windowStart).arg("+inf")
+                        .arg("WITHSCORES").arg("LIMIT").arg("0").arg("1"),
+                Request.cmd(Command.ZREVRANGEBYSCORE).arg(key).arg("+inf").arg(windowStart)
+                        .arg("WITHSCORES").arg("LIMIT").arg("0").arg("1"));
+    }
+
+    @Override
+    protected RateLimitStatus status(List<Response> replies, long nowMs) {
+        long count = replies.get(0) == null ? 0 : replies.get(0).toLong();
+        if (count == 0) {
+            return new RateLimitStatus(0, limit, nowMs);
+        }
+        long remaining = Math.max(0, limit - count);
+        Response edge = remaining == 0 ? replies.get(1) : replies.get(2);
+        return new RateLimitStatus(count, remaining, score(edge, nowMs - windowMs) + windowMs);
+    }
+
+    /**
+     * Score da entrada de um ...RANGEBYSCORE WITHSCORES LIMIT 0 1 — plano no RESP2,
+     * aninhado no RESP3. Os comandos do pipeline não são atômicos entre si: se um
+     * check limpou a entrada nesse meio tempo, vale o início da janela.
+     */
+    private static long score(Response reply, long orElse) {
+        if (reply == null || reply.size() == 0) {
+            return orElse;
+        }
+        Response first = reply.get(0);
+        Response score = first.type() == ResponseType.MULTI ? first.get(1) : reply.get(1);
+        return (long) Double.parseDouble(score.toString());
+    }
+}
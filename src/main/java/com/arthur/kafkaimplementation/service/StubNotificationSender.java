@@ -0,0 +1,132 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provedor simulado, em processo, para desenvolvimento, testes e benchmarks.
+ *
+ * Latência de uma chamada com N destinatários:
+ *   base-latency-ms × e^(jitter-sigma × gaussiana)   (log-normal, mediana = base)
+ *   + N × per-recipient-ms
+ *   com probabilidade slow-rate, slow-latency-ms no lugar da base (cauda longa —
+ *   é o que o hedge do DeliveryDispatcher corta)
+ *
+ * Falhas:
+ *   call-error-rate → a chamada inteira falha (como um 5xx ou timeout de rede)
+ *   error-rate      → cada destinatário falha sozinho (token inválido, número bloqueado)
+ *
+ * Nenhuma thread espera: cada chamada é um timer no executor "stub-provider".
+ * seed != 0 deixa a sequência de latências e falhas reproduzível.
+ */
+@ApplicationScoped
+public class StubNotificationSender implements NotificationSender {
+
+    private final Set<String> channels;
+    private final int maxBatchSize;
+    private final double baseLatencyMs;
+    private final double perRecipientMs;
+    private final double jitterSigma;
+    private final double slowRate;
+    private final double slowLatencyMs;
+    private final double errorRate;
+    private final double callErrorRate;
+    private final Random random;
+    private final ScheduledExecutorService timer;
+
+    public StubNotificationSender(
+            @ConfigProperty(name = "app.delivery.stub.enabled", defaultValue = "true") boolean enabled,
+            @ConfigProperty(name = "app.delivery.stub.channels", defaultValue = "push,sms,email") Set<String> channels,
+            @ConfigProperty(name = "app.delivery.stub.max-batch", defaultValue = "100") int maxBatchSize,
+            @ConfigProperty(name = "app.delivery.stub.base-latency-ms", defaultValue = "50") double baseLatencyMs,
+            @ConfigProperty(name = "app.delivery.stub.per-recipient-ms", defaultValue = "0.2") double perRecipientMs,
+            @ConfigProperty(name = "app.delivery.stub.jitter-sigma", defaultValue = "0.25") double jitterSigma,
+            @ConfigProperty(name = "app.delivery.stub.slow-rate", defaultValue = "0.01") double slowRate,
+            @ConfigProperty(name = "app.delivery.stub.slow-latency-ms", defaultValue = "500") double slowLatencyMs,
+            @ConfigProperty(name = "app.delivery.stub.error-rate", defaultValue = "0") double errorRate,
+            @ConfigProperty(name = "app.delivery.stub.call-error-rate", defaultValue = "0") double callErrorRate,
+            @ConfigProperty(name = "app.delivery.stub.seed", defaultValue = "0") long seed
+    ) {
+        this.channels = enabled ? Set.copyOf(channels) : Set.of();
+        this.maxBatchSize = maxBatchSize;
+        this.baseLatencyMs = baseLatencyMs;
+        this.perRecipientMs = perRecipientMs;
+        this.jitterSigma = jitterSigma;
+        this.slowRate = slowRate;
+        this.slowLatencyMs = slowLatencyMs;
+        this.errorRate = errorRate;
+        this.callErrorRate = callErrorRate;
+        this.random = seed != 0 ? new Random(seed) : new Random();
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                r -> Thread.ofPlatform().daemon().name("stub-provider").unstarted(r));
+    }
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+
+    @Override
+    public Set<String> channels() {
+        return channels;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /** O stub "deduplica" por definição: nada é entregue de verdade. */
+    @Override
+    public boolean supportsHedging() {
+        return true;
+    }
+
+    @Override
+    public CompletionStage<List<SendResult>> send(String channel, List<NotificationEvent> batch) {
+        CompletableFuture<List<SendResult>> response = new CompletableFuture<>();
+        long latencyMicros = Math.round(latencyMs(batch.size()) * 1000);
+        boolean callFails = random.nextDouble() < callErrorRate;
+
+        List<SendResult> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            results.add(random.nextDouble() < errorRate
+                    ? SendResult.failed("stub: destinatário recusado")
+                    : SendResult.DELIVERED);
+        }
+
+        timer.schedule(() -> {
+            if (callFails) {
+                response.completeExceptionally(new IOException("stub: falha simulada do provedor (" + channel + ")"));
+            } else {
+                response.complete(results);
+            }
+        }, latencyMicros, TimeUnit.MICROSECONDS);
+        return response;
+    }
+
+    private double latencyMs(int recipients) {
+        double base = random.nextDouble() < slowRate
+                ? slowLatencyMs
+                : baseLatencyMs * Math.exp(jitterSigma * random.nextGaussian());
+        return base + recipients * perRecipientMs;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.vertx.mutiny.redis.client.Command;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+
+import java.util.List;
+
+/**
+ * Rate limiter Token Bucket.
+ *
+ * Estrutura no Redis:
+ *   Key:   rate_limit:tb:{userId}
+ *   Type:  String
+ *   Value: "{tokens}:{ultimoRefillMs}"  (ex: "3.4167:1739712345678")
+ *
+ * Ideia:
+ *   O balde começa cheio (limite tokens) e recebe limite/janela tokens por ms.
+ *   Cada notificação consome 1 token; sem token inteiro disponível → bloqueado.
+ *   O refill é calculado sob demanda a partir do último timestamp — nenhum
+ *   processo precisa "encher" os baldes em background.
+ */
+public class TokenBucketRateLimiter extends ScriptedRateLimiter {
+
+    private static final String KEY_SUFFIX = "tb:";
+
+    /**
+     * KEYS[1] = rate_limit:tb:{userId}
+     * ARGV    = agoraMs, capacidade, tokensPorMs, janelaMs
+     * Retorno = {permitido (0|1), restantes, resetAtMs}
+     */
+    private static final String SCRIPT = """
+            local key = KEYS[1]
+            local now = tonumber(ARGV[1])
+            local capacity = tonumber(ARGV[2])
+            local rate = tonumber(ARGV[3])
+            local window = tonumber(ARGV[4])
+
+            local tokens = capacity
+            local stored = redis.call('GET', key)
+            if stored then
+              local sep = string.find(stored, ':', 1, true)
+              local last = tonumber(string.sub(stored, sep + 1))
+              tokens = math.min(capacity, tonumber(string.sub(stored, 1, sep - 1)) + (now - last) * rate)
+            end
+
+            if tokens < 1 then
+              return {0, 0, now + math.ceil((1 - tokens) / rate)}
+            end
+
+            tokens = tokens - 1
+            redis.call('SET', key, string.format('%.4f:%d', tokens, now), 'PX', window)
+            return {1, math.floor(tokens), now + math.ceil((capacity - tokens) / rate)}
+            """;
+
+    private final String keyPrefix;
+    private final int limit;
+    private final long windowMs;
+    private final double tokensPerMs;
+
+    public TokenBucketRateLimiter(ReactiveRedisDataSource redis, int limit, long windowMs) {
+        this(redis, NAMESPACE, limit, windowMs);
+    }
+
+    /** @param namespace início das chaves (NAMESPACE, ou o de um orçamento por tipo) */
+    TokenBucketRateLimiter(ReactiveRedisDataSource redis, String namespace, int limit, long windowMs) {
+        super(redis, SCRIPT);
+        this.keyPrefix = namespace + KEY_SUFFIX;
+        this.limit = limit;
+        this.windowMs = windowMs;
+        this.tokensPerMs = (double) limit / windowMs;
+    }
+
+    @Override
+    protected RedisScript.Call call(String userId, long nowMs, String recordKey) {
+        return new RedisScript.Call(
+                List.of(keyPrefix + userId),
+                List.of(Long.toString(nowMs),
+                        Integer.toString(limit),
+                        Double.toString(tokensPerMs),
+                        Long.toString(windowMs)));
+    }
+
+    @Override
+    protected List<Request> statusRequests(String userId, long nowMs) {
+        return List.of(Request.cmd(Command.GET).arg(keyPrefix + userId));
+    }
+
+    /** Mesmo refill do script, sem consumir token. */
+    @Override
+    protected RateLimitStatus status(List<Response> replies, long nowMs) {
+        double tokens = limit;
+        Response stored = replies.get(0);
+        if (stored != null) {
+            String value = stored.toString();
+            int sep = value.indexOf(':');
+            long lastMs = Long.parseLong(value.substring(sep + 1));
+            tokens = Math.min(limit, Double.parseDouble(value.substring(0, sep)) + (nowMs - lastMs) * tokensPerMs);
+        }
+        long remaining = (long) Math.floor(tokens);
+        long resetAtMs = remaining == 0
+                ? nowMs + (long) Math.ceil((1 - tokens) / tokensPerMs)
+                : nowMs + (long) Math.ceil((limit - tokens) / tokensPerMs);
+        return new RateLimitStatus(limit - remaining, remaining, resetAtMs);
+    }
+}
@@ -0,0 +1,197 @@
+package com.arthur.kafkaimplementation.config;
+
+import com.arthur.kafkaimplementation.config.TopicProvisioner.KeyMove;
+import com.arthur.kafkaimplementation.config.TopicProvisioner.RemapReport;
+import com.arthur.kafkaimplementation.config.TopicProvisioner.TopicAdmin;
+import com.arthur.kafkaimplementation.config.TopicProvisioner.TopicState;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicProvisionerTest {
+
+    @Test
+    void movedFractionFollowsTheCommonResidues() {
+        assertEquals(0.5, TopicProvisioner.movedFraction(3, 6), 1e-9);
+        assertEquals(0.75, TopicProvisioner.movedFraction(3, 4), 1e-9);
+        assertEquals(0.0, TopicProvisioner.movedFraction(3, 3), 1e-9);
+    }
+
+    @Test
+    void reportMatchesTheFractionOverManyKeys() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            keys.add("u" + i);
+        }
+
+        RemapReport report = RemapReport.of("notifications", 3, 4, keys);
+
+        long moved = report.keys().stream().filter(KeyMove::moved).count();
+        assertEquals(report.movedFraction(), (double) moved / keys.size(), 0.02);
+        for (KeyMove move : report.keys()) {
+            assertTrue(move.from() < 3 && move.to() < 4);
+        }
+    }
+
+    @Test
+    void topicConfigsParseAsKeyValuePairs() {
+        Map<String, String> configs = KafkaConfig.parseConfigs(
+                List.of("compression.type=producer", " retention.ms = 604800000"));
+
+        assertEquals(Map.of("compression.type", "producer", "retention.ms", "604800000"), configs);
+        assertThrows(IllegalArgumentException.class, () -> KafkaConfig.parseConfigs(List.of("retention.ms")));
+    }
+
+    @Test
+    void topicAutoCreatedDuringReconcileIsExpandedAndAdjustedInTheSamePass() {
+        FakeAdmin broker = new FakeAdmin();
+        // O broker cria "notifications" com 1 partição entre o describe e o create
+        broker.autoCreateOnCreate.add("notifications");
+        TopicProvisioner provisioner = new TopicProvisioner(
+                config(Map.of("compression.type", "lz4")), broker, 60_000);
+
+        provisioner.reconcile();
+
+        assertTrue(provisioner.isReady());
+        assertNull(provisioner.lastError());
+        assertEquals(3, broker.partitions.get("notifications"));
+        assertEquals("lz4", broker.configs.get("notifications").get("compression.type"));
+        TopicState state = states(provisioner).get("notifications");
+        assertEquals(3, state.partitions());
+        assertTrue(state.note().contains("expandido: 1 → 3"), state.note());
+    }
+
+    @Test
+    void stateRecordsTheBrokerPartitionsWhenTheTopicHasMoreThanDeclared() {
+        FakeAdmin broker = new FakeAdmin();
+        broker.partitions.put("notifications", 6);
+        TopicProvisioner provisioner = new TopicProvisioner(config(Map.of()), broker, 60_000);
+
+        provisioner.reconcile();
+
+        assertEquals(6, states(provisioner).get("notifications").partitions());
+        assertEquals(6, broker.partitions.get("notifications"));
+    }
+
+    private static Map<String, TopicState> states(TopicProvisioner provisioner) {
+        Map<String, TopicState> states = new HashMap<>();
+        provisioner.topics().forEach((spec, state) -> states.put(spec.name(), state));
+        return states;
+    }
+
+    private static KafkaConfig config(Map<String, String> topicConfigs) {
+        KafkaConfig config = new KafkaConfig();
+        config.notificationsTopic = "notifications";
+        config.notificationsHighTopic = "notifications.high";
+        config.deadLetterTopic = "notifications.DLT";
+        config.parkingTopic = "notifications.parking";
+        config.provisioningEnabled = true;
+        config.replicationFactor = 1;
+        config.configs = Optional.of(topicConfigs.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue()).toList());
+        config.notificationsPartitions = 3;
+        config.notificationsConfigs = Optional.empty();
+        config.notificationsHighPartitions = 3;
+        config.notificationsHighConfigs = Optional.empty();
+        config.deadLetterPartitions = 1;
+        config.deadLetterConfigs = Optional.empty();
+        config.parkingPartitions = 1;
+        config.parkingConfigs = Optional.empty();
+        config.retryPartitions = 3;
+        config.retryConfigs = Optional.empty();
+        return config;
+    }
+
+    /** Broker em memória: partições e configs por tópico. */
+    private static final class FakeAdmin implements TopicAdmin {
+
+        private static final Node NODE = new Node(1, "localhost", 9092);
+
+        final Map<String, Integer> partitions = new HashMap<>();
+        final Map<String, Map<String, String>> configs = new HashMap<>();
+        /** Tópicos que o "auto-create" do broker cria (com 1 partição) logo antes do createTopics. */
+        final Set<String> autoCreateOnCreate = new LinkedHashSet<>();
+
+        @Override
+        public Map<String, TopicDescription> describe(Collection<String> topics) {
+            Map<String, TopicDescription> existing = new HashMap<>();
+            for (String topic : topics) {
+                Integer count = partitions.get(topic);
+                if (count != null) {
+                    List<TopicPartitionInfo> infos = new ArrayList<>();
+                    for (int p = 0; p < count; p++) {
+                        infos.add(new TopicPartitionInfo(p, NODE, List.of(NODE), List.of(NODE)));
+                    }
+                    existing.put(topic, new TopicDescription(topic, false, infos));
+                }
+            }
+            return existing;
+        }
+
+        @Override
+        public Set<String> create(List<NewTopic> topics) {
+            Set<String> alreadyThere = new LinkedHashSet<>();
+            for (NewTopic topic : topics) {
+                if (autoCreateOnCreate.contains(topic.name())) {
+                    partitions.put(topic.name(), 1);
+                }
+                if (partitions.containsKey(topic.name())) {
+                    alreadyThere.add(topic.name());
+                    continue;
+                }
+                partitions.put(topic.name(), topic.numPartitions());
+                configs.put(topic.name(), new HashMap<>(topic.configs()));
+            }
+            return alreadyThere;
+        }
+
+        @Override
+        public void createPartitions(Map<String, NewPartitions> grow) {
+            grow.forEach((topic, count) -> partitions.put(topic, count.totalCount()));
+        }
+
+        @Override
+        public Map<ConfigResource, Config> describeConfigs(Collection<ConfigResource> resources) {
+            Map<ConfigResource, Config> described = new HashMap<>();
+            for (ConfigResource resource : resources) {
+                List<ConfigEntry> entries = new ArrayList<>();
+                configs.getOrDefault(resource.name(), Map.of())
+                        .forEach((key, value) -> entries.add(new ConfigEntry(key, value)));
+                described.put(resource, new Config(entries));
+            }
+            return described;
+        }
+
+        @Override
+        public void alterConfigs(Map<ConfigResource, Collection<AlterConfigOp>> ops) {
+            ops.forEach((resource, changes) -> changes.forEach(op -> configs
+                    .computeIfAbsent(resource.name(), k -> new HashMap<>())
+                    .put(op.configEntry().name(), op.configEntry().value())));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
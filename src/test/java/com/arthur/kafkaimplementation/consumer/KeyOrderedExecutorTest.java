@@ -0,0 +1,64 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyOrderedExecutorTest {
+
+    @Test
+    void keepsOrderPerKeyAndBoundsInFlight() throws Exception {
+        int maxInFlight = 8;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try (KeyOrderedExecutor executor = new KeyOrderedExecutor(Executors.newFixedThreadPool(32), maxInFlight)) {
+            for (int i = 0; i < 500; i++) {
+                String key = "u" + (i % 7);
+                int sequence = i;
+                futures.add(executor.submit(key, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                    running.decrementAndGet();
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+            assertEquals(0, executor.activeKeys());
+        }
+
+        assertTrue(maxRunning.get() <= maxInFlight);
+        for (List<Integer> sequences : seen.values()) {
+            List<Integer> sorted = new ArrayList<>(sequences);
+            Collections.sort(sorted);
+            assertEquals(sorted, sequences);
+        }
+    }
+
+    @Test
+    void failedTaskDoesNotBlockNextTaskOfSameKey() throws Exception {
+        try (KeyOrderedExecutor executor = new KeyOrderedExecutor(Executors.newFixedThreadPool(2), 4)) {
+            CompletableFuture<Void> failed = executor.submit("u1", () -> {
+                throw new IllegalStateException("provedor fora");
+            });
+            AtomicInteger ran = new AtomicInteger();
+            CompletableFuture<Void> next = executor.submit("u1", ran::incrementAndGet);
+
+            next.join();
+            assertTrue(failed.isCompletedExceptionally());
+            assertEquals(1, ran.get());
+        }
+    }
+}
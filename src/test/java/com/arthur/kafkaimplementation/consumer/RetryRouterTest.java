@@ -0,0 +1,62 @@
+package com.arthur.kafkaimplementation.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryRouterTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private final RetryRouter router = new RetryRouter(3, "notifications", "notifications.parking");
+
+    @Test
+    void republishesWhenWindowAlreadyReopened() {
+        String destination = router.destination(NOW, NOW, 0);
+
+        assertEquals("notifications", destination);
+        assertTrue(router.isRetry(destination));
+    }
+
+    @Test
+    void picksLargestBucketThatDoesNotOvershoot() {
+        assertEquals("notifications.retry.10s", router.destination(NOW, NOW + 2_000, 0));
+        assertEquals("notifications.retry.10s", router.destination(NOW, NOW + 29_999, 0));
+        assertEquals("notifications.retry.30s", router.destination(NOW, NOW + 45_000, 0));
+        assertEquals("notifications.retry.60s", router.destination(NOW, NOW + 100_000, 0));
+    }
+
+    @Test
+    void hopsThroughBucketsUntilDue() {
+        long notBefore = NOW + 100_000;
+        long now = NOW;
+        int hops = 0;
+        for (String destination = router.destination(now, notBefore, 0);
+             !router.isRetry(destination);
+             destination = router.destination(now, notBefore, 0)) {
+            now += bucketOf(destination).delayMs();
+            hops++;
+        }
+
+        assertEquals(3, hops); // 60 s + 30 s + 10 s
+        assertEquals(notBefore, now);
+    }
+
+    @Test
+    void parksAfterMaxAttempts() {
+        String destination = router.destination(NOW, NOW, 3);
+
+        assertEquals("notifications.parking", destination);
+        assertTrue(router.isParking(destination));
+    }
+
+    private static RetryBucket bucketOf(String topic) {
+        for (RetryBucket bucket : RetryBucket.values()) {
+            if (bucket.topic().equals(topic)) {
+                return bucket;
+            }
+        }
+        throw new IllegalArgumentException(topic);
+    }
+}
@@ -0,0 +1,77 @@
+package com.arthur.kafkaimplementation.dto;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationEventBinaryCodecTest {
+
+    private static final Instant SENT_AT = Instant.parse("2026-10-16T12:34:56.789012Z");
+
+    @Test
+    void roundTripsKnownAndUnknownTypes() {
+        NotificationEvent pedido = new NotificationEvent("u1", "PEDIDO", "Seu pedido foi confirmado!", SENT_AT);
+        NotificationEvent novoType = new NotificationEvent("usuário-ç", "LEMBRETE", "Notificação — teste", SENT_AT);
+
+        assertEquals(pedido, NotificationEventBinaryCodec.decode(NotificationEventBinaryCodec.encode(pedido)));
+        assertEquals(novoType, NotificationEventBinaryCodec.decode(NotificationEventBinaryCodec.encode(novoType)));
+    }
+
+    @Test
+    void roundTripsNullFields() {
+        NotificationEvent event = new NotificationEvent("u1", null, null, null);
+
+        NotificationEvent decoded = NotificationEventBinaryCodec.decode(NotificationEventBinaryCodec.encode(event));
+
+        assertEquals("u1", decoded.userId());
+        assertNull(decoded.type());
+        assertNull(decoded.message());
+        assertNull(decoded.sentAt());
+    }
+
+    @Test
+    void keepsMicrosecondsBeforeEpoch() {
+        NotificationEvent event = new NotificationEvent("u1", "PEDIDO", "m", Instant.parse("1969-12-31T23:59:59.999999Z"));
+
+        assertEquals(event, NotificationEventBinaryCodec.decode(NotificationEventBinaryCodec.encode(event)));
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] data = NotificationEventBinaryCodec.encode(new NotificationEvent("u1", "PEDIDO", "m", SENT_AT));
+        data[1] = 2;
+
+        assertThrows(IllegalArgumentException.class, () -> NotificationEventBinaryCodec.decode(data));
+    }
+
+    @Test
+    void deserializerReadsJsonAndBinaryFromSameTopic() {
+        NotificationEvent event = new NotificationEvent("u1", "PROMOCAO", "Oferta", SENT_AT);
+
+        NotificationEventSerializer jsonSerializer = new NotificationEventSerializer();
+        jsonSerializer.configure(Map.of(), false);
+        NotificationEventSerializer binarySerializer = new NotificationEventSerializer();
+        binarySerializer.configure(Map.of(WireFormat.CONFIG, "binary"), false);
+        NotificationEventDeserializer deserializer = new NotificationEventDeserializer();
+
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] json = jsonSerializer.serialize("notifications", jsonHeaders, event);
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        byte[] binary = binarySerializer.serialize("notifications", binaryHeaders, event);
+
+        assertNull(jsonHeaders.lastHeader(WireFormat.HEADER));
+        assertEquals("bin1", new String(binaryHeaders.lastHeader(WireFormat.HEADER).value(), StandardCharsets.US_ASCII));
+        assertTrue(binary.length < json.length);
+
+        assertEquals(event, deserializer.deserialize("notifications", jsonHeaders, json));
+        assertEquals(event, deserializer.deserialize("notifications", binaryHeaders, binary));
+    }
+}
@@ -0,0 +1,109 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionServiceTest {
+
+    private final PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+    private final FixedCountRateLimiter rateLimiter = new FixedCountRateLimiter(metrics);
+    private final ManualExecutor refresher = new ManualExecutor();
+    // Limite 5, sem tolerância; só a primeira leitura vence dentro do teste
+    private final AdmissionService admission =
+            new AdmissionService(rateLimiter, metrics, true, 60_000, 0, 1000, refresher);
+
+    @Test
+    void admissionsBeforeTheFirstReadAreNotCountedTwice() {
+        assertTrue(admission.admit("u1", "PROMOCAO"));
+        assertTrue(admission.admit("u1", "PROMOCAO"));
+        assertTrue(admission.admit("u1", "PROMOCAO"));
+
+        // O consumer já contou as três quando a leitura chega ao Redis
+        rateLimiter.count = 3;
+        refresher.runPending();
+
+        assertTrue(admission.admit("u1", "PROMOCAO"));
+        assertTrue(admission.admit("u1", "PROMOCAO"));
+        assertFalse(admission.admit("u1", "PROMOCAO"));
+    }
+
+    @Test
+    void admissionsAfterTheReadStayInTheEstimate() {
+        assertTrue(admission.admit("u1", "PROMOCAO"));
+        rateLimiter.count = 1;
+        refresher.runPending();
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(admission.admit("u1", "PROMOCAO"));
+        }
+        assertFalse(admission.admit("u1", "PROMOCAO"));
+    }
+
+    /** Contagem do Redis fixada pelo teste; sem Redis por trás. */
+    private static final class FixedCountRateLimiter extends RateLimiterService {
+
+        volatile long count;
+
+        FixedCountRateLimiter(PipelineMetrics metrics) {
+            super(null, metrics, new RedisCircuitBreaker(metrics, false, 250, 50, 100, 20, 0.5, 5000, 1000),
+                    "sliding-log", 5, 60, "redis", 1000, Optional.of(List.of()), "notifications");
+        }
+
+        @Override
+        public long getCount(String userId, String type) {
+            return count;
+        }
+    }
+
+    /** Guarda as releituras até o teste mandar rodar. */
+    private static final class ManualExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+
+        void runPending() {
+            Runnable task;
+            while ((task = pending.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.copyOf(pending);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.service.NotificationSender.SendResult;
+import com.arthur.kafkaimplementation.service.PriorityLanes.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeliveryDispatcherTest {
+
+    private final ManualSender sender = new ManualSender();
+    private DeliveryDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void batchesWhatQueuedWhileTheBulkheadWasBusy() {
+        dispatcher = dispatcher(1, 10, 10_000, 10_000);
+
+        CompletableFuture<Void> first = dispatcher.dispatch(event("u0", "PEDIDO"));
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            queued.add(dispatcher.dispatch(event("u" + i, "PEDIDO")));
+        }
+        assertEquals(1, sender.calls.size());
+
+        sender.respond(0);
+
+        first.join();
+        assertEquals(2, sender.calls.size());
+        assertEquals(5, sender.calls.get(1).size());
+        sender.respond(1);
+        queued.forEach(CompletableFuture::join);
+    }
+
+    @Test
+    void rejectsImmediatelyWhenTheQueueIsFull() {
+        dispatcher = dispatcher(1, 2, 10_000, 10_000);
+
+        dispatcher.dispatch(event("u0", "PEDIDO"));
+        dispatcher.dispatch(event("u1", "PEDIDO"));
+        dispatcher.dispatch(event("u2", "PEDIDO"));
+        CompletableFuture<Void> rejected = dispatcher.dispatch(event("u3", "PEDIDO"));
+
+        CompletionException error = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(DeliveryFailedException.class, error.getCause());
+    }
+
+    @Test
+    void hedgeWinsWhenThePrimaryIsSlow() throws Exception {
+        dispatcher = dispatcher(4, 10, 10_000, 20);
+
+        CompletableFuture<Void> result = dispatcher.dispatch(event("u1", "PEDIDO"));
+        waitForCalls(2);
+        sender.respond(1);
+
+        result.get(1, TimeUnit.SECONDS);
+        assertEquals(sender.calls.get(0), sender.calls.get(1));
+    }
+
+    @Test
+    void retriesOnceAfterAFailureThenGivesUp() {
+        dispatcher = dispatcher(4, 10, 10_000, 10_000);
+
+        CompletableFuture<Void> result = dispatcher.dispatch(event("u1", "PEDIDO"));
+        sender.fail(0);
+        assertEquals(2, sender.calls.size());
+        sender.fail(1);
+
+        assertThrows(CompletionException.class, result::join);
+        assertEquals(2, sender.calls.size());
+    }
+
+    @Test
+    void timesOutWhenTheProviderNeverAnswers() {
+        sender.hedging = false;
+        dispatcher = dispatcher(4, 10, 50, 10);
+
+        CompletableFuture<Void> result = dispatcher.dispatch(event("u1", "PEDIDO"));
+
+        CompletionException error = assertThrows(CompletionException.class, result::join);
+        assertTrue(error.getCause().getMessage().startsWith("Timeout"));
+        assertEquals(1, sender.calls.size());
+    }
+
+    @Test
+    void aWholeConsumerBatchIsQueuedWithoutWaitingForTheProvider() {
+        dispatcher = dispatcher(1, 1000, 10_000, 10_000);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            results.add(dispatcher.dispatch(event("u" + i, "AVISO")));
+        }
+
+        // Nada respondeu ainda e o lote inteiro já está com o provedor
+        assertEquals(1, sender.calls.size());
+        assertEquals(499, dispatcher.waiting(Lane.LOW));
+        for (int call = 0; call < 6; call++) {
+            sender.respond(call);
+        }
+        assertEquals(List.of(1, 100, 100, 100, 100, 99), sender.calls.stream().map(List::size).toList());
+        results.forEach(CompletableFuture::join);
+    }
+
+    @Test
+    void highLaneTakesTheNextFreeSlotAheadOfQueuedLowTraffic() {
+        dispatcher = dispatcher(1, 100, 10_000, 10_000);
+
+        dispatcher.dispatch(event("u0", "AVISO"));
+        for (int i = 1; i <= 3; i++) {
+            dispatcher.dispatch(event("u" + i, "AVISO"));
+        }
+        CompletableFuture<Void> order = dispatcher.dispatch(event("u9", "PEDIDO"));
+
+        sender.respond(0);
+
+        assertEquals(List.of("u9"), sender.calls.get(1).stream().map(NotificationEvent::userId).toList());
+        sender.respond(1);
+        order.join();
+        assertEquals(3, sender.calls.get(2).size());
+    }
+
+    @Test
+    void unknownChannelFailsWithoutCallingAnyProvider() {
+        dispatcher = dispatcher(4, 10, 10_000, 10_000);
+
+        CompletableFuture<Void> result = dispatcher.dispatch(event("u1", "PROMOCAO"));
+
+        assertThrows(CompletionException.class, result::join);
+        assertTrue(sender.calls.isEmpty());
+    }
+
+    private DeliveryDispatcher dispatcher(int maxConcurrent, int maxQueue, long timeoutMs, long hedgeAfterMs) {
+        return new DeliveryDispatcher(List.of(sender), new PipelineMetrics(new SimpleMeterRegistry()),
+                new PriorityLanes(true, Set.of("PEDIDO"), "notifications", "notifications.high"),
+                new LaneScheduler(4, 1), List.of("PEDIDO:push", "PROMOCAO:email"), "push", 100,
+                maxConcurrent, maxQueue, timeoutMs, hedgeAfterMs);
+    }
+
+    private void waitForCalls(int calls) throws InterruptedException {
+        for (int i = 0; i < 200 && sender.calls.size() < calls; i++) {
+            Thread.sleep(5);
+        }
+        assertEquals(calls, sender.calls.size());
+    }
+
+    private static NotificationEvent event(String userId, String type) {
+        return new NotificationEvent(userId, type, "Notificacao", Instant.now());
+    }
+
+    /** Provedor que só responde quando o teste manda. */
+    private static final class ManualSender implements NotificationSender {
+
+        final List<List<NotificationEvent>> calls = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<List<SendResult>>> responses = new CopyOnWriteArrayList<>();
+        volatile boolean hedging = true;
+
+        @Override
+        public String name() {
+            return "manual";
+        }
+
+        @Override
+        public Set<String> channels() {
+            return Set.of("push");
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return 100;
+        }
+
+        @Override
+        public boolean supportsHedging() {
+            return hedging;
+        }
+
+        @Override
+        public CompletionStage<List<SendResult>> send(String channel, List<NotificationEvent> batch) {
+            CompletableFuture<List<SendResult>> response = new CompletableFuture<>();
+            calls.add(batch);
+            responses.add(response);
+            return response;
+        }
+
+        void respond(int call) {
+            responses.get(call).complete(Collections.nCopies(calls.get(call).size(), SendResult.DELIVERED));
+        }
+
+        void fail(int call) {
+            responses.get(call).completeExceptionally(new IllegalStateException("provedor fora do ar"));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.producer.DeadLetterProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DigestCoalescerTest {
+
+    private final List<NotificationEvent> delivered = new CopyOnWriteArrayList<>();
+    private final List<NotificationEvent> deadLettered = new CopyOnWriteArrayList<>();
+    private volatile boolean allow = true;
+
+    private final DigestCoalescer coalescer = new DigestCoalescer(
+            new SwitchRateLimiter(),
+            new RecordingDeliveryService(),
+            new RecordingDeadLetterProducer(),
+            new PipelineMetrics(new SimpleMeterRegistry()),
+            true, Set.of("PROMOCAO"), 3, 2, 60_000, 10);
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void absorbsOnlyConfiguredTypesUpToMaxEvents() {
+        allow = false;
+        long later = System.currentTimeMillis() + 60_000;
+
+        assertFalse(coalescer.absorb(event("u1", "PEDIDO", 1), 0, later, 0));
+        assertTrue(coalescer.absorb(event("u1", "PROMOCAO", 1), 0, later, 0));
+        assertTrue(coalescer.absorb(event("u1", "PROMOCAO", 2), 0, later, 0));
+        assertTrue(coalescer.absorb(event("u1", "PROMOCAO", 3), 0, later, 0));
+        assertFalse(coalescer.absorb(event("u1", "PROMOCAO", 4), 0, later, 0));
+    }
+
+    @Test
+    void evictsOldestDigestToDeadLetterWhenFull() {
+        allow = false;
+        long later = System.currentTimeMillis() + 60_000;
+
+        coalescer.absorb(event("u1", "PROMOCAO", 1), 0, later, 0);
+        coalescer.absorb(event("u1", "PROMOCAO", 2), 0, later, 0);
+        coalescer.absorb(event("u2", "PROMOCAO", 1), 0, later, 0);
+        coalescer.absorb(event("u3", "PROMOCAO", 1), 0, later, 0);
+
+        assertEquals(2, deadLettered.size());
+        assertTrue(deadLettered.stream().allMatch(e -> e.userId().equals("u1")));
+    }
+
+    @Test
+    void emitsSingleDigestWhenWindowReopens() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        coalescer.absorb(event("u1", "PROMOCAO", 1), 0, now, 0);
+        coalescer.absorb(event("u1", "PROMOCAO", 2), 0, now, 0);
+        coalescer.absorb(event("u1", "PROMOCAO", 3), 0, now, 0);
+
+        for (int i = 0; i < 200 && delivered.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, delivered.size());
+        assertTrue(delivered.get(0).message().startsWith("Você tem 3 novas notificações"));
+        assertEquals(Instant.ofEpochMilli(1), delivered.get(0).sentAt());
+        assertTrue(deadLettered.isEmpty());
+    }
+
+    @Test
+    void revokedPartitionDigestsGoToDeadLetter() {
+        allow = false;
+        long later = System.currentTimeMillis() + 60_000;
+        coalescer.absorb(event("u1", "PROMOCAO", 1), 0, later, 0);
+        coalescer.absorb(event("u2", "PROMOCAO", 1), 1, later, 0);
+
+        coalescer.onPartitionsRevoked(List.of(1));
+
+        assertEquals(1, deadLettered.size());
+        assertEquals("u2", deadLettered.get(0).userId());
+    }
+
+    private static NotificationEvent event(String userId, String type, int n) {
+        return new NotificationEvent(userId, type, "Notificacao #" + n, Instant.ofEpochMilli(n));
+    }
+
+    private final class SwitchRateLimiter implements RateLimiter {
+        @Override
+        public RateLimitDecision check(RateLimitRequest request) {
+            return new RateLimitDecision(allow, 0, System.currentTimeMillis() + 60_000);
+        }
+
+        @Override
+        public Uni<RateLimitDecision> checkAsync(RateLimitRequest request) {
+            return Uni.createFrom().item(check(request));
+        }
+
+        @Override
+        public long getCount(String userId) {
+            return 0;
+        }
+
+        @Override
+        public List<RateLimitStatus> statusAll(List<String> userIds) {
+            return List.of();
+        }
+    }
+
+    private final class RecordingDeliveryService extends NotificationDeliveryService {
+        @Override
+        public void deliver(NotificationEvent event) {
+            delivered.add(event);
+        }
+    }
+
+    private final class RecordingDeadLetterProducer extends DeadLetterProducer {
+        @Override
+        public CompletionStage<Void> send(NotificationEvent event, long retryAtMs, int attempt) {
+            deadLettered.add(event);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
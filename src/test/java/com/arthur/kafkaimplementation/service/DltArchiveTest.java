@@ -0,0 +1,165 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.service.DltArchive.ArchivedNotification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DltArchiveTest {
+
+    /** ~50 B por registro: 80 mil registros ocupam 4 segmentos de 1 MB. */
+    private static final int RECORDS = 80_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsAUsersRecordsAcrossSealedAndActiveSegments() {
+        DltArchive archive = archive(16);
+        fill(archive, RECORDS);
+
+        assertTrue(archive.stats().segments() >= 3);
+        List<ArchivedNotification> found = archive.findByUser("u7", 0, Long.MAX_VALUE, 10_000);
+
+        assertEquals(RECORDS / 100, found.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals("u7", found.get(i).event().userId());
+            assertEquals("#" + (7 + i * 100), found.get(i).event().message());
+            assertEquals(3, found.get(i).attempt());
+        }
+        archive.shutdown();
+    }
+
+    @Test
+    void relativeDirectoryIsRejectedWhenEnabled() {
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new DltArchive(metrics, true, Path.of("data/dlt-archive"), 1, 2, 60_000));
+        assertFalse(new DltArchive(metrics, false, Path.of("data/dlt-archive"), 1, 2, 60_000).isEnabled());
+    }
+
+    @Test
+    void scanFollowsArrivalOrderAndStopsWhenAsked() {
+        DltArchive archive = archive(16);
+        fill(archive, RECORDS);
+
+        List<String> messages = new ArrayList<>();
+        archive.scan(0, Long.MAX_VALUE, Set.of(), record -> {
+            messages.add(record.event().message());
+            return messages.size() < 25_000;
+        });
+
+        assertEquals(25_000, messages.size());
+        assertEquals("#0", messages.get(0));
+        assertEquals("#24999", messages.get(24_999));
+        archive.shutdown();
+    }
+
+    @Test
+    void reopenRebuildsTheIndexAndIgnoresATornTail() throws IOException {
+        DltArchive archive = archive(16);
+        fill(archive, RECORDS);
+        long records = archive.stats().records();
+        archive.shutdown();
+
+        Path active = lastLog();
+        int end = endOf(active);
+        try (FileChannel channel = FileChannel.open(active, StandardOpenOption.WRITE)) {
+            // Registro cortado: tamanho gravado, CRC e payload não
+            channel.write(ByteBuffer.allocate(4).putInt(0, 40), end);
+        }
+
+        DltArchive reopened = archive(16);
+        assertEquals(records, reopened.stats().records());
+        assertEquals(RECORDS / 100, reopened.findByUser("u42", 0, Long.MAX_VALUE, 10_000).size());
+
+        reopened.append(event("u42", "#depois"), 0, 0);
+        List<ArchivedNotification> found = reopened.findByUser("u42", 0, Long.MAX_VALUE, 10_000);
+        assertEquals("#depois", found.get(found.size() - 1).event().message());
+        reopened.shutdown();
+    }
+
+    @Test
+    void reopenRecoversARecordWithoutUserId() {
+        DltArchive archive = archive(16);
+        archive.append(event(null, "#sem-usuario"), 0, 0);
+        archive.append(event("", "#vazio"), 0, 0);
+        archive.shutdown();
+
+        DltArchive reopened = archive(16);
+
+        assertEquals(2, reopened.stats().records());
+        // "" tem o mesmo hash 0 do userId nulo: a busca filtra pelo userId de verdade
+        List<ArchivedNotification> found = reopened.findByUser("", 0, Long.MAX_VALUE, 10);
+        assertEquals(1, found.size());
+        assertEquals("#vazio", found.get(0).event().message());
+        reopened.shutdown();
+    }
+
+    @Test
+    void retentionDeletesTheOldestSegments() throws IOException {
+        DltArchive archive = archive(2);
+        fill(archive, RECORDS);
+
+        assertEquals(2, archive.stats().segments());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.filter(path -> path.toString().endsWith(".log")).count());
+        }
+        List<ArchivedNotification> found = archive.findByUser("u0", 0, Long.MAX_VALUE, 10_000);
+        assertTrue(found.size() < RECORDS / 100);
+        assertEquals("#" + (RECORDS - 100), found.get(found.size() - 1).event().message());
+        archive.shutdown();
+    }
+
+    private DltArchive archive(int maxSegments) {
+        DltArchive archive = new DltArchive(
+                new PipelineMetrics(new SimpleMeterRegistry()), true, dir, 1, maxSegments, 60_000);
+        archive.init();
+        return archive;
+    }
+
+    private static void fill(DltArchive archive, int records) {
+        for (int i = 0; i < records; i++) {
+            archive.append(event("u" + (i % 100), "#" + i), 1_000, 3);
+        }
+    }
+
+    private static NotificationEvent event(String userId, String message) {
+        return new NotificationEvent(userId, "PROMOCAO", message, Instant.parse("2024-05-01T14:00:00Z"));
+    }
+
+    /** Fim dos dados do log: segue os prefixos de tamanho até o primeiro zero. */
+    private static int endOf(Path log) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(log));
+        int at = 0;
+        while (at + DltArchiveSegment.HEADER <= data.limit() && data.getInt(at) > 0) {
+            at += DltArchiveSegment.HEADER + data.getInt(at);
+        }
+        return at;
+    }
+
+    private Path lastLog() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(".log")).sorted().reduce((a, b) -> b).orElseThrow();
+        }
+    }
+}
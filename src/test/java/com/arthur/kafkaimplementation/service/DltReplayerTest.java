@@ -0,0 +1,69 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.dto.NotificationEvent;
+import com.arthur.kafkaimplementation.producer.RetryPublisher;
+import com.arthur.kafkaimplementation.service.DltReplayer.ReplayJob;
+import com.arthur.kafkaimplementation.service.DltReplayer.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DltReplayerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aNotificationArchivedOnSeveralAttemptsIsReplayedOnce() throws InterruptedException {
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+        DltArchive archive = new DltArchive(metrics, true, dir, 1, 2, 60_000);
+        archive.init();
+        NotificationEvent campaign = event("u1", "Campanha das 14h");
+        NotificationEvent other = event("u2", "Campanha das 14h");
+        for (int attempt = 0; attempt <= 2; attempt++) {
+            archive.append(campaign, 1_000, attempt);
+        }
+        archive.append(other, 1_000, 0);
+
+        RecordingPublisher publisher = new RecordingPublisher();
+        DltReplayer replayer = new DltReplayer(archive, publisher,
+                new PriorityLanes(true, Set.of("PEDIDO"), "notifications", "notifications.high"), metrics, 1000, 16);
+        ReplayJob job = replayer.start(0, Long.MAX_VALUE, Set.of(), 1000);
+        while (job.state() == State.RUNNING) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(State.DONE, job.state());
+        assertEquals(List.of(campaign, other), publisher.published);
+        assertEquals(2, job.duplicates());
+        assertEquals(2, job.published());
+        archive.shutdown();
+    }
+
+    private static NotificationEvent event(String userId, String message) {
+        return new NotificationEvent(userId, "PROMOCAO", message, Instant.parse("2024-05-01T14:00:00Z"));
+    }
+
+    /** Confirma cada publicação na hora, guardando o que foi publicado. */
+    private static final class RecordingPublisher extends RetryPublisher {
+
+        final List<NotificationEvent> published = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletionStage<Void> publish(String topic, NotificationEvent event, int attempt, long notBeforeMs,
+                                             boolean charged) {
+            published.add(event);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
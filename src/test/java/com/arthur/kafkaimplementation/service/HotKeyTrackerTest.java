@@ -0,0 +1,86 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotKeyTrackerTest {
+
+    private final HotKeyTracker tracker =
+            new HotKeyTracker(new PipelineMetrics(new SimpleMeterRegistry()), true, 60, 3, 1024, 4);
+
+    @Test
+    void heavyUserIsHottestKeyOfItsPartition() {
+        for (int i = 0; i < 1000; i++) {
+            tracker.record(0, "usuario-" + i);
+            if (i % 2 == 0) {
+                tracker.record(0, "quente");
+            }
+        }
+
+        HotKeyTracker.PartitionStats partition = tracker.snapshot().get(0);
+        HotKeyTracker.HotKey hottest = partition.hotKeys().get(0);
+
+        assertEquals(1500, partition.messages());
+        assertEquals("quente", hottest.userId());
+        // Count-Min nunca subestima; com 1500 mensagens em 1024 colunas o excesso é pequeno
+        assertTrue(hottest.estimate() >= 500 && hottest.estimate() < 520, "estimativa=" + hottest.estimate());
+        assertEquals(1.0 / 3, hottest.share(), 0.02);
+    }
+
+    @Test
+    void topKStaysBoundedRegardlessOfUserCount() {
+        for (int i = 0; i < 50_000; i++) {
+            tracker.record(1, "usuario-" + i);
+        }
+
+        assertEquals(3, tracker.snapshot().get(0).hotKeys().size());
+    }
+
+    @Test
+    void idleAssignedPartitionCountsTowardsSkew() {
+        tracker.onPartitionsAssigned(List.of(0, 1, 2));
+        for (int i = 0; i < 900; i++) {
+            tracker.record(0, "usuario-" + (i % 7));
+        }
+        for (int i = 0; i < 100; i++) {
+            tracker.record(1, "usuario-" + (i % 7));
+        }
+
+        List<HotKeyTracker.PartitionStats> stats = tracker.snapshot();
+
+        assertEquals(3, stats.size());
+        assertEquals(0, stats.get(2).messages());
+        // 900 / média(900, 100, 0) = 2.7
+        assertEquals(2.7, HotKeyTracker.skewRatio(stats), 0.1);
+    }
+
+    @Test
+    void revokedPartitionDisappears() {
+        tracker.record(0, "u1");
+        tracker.record(1, "u1");
+
+        tracker.onPartitionsRevoked(List.of(0));
+
+        assertEquals(1, tracker.snapshot().size());
+        assertEquals(1, tracker.snapshot().get(0).partition());
+    }
+
+    @Test
+    void skewGaugeIsRegisteredAfterConstruction() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HotKeyTracker tracked = new HotKeyTracker(new PipelineMetrics(registry), true, 60, 3, 1024, 4);
+        assertNull(registry.find("notifications.partition.skew").gauge());
+
+        tracked.registerGauges();
+        tracked.onPartitionsAssigned(List.of(0, 1));
+        tracked.record(0, "u1");
+
+        assertEquals(2.0, registry.find("notifications.partition.skew").gauge().value(), 0.01);
+    }
+}
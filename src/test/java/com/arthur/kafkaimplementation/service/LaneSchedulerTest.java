@@ -0,0 +1,69 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.service.PriorityLanes.Lane;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LaneSchedulerTest {
+
+    private final LaneScheduler.Rotation rotation = new LaneScheduler(4, 1).rotation();
+    private final int[] waiting = new int[Lane.values().length];
+
+    @Test
+    void noLaneWhenNothingIsWaiting() {
+        assertNull(rotation.next(lane -> waiting[lane.ordinal()] > 0));
+    }
+
+    @Test
+    void highLaneGetsWeightedShareWithoutStarvingLow() {
+        waiting[Lane.LOW.ordinal()] = 10;
+        waiting[Lane.HIGH.ordinal()] = 10;
+
+        List<Lane> order = take(10);
+
+        // 4:1 — HIGH leva 8 das 10 primeiras vagas, mesmo com a LOW na fila desde antes
+        assertEquals(8, order.stream().filter(lane -> lane == Lane.HIGH).count());
+        // LOW nunca fica mais de 4 vagas seguidas sem receber uma
+        for (int i = 0; i + 5 <= order.size(); i++) {
+            assertTrue(order.subList(i, i + 5).contains(Lane.LOW), "janela sem LOW: " + order);
+        }
+    }
+
+    @Test
+    void drainsRemainingLaneOnceTheOtherIsEmpty() {
+        waiting[Lane.HIGH.ordinal()] = 1;
+        waiting[Lane.LOW.ordinal()] = 3;
+
+        assertEquals(List.of(Lane.HIGH, Lane.LOW, Lane.LOW, Lane.LOW), take(4));
+        assertEquals(0, waiting[Lane.LOW.ordinal()]);
+    }
+
+    @Test
+    void routesHighTypesToTheirOwnTopic() {
+        PriorityLanes lanes = new PriorityLanes(true, Set.of("PEDIDO"), "notifications", "notifications.high");
+        PriorityLanes disabled = new PriorityLanes(false, Set.of("PEDIDO"), "notifications", "notifications.high");
+
+        assertEquals("notifications.high", lanes.topicFor("PEDIDO"));
+        assertEquals("notifications", lanes.topicFor("PROMOCAO"));
+        assertEquals(Lane.LOW, lanes.laneOf(null));
+        assertEquals("notifications", disabled.topicFor("PEDIDO"));
+    }
+
+    /** Cada vaga tira um da fila da faixa escolhida. */
+    private List<Lane> take(int slots) {
+        List<Lane> order = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            Lane lane = rotation.next(l -> waiting[l.ordinal()] > 0);
+            waiting[lane.ordinal()]--;
+            order.add(lane);
+        }
+        return order;
+    }
+}
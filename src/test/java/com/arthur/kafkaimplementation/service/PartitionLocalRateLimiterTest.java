@@ -0,0 +1,129 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.service.PartitionLocalRateLimiter.SnapshotStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionLocalRateLimiterTest {
+
+    private static final String PARTITION_0 = "rate_limit:p:notifications:0";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemorySnapshots snapshots = new InMemorySnapshots();
+    // 5 por minuto: cada notificação empurra o TAT 12 s para a frente
+    private final PartitionLocalRateLimiter limiter =
+            new PartitionLocalRateLimiter(snapshots, "notifications", 5, 60_000, 3_600_000, now::get);
+
+    @AfterEach
+    void close() {
+        limiter.close();
+    }
+
+    @Test
+    void partitionNotOwnedHasNoLocalDecision() {
+        limiter.assign(List.of(0));
+
+        assertNull(limiter.check("u1", 1));
+        assertEquals(-1, limiter.getCount("u1"));
+    }
+
+    @Test
+    void assignLoadsTheSnapshotAndSkipsExpiredUsers() {
+        snapshots.hashes.put(PARTITION_0, new HashMap<>(Map.of(
+                "cheio", now.get() + 60_000,
+                "vencido", now.get() - 1)));
+
+        limiter.assign(List.of(0));
+
+        assertFalse(limiter.check("cheio", 0).allowed());
+        assertEquals(-1, limiter.getCount("vencido"));
+        assertTrue(limiter.check("vencido", 0).allowed());
+    }
+
+    @Test
+    void revokeFlushesTheCountAndTheNextOwnerContinuesFromIt() {
+        limiter.assign(List.of(0));
+        limiter.check("u1", 0);
+        limiter.check("u1", 0);
+
+        limiter.revoke(List.of(0));
+
+        assertNull(limiter.check("u1", 0));
+        assertEquals(now.get() + 24_000, snapshots.hashes.get(PARTITION_0).get("u1"));
+        assertEquals(65_000, snapshots.ttls.get(PARTITION_0));
+
+        PartitionLocalRateLimiter nextOwner =
+                new PartitionLocalRateLimiter(snapshots, "notifications", 5, 60_000, 3_600_000, now::get);
+        nextOwner.assign(List.of(0));
+        assertEquals(2, nextOwner.getCount("u1"));
+        nextOwner.close();
+    }
+
+    @Test
+    void lostPartitionIsDroppedWithoutFlush() {
+        limiter.assign(List.of(0));
+        limiter.check("u1", 0);
+
+        limiter.lose(List.of(0));
+
+        assertNull(limiter.check("u1", 0));
+        assertFalse(snapshots.hashes.containsKey(PARTITION_0));
+    }
+
+    @Test
+    void flushRemovesUsersWhoseQuotaFullyReturned() {
+        limiter.assign(List.of(0));
+        limiter.check("u1", 0);
+        limiter.close();
+        assertTrue(snapshots.hashes.get(PARTITION_0).containsKey("u1"));
+
+        now.addAndGet(12_001);
+        limiter.close();
+
+        assertFalse(snapshots.hashes.get(PARTITION_0).containsKey("u1"));
+        assertEquals(-1, limiter.getCount("u1"));
+    }
+
+    @Test
+    void snapshotFailureStartsThePartitionEmpty() {
+        snapshots.failing = true;
+
+        limiter.assign(List.of(0));
+
+        assertTrue(limiter.check("u1", 0).allowed());
+    }
+
+    /** Hashes do snapshot em memória, com o último TTL gravado por chave. */
+    private static final class InMemorySnapshots implements SnapshotStore {
+
+        final Map<String, Map<String, Long>> hashes = new HashMap<>();
+        final Map<String, Long> ttls = new HashMap<>();
+        boolean failing;
+
+        @Override
+        public Map<String, Long> load(String key) {
+            if (failing) {
+                throw new IllegalStateException("Redis fora do ar");
+            }
+            return Map.copyOf(hashes.getOrDefault(key, Map.of()));
+        }
+
+        @Override
+        public void save(String key, Map<String, Long> changed, List<String> expired, long ttlMs) {
+            Map<String, Long> hash = hashes.computeIfAbsent(key, k -> new HashMap<>());
+            hash.putAll(changed);
+            expired.forEach(hash::remove);
+            ttls.put(key, ttlMs);
+        }
+    }
+}
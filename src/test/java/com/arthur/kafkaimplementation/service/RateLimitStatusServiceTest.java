@@ -0,0 +1,127 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitStatusServiceTest {
+
+    private final AtomicLong nowMs = new AtomicLong(1_000);
+    private final CountingRateLimiter limiter = new CountingRateLimiter();
+
+    @Test
+    void repeatedPollingWithinTheTtlIsServedFromTheCache() {
+        RateLimitStatusService service = service(500, 100);
+
+        service.statusOf(List.of("u1", "u2"));
+        nowMs.addAndGet(499);
+        service.statusOf(List.of("u2", "u1"));
+
+        assertEquals(List.of(List.of("u1", "u2")), limiter.calls);
+
+        nowMs.addAndGet(1);
+        service.statusOf(List.of("u1"));
+
+        assertEquals(List.of(List.of("u1", "u2"), List.of("u1")), limiter.calls);
+    }
+
+    @Test
+    void onlyMissesGoToTheLimiterInASingleCall() {
+        RateLimitStatusService service = service(500, 100);
+        service.statusOf(List.of("u2"));
+
+        Map<String, RateLimitStatus> statuses = service.statusOf(List.of("u1", "u2", "u3", "u1"));
+
+        assertEquals(List.of("u1", "u2", "u3"), List.copyOf(statuses.keySet()));
+        assertEquals(List.of(List.of("u2"), List.of("u1", "u3")), limiter.calls);
+        assertEquals(2, statuses.get("u2").count());
+    }
+
+    @Test
+    void zeroTtlDisablesTheCache() {
+        RateLimitStatusService service = service(0, 100);
+
+        service.statusOf(List.of("u1"));
+        service.statusOf(List.of("u1"));
+
+        assertEquals(2, limiter.calls.size());
+    }
+
+    @Test
+    void fullCacheDropsExpiredEntriesFirst() {
+        RateLimitStatusService service = service(500, 2);
+        service.statusOf(List.of("u1"));
+        nowMs.addAndGet(400);
+        service.statusOf(List.of("u2"));
+        nowMs.addAndGet(200);
+
+        // u1 venceu e sai; u2 continua em cache
+        service.statusOf(List.of("u3"));
+        service.statusOf(List.of("u2"));
+
+        assertEquals(List.of(List.of("u1"), List.of("u2"), List.of("u3")), limiter.calls);
+    }
+
+    @Test
+    void gcraStatusMatchesWhatTheNextCheckWouldDecide() {
+        LocalGcra gcra = new LocalGcra(5, 60_000);
+        long now = 1_000_000;
+
+        for (int i = 0; i < 3; i++) {
+            gcra.check("u1", now);
+        }
+        RateLimitStatus partial = gcra.status("u1", now);
+        assertEquals(3, partial.count());
+        assertEquals(2, partial.remaining());
+
+        gcra.check("u1", now);
+        gcra.check("u1", now);
+        RateLimitStatus full = gcra.status("u1", now);
+        RateLimitDecision blocked = gcra.check("u1", now);
+
+        assertEquals(0, full.remaining());
+        assertEquals(blocked.resetAtMs(), full.resetAtMs());
+        assertEquals(1, gcra.status("u1", blocked.resetAtMs()).remaining());
+    }
+
+    private RateLimitStatusService service(long cacheMs, int maxCachedUsers) {
+        return new RateLimitStatusService(limiter, new PipelineMetrics(new SimpleMeterRegistry()),
+                cacheMs, 1_000, maxCachedUsers, nowMs::get);
+    }
+
+    /** Registra cada statusAll; a contagem devolvida é o número do usuário ("u2" → 2). */
+    private static final class CountingRateLimiter implements RateLimiter {
+
+        final List<List<String>> calls = new ArrayList<>();
+
+        @Override
+        public List<RateLimitStatus> statusAll(List<String> userIds) {
+            calls.add(List.copyOf(userIds));
+            return userIds.stream()
+                    .map(userId -> new RateLimitStatus(Long.parseLong(userId.substring(1)), 0, 0))
+                    .toList();
+        }
+
+        @Override
+        public RateLimitDecision check(RateLimitRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Uni<RateLimitDecision> checkAsync(RateLimitRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getCount(String userId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.arthur.kafkaimplementation.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimiterServiceTest {
+
+    private final PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void typeBudgetKeepsItsOwnLimit() {
+        RateLimiterService service = service(List.of("PEDIDO:20", " SEGURANCA : 3 "));
+
+        assertEquals(20, service.getLimit("PEDIDO"));
+        assertEquals(3, service.getLimit("SEGURANCA"));
+        assertEquals(5, service.getLimit("PROMOCAO"));
+        assertEquals("PEDIDO", service.budgetOf("PEDIDO"));
+    }
+
+    @Test
+    void typeBudgetWithoutAPositiveLimitIsRejected() {
+        for (String entry : List.of("PEDIDO:0", "PEDIDO:-1", "PEDIDO:vinte", "PEDIDO:")) {
+            assertThrows(IllegalArgumentException.class, () -> service(List.of(entry)), entry);
+        }
+    }
+
+    private RateLimiterService service(List<String> typeBudgets) {
+        return new RateLimiterService(null, metrics,
+                new RedisCircuitBreaker(metrics, false, 250, 50, 100, 20, 0.5, 5000, 1000),
+                "sliding-log", 5, 60, "redis", 1000, Optional.of(typeBudgets), "notifications");
+    }
+}
@@ -0,0 +1,42 @@
+package com.arthur.kafkaimplementation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordKeyTest {
+
+    @Test
+    void sameRecordAlwaysGivesTheSameKey() {
+        String first = RecordKey.of("notifications", 2, 1_234_567);
+
+        assertEquals(first, RecordKey.of("notifications", 2, 1_234_567));
+        assertTrue(first.startsWith("qglj.2."));
+        assertTrue(first.length() <= 14);
+    }
+
+    @Test
+    void topicPartitionAndOffsetAllSeparateKeys() {
+        String key = RecordKey.of("notifications", 0, 42);
+
+        assertNotEquals(key, RecordKey.of("notifications", 0, 43));
+        assertNotEquals(key, RecordKey.of("notifications", 1, 42));
+        assertNotEquals(key, RecordKey.of("notifications.high", 0, 42));
+    }
+
+    @Test
+    void uniqueKeysNeverRepeatNorLookLikeARecord() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            String key = RecordKey.unique();
+            assertTrue(keys.add(key));
+            assertFalse(Character.isLetterOrDigit(key.charAt(0)));
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.arthur.kafkaimplementation.service;
+
+import com.arthur.kafkaimplementation.service.RedisCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(300);
+
+    private final AtomicLong nowMs = new AtomicLong(1_000);
+    private final RedisCircuitBreaker breaker = new RedisCircuitBreaker(
+            new PipelineMetrics(new SimpleMeterRegistry()), true, 250, 50, 10, 4, 0.5, 5_000, 1_000, nowMs::get);
+
+    @AfterEach
+    void tearDown() {
+        breaker.shutdown();
+    }
+
+    @Test
+    void slowCallsOpenTheCircuitEvenWithoutErrors() {
+        calls(2, FAST);
+        calls(1, SLOW);
+        assertEquals(State.CLOSED, breaker.state());
+
+        calls(1, SLOW);
+
+        assertEquals(State.OPEN, breaker.state());
+        assertEquals(RedisCircuitBreaker.DENIED, breaker.tryAcquire());
+    }
+
+    @Test
+    void staysClosedBelowMinCalls() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure(breaker.tryAcquire());
+        }
+
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void onlyTheLastWindowCallsCount() {
+        calls(1_000, FAST);
+
+        calls(5, SLOW);
+
+        assertEquals(State.OPEN, breaker.state());
+    }
+
+    @Test
+    void onlyOneProbeAfterOpenMsAndAGoodProbeCloses() throws InterruptedException {
+        CountDownLatch reconciled = new CountDownLatch(1);
+        breaker.onClose(reconciled::countDown);
+        calls(4, SLOW);
+
+        nowMs.addAndGet(4_999);
+        assertEquals(RedisCircuitBreaker.DENIED, breaker.tryAcquire());
+
+        nowMs.addAndGet(1);
+        long probe = breaker.tryAcquire();
+        assertTrue(probe > 0);
+        assertEquals(State.HALF_OPEN, breaker.state());
+        assertEquals(RedisCircuitBreaker.DENIED, breaker.tryAcquire());
+
+        breaker.onSuccess(probe, FAST);
+
+        assertEquals(State.CLOSED, breaker.state());
+        assertTrue(reconciled.await(1, TimeUnit.SECONDS));
+        assertEquals(RedisCircuitBreaker.CLOSED_CALL, breaker.tryAcquire());
+    }
+
+    @Test
+    void callAcquiredWhileClosedDoesNotDecideTheProbe() {
+        long lateGood = breaker.tryAcquire();
+        long lateBad = breaker.tryAcquire();
+        calls(4, SLOW);
+        nowMs.addAndGet(5_000);
+        long probe = breaker.tryAcquire();
+        assertEquals(State.HALF_OPEN, breaker.state());
+
+        // Terminam durante o HALF_OPEN, mas foram ao Redis com o circuito fechado
+        breaker.onSuccess(lateGood, FAST);
+        assertEquals(State.HALF_OPEN, breaker.state());
+        breaker.onFailure(lateBad);
+        assertEquals(State.HALF_OPEN, breaker.state());
+
+        breaker.onFailure(probe);
+        assertEquals(State.OPEN, breaker.state());
+    }
+
+    @Test
+    void badProbeReopensForAnotherOpenMs() {
+        calls(4, SLOW);
+        nowMs.addAndGet(5_000);
+        long probe = breaker.tryAcquire();
+
+        breaker.onFailure(probe);
+
+        assertEquals(State.OPEN, breaker.state());
+        nowMs.addAndGet(4_999);
+        assertEquals(RedisCircuitBreaker.DENIED, breaker.tryAcquire());
+        nowMs.addAndGet(1);
+        long nextProbe = breaker.tryAcquire();
+        assertTrue(nextProbe > probe);
+
+        // A prova antiga não decide a nova
+        breaker.onSuccess(probe, FAST);
+        assertEquals(State.HALF_OPEN, breaker.state());
+    }
+
+    @Test
+    void cancelledAsyncProbeReopensInsteadOfStayingHalfOpen() {
+        GuardedRateLimiter limiter = new GuardedRateLimiter(new SilentRedis(), breaker,
+                new PipelineMetrics(new SimpleMeterRegistry()), 5, 60_000);
+        calls(4, SLOW);
+        nowMs.addAndGet(5_000);
+
+        // Montado e nunca inscrito: não toma a vez de prova
+        limiter.checkAsync(RateLimitRequest.of("u1"));
+        assertEquals(State.OPEN, breaker.state());
+
+        Cancellable pending = limiter.checkAsync(RateLimitRequest.of("u1"))
+                .subscribe().with(decision -> { });
+        assertEquals(State.HALF_OPEN, breaker.state());
+
+        pending.cancel();
+
+        assertEquals(State.OPEN, breaker.state());
+        nowMs.addAndGet(5_000);
+        assertTrue(breaker.tryAcquire() > 0);
+    }
+
+    private void calls(int count, long latencyNanos) {
+        for (int i = 0; i < count; i++) {
+            long permit = breaker.tryAcquire();
+            assertEquals(RedisCircuitBreaker.CLOSED_CALL, permit);
+            breaker.onSuccess(permit, latencyNanos);
+        }
+    }
+
+    /** Redis que nunca responde: a chamada só termina por timeout ou cancelamento. */
+    private static final class SilentRedis extends ScriptedRateLimiter {
+
+        SilentRedis() {
+            super(null, "");
+        }
+
+        @Override
+        public Uni<RateLimitDecision> checkAsync(RateLimitRequest request) {
+            return Uni.createFrom().nothing();
+        }
+
+        @Override
+        protected RedisScript.Call call(String userId, long nowMs, String recordKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected List<Request> statusRequests(String userId, long nowMs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected RateLimitStatus status(List<Response> replies, long nowMs) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}